@@ -0,0 +1,99 @@
+package br.ifmg.sd.benchmarks;
+
+import br.ifmg.sd.security.JWTUtil;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import javax.crypto.SecretKey;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Custo de validar o token de uma requisição no ControlServer, que chama
+ * validateSession e depois getUserIdFromToken:
+ *
+ *   parserPerCall  como era antes: um parser novo e a verificação HMAC em
+ *                  cada chamada
+ *   sharedParser   parser único, mas ainda verificando a cada chamada
+ *   cachedClaims   JWTUtil atual, com as claims em cache até a expiração
+ *
+ * As variantes "contended" repetem cachedClaims com 8 threads no mesmo
+ * token, o caso em que um cache com trava global serializaria as leituras.
+ *
+ * Uso: mvn -Pbenchmarks package && java -jar fileserver-benchmarks/target/benchmarks.jar
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JWTValidationBenchmark {
+
+    // Chave e token próprios com o mesmo algoritmo (HS256) do JWTUtil, para
+    // medir o caminho antigo sem expor a chave do JWTUtil
+    private SecretKey key;
+    private JwtParser parser;
+    private String token;
+    private String cachedToken;
+
+    @Setup
+    public void setUp() {
+        key = Keys.hmacShaKeyFor(
+            "chave-apenas-para-benchmark-com-32-bytes-ou-mais".getBytes(StandardCharsets.UTF_8)
+        );
+        parser = Jwts.parser().verifyWith(key).build();
+        Date now = new Date();
+        token = Jwts.builder()
+            .claims()
+            .subject("user-1")
+            .add("email", "user@example.com")
+            .add("username", "user")
+            .and()
+            .issuedAt(now)
+            .expiration(new Date(now.getTime() + 3_600_000))
+            .signWith(key)
+            .compact();
+        cachedToken = JWTUtil.generateToken("user", "user@example.com", "user-1");
+    }
+
+    @Benchmark
+    public void parserPerCall(Blackhole blackhole) {
+        blackhole.consume(Jwts.parser().verifyWith(key).build().parseSignedClaims(token));
+        blackhole.consume(
+            Jwts.parser().verifyWith(key).build().parseSignedClaims(token).getPayload().getSubject()
+        );
+    }
+
+    @Benchmark
+    public void sharedParser(Blackhole blackhole) {
+        blackhole.consume(parser.parseSignedClaims(token));
+        blackhole.consume(parser.parseSignedClaims(token).getPayload().getSubject());
+    }
+
+    @Benchmark
+    public void cachedClaims(Blackhole blackhole) {
+        blackhole.consume(JWTUtil.validateToken(cachedToken));
+        blackhole.consume(JWTUtil.getUserIdFromToken(cachedToken));
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void cachedClaimsContended(Blackhole blackhole) {
+        blackhole.consume(JWTUtil.validateToken(cachedToken));
+        blackhole.consume(JWTUtil.getUserIdFromToken(cachedToken));
+    }
+}
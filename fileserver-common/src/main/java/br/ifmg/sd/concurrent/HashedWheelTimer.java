@@ -0,0 +1,151 @@
+package br.ifmg.sd.concurrent;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Timer de roda (hashed timing wheel) para muitos prazos curtos que quase
+ * sempre são cancelados antes de vencer, como a espera por ACKs. Agendar e
+ * cancelar custam O(1) e uma única thread percorre um balde por tick, em vez
+ * de uma thread parada por prazo. A precisão é de um tick.
+ *
+ * As tarefas rodam na thread do timer e devem ser rápidas.
+ */
+public class HashedWheelTimer {
+
+    private final long tickNanos;
+    private final List<Queue<Timeout>> wheel;
+    // Novos prazos entram na roda pela thread do timer, que sabe em que tick
+    // está; inseridos direto poderiam cair em um balde que acabou de passar
+    private final Queue<Timeout> added = new ConcurrentLinkedQueue<>();
+    private final int mask;
+    private final AtomicInteger pending = new AtomicInteger();
+    private final long startNanos = System.nanoTime();
+    private final Thread worker;
+    private volatile long currentTick;
+    private volatile boolean running = true;
+
+    public HashedWheelTimer(String name, long tick, TimeUnit unit, int ticksPerWheel) {
+        int size = Integer.highestOneBit(Math.max(ticksPerWheel, 2) - 1) << 1;
+        this.tickNanos = unit.toNanos(tick);
+        this.wheel = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            wheel.add(new ConcurrentLinkedQueue<>());
+        }
+        this.mask = size - 1;
+
+        this.worker = new Thread(this::run, name);
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        // Conta a partir do início do timer, não do último tick processado,
+        // para nunca vencer antes do prazo
+        long elapsed = System.nanoTime() - startNanos + unit.toNanos(delay);
+        long deadlineTick = Math.max(currentTick + 1, (elapsed + tickNanos - 1) / tickNanos);
+        Timeout timeout = new Timeout(task, deadlineTick);
+        pending.incrementAndGet();
+        added.add(timeout);
+        return timeout;
+    }
+
+    public int getPending() {
+        return pending.get();
+    }
+
+    public void stop() {
+        running = false;
+        worker.interrupt();
+    }
+
+    private void run() {
+        long tick = 0;
+        while (running) {
+            long deadline = startNanos + (tick + 1) * tickNanos;
+            long sleepNanos = deadline - System.nanoTime();
+            if (sleepNanos > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(sleepNanos);
+                } catch (InterruptedException e) {
+                    if (!running) {
+                        return;
+                    }
+                }
+            }
+            tick++;
+            currentTick = tick;
+            transferAdded(tick);
+            expire(wheel.get((int) (tick & mask)), tick);
+        }
+    }
+
+    private void transferAdded(long tick) {
+        Timeout timeout;
+        while ((timeout = added.poll()) != null) {
+            if (!timeout.cancelled) {
+                long target = Math.max(timeout.deadlineTick, tick);
+                wheel.get((int) (target & mask)).add(timeout);
+            }
+        }
+    }
+
+    private void expire(Queue<Timeout> bucket, long tick) {
+        Iterator<Timeout> it = bucket.iterator();
+        while (it.hasNext()) {
+            Timeout timeout = it.next();
+            if (timeout.cancelled) {
+                it.remove();
+            } else if (timeout.deadlineTick <= tick) {
+                it.remove();
+                if (timeout.fire()) {
+                    pending.decrementAndGet();
+                    try {
+                        timeout.task.run();
+                    } catch (RuntimeException e) {
+                        System.err.println("Erro em tarefa do timer: " + e.getMessage());
+                    }
+                }
+            }
+        }
+    }
+
+    public final class Timeout {
+
+        private final Runnable task;
+        private final long deadlineTick;
+        private volatile boolean cancelled;
+        private boolean fired;
+
+        private Timeout(Runnable task, long deadlineTick) {
+            this.task = task;
+            this.deadlineTick = deadlineTick;
+        }
+
+        /**
+         * Retorna false se a tarefa já rodou ou já tinha sido cancelada.
+         * A entrada sai da roda quando o balde dela é percorrido.
+         */
+        public synchronized boolean cancel() {
+            if (fired || cancelled) {
+                return false;
+            }
+            cancelled = true;
+            pending.decrementAndGet();
+            return true;
+        }
+
+        private synchronized boolean fire() {
+            if (cancelled) {
+                return false;
+            }
+            fired = true;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package br.ifmg.sd.concurrent;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Agrupa chamadas concorrentes idênticas: enquanto uma leitura com a mesma
+ * chave estiver em andamento, as demais esperam por ela e recebem o mesmo
+ * resultado (ou a mesma exceção) em vez de repetir o trabalho. Nada é
+ * guardado depois que a leitura termina; uma chamada posterior faz uma nova
+ * leitura.
+ *
+ * O valor retornado é compartilhado entre as chamadas agrupadas e não deve
+ * ser modificado.
+ */
+public class SingleFlight {
+
+    private final Map<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder executions = new LongAdder();
+    private final LongAdder shared = new LongAdder();
+
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String key, Callable<T> loader) throws Exception {
+        CompletableFuture<Object> own = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, own);
+
+        if (existing != null) {
+            shared.increment();
+            try {
+                return (T) existing.get();
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof Exception) {
+                    throw (Exception) cause;
+                }
+                throw e;
+            }
+        }
+
+        executions.increment();
+        try {
+            T value = loader.call();
+            own.complete(value);
+            return value;
+        } catch (Throwable e) {
+            own.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, own);
+        }
+    }
+
+    public long getExecutions() {
+        return executions.sum();
+    }
+
+    /**
+     * Chamadas atendidas pela leitura de outra.
+     */
+    public long getShared() {
+        return shared.sum();
+    }
+
+    public int getInFlight() {
+        return inFlight.size();
+    }
+}
@@ -0,0 +1,24 @@
+package br.ifmg.sd.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contador monotônico. Usa LongAdder, que distribui os incrementos entre
+ * células por thread e não disputa uma única variável.
+ */
+public class Counter {
+
+    private final LongAdder value = new LongAdder();
+
+    public void inc() {
+        value.increment();
+    }
+
+    public void add(long amount) {
+        value.add(amount);
+    }
+
+    public long get() {
+        return value.sum();
+    }
+}
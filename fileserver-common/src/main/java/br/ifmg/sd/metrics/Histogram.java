@@ -0,0 +1,83 @@
+package br.ifmg.sd.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histograma de latências com faixas fixas, em segundos. Cada faixa é um
+ * LongAdder: registrar uma amostra não usa lock nem aloca memória.
+ */
+public class Histogram {
+
+    /**
+     * De 1 ms a 10 s, cobrindo desde leituras do cache até uploads grandes.
+     */
+    public static final double[] DEFAULT_BOUNDS = {
+        0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10,
+    };
+
+    private final double[] bounds;
+    private final long[] boundsNanos;
+    // Uma posição a mais para as amostras acima do último limite (+Inf)
+    private final LongAdder[] buckets;
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sumNanos = new LongAdder();
+
+    public Histogram() {
+        this(DEFAULT_BOUNDS);
+    }
+
+    public Histogram(double[] bounds) {
+        this.bounds = bounds.clone();
+        this.boundsNanos = new long[bounds.length];
+        for (int i = 0; i < bounds.length; i++) {
+            boundsNanos[i] = (long) (bounds[i] * 1_000_000_000L);
+        }
+        this.buckets = new LongAdder[bounds.length + 1];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    public void observeNanos(long nanos) {
+        int i = 0;
+        while (i < boundsNanos.length && nanos > boundsNanos[i]) {
+            i++;
+        }
+        buckets[i].increment();
+        count.increment();
+        sumNanos.add(nanos);
+    }
+
+    /**
+     * Registra o tempo decorrido desde startNanos (de System.nanoTime()).
+     */
+    public void observeSince(long startNanos) {
+        observeNanos(System.nanoTime() - startNanos);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    double[] getBounds() {
+        return bounds;
+    }
+
+    /**
+     * Contagens acumuladas por faixa, como o formato do Prometheus espera; a
+     * última posição é a faixa +Inf.
+     */
+    long[] cumulativeCounts() {
+        long[] result = new long[buckets.length];
+        long total = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            total += buckets[i].sum();
+            result[i] = total;
+        }
+        return result;
+    }
+
+    double getSumSeconds() {
+        return sumNanos.sum() / 1e9;
+    }
+}
@@ -0,0 +1,208 @@
+package br.ifmg.sd.metrics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Métricas do processo, exportadas no formato texto do Prometheus. Cada
+ * métrica é identificada pelo nome e pelos valores dos rótulos; a busca é
+ * feita em ConcurrentHashMap, sem lock, e o registro em si usa os
+ * contadores e histogramas sem lock de {@link Counter} e {@link Histogram}.
+ *
+ * Uso:
+ *   registry.counter("gateway_http_requests_total", "Requisições HTTP", "route", route).inc();
+ *   registry.histogram("gateway_http_request_duration_seconds", "...", "route", route)
+ *       .observeSince(start);
+ */
+public class MetricsRegistry {
+
+    private static final MetricsRegistry DEFAULT = new MetricsRegistry();
+
+    private enum Type {
+        COUNTER,
+        GAUGE,
+        HISTOGRAM,
+    }
+
+    private static final class Family {
+
+        final String help;
+        final Type type;
+        // Rótulos já formatados ({route="/x"}) -> métrica
+        final Map<String, Object> series = new ConcurrentHashMap<>();
+
+        Family(String help, Type type) {
+            this.help = help;
+            this.type = type;
+        }
+    }
+
+    private final Map<String, Family> families = new ConcurrentHashMap<>();
+
+    /**
+     * Registro compartilhado pelos componentes do processo.
+     */
+    public static MetricsRegistry getDefault() {
+        return DEFAULT;
+    }
+
+    public Counter counter(String name, String help, String... labels) {
+        return (Counter) series(name, help, Type.COUNTER, labels, key -> new Counter());
+    }
+
+    public Histogram histogram(String name, String help, String... labels) {
+        return (Histogram) series(name, help, Type.HISTOGRAM, labels, key -> new Histogram());
+    }
+
+    /**
+     * Valor lido no momento da exportação, para estados que já são
+     * contados em outro lugar (tamanho do cache, requisições em andamento).
+     */
+    public void gauge(String name, String help, Supplier<? extends Number> value, String... labels) {
+        family(name, help, Type.GAUGE).series.put(formatLabels(labels), value);
+    }
+
+    /**
+     * Contador mantido por outro componente (LongAdder próprio), lido no
+     * momento da exportação.
+     */
+    public void counterFunction(String name, String help, Supplier<? extends Number> value, String... labels) {
+        family(name, help, Type.COUNTER).series.put(formatLabels(labels), value);
+    }
+
+    public void writeTo(Writer out) throws IOException {
+        StringBuilder text = new StringBuilder(4096);
+        for (Map.Entry<String, Family> entry : new TreeMap<>(families).entrySet()) {
+            String name = entry.getKey();
+            Family family = entry.getValue();
+
+            text.append("# HELP ").append(name).append(' ').append(family.help).append('\n');
+            text.append("# TYPE ").append(name).append(' ')
+                .append(family.type.name().toLowerCase(Locale.ROOT)).append('\n');
+
+            for (Map.Entry<String, Object> series : new TreeMap<>(family.series).entrySet()) {
+                String labels = series.getKey();
+                Object metric = series.getValue();
+                if (metric instanceof Counter) {
+                    sample(text, name, labels, ((Counter) metric).get());
+                } else if (metric instanceof Histogram) {
+                    writeHistogram(text, name, labels, (Histogram) metric);
+                } else {
+                    // Gauge ou contador lido de outro componente
+                    sample(text, name, labels, readSupplier(metric));
+                }
+            }
+            out.write(text.toString());
+            text.setLength(0);
+        }
+        out.flush();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Number readSupplier(Object metric) {
+        Number value = ((Supplier<? extends Number>) metric).get();
+        return value != null ? value : 0;
+    }
+
+    private Object series(
+        String name,
+        String help,
+        Type type,
+        String[] labels,
+        Function<String, Object> factory
+    ) {
+        Family family = family(name, help, type);
+        String key = formatLabels(labels);
+        Object metric = family.series.get(key);
+        if (metric == null) {
+            metric = family.series.computeIfAbsent(key, factory);
+        }
+        return metric;
+    }
+
+    private Family family(String name, String help, Type type) {
+        Family family = families.get(name);
+        if (family == null) {
+            family = families.computeIfAbsent(name, n -> new Family(help, type));
+        }
+        if (family.type != type) {
+            throw new IllegalArgumentException(
+                "Métrica " + name + " já registrada como " + family.type
+            );
+        }
+        return family;
+    }
+
+    private static void writeHistogram(
+        StringBuilder text,
+        String name,
+        String labels,
+        Histogram histogram
+    ) {
+        double[] bounds = histogram.getBounds();
+        long[] cumulative = histogram.cumulativeCounts();
+        for (int i = 0; i < cumulative.length; i++) {
+            String le = i < bounds.length ? Double.toString(bounds[i]) : "+Inf";
+            sample(text, name + "_bucket", withLabel(labels, "le", le), cumulative[i]);
+        }
+        sample(text, name + "_sum", labels, histogram.getSumSeconds());
+        // _count igual à faixa +Inf, lida no mesmo instante que as demais
+        sample(text, name + "_count", labels, cumulative[cumulative.length - 1]);
+    }
+
+    private static void sample(StringBuilder text, String name, String labels, Number value) {
+        text.append(name).append(labels).append(' ');
+        if (value instanceof Double || value instanceof Float) {
+            text.append(value.doubleValue());
+        } else {
+            text.append(value.longValue());
+        }
+        text.append('\n');
+    }
+
+    private static String withLabel(String labels, String name, String value) {
+        String label = name + "=\"" + value + "\"";
+        if (labels.isEmpty()) {
+            return "{" + label + "}";
+        }
+        return labels.substring(0, labels.length() - 1) + "," + label + "}";
+    }
+
+    /**
+     * Pares nome, valor -> {nome="valor",...}, com os valores escapados.
+     */
+    private static String formatLabels(String[] labels) {
+        if (labels.length == 0) {
+            return "";
+        }
+        if (labels.length % 2 != 0) {
+            throw new IllegalArgumentException("Rótulos devem vir em pares nome, valor");
+        }
+        StringBuilder text = new StringBuilder("{");
+        for (int i = 0; i < labels.length; i += 2) {
+            if (i > 0) {
+                text.append(',');
+            }
+            text.append(labels[i]).append("=\"");
+            String value = labels[i + 1] != null ? labels[i + 1] : "";
+            for (int j = 0; j < value.length(); j++) {
+                char c = value.charAt(j);
+                if (c == '\\' || c == '"') {
+                    text.append('\\').append(c);
+                } else if (c == '\n') {
+                    text.append("\\n");
+                } else {
+                    text.append(c);
+                }
+            }
+            text.append('"');
+        }
+        return text.append('}').toString();
+    }
+}
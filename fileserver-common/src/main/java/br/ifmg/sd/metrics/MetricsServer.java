@@ -0,0 +1,72 @@
+package br.ifmg.sd.metrics;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Servidor HTTP mínimo que expõe GET /metrics, para os processos que não
+ * têm servidor HTTP próprio (servidores de controle e de dados). Ativado
+ * com -Dmetrics.port=PORTA.
+ */
+public class MetricsServer {
+
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final HttpServer server;
+
+    private MetricsServer(HttpServer server) {
+        this.server = server;
+    }
+
+    /**
+     * Inicia o exportador se metrics.port estiver definida; caso contrário
+     * retorna null.
+     */
+    public static MetricsServer startFromSystemProperties(MetricsRegistry registry) {
+        Integer port = Integer.getInteger("metrics.port");
+        if (port == null) {
+            return null;
+        }
+        try {
+            HttpServer server = HttpServer.create(new InetSocketAddress(port), 0);
+            server.createContext("/metrics", exchange -> handle(exchange, registry));
+            server.start();
+            System.out.println("Métricas disponíveis em http://localhost:" + port + "/metrics");
+            return new MetricsServer(server);
+        } catch (IOException e) {
+            System.err.println("Erro ao iniciar servidor de métricas: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Responde com o texto das métricas; também usado pelo /metrics do
+     * gateway.
+     */
+    public static void handle(HttpExchange exchange, MetricsRegistry registry)
+        throws IOException {
+        if (!"GET".equals(exchange.getRequestMethod())) {
+            exchange.sendResponseHeaders(405, -1);
+            exchange.close();
+            return;
+        }
+        exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+        exchange.sendResponseHeaders(200, 0);
+        try (
+            OutputStream body = exchange.getResponseBody();
+            Writer writer = new OutputStreamWriter(body, StandardCharsets.UTF_8)
+        ) {
+            registry.writeTo(writer);
+        }
+    }
+
+    public void stop() {
+        server.stop(0);
+    }
+}
@@ -0,0 +1,108 @@
+package br.ifmg.sd.metrics;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Contagem, erros, latência e bytes de conteúdo por método remoto. Os
+ * nomes das métricas recebem o prefixo informado (gateway_rpc, control_rpc,
+ * data_rmi):
+ *
+ *   PREFIXO_requests_total{method}     chamadas
+ *   PREFIXO_errors_total{method}       chamadas que lançaram exceção
+ *   PREFIXO_duration_seconds{method}   histograma de latência
+ *   PREFIXO_arg_bytes_total{method}    bytes de conteúdo (byte[]) nos argumentos
+ *   PREFIXO_result_bytes_total{method} bytes de conteúdo (byte[]) no retorno
+ *
+ * Serve tanto para o lado que recebe as chamadas quanto para o que as faz.
+ */
+public class RpcMetrics {
+
+    private static final class MethodMetrics {
+
+        final Counter requests;
+        final Counter errors;
+        final Histogram duration;
+        final Counter argBytes;
+        final Counter resultBytes;
+
+        MethodMetrics(MetricsRegistry registry, String prefix, String method) {
+            requests = registry.counter(prefix + "_requests_total", "Chamadas", "method", method);
+            errors = registry.counter(prefix + "_errors_total", "Chamadas que terminaram em exceção", "method", method);
+            duration = registry.histogram(prefix + "_duration_seconds", "Latência das chamadas", "method", method);
+            argBytes = registry.counter(prefix + "_arg_bytes_total", "Bytes de conteúdo nos argumentos", "method", method);
+            resultBytes = registry.counter(prefix + "_result_bytes_total", "Bytes de conteúdo no retorno", "method", method);
+        }
+    }
+
+    private final MetricsRegistry registry;
+    private final String prefix;
+    private final Map<String, MethodMetrics> methods = new ConcurrentHashMap<>();
+
+    public RpcMetrics(MetricsRegistry registry, String prefix) {
+        this.registry = registry;
+        this.prefix = prefix;
+    }
+
+    /**
+     * Registra uma chamada iniciada em startNanos (de System.nanoTime()).
+     */
+    public void record(
+        String method,
+        long startNanos,
+        boolean failed,
+        Object[] args,
+        Object result
+    ) {
+        MethodMetrics metrics = methods.get(method);
+        if (metrics == null) {
+            metrics = methods.computeIfAbsent(
+                method,
+                name -> new MethodMetrics(registry, prefix, name)
+            );
+        }
+
+        metrics.duration.observeSince(startNanos);
+        metrics.requests.inc();
+        if (failed) {
+            metrics.errors.inc();
+        }
+        if (args != null) {
+            for (Object arg : args) {
+                if (arg instanceof byte[]) {
+                    metrics.argBytes.add(((byte[]) arg).length);
+                }
+            }
+        }
+        if (result instanceof byte[]) {
+            metrics.resultBytes.add(((byte[]) result).length);
+        }
+    }
+
+    /**
+     * Envolve target em um proxy da interface que registra cada chamada.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T instrument(Class<T> iface, T target) {
+        return (T) Proxy.newProxyInstance(
+            iface.getClassLoader(),
+            new Class<?>[] { iface },
+            (proxy, method, args) -> {
+                if (method.getDeclaringClass() == Object.class) {
+                    return method.invoke(target, args);
+                }
+                long start = System.nanoTime();
+                try {
+                    Object result = method.invoke(target, args);
+                    record(method.getName(), start, false, args, result);
+                    return result;
+                } catch (InvocationTargetException e) {
+                    record(method.getName(), start, true, args, null);
+                    throw e.getCause();
+                }
+            }
+        );
+    }
+}
@@ -0,0 +1,44 @@
+package br.ifmg.sd.models;
+
+import java.io.Serializable;
+
+/**
+ * Uma operação dentro de um lote enviado por /api/files/batch.
+ */
+public class BatchOperation implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public enum OperationType {
+        UPLOAD,
+        DELETE,
+        DOWNLOAD,
+    }
+
+    private final OperationType type;
+    private final String fileName;
+    private final byte[] content;
+
+    public BatchOperation(OperationType type, String fileName, byte[] content) {
+        this.type = type;
+        this.fileName = fileName;
+        this.content = content;
+    }
+
+    public OperationType getType() {
+        return type;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public byte[] getContent() {
+        return content;
+    }
+
+    @Override
+    public String toString() {
+        return "BatchOperation [type=" + type + ", fileName=" + fileName + "]";
+    }
+}
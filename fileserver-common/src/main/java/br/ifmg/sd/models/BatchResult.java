@@ -0,0 +1,98 @@
+package br.ifmg.sd.models;
+
+import java.io.Serializable;
+
+/**
+ * Resultado de uma operação do lote, na mesma posição da operação original.
+ * Downloads bem-sucedidos trazem o conteúdo. Uma escrita gravada no
+ * coordenador cuja replicação não atingiu a consistência continua com
+ * success, mas com replicated false.
+ */
+public class BatchResult implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final BatchOperation.OperationType type;
+    private final String fileName;
+    private final boolean success;
+    private final String message;
+    private final byte[] content;
+    private final boolean replicated;
+
+    public BatchResult(
+        BatchOperation.OperationType type,
+        String fileName,
+        boolean success,
+        String message,
+        byte[] content
+    ) {
+        this(type, fileName, success, message, content, true);
+    }
+
+    public BatchResult(
+        BatchOperation.OperationType type,
+        String fileName,
+        boolean success,
+        String message,
+        byte[] content,
+        boolean replicated
+    ) {
+        this.type = type;
+        this.fileName = fileName;
+        this.success = success;
+        this.message = message;
+        this.content = content;
+        this.replicated = replicated;
+    }
+
+    public static BatchResult ok(BatchOperation operation, byte[] content) {
+        return new BatchResult(
+            operation.getType(),
+            operation.getFileName(),
+            true,
+            null,
+            content
+        );
+    }
+
+    public static BatchResult failed(BatchOperation operation, String message) {
+        return new BatchResult(
+            operation.getType(),
+            operation.getFileName(),
+            false,
+            message,
+            null
+        );
+    }
+
+    /**
+     * Cópia marcando que a escrita não chegou às réplicas exigidas.
+     */
+    public BatchResult unreplicated(String message) {
+        return new BatchResult(type, fileName, success, message, content, false);
+    }
+
+    public BatchOperation.OperationType getType() {
+        return type;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public boolean isSuccess() {
+        return success;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public byte[] getContent() {
+        return content;
+    }
+
+    public boolean isReplicated() {
+        return replicated;
+    }
+}
@@ -0,0 +1,38 @@
+package br.ifmg.sd.models;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Resposta de uma consulta ao feed de alterações: as alterações após o
+ * cursor e o cursor para a próxima consulta. Com reset, o cursor informado
+ * não pode mais ser atendido (alterações já descartadas ou cursor de outro
+ * histórico) e o cliente deve reler a listagem completa antes de continuar
+ * a partir do novo cursor.
+ */
+public class ChangeFeedPage implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final List<FileChange> changes;
+    private final long cursor;
+    private final boolean reset;
+
+    public ChangeFeedPage(List<FileChange> changes, long cursor, boolean reset) {
+        this.changes = changes;
+        this.cursor = cursor;
+        this.reset = reset;
+    }
+
+    public List<FileChange> getChanges() {
+        return changes;
+    }
+
+    public long getCursor() {
+        return cursor;
+    }
+
+    public boolean isReset() {
+        return reset;
+    }
+}
@@ -0,0 +1,81 @@
+package br.ifmg.sd.models;
+
+import java.io.Serializable;
+
+/**
+ * Pedido do coordenador a outro DataServer pelo conteúdo de um arquivo que
+ * ele não guarda localmente. length negativo pede o arquivo inteiro.
+ */
+public class ContentRequest implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String requestId;
+    private final String userId;
+    private final String fileName;
+    private final long offset;
+    private final int length;
+    // Versão esperada (updated_at); 0 aceita qualquer uma
+    private final long expectedUpdatedAt;
+
+    public ContentRequest(
+        String requestId,
+        String userId,
+        String fileName,
+        long offset,
+        int length,
+        long expectedUpdatedAt
+    ) {
+        this.requestId = requestId;
+        this.userId = userId;
+        this.fileName = fileName;
+        this.offset = offset;
+        this.length = length;
+        this.expectedUpdatedAt = expectedUpdatedAt;
+    }
+
+    public String getRequestId() {
+        return requestId;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    public long getExpectedUpdatedAt() {
+        return expectedUpdatedAt;
+    }
+
+    @Override
+    public String toString() {
+        return (
+            "ContentRequest{" +
+            "requestId='" +
+            requestId +
+            '\'' +
+            ", userId='" +
+            userId +
+            '\'' +
+            ", fileName='" +
+            fileName +
+            '\'' +
+            ", offset=" +
+            offset +
+            ", length=" +
+            length +
+            '}'
+        );
+    }
+}
@@ -0,0 +1,47 @@
+package br.ifmg.sd.models;
+
+import java.io.Serializable;
+
+/**
+ * Resposta a um {@link ContentRequest}. content é null quando o servidor
+ * não tem o arquivo na versão pedida.
+ */
+public class ContentResponse implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String requestId;
+    private final byte[] content;
+
+    public ContentResponse(String requestId, byte[] content) {
+        this.requestId = requestId;
+        this.content = content;
+    }
+
+    public String getRequestId() {
+        return requestId;
+    }
+
+    public byte[] getContent() {
+        return content;
+    }
+
+    public boolean isFound() {
+        return content != null;
+    }
+
+    @Override
+    public String toString() {
+        return (
+            "ContentResponse{" +
+            "requestId='" +
+            requestId +
+            '\'' +
+            ", found=" +
+            isFound() +
+            ", contentSize=" +
+            (content != null ? content.length : 0) +
+            '}'
+        );
+    }
+}
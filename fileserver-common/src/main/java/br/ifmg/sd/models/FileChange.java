@@ -0,0 +1,75 @@
+package br.ifmg.sd.models;
+
+import java.io.Serializable;
+
+/**
+ * Entrada do feed de alterações de arquivos de um usuário. O seq é global e
+ * crescente no data-cluster e serve de cursor para retomar o feed.
+ */
+public class FileChange implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public enum ChangeType {
+        SAVE,
+        EDIT,
+        DELETE,
+    }
+
+    private long seq;
+    private String userId;
+    private String fileName;
+    private ChangeType type;
+    private long updatedAt;
+    private long changedAt;
+
+    public FileChange() {}
+
+    public FileChange(
+        long seq,
+        String userId,
+        String fileName,
+        ChangeType type,
+        long updatedAt,
+        long changedAt
+    ) {
+        this.seq = seq;
+        this.userId = userId;
+        this.fileName = fileName;
+        this.type = type;
+        this.updatedAt = updatedAt;
+        this.changedAt = changedAt;
+    }
+
+    public long getSeq() {
+        return seq;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public ChangeType getType() {
+        return type;
+    }
+
+    /**
+     * updatedAt do arquivo após a alteração (0 em deleções).
+     */
+    public long getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public long getChangedAt() {
+        return changedAt;
+    }
+
+    @Override
+    public String toString() {
+        return "FileChange [seq=" + seq + ", userId=" + userId + ", fileName=" + fileName + ", type=" + type + "]";
+    }
+}
@@ -0,0 +1,49 @@
+package br.ifmg.sd.models;
+
+import java.io.Serializable;
+
+/**
+ * Bloco do conteúdo de uma replicação grande, enviado antes da
+ * {@link FileReplication} marcada como streamed com o mesmo operationId.
+ */
+public class FileChunk implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String operationId;
+    private final long offset;
+    private final byte[] content;
+
+    public FileChunk(String operationId, long offset, byte[] content) {
+        this.operationId = operationId;
+        this.offset = offset;
+        this.content = content;
+    }
+
+    public String getOperationId() {
+        return operationId;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    public byte[] getContent() {
+        return content;
+    }
+
+    @Override
+    public String toString() {
+        return (
+            "FileChunk{" +
+            "operationId='" +
+            operationId +
+            '\'' +
+            ", offset=" +
+            offset +
+            ", size=" +
+            content.length +
+            '}'
+        );
+    }
+}
@@ -0,0 +1,95 @@
+package br.ifmg.sd.models;
+
+import java.io.Serializable;
+
+/**
+ * Aviso multicast no control-cluster de que um arquivo mudou ou foi
+ * removido. Os gateways descartam as cópias que mantêm em cache.
+ * Com fileName nulo vale para todos os arquivos do usuário.
+ * changeSeq é o seq do feed de alterações já gravado no coordenador quando o
+ * aviso saiu (0 quando não se sabe); os ControlServers o usam para saber
+ * quais réplicas de leitura já têm a alteração.
+ */
+public class FileInvalidation implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private String userId;
+    private String fileName;
+    private InvalidationType type;
+    private long changeSeq;
+
+    public enum InvalidationType {
+        UPDATE,
+        DELETE,
+    }
+
+    public FileInvalidation() {}
+
+    public FileInvalidation(
+        String userId,
+        String fileName,
+        InvalidationType type
+    ) {
+        this.userId = userId;
+        this.fileName = fileName;
+        this.type = type;
+    }
+
+    public FileInvalidation(
+        String userId,
+        String fileName,
+        InvalidationType type,
+        long changeSeq
+    ) {
+        this(userId, fileName, type);
+        this.changeSeq = changeSeq;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public InvalidationType getType() {
+        return type;
+    }
+
+    public long getChangeSeq() {
+        return changeSeq;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    public void setFileName(String fileName) {
+        this.fileName = fileName;
+    }
+
+    public void setType(InvalidationType type) {
+        this.type = type;
+    }
+
+    public void setChangeSeq(long changeSeq) {
+        this.changeSeq = changeSeq;
+    }
+
+    @Override
+    public String toString() {
+        return (
+            "FileInvalidation [userId=" +
+            userId +
+            ", fileName=" +
+            fileName +
+            ", type=" +
+            type +
+            ", changeSeq=" +
+            changeSeq +
+            "]"
+        );
+    }
+}
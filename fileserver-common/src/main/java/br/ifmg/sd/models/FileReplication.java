@@ -1,7 +1,6 @@
 package br.ifmg.sd.models;
 
 import java.io.Serializable;
-import java.util.Arrays;
 
 /**
  * Mensagem para replicação de arquivos via JGroups entre DataServers.
@@ -26,6 +25,13 @@ public class FileReplication implements Serializable {
     private final String diskPath;
     private final long createdAt;
     private final long updatedAt;
+    // Posição no feed de alterações, atribuída pelo coordenador (0 se ausente)
+    private long changeSeq;
+    // Enviada a quem não guarda o arquivo: só os metadados, sem conteúdo
+    private final boolean metadataOnly;
+    private final long fileSize;
+    // Conteúdo enviado antes, em mensagens FileChunk com o mesmo operationId
+    private final boolean streamed;
 
     public FileReplication(
         String userId,
@@ -47,6 +53,123 @@ public class FileReplication implements Serializable {
         this.diskPath = diskPath;
         this.createdAt = createdAt;
         this.updatedAt = updatedAt;
+        this.metadataOnly = false;
+        this.fileSize = content != null ? content.length : 0;
+        this.streamed = false;
+    }
+
+    /**
+     * Reconstrói uma replicação recebida do cluster, mantendo o id e o
+     * timestamp atribuídos pelo coordenador.
+     */
+    public FileReplication(
+        String operationId,
+        String userId,
+        String userName,
+        String fileName,
+        byte[] content,
+        OperationType operation,
+        long timestamp,
+        String diskPath,
+        long createdAt,
+        long updatedAt,
+        long changeSeq,
+        boolean metadataOnly,
+        long fileSize
+    ) {
+        this(
+            operationId,
+            userId,
+            userName,
+            fileName,
+            content,
+            operation,
+            timestamp,
+            diskPath,
+            createdAt,
+            updatedAt,
+            changeSeq,
+            metadataOnly,
+            fileSize,
+            false
+        );
+    }
+
+    public FileReplication(
+        String operationId,
+        String userId,
+        String userName,
+        String fileName,
+        byte[] content,
+        OperationType operation,
+        long timestamp,
+        String diskPath,
+        long createdAt,
+        long updatedAt,
+        long changeSeq,
+        boolean metadataOnly,
+        long fileSize,
+        boolean streamed
+    ) {
+        this.operationId = operationId;
+        this.userId = userId;
+        this.userName = userName;
+        this.fileName = fileName;
+        this.content = content;
+        this.operation = operation;
+        this.timestamp = timestamp;
+        this.diskPath = diskPath;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+        this.changeSeq = changeSeq;
+        this.metadataOnly = metadataOnly;
+        this.fileSize = fileSize;
+        this.streamed = streamed;
+    }
+
+    /**
+     * Cópia sem o conteúdo, para os membros que não estão entre os donos do
+     * arquivo no anel de posicionamento.
+     */
+    public FileReplication withoutContent() {
+        return new FileReplication(
+            operationId,
+            userId,
+            userName,
+            fileName,
+            null,
+            operation,
+            timestamp,
+            diskPath,
+            createdAt,
+            updatedAt,
+            changeSeq,
+            true,
+            fileSize
+        );
+    }
+
+    /**
+     * Cópia cujo conteúdo, de fileSize bytes, segue em blocos
+     * {@link FileChunk} em vez de ir na própria mensagem.
+     */
+    public FileReplication withStreamedContent(long fileSize) {
+        return new FileReplication(
+            operationId,
+            userId,
+            userName,
+            fileName,
+            null,
+            operation,
+            timestamp,
+            diskPath,
+            createdAt,
+            updatedAt,
+            changeSeq,
+            false,
+            fileSize,
+            true
+        );
     }
 
     public String getOperationId() {
@@ -89,6 +212,26 @@ public class FileReplication implements Serializable {
         return diskPath;
     }
 
+    public long getChangeSeq() {
+        return changeSeq;
+    }
+
+    public boolean isMetadataOnly() {
+        return metadataOnly;
+    }
+
+    public long getFileSize() {
+        return fileSize;
+    }
+
+    public boolean isStreamed() {
+        return streamed;
+    }
+
+    public void setChangeSeq(long changeSeq) {
+        this.changeSeq = changeSeq;
+    }
+
     @Override
     public String toString() {
         return (
@@ -106,6 +249,8 @@ public class FileReplication implements Serializable {
             operation +
             ", contentSize=" +
             (content != null ? content.length : 0) +
+            (metadataOnly ? ", metadataOnly" : "") +
+            (streamed ? ", streamed, fileSize=" + fileSize : "") +
             ", diskPath='" +
             diskPath +
             '\'' +
@@ -0,0 +1,45 @@
+package br.ifmg.sd.models;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Várias replicações de arquivo em uma única mensagem multicast, confirmadas
+ * por um único ACK de cada réplica.
+ */
+public class FileReplicationBatch implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String operationId;
+    private final List<FileReplication> replications;
+
+    public FileReplicationBatch(List<FileReplication> replications) {
+        this.operationId = java.util.UUID.randomUUID().toString();
+        this.replications = replications;
+    }
+
+    public FileReplicationBatch(String operationId, List<FileReplication> replications) {
+        this.operationId = operationId;
+        this.replications = replications;
+    }
+
+    public String getOperationId() {
+        return operationId;
+    }
+
+    public List<FileReplication> getReplications() {
+        return replications;
+    }
+
+    @Override
+    public String toString() {
+        return (
+            "FileReplicationBatch [operationId=" +
+            operationId +
+            ", operations=" +
+            replications.size() +
+            "]"
+        );
+    }
+}
@@ -0,0 +1,96 @@
+package br.ifmg.sd.models;
+
+import java.io.Serializable;
+
+/**
+ * Resposta do ControlServer a um pedido de transferência direta: o ticket
+ * assinado e o endereço do servidor de dados que o aceita.
+ */
+public class TransferGrant implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private String ticket;
+    private String host;
+    private int port;
+    private String userId;
+    private long version;
+    private long expiresAt;
+
+    public TransferGrant() {}
+
+    public TransferGrant(
+        String ticket,
+        String host,
+        int port,
+        String userId,
+        long version,
+        long expiresAt
+    ) {
+        this.ticket = ticket;
+        this.host = host;
+        this.port = port;
+        this.userId = userId;
+        this.version = version;
+        this.expiresAt = expiresAt;
+    }
+
+    public String getTicket() {
+        return ticket;
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    /**
+     * Dono do arquivo transferido.
+     */
+    public String getUserId() {
+        return userId;
+    }
+
+    /**
+     * updatedAt do arquivo fixado no ticket de download (0 para uploads).
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    public long getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setTicket(String ticket) {
+        this.ticket = ticket;
+    }
+
+    public void setHost(String host) {
+        this.host = host;
+    }
+
+    public void setPort(int port) {
+        this.port = port;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    public void setExpiresAt(long expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+    @Override
+    public String toString() {
+        return "TransferGrant [host=" + host + ", port=" + port + ", userId=" + userId + "]";
+    }
+}
@@ -30,6 +30,24 @@ public class UserReplication implements Serializable {
         this.timestamp = System.currentTimeMillis();
     }
 
+    public UserReplication(
+        String operationId,
+        String userId,
+        String name,
+        String password,
+        String email,
+        long createdAt,
+        long timestamp
+    ) {
+        this.operationId = operationId;
+        this.userId = userId;
+        this.name = name;
+        this.password = password;
+        this.email = email;
+        this.createdAt = createdAt;
+        this.timestamp = timestamp;
+    }
+
     public String getOperationId() {
         return operationId;
     }
@@ -0,0 +1,44 @@
+package br.ifmg.sd.models;
+
+/**
+ * Quantas cópias de uma escrita precisam estar gravadas para que ela seja
+ * confirmada ao cliente. A cópia do coordenador de dados conta como uma:
+ * ONE responde assim que o coordenador grava, QUORUM espera a maioria das
+ * cópias do cluster e ALL espera todas. As réplicas que faltam continuam
+ * sendo acompanhadas em segundo plano até o prazo da replicação.
+ */
+public enum WriteConsistency {
+    ONE,
+    QUORUM,
+    ALL;
+
+    /**
+     * Lê o nível de uma configuração, sem diferenciar maiúsculas. Um valor
+     * desconhecido gera IllegalArgumentException com os valores aceitos.
+     */
+    public static WriteConsistency parse(String property, String value) {
+        for (WriteConsistency consistency : values()) {
+            if (consistency.name().equalsIgnoreCase(value.trim())) {
+                return consistency;
+            }
+        }
+        throw new IllegalArgumentException(
+            "Valor inválido para " + property + ": '" + value + "' (use ONE, QUORUM ou ALL)"
+        );
+    }
+
+    /**
+     * ACKs de réplicas necessários com o coordenador mais replicas membros.
+     */
+    public int requiredAcks(int replicas) {
+        switch (this) {
+            case ONE:
+                return 0;
+            case QUORUM:
+                // Maioria de replicas + 1 cópias, menos a do coordenador
+                return (replicas + 1) / 2;
+            default:
+                return replicas;
+        }
+    }
+}
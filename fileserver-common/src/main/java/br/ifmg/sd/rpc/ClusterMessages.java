@@ -0,0 +1,484 @@
+package br.ifmg.sd.rpc;
+
+import br.ifmg.sd.models.ContentRequest;
+import br.ifmg.sd.models.ContentResponse;
+import br.ifmg.sd.models.FileChunk;
+import br.ifmg.sd.models.FileInvalidation;
+import br.ifmg.sd.models.FileReplication;
+import br.ifmg.sd.models.FileReplicationBatch;
+import br.ifmg.sd.models.ReplicationAck;
+import br.ifmg.sd.models.Session;
+import br.ifmg.sd.models.SessionUpdate;
+import br.ifmg.sd.models.UserReplication;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Supplier;
+import org.jgroups.Address;
+import org.jgroups.BytesMessage;
+import org.jgroups.CompositeMessage;
+import org.jgroups.Header;
+import org.jgroups.Message;
+import org.jgroups.conf.ClassConfigurator;
+
+/**
+ * Formato binário das mensagens multicast dos clusters, no lugar da
+ * serialização Java. Os campos vão em um cabeçalho JGroups
+ * ({@link WireHeader}): byte tipo, byte versão e os campos na ordem fixa de
+ * cada tipo, com strings como int tamanho (-1 para null) + UTF-8.
+ *
+ * O conteúdo dos arquivos não passa pelo cabeçalho: é o próprio payload da
+ * {@link BytesMessage} (array, offset e tamanho), que o JGroups envia e
+ * fragmenta sem copiar. Um lote vai numa {@link CompositeMessage} com uma
+ * BytesMessage por conteúdo, na ordem das replicações, e o tamanho de cada
+ * um no cabeçalho; até a versão 3 os conteúdos iam concatenados num único
+ * payload, formato que ainda é lido.
+ *
+ * Arquivos grandes vão em vários {@link FileChunk}, um bloco por mensagem,
+ * seguidos da replicação marcada como streamed.
+ *
+ * Mensagens sem o cabeçalho (ObjectMessage de um servidor na versão
+ * anterior) ainda são aceitas por {@link #fromMessage}, assim como as
+ * replicações nas versões 1 e 2, sem os campos de posicionamento ou sem a
+ * marca de conteúdo em blocos, e as invalidações até a versão 4, sem o seq
+ * do feed de alterações (lido como 0). Enumerações com um valor desconhecido são
+ * recusadas com IOException.
+ */
+public final class ClusterMessages {
+
+    public static final byte VERSION = 5;
+
+    // Ids fora das faixas usadas pelos protocolos e cabeçalhos do JGroups
+    private static final short HEADER_ID = 2100;
+    private static final short MAGIC_ID = 2100;
+
+    private static final byte FILE_REPLICATION = 1;
+    private static final byte FILE_REPLICATION_BATCH = 2;
+    private static final byte USER_REPLICATION = 3;
+    private static final byte REPLICATION_ACK = 4;
+    private static final byte SESSION_UPDATE = 5;
+    private static final byte FILE_INVALIDATION = 6;
+    private static final byte CONTENT_REQUEST = 7;
+    private static final byte CONTENT_RESPONSE = 8;
+    private static final byte FILE_CHUNK = 9;
+
+    private ClusterMessages() {}
+
+    /**
+     * Registra o cabeçalho no JGroups. Deve ser chamado antes de conectar o
+     * canal: o cabeçalho é lido na camada de transporte, antes de a
+     * mensagem chegar ao receiver.
+     */
+    public static void register() {
+        ClassConfigurator.addIfAbsent(MAGIC_ID, WireHeader.class);
+    }
+
+    public static Message toMessage(Address dest, Object payload) throws IOException {
+        register();
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(128);
+        DataOutputStream out = new DataOutputStream(buffer);
+        Message msg;
+
+        if (payload instanceof FileReplication) {
+            FileReplication replication = (FileReplication) payload;
+            out.writeByte(FILE_REPLICATION);
+            out.writeByte(VERSION);
+            writeReplication(out, replication);
+            byte[] content = replication.getContent();
+            msg = content != null
+                ? new BytesMessage(dest, content, 0, content.length)
+                : new BytesMessage(dest);
+        } else if (payload instanceof FileReplicationBatch) {
+            FileReplicationBatch batch = (FileReplicationBatch) payload;
+            out.writeByte(FILE_REPLICATION_BATCH);
+            out.writeByte(VERSION);
+            writeString(out, batch.getOperationId());
+            out.writeInt(batch.getReplications().size());
+            CompositeMessage contents = new CompositeMessage(dest);
+            for (FileReplication replication : batch.getReplications()) {
+                writeReplication(out, replication);
+                byte[] content = replication.getContent();
+                if (content != null) {
+                    contents.add(new BytesMessage(dest, content, 0, content.length));
+                }
+            }
+            msg = contents;
+        } else if (payload instanceof UserReplication) {
+            UserReplication replication = (UserReplication) payload;
+            out.writeByte(USER_REPLICATION);
+            out.writeByte(VERSION);
+            writeString(out, replication.getOperationId());
+            writeString(out, replication.getUserId());
+            writeString(out, replication.getName());
+            writeString(out, replication.getPassword());
+            writeString(out, replication.getEmail());
+            out.writeLong(replication.getCreatedAt());
+            out.writeLong(replication.getTimestamp());
+            msg = new BytesMessage(dest);
+        } else if (payload instanceof ReplicationAck) {
+            ReplicationAck ack = (ReplicationAck) payload;
+            out.writeByte(REPLICATION_ACK);
+            out.writeByte(VERSION);
+            writeString(out, ack.getOperationId());
+            writeString(out, ack.getSenderId());
+            out.writeBoolean(ack.isSuccess());
+            writeString(out, ack.getErrorMessage());
+            msg = new BytesMessage(dest);
+        } else if (payload instanceof SessionUpdate) {
+            SessionUpdate update = (SessionUpdate) payload;
+            out.writeByte(SESSION_UPDATE);
+            out.writeByte(VERSION);
+            writeString(out, update.getToken());
+            out.writeByte(update.getType().ordinal());
+            Session session = update.getSession();
+            out.writeBoolean(session != null);
+            if (session != null) {
+                writeString(out, session.getUserId());
+                writeString(out, session.getUserName());
+                writeString(out, session.getUserEmail());
+                out.writeLong(session.getCreatedAt());
+                out.writeLong(session.getExpiresAt());
+            }
+            msg = new BytesMessage(dest);
+        } else if (payload instanceof FileInvalidation) {
+            FileInvalidation invalidation = (FileInvalidation) payload;
+            out.writeByte(FILE_INVALIDATION);
+            out.writeByte(VERSION);
+            writeString(out, invalidation.getUserId());
+            writeString(out, invalidation.getFileName());
+            out.writeByte(invalidation.getType().ordinal());
+            out.writeLong(invalidation.getChangeSeq());
+            msg = new BytesMessage(dest);
+        } else if (payload instanceof ContentRequest) {
+            ContentRequest request = (ContentRequest) payload;
+            out.writeByte(CONTENT_REQUEST);
+            out.writeByte(VERSION);
+            writeString(out, request.getRequestId());
+            writeString(out, request.getUserId());
+            writeString(out, request.getFileName());
+            out.writeLong(request.getOffset());
+            out.writeInt(request.getLength());
+            out.writeLong(request.getExpectedUpdatedAt());
+            msg = new BytesMessage(dest);
+        } else if (payload instanceof FileChunk) {
+            FileChunk chunk = (FileChunk) payload;
+            out.writeByte(FILE_CHUNK);
+            out.writeByte(VERSION);
+            writeString(out, chunk.getOperationId());
+            out.writeLong(chunk.getOffset());
+            out.writeInt(chunk.getContent().length);
+            msg = new BytesMessage(dest, chunk.getContent(), 0, chunk.getContent().length);
+        } else if (payload instanceof ContentResponse) {
+            ContentResponse response = (ContentResponse) payload;
+            out.writeByte(CONTENT_RESPONSE);
+            out.writeByte(VERSION);
+            writeString(out, response.getRequestId());
+            byte[] content = response.getContent();
+            out.writeInt(content != null ? content.length : -1);
+            msg = content != null
+                ? new BytesMessage(dest, content, 0, content.length)
+                : new BytesMessage(dest);
+        } else {
+            throw new IllegalArgumentException(
+                "Tipo sem formato binário: " + payload.getClass().getName()
+            );
+        }
+
+        msg.putHeader(HEADER_ID, new WireHeader(buffer.toByteArray()));
+        return msg;
+    }
+
+    /**
+     * Decodifica uma mensagem recebida. Retorna o objeto da ObjectMessage
+     * quando não há cabeçalho binário.
+     */
+    public static Object fromMessage(Message msg) throws Exception {
+        WireHeader header = msg.getHeader(HEADER_ID);
+        if (header == null) {
+            return msg.getObject();
+        }
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(header.data));
+        byte type = in.readByte();
+        byte version = in.readByte();
+        if (version > VERSION) {
+            throw new IOException("Versão de mensagem não suportada: " + version);
+        }
+
+        switch (type) {
+            case FILE_REPLICATION: {
+                Meta meta = readReplication(in, version);
+                byte[] content = meta.contentLength < 0
+                    ? null
+                    : payload(msg, 0, meta.contentLength);
+                return meta.toReplication(content);
+            }
+            case FILE_REPLICATION_BATCH: {
+                String operationId = readString(in);
+                int count = in.readInt();
+                List<FileReplication> replications = new ArrayList<>(count);
+                Iterator<Message> parts = msg instanceof CompositeMessage
+                    ? ((CompositeMessage) msg).iterator()
+                    : null;
+                int offset = 0;
+                for (int i = 0; i < count; i++) {
+                    Meta meta = readReplication(in, version);
+                    byte[] content = null;
+                    if (meta.contentLength >= 0 && parts != null) {
+                        if (!parts.hasNext()) {
+                            throw new IOException("Lote com menos conteúdos que o informado no cabeçalho");
+                        }
+                        content = payload(parts.next(), 0, meta.contentLength);
+                    } else if (meta.contentLength >= 0) {
+                        content = payload(msg, offset, meta.contentLength);
+                        offset += meta.contentLength;
+                    }
+                    replications.add(meta.toReplication(content));
+                }
+                return new FileReplicationBatch(operationId, replications);
+            }
+            case USER_REPLICATION:
+                return new UserReplication(
+                    readString(in),
+                    readString(in),
+                    readString(in),
+                    readString(in),
+                    readString(in),
+                    in.readLong(),
+                    in.readLong()
+                );
+            case REPLICATION_ACK:
+                return new ReplicationAck(
+                    readString(in),
+                    readString(in),
+                    in.readBoolean(),
+                    readString(in)
+                );
+            case SESSION_UPDATE: {
+                String token = readString(in);
+                SessionUpdate.UpdateType updateType =
+                    readEnum(in, SessionUpdate.UpdateType.values(), "Tipo de atualização de sessão");
+                Session session = null;
+                if (in.readBoolean()) {
+                    session = new Session(
+                        readString(in),
+                        readString(in),
+                        readString(in),
+                        token,
+                        in.readLong(),
+                        in.readLong()
+                    );
+                }
+                return new SessionUpdate(token, session, updateType);
+            }
+            case FILE_INVALIDATION:
+                return new FileInvalidation(
+                    readString(in),
+                    readString(in),
+                    readEnum(in, FileInvalidation.InvalidationType.values(), "Tipo de invalidação"),
+                    version >= 5 ? in.readLong() : 0
+                );
+            case CONTENT_REQUEST:
+                return new ContentRequest(
+                    readString(in),
+                    readString(in),
+                    readString(in),
+                    in.readLong(),
+                    in.readInt(),
+                    in.readLong()
+                );
+            case CONTENT_RESPONSE: {
+                String requestId = readString(in);
+                int length = in.readInt();
+                return new ContentResponse(
+                    requestId,
+                    length < 0 ? null : payload(msg, 0, length)
+                );
+            }
+            case FILE_CHUNK: {
+                String operationId = readString(in);
+                long offset = in.readLong();
+                int length = in.readInt();
+                return new FileChunk(operationId, offset, payload(msg, 0, length));
+            }
+            default:
+                throw new IOException("Tipo de mensagem desconhecido: " + type);
+        }
+    }
+
+    private static void writeReplication(DataOutput out, FileReplication replication)
+        throws IOException {
+        writeString(out, replication.getOperationId());
+        writeString(out, replication.getUserId());
+        writeString(out, replication.getUserName());
+        writeString(out, replication.getFileName());
+        out.writeByte(replication.getOperation().ordinal());
+        out.writeLong(replication.getTimestamp());
+        writeString(out, replication.getDiskPath());
+        out.writeLong(replication.getCreatedAt());
+        out.writeLong(replication.getUpdatedAt());
+        out.writeLong(replication.getChangeSeq());
+        out.writeBoolean(replication.isMetadataOnly());
+        out.writeLong(replication.getFileSize());
+        out.writeBoolean(replication.isStreamed());
+        out.writeInt(replication.getContent() != null ? replication.getContent().length : -1);
+    }
+
+    private static Meta readReplication(DataInput in, byte version) throws IOException {
+        Meta meta = new Meta();
+        meta.operationId = readString(in);
+        meta.userId = readString(in);
+        meta.userName = readString(in);
+        meta.fileName = readString(in);
+        meta.operation = readEnum(in, FileReplication.OperationType.values(), "Operação de replicação");
+        meta.timestamp = in.readLong();
+        meta.diskPath = readString(in);
+        meta.createdAt = in.readLong();
+        meta.updatedAt = in.readLong();
+        meta.changeSeq = in.readLong();
+        if (version >= 2) {
+            meta.metadataOnly = in.readBoolean();
+            meta.fileSize = in.readLong();
+        }
+        if (version >= 3) {
+            meta.streamed = in.readBoolean();
+        }
+        meta.contentLength = in.readInt();
+        if (version < 2) {
+            meta.fileSize = Math.max(meta.contentLength, 0);
+        }
+        return meta;
+    }
+
+    /**
+     * Trecho do payload; o array recebido é usado diretamente quando
+     * corresponde ao trecho inteiro.
+     */
+    private static byte[] payload(Message msg, int offset, int length) throws IOException {
+        if (offset + length > msg.getLength()) {
+            throw new IOException("Payload menor que o informado no cabeçalho");
+        }
+        byte[] array = msg.getArray();
+        int start = msg.getOffset() + offset;
+        if (start == 0 && length == array.length) {
+            return array;
+        }
+        return Arrays.copyOfRange(array, start, start + length);
+    }
+
+    private static <E extends Enum<E>> E readEnum(DataInput in, E[] values, String name)
+        throws IOException {
+        int ordinal = in.readByte();
+        if (ordinal < 0 || ordinal >= values.length) {
+            throw new IOException(name + " desconhecido: " + ordinal);
+        }
+        return values[ordinal];
+    }
+
+    private static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInput in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static final class Meta {
+
+        String operationId;
+        String userId;
+        String userName;
+        String fileName;
+        FileReplication.OperationType operation;
+        long timestamp;
+        String diskPath;
+        long createdAt;
+        long updatedAt;
+        long changeSeq;
+        boolean metadataOnly;
+        long fileSize;
+        boolean streamed;
+        int contentLength;
+
+        FileReplication toReplication(byte[] content) {
+            return new FileReplication(
+                operationId,
+                userId,
+                userName,
+                fileName,
+                content,
+                operation,
+                timestamp,
+                diskPath,
+                createdAt,
+                updatedAt,
+                changeSeq,
+                metadataOnly,
+                fileSize,
+                streamed
+            );
+        }
+    }
+
+    /**
+     * Cabeçalho que carrega os campos já codificados.
+     */
+    public static class WireHeader extends Header {
+
+        private byte[] data;
+
+        public WireHeader() {}
+
+        WireHeader(byte[] data) {
+            this.data = data;
+        }
+
+        @Override
+        public short getMagicId() {
+            return MAGIC_ID;
+        }
+
+        @Override
+        public Supplier<? extends Header> create() {
+            return WireHeader::new;
+        }
+
+        @Override
+        public int serializedSize() {
+            return Integer.BYTES + data.length;
+        }
+
+        @Override
+        public void writeTo(DataOutput out) throws IOException {
+            out.writeInt(data.length);
+            out.write(data);
+        }
+
+        @Override
+        public void readFrom(DataInput in) throws IOException {
+            data = new byte[in.readInt()];
+            in.readFully(data);
+        }
+    }
+}
@@ -1,7 +1,12 @@
 package br.ifmg.sd.rpc;
 
+import br.ifmg.sd.models.BatchOperation;
+import br.ifmg.sd.models.BatchResult;
+import br.ifmg.sd.models.ChangeFeedPage;
 import br.ifmg.sd.models.FileMetadata;
+import br.ifmg.sd.models.TransferGrant;
 import java.util.List;
+import java.util.Map;
 
 public interface ControlService {
     
@@ -15,13 +20,64 @@ public interface ControlService {
     
     String getUserIdFromToken(String token) throws Exception;
     
+    // Hash do token -> expiração, para gateways que validam JWT localmente
+    Map<String, Long> getRevokedTokens() throws Exception;
+    
     // Operações de arquivos
     boolean uploadFile(String token, String fileName, byte[] content) throws Exception;
     
+    // Upload em blocos: o conteúdo nunca precisa estar inteiro em memória
+    String beginUpload(String token, String fileName) throws Exception;
+    
+    long uploadChunk(String token, String uploadId, long offset, byte[] chunk) throws Exception;
+    
+    boolean completeUpload(String token, String uploadId) throws Exception;
+    
+    boolean abortUpload(String token, String uploadId) throws Exception;
+    
+    // Upload multipart: partes independentes, enviadas em paralelo e reenviáveis
+    String initiateMultipartUpload(String token, String fileName) throws Exception;
+    
+    long uploadPartChunk(String token, String uploadId, int partNumber, long offset, byte[] chunk) throws Exception;
+    
+    Map<Integer, Long> listUploadParts(String token, String uploadId) throws Exception;
+    
+    boolean completeMultipartUpload(String token, String uploadId, List<Integer> partNumbers) throws Exception;
+    
+    boolean abortMultipartUpload(String token, String uploadId) throws Exception;
+    
+    // Lote de uploads/deleções/downloads em uma única chamada
+    List<BatchResult> executeBatch(String token, List<BatchOperation> operations) throws Exception;
+    
+    // Transferência direta gateway <-> servidor de dados: o controle só autoriza
+    TransferGrant requestTransfer(String token, String fileName, String targetUserId, String operation) throws Exception;
+    
+    // Endereço da transferência direta do coordenador de dados (sem sessão:
+    // só serve a quem tem um ticket assinado)
+    String getTransferEndpoint() throws Exception;
+    
+    // Links públicos pelo control-cluster, quando a transferência direta não
+    // está disponível: valem a assinatura do link no lugar da sessão
+    FileMetadata getPublicFileInfo(String userId, String fileName, long version, long expiresAt, String signature) throws Exception;
+    
+    byte[] downloadPublicChunk(String userId, String fileName, long version, long expiresAt, String signature, long offset, int length) throws Exception;
+    
+    // Feed de alterações dos arquivos do usuário do token
+    ChangeFeedPage getChanges(String token, long cursor, int limit) throws Exception;
+    
+    // Versão barata da listagem (do usuário, ou de todos para a busca), usada
+    // nas requisições condicionais sem trafegar a listagem
+    long getFileListVersion(String token, boolean allUsers) throws Exception;
+    
     byte[] downloadFile(String token, String fileName) throws Exception;
     
     byte[] downloadFileWithUser(String token, String fileName, String targetUserId) throws Exception;
     
+    // Download em partes (suporte a Range)
+    FileMetadata getFileInfo(String token, String fileName, String targetUserId) throws Exception;
+    
+    byte[] downloadChunk(String token, String fileName, String targetUserId, long offset, int length, long expectedUpdatedAt) throws Exception;
+    
     boolean updateFile(String token, String fileName, byte[] newContent) throws Exception;
     
     boolean updateFileWithUser(String token, String fileName, byte[] newContent, String targetUserId) throws Exception;
@@ -30,5 +86,8 @@ public interface ControlService {
     
     List<FileMetadata> searchFiles(String token, String fileName) throws Exception;
     
+    // Busca pelo menos tão nova quanto minVersion, a versão usada no ETag
+    List<FileMetadata> searchFiles(String token, String fileName, long minVersion) throws Exception;
+    
     List<String> listMyFiles(String token) throws Exception;
 }
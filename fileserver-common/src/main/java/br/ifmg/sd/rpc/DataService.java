@@ -1,8 +1,10 @@
 package br.ifmg.sd.rpc;
 
+import br.ifmg.sd.models.WriteConsistency;
 import java.rmi.Remote;
 import java.rmi.RemoteException;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Interface RMI para comunicação com o cluster de DataServers.
@@ -15,6 +17,69 @@ public interface DataService extends Remote {
      */
     boolean saveFile(String userId, String fileName, byte[] content) throws RemoteException;
 
+    /**
+     * Salva um arquivo e responde assim que o nível de consistência pedido
+     * for atingido.
+     */
+    boolean saveFile(String userId, String fileName, byte[] content, WriteConsistency consistency)
+        throws RemoteException;
+
+    /**
+     * Abre uma sessão de upload em blocos e retorna seu identificador.
+     */
+    String beginUpload(String userId, String fileName) throws RemoteException;
+
+    /**
+     * Grava um bloco da sessão de upload na posição indicada.
+     * Retorna o total de bytes recebidos até o momento.
+     */
+    long appendUploadChunk(String uploadId, String userId, long offset, byte[] chunk) throws RemoteException;
+
+    /**
+     * Conclui a sessão de upload: publica o arquivo e replica para o cluster.
+     * Retorna o nome do arquivo publicado.
+     */
+    String completeUpload(String uploadId, String userId) throws RemoteException;
+
+    /**
+     * Descarta uma sessão de upload e seus dados temporários.
+     */
+    boolean abortUpload(String uploadId, String userId) throws RemoteException;
+
+    /**
+     * Abre uma sessão de upload multipart, persistida no banco do coordenador.
+     */
+    String initiateMultipartUpload(String userId, String fileName) throws RemoteException;
+
+    /**
+     * Grava um bloco de uma parte na posição indicada. Um bloco no offset 0
+     * recomeça a parte, permitindo reenviá-la. Retorna o tamanho da parte.
+     */
+    long uploadPartChunk(String uploadId, String userId, int partNumber, long offset, byte[] chunk) throws RemoteException;
+
+    /**
+     * Retorna as partes já recebidas (número da parte -> tamanho em bytes).
+     */
+    Map<Integer, Long> listUploadParts(String uploadId, String userId) throws RemoteException;
+
+    /**
+     * Concatena as partes na ordem dada (todas, em ordem crescente, se a lista
+     * for nula ou vazia), publica o arquivo e replica para o cluster.
+     * Retorna o nome do arquivo publicado.
+     */
+    String completeMultipartUpload(String uploadId, String userId, List<Integer> partNumbers) throws RemoteException;
+
+    /**
+     * Descarta uma sessão multipart e suas partes.
+     */
+    boolean abortMultipartUpload(String uploadId, String userId) throws RemoteException;
+
+    /**
+     * Executa um lote de operações de um usuário e replica todas as escritas
+     * em uma única mensagem. Retorna um resultado por operação, na mesma ordem.
+     */
+    List<br.ifmg.sd.models.BatchResult> executeBatch(String userId, List<br.ifmg.sd.models.BatchOperation> operations) throws RemoteException;
+
     /**
      * Lê um arquivo do cluster de dados.
      */
@@ -25,11 +90,17 @@ public interface DataService extends Remote {
      */
     boolean deleteFile(String userId, String fileName) throws RemoteException;
 
+    boolean deleteFile(String userId, String fileName, WriteConsistency consistency)
+        throws RemoteException;
+
     /**
      * Edita um arquivo existente no cluster de dados.
      */
     boolean editFile(String userId, String fileName, byte[] newContent) throws RemoteException;
 
+    boolean editFile(String userId, String fileName, byte[] newContent, WriteConsistency consistency)
+        throws RemoteException;
+
     /**
      * Recupera um arquivo (retorna conteúdo e metadata).
      */
@@ -45,6 +116,17 @@ public interface DataService extends Remote {
      */
     byte[] downloadFile(String userId, String fileName) throws RemoteException;
 
+    /**
+     * Retorna os metadados de um arquivo sem ler seu conteúdo.
+     */
+    br.ifmg.sd.models.FileMetadata getFileMetadata(String userId, String fileName) throws RemoteException;
+
+    /**
+     * Lê um trecho do arquivo (com lock distribuído). Se expectedUpdatedAt for
+     * positivo, falha caso o arquivo tenha sido alterado desde essa versão.
+     */
+    byte[] readFileRange(String userId, String fileName, long offset, int length, long expectedUpdatedAt) throws RemoteException;
+
     /**
      * Registra um novo usuário.
      */
@@ -69,4 +151,28 @@ public interface DataService extends Remote {
      * Retorna número de membros no cluster de dados.
      */
     int getClusterSize() throws RemoteException;
+
+    /**
+     * Endereço (host:porta) do servidor de transferência direta deste nó,
+     * ou null se ele estiver desativado.
+     */
+    String getTransferEndpoint() throws RemoteException;
+
+    /**
+     * Alterações de arquivos do usuário após o cursor (afterSeq). Cursor
+     * negativo retorna apenas o cursor atual.
+     */
+    br.ifmg.sd.models.ChangeFeedPage getChanges(String userId, long afterSeq, int limit) throws RemoteException;
+
+    /**
+     * Versão da listagem de arquivos do usuário (de todos, se userId for
+     * nulo): muda sempre que um arquivo é gravado, editado ou removido.
+     */
+    long getFileListVersion(String userId) throws RemoteException;
+
+    /**
+     * Maior seq do feed até o qual este servidor aplicou todas as
+     * alterações, sem lacunas. No coordenador é o seq atual.
+     */
+    long getAppliedChangeSeq() throws RemoteException;
 }
@@ -0,0 +1,44 @@
+package br.ifmg.sd.rpc;
+
+/**
+ * Protocolo da conexão de transferência direta entre gateway e servidor de
+ * dados (TCP, tipos de DataOutputStream):
+ *
+ *   gateway -> dados   UTF ticket (ver TransferTicket)
+ *   dados -> gateway   byte status, UTF mensagem (ticket aceito ou não)
+ *
+ *   UPLOAD:
+ *     gateway -> dados   blocos: int tamanho + bytes; tamanho 0 encerra
+ *     dados -> gateway   byte status, UTF mensagem, long bytes gravados
+ *
+ *   DOWNLOAD:
+ *     dados -> gateway   long tamanho + bytes do arquivo
+ *
+ * Uma conexão transfere um único arquivo. Como o aceite vem antes de
+ * qualquer conteúdo, o gateway ainda pode usar o caminho por RPC quando o
+ * ticket é recusado.
+ */
+public final class TransferProtocol {
+
+    public static final byte STATUS_OK = 0;
+    public static final byte STATUS_ERROR = 1;
+    // O servidor deixou de ser o coordenador de dados: o gateway deve
+    // consultar o endereço atual
+    public static final byte STATUS_NOT_COORDINATOR = 2;
+    // Todas as transferências do servidor estão ocupadas: o gateway usa o
+    // caminho por RPC
+    public static final byte STATUS_BUSY = 3;
+    // O arquivo ou a versão pedida no download não existe mais
+    public static final byte STATUS_GONE = 4;
+
+    /**
+     * Maior bloco aceito no upload; o gateway envia blocos de 1 MB.
+     */
+    public static final int MAX_FRAME_SIZE = 4 * 1024 * 1024;
+
+    public static final int CHUNK_SIZE = 1024 * 1024;
+
+    public static final int SOCKET_TIMEOUT_MS = 30_000;
+
+    private TransferProtocol() {}
+}
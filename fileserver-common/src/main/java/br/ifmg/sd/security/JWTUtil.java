@@ -1,11 +1,21 @@
 package br.ifmg.sd.security;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.HexFormat;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.crypto.Mac;
 import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
 
 public class JWTUtil {
 
@@ -17,6 +27,21 @@ public class JWTUtil {
 
     private static final long EXPIRATION_TIME = 3600000;
 
+    // O parser é imutável e pode ser compartilhado entre threads
+    private static final JwtParser PARSER = Jwts.parser().verifyWith(KEY).build();
+
+    // Tokens cuja assinatura já foi conferida, pelo hash do token e só até a
+    // expiração: a mesma requisição valida o token mais de uma vez. A
+    // leitura não trava; cheio, o cache descarta de uma vez os expirados e
+    // o décimo usado há mais tempo (LRU aproximado)
+    private static final int MAX_VERIFIED = Integer.getInteger(
+        "jwt.claims.cache.max",
+        10_000
+    );
+    private static final ConcurrentHashMap<String, VerifiedToken> verified =
+        new ConcurrentHashMap<>();
+    private static final AtomicBoolean evicting = new AtomicBoolean();
+
     public static String generateToken(
         String username,
         String userEmail,
@@ -38,34 +63,126 @@ public class JWTUtil {
     }
 
     public static String getUserIdFromToken(String token) {
-        Claims claims = Jwts.parser()
-            .verifyWith(KEY)
-            .build()
-            .parseSignedClaims(token)
-            .getPayload();
-        return claims.getSubject();
+        return verify(token).userId;
     }
 
     public static boolean validateToken(String token) {
         try {
-            Claims claims = Jwts.parser()
-                .verifyWith(KEY)
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
-
-            return claims.getExpiration().after(new Date());
+            return verify(token).expiresAt > System.currentTimeMillis();
         } catch (Exception e) {
             return false;
         }
     }
 
     public static long getExpirationTime(String token) {
-        Claims claims = Jwts.parser()
-            .verifyWith(KEY)
-            .build()
-            .parseSignedClaims(token)
-            .getPayload();
-        return claims.getExpiration().getTime();
+        return verify(token).expiresAt;
+    }
+
+    /**
+     * Confere assinatura e expiração uma vez por token; as chamadas seguintes
+     * até a expiração usam as claims guardadas. Lança a mesma exceção do
+     * parser para tokens inválidos ou expirados.
+     */
+    private static VerifiedToken verify(String token) {
+        String hash = hashToken(token);
+        long now = System.currentTimeMillis();
+        VerifiedToken cached = verified.get(hash);
+        if (cached != null) {
+            if (cached.expiresAt > now) {
+                cached.touch(now);
+                return cached;
+            }
+            verified.remove(hash, cached);
+        }
+
+        Claims claims = PARSER.parseSignedClaims(token).getPayload();
+        VerifiedToken entry = new VerifiedToken(
+            claims.getSubject(),
+            claims.getExpiration().getTime(),
+            now
+        );
+        verified.put(hash, entry);
+        if (verified.size() > MAX_VERIFIED) {
+            evict(now);
+        }
+        return entry;
+    }
+
+    /**
+     * Uma thread por vez: remove os expirados e, se ainda faltar espaço,
+     * os tokens usados há mais tempo até sobrar um décimo do limite. As
+     * demais seguem sem esperar, com o cache um pouco acima do limite.
+     */
+    private static void evict(long now) {
+        if (!evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            verified.values().removeIf(entry -> entry.expiresAt <= now);
+            int excess = verified.size() - MAX_VERIFIED + MAX_VERIFIED / 10;
+            if (excess <= 0) {
+                return;
+            }
+            long[] lastUsed = verified.values().stream().mapToLong(entry -> entry.lastUsed).toArray();
+            if (lastUsed.length == 0) {
+                return;
+            }
+            Arrays.sort(lastUsed);
+            long cutoff = lastUsed[Math.min(excess, lastUsed.length) - 1];
+            verified.values().removeIf(entry -> entry.lastUsed <= cutoff);
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    /**
+     * Chave derivada do segredo do JWT para outro fim (HMAC-SHA256 do
+     * propósito), para que cada uso tenha sua própria chave sem um segundo
+     * segredo para configurar.
+     */
+    static byte[] deriveKey(String purpose) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(SECRET_KEY.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            return mac.doFinal(purpose.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 indisponível", e);
+        }
+    }
+
+    /**
+     * Identificador compacto do token (SHA-256 em hexadecimal), usado para
+     * referenciar tokens sem armazenar nem trafegar o JWT completo.
+     */
+    public static String hashToken(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(
+                digest.digest(token.getBytes(StandardCharsets.UTF_8))
+            );
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponível", e);
+        }
+    }
+
+    private static final class VerifiedToken {
+
+        private final String userId;
+        private final long expiresAt;
+        private volatile long lastUsed;
+
+        VerifiedToken(String userId, long expiresAt, long lastUsed) {
+            this.userId = userId;
+            this.expiresAt = expiresAt;
+            this.lastUsed = lastUsed;
+        }
+
+        // Só grava quando o valor muda de segundo, para que tokens muito
+        // usados não fiquem disputando a mesma linha de cache
+        private void touch(long now) {
+            if (now - lastUsed >= 1000) {
+                lastUsed = now;
+            }
+        }
     }
 }
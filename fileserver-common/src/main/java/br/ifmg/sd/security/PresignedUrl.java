@@ -0,0 +1,82 @@
+package br.ifmg.sd.security;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Base64;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Assinatura de links públicos de download: (dono, arquivo, versão,
+ * expiração) assinados com HMAC-SHA256 numa chave derivada do segredo do
+ * JWT. Quem tem o link baixa aquela versão do arquivo até a expiração, sem
+ * sessão; o gateway confere a assinatura localmente.
+ */
+public final class PresignedUrl {
+
+    private static final byte[] KEY = JWTUtil.deriveKey("presigned-url");
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private PresignedUrl() {}
+
+    public static String sign(
+        String userId,
+        String fileName,
+        long version,
+        long expiresAt
+    ) {
+        return ENCODER.encodeToString(hmac(userId, fileName, version, expiresAt));
+    }
+
+    /**
+     * Confere a assinatura e a validade do link.
+     */
+    public static boolean verify(
+        String userId,
+        String fileName,
+        long version,
+        long expiresAt,
+        String signature
+    ) {
+        if (userId == null || fileName == null || signature == null) {
+            return false;
+        }
+        if (expiresAt <= System.currentTimeMillis()) {
+            return false;
+        }
+        try {
+            return MessageDigest.isEqual(
+                DECODER.decode(signature),
+                hmac(userId, fileName, version, expiresAt)
+            );
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private static byte[] hmac(
+        String userId,
+        String fileName,
+        long version,
+        long expiresAt
+    ) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeUTF(userId);
+            out.writeUTF(fileName);
+            out.writeLong(version);
+            out.writeLong(expiresAt);
+
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(KEY, "HmacSHA256"));
+            return mac.doFinal(bytes.toByteArray());
+        } catch (IOException | GeneralSecurityException e) {
+            throw new IllegalStateException("Erro ao assinar link", e);
+        }
+    }
+}
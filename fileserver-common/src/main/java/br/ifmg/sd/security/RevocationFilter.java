@@ -0,0 +1,119 @@
+package br.ifmg.sd.security;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Conjunto de tokens revogados (logout) antes de expirarem. Um filtro de
+ * Bloom responde rapidamente "não revogado" para a grande maioria dos tokens;
+ * apenas os positivos consultam o conjunto exato.
+ *
+ * Os tokens são identificados pelo hash de {@link JWTUtil#hashToken(String)}
+ * e cada entrada guarda a expiração do token: depois dela o próprio JWT deixa
+ * de ser válido e a entrada pode ser descartada.
+ */
+public class RevocationFilter {
+
+    private static final int BLOOM_BITS = 1 << 20;
+    private static final int BLOOM_HASHES = 4;
+    private static final int PURGE_INTERVAL = 1024;
+
+    private final Map<String, Long> revoked = new ConcurrentHashMap<>();
+    private final AtomicInteger revocationsSincePurge = new AtomicInteger();
+    private volatile AtomicLongArray bloom = new AtomicLongArray(BLOOM_BITS / 64);
+
+    public void revoke(String tokenHash, long expiresAt) {
+        if (expiresAt <= System.currentTimeMillis()) {
+            return;
+        }
+
+        revoked.put(tokenHash, expiresAt);
+        addToBloom(bloom, tokenHash);
+
+        if (revocationsSincePurge.incrementAndGet() >= PURGE_INTERVAL) {
+            purgeExpired();
+        }
+    }
+
+    public void revokeAll(Map<String, Long> entries) {
+        entries.forEach(this::revoke);
+    }
+
+    public boolean isRevoked(String tokenHash) {
+        if (!mightContain(bloom, tokenHash)) {
+            return false;
+        }
+        Long expiresAt = revoked.get(tokenHash);
+        return expiresAt != null && expiresAt > System.currentTimeMillis();
+    }
+
+    /**
+     * Remove entradas expiradas e reconstrói o filtro de Bloom, que não
+     * suporta remoção.
+     */
+    public void purgeExpired() {
+        revocationsSincePurge.set(0);
+        long now = System.currentTimeMillis();
+        revoked.values().removeIf(expiresAt -> expiresAt <= now);
+
+        AtomicLongArray rebuilt = new AtomicLongArray(BLOOM_BITS / 64);
+        for (String tokenHash : revoked.keySet()) {
+            addToBloom(rebuilt, tokenHash);
+        }
+        bloom = rebuilt;
+
+        // Revogações concorrentes à reconstrução podem ter ido para o filtro
+        // antigo; reinsere para não perder nenhuma
+        for (String tokenHash : revoked.keySet()) {
+            addToBloom(bloom, tokenHash);
+        }
+    }
+
+    public Map<String, Long> snapshot() {
+        return new HashMap<>(revoked);
+    }
+
+    public int size() {
+        return revoked.size();
+    }
+
+    private static void addToBloom(AtomicLongArray bits, String tokenHash) {
+        long h1 = hash(tokenHash, 0);
+        long h2 = hash(tokenHash, 16);
+        for (int i = 0; i < BLOOM_HASHES; i++) {
+            int bit = (int) Long.remainderUnsigned(h1 + i * h2, BLOOM_BITS);
+            int word = bit >>> 6;
+            long mask = 1L << (bit & 63);
+            long current;
+            do {
+                current = bits.get(word);
+            } while ((current & mask) == 0 && !bits.compareAndSet(word, current, current | mask));
+        }
+    }
+
+    private static boolean mightContain(AtomicLongArray bits, String tokenHash) {
+        long h1 = hash(tokenHash, 0);
+        long h2 = hash(tokenHash, 16);
+        for (int i = 0; i < BLOOM_HASHES; i++) {
+            int bit = (int) Long.remainderUnsigned(h1 + i * h2, BLOOM_BITS);
+            if ((bits.get(bit >>> 6) & (1L << (bit & 63))) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * O hash do token já é um SHA-256 em hexadecimal: dois trechos de 64 bits
+     * servem de funções de hash independentes (double hashing).
+     */
+    private static long hash(String tokenHash, int offset) {
+        if (tokenHash.length() >= offset + 16) {
+            return Long.parseUnsignedLong(tokenHash.substring(offset, offset + 16), 16);
+        }
+        return (long) tokenHash.hashCode() * (offset + 31);
+    }
+}
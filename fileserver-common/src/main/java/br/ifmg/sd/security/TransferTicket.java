@@ -0,0 +1,169 @@
+package br.ifmg.sd.security;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.UUID;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Autorização de curta duração para transferir o conteúdo de um arquivo
+ * direto com um servidor de dados. É emitida pelo ControlServer, que valida
+ * a sessão, e conferida pelo servidor de dados, que não conhece sessões:
+ * basta a assinatura HMAC-SHA256 e a validade.
+ *
+ * Formato: base64url(campos).base64url(hmac). A chave vem de
+ * -Dtransfer.secret ou, sem ela, é derivada do segredo do JWT.
+ */
+public final class TransferTicket {
+
+    public enum Operation {
+        UPLOAD,
+        DOWNLOAD,
+    }
+
+    private static final byte[] KEY = loadKey();
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final Operation operation;
+    private final String userId;
+    private final String fileName;
+    // updatedAt esperado nos downloads (0 para uploads)
+    private final long version;
+    private final long expiresAt;
+    private final String nonce;
+
+    private TransferTicket(
+        Operation operation,
+        String userId,
+        String fileName,
+        long version,
+        long expiresAt,
+        String nonce
+    ) {
+        this.operation = operation;
+        this.userId = userId;
+        this.fileName = fileName;
+        this.version = version;
+        this.expiresAt = expiresAt;
+        this.nonce = nonce;
+    }
+
+    public static TransferTicket issue(
+        Operation operation,
+        String userId,
+        String fileName,
+        long version,
+        long ttlMillis
+    ) {
+        return new TransferTicket(
+            operation,
+            userId,
+            fileName,
+            version,
+            System.currentTimeMillis() + ttlMillis,
+            UUID.randomUUID().toString()
+        );
+    }
+
+    public String encode() {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeUTF(operation.name());
+            out.writeUTF(userId);
+            out.writeUTF(fileName);
+            out.writeLong(version);
+            out.writeLong(expiresAt);
+            out.writeUTF(nonce);
+            byte[] payload = bytes.toByteArray();
+            return ENCODER.encodeToString(payload) + "." + ENCODER.encodeToString(sign(payload));
+        } catch (IOException e) {
+            throw new IllegalStateException("Erro ao codificar ticket", e);
+        }
+    }
+
+    /**
+     * Retorna o ticket se a assinatura confere e ele ainda não expirou; caso
+     * contrário, null.
+     */
+    public static TransferTicket verify(String encoded) {
+        if (encoded == null) {
+            return null;
+        }
+        int dot = encoded.indexOf('.');
+        if (dot <= 0) {
+            return null;
+        }
+        try {
+            byte[] payload = DECODER.decode(encoded.substring(0, dot));
+            byte[] signature = DECODER.decode(encoded.substring(dot + 1));
+            if (!MessageDigest.isEqual(signature, sign(payload))) {
+                return null;
+            }
+
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+            TransferTicket ticket = new TransferTicket(
+                Operation.valueOf(in.readUTF()),
+                in.readUTF(),
+                in.readUTF(),
+                in.readLong(),
+                in.readLong(),
+                in.readUTF()
+            );
+            return ticket.expiresAt > System.currentTimeMillis() ? ticket : null;
+        } catch (IllegalArgumentException | IOException e) {
+            return null;
+        }
+    }
+
+    public Operation getOperation() {
+        return operation;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public long getExpiresAt() {
+        return expiresAt;
+    }
+
+    public String getNonce() {
+        return nonce;
+    }
+
+    private static byte[] sign(byte[] payload) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(KEY, "HmacSHA256"));
+            return mac.doFinal(payload);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 indisponível", e);
+        }
+    }
+
+    private static byte[] loadKey() {
+        String secret = System.getProperty("transfer.secret");
+        if (secret != null && !secret.isEmpty()) {
+            return secret.getBytes(StandardCharsets.UTF_8);
+        }
+        return JWTUtil.deriveKey("transfer-ticket");
+    }
+}
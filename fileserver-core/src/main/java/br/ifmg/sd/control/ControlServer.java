@@ -1,13 +1,26 @@
 package br.ifmg.sd.control;
 
+import br.ifmg.sd.metrics.MetricsRegistry;
+import br.ifmg.sd.metrics.MetricsServer;
+import br.ifmg.sd.metrics.RpcMetrics;
+import br.ifmg.sd.models.BatchOperation;
+import br.ifmg.sd.models.BatchResult;
+import br.ifmg.sd.models.ChangeFeedPage;
+import br.ifmg.sd.models.FileInvalidation;
+import br.ifmg.sd.models.FileInvalidation.InvalidationType;
 import br.ifmg.sd.models.Session;
 import br.ifmg.sd.models.SessionUpdate;
 import br.ifmg.sd.models.SessionUpdate.UpdateType;
+import br.ifmg.sd.models.TransferGrant;
 import br.ifmg.sd.models.User;
 import br.ifmg.sd.rpc.AuthResponse;
+import br.ifmg.sd.rpc.ClusterMessages;
 import br.ifmg.sd.rpc.ControlService;
 import br.ifmg.sd.rpc.DataService;
 import br.ifmg.sd.security.JWTUtil;
+import br.ifmg.sd.security.PresignedUrl;
+import br.ifmg.sd.security.RevocationFilter;
+import br.ifmg.sd.security.TransferTicket;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.InputStream;
@@ -23,16 +36,27 @@ import org.jgroups.util.Util;
 
 public class ControlServer implements Receiver, ControlService {
 
+    // Validade dos tickets de transferência direta
+    private static final long TRANSFER_TICKET_TTL_MS = Long.getLong(
+        "transfer.ticket.ttl.ms",
+        60_000L
+    );
+
     private final String serverName;
     private JChannel channel;
     private RpcDispatcher dispatcher;
 
-    private final Map<String, Session> sessionCache = new ConcurrentHashMap<>();
+    private final SessionStore sessions = SessionStore.fromSystemProperties();
     private final Map<String, User> userDatabase = new ConcurrentHashMap<>();
+    private final RevocationFilter revocations = new RevocationFilter();
+
+    private final MetricsRegistry metrics = MetricsRegistry.getDefault();
+    private MetricsServer metricsServer;
 
     private final String registryHost;
     private final int registryPort;
     private DataService dataService;
+    private volatile DataReadPool readPool;
 
     public ControlServer(
         String serverName,
@@ -55,8 +79,13 @@ public class ControlServer implements Receiver, ControlService {
             throw new RuntimeException("Arquivo udp.xml nao encontrado!");
         }
 
+        ClusterMessages.register();
         channel = new JChannel(configStream);
-        dispatcher = new RpcDispatcher(channel, this);
+        dispatcher = new InstrumentedRpcDispatcher(
+            channel,
+            this,
+            new RpcMetrics(metrics, "control_rpc")
+        );
 
         channel.setReceiver(this);
         channel.connect("control-cluster");
@@ -65,6 +94,34 @@ public class ControlServer implements Receiver, ControlService {
         System.out.println(serverName + " conectado ao cluster!");
         System.out.println("Endereço: " + channel.getAddress());
         System.out.println("RPC Dispatcher pronto para receber chamadas");
+
+        registerGauges();
+        metricsServer = MetricsServer.startFromSystemProperties(metrics);
+    }
+
+    private void registerGauges() {
+        metrics.gauge("control_sessions", "Sessões ativas", sessions::size);
+        metrics.counterFunction(
+            "control_sessions_evicted_total",
+            "Sessões descartadas do cache",
+            sessions::getExpiredEvictions,
+            "reason",
+            "expired"
+        );
+        metrics.counterFunction(
+            "control_sessions_evicted_total",
+            "Sessões descartadas do cache",
+            sessions::getCapacityEvictions,
+            "reason",
+            "capacity"
+        );
+        metrics.gauge("control_revoked_tokens", "Tokens revogados ainda não expirados", revocations::size);
+        metrics.gauge("control_users", "Usuários conhecidos", userDatabase::size);
+        metrics.gauge(
+            "control_cluster_members",
+            "Membros do control-cluster",
+            () -> channel.getView().size()
+        );
     }
 
     public RpcDispatcher getDispatcher() {
@@ -73,16 +130,26 @@ public class ControlServer implements Receiver, ControlService {
 
     public void receive(Message msg) {
         try {
-            SessionUpdate update = msg.getObject();
+            Object payload = ClusterMessages.fromMessage(msg);
+            if (payload instanceof FileInvalidation) {
+                // Aqui só interessa o seq: as réplicas de leitura que ainda
+                // não o aplicaram deixam de ser usadas
+                onChangeSeq(((FileInvalidation) payload).getChangeSeq());
+                return;
+            }
+            if (!(payload instanceof SessionUpdate)) {
+                return;
+            }
+            SessionUpdate update = (SessionUpdate) payload;
             System.out.println("Recebendo dados");
 
             switch (update.getType()) {
                 case CREATE:
                 case UPDATE:
-                    sessionCache.put(update.getToken(), update.getSession());
+                    sessions.put(update.getToken(), update.getSession());
                     break;
                 case DELETE:
-                    sessionCache.remove(update.getToken());
+                    revoke(update.getToken(), sessions.remove(update.getToken()));
                     break;
                 default:
                     break;
@@ -95,14 +162,18 @@ public class ControlServer implements Receiver, ControlService {
     @Override
     public void getState(OutputStream output) throws Exception {
         DataOutputStream dataOutput = new DataOutputStream(output);
-        Util.objectToStream(sessionCache, dataOutput);
+        // Só as sessões válidas, indexadas pelo hash do token
+        Util.objectToStream(sessions.snapshot(), dataOutput);
+        Util.objectToStream(revocations.snapshot(), dataOutput);
     }
 
     @Override
     public void setState(InputStream input) throws Exception {
         DataInputStream dataInput = new DataInputStream(input);
         Map<String, Session> state = Util.objectFromStream(dataInput);
-        sessionCache.putAll(state);
+        sessions.putAll(state);
+        Map<String, Long> revoked = Util.objectFromStream(dataInput);
+        revocations.revokeAll(revoked);
     }
 
     /**
@@ -113,7 +184,7 @@ public class ControlServer implements Receiver, ControlService {
         String username,
         String userEmail
     ) throws Exception {
-        String token = JWTUtil.generateToken(userId, username, userEmail);
+        String token = JWTUtil.generateToken(username, userEmail, userId);
         long now = System.currentTimeMillis();
         long expiresAt = JWTUtil.getExpirationTime(token);
 
@@ -126,14 +197,14 @@ public class ControlServer implements Receiver, ControlService {
             expiresAt
         );
 
-        sessionCache.put(token, session);
+        sessions.put(token, session);
 
         SessionUpdate update = new SessionUpdate(
             token,
             session,
             UpdateType.CREATE
         );
-        Message msg = new ObjectMessage(null, update);
+        Message msg = ClusterMessages.toMessage(null, update);
         channel.send(msg);
 
         System.out.println("Sessão criada e replicada: " + userId);
@@ -145,10 +216,10 @@ public class ControlServer implements Receiver, ControlService {
      * Valida se um token existe e é válido.
      */
     public boolean validateSession(String token) {
-        Session session = sessionCache.get(token);
+        Session session = sessions.get(token);
 
         if (session == null) {
-            System.out.println("Token não encontrado no cache");
+            System.out.println("Token não encontrado ou expirado");
             return false;
         }
 
@@ -167,22 +238,44 @@ public class ControlServer implements Receiver, ControlService {
      * Remove uma sessão (logout) e replica para o cluster.
      */
     public void removeSession(String token) throws Exception {
-        Session session = sessionCache.remove(token);
+        Session session = sessions.remove(token);
 
         if (session != null) {
+            revoke(token, session);
+
             // Replica remoção para outros servidores
             SessionUpdate update = new SessionUpdate(
                 token,
                 null,
                 UpdateType.DELETE
             );
-            Message msg = new ObjectMessage(null, update);
+            Message msg = ClusterMessages.toMessage(null, update);
             channel.send(msg);
 
             System.out.println("Logout: " + session.getUserId());
         }
     }
 
+    /**
+     * Registra o token como revogado até sua expiração, para que gateways
+     * que validam o JWT localmente também o recusem.
+     */
+    private void revoke(String token, Session session) {
+        try {
+            long expiresAt = session != null
+                ? session.getExpiresAt()
+                : JWTUtil.getExpirationTime(token);
+            revocations.revoke(JWTUtil.hashToken(token), expiresAt);
+        } catch (Exception e) {
+            // Token já expirado ou inválido: não precisa ser revogado
+        }
+    }
+
+    @Override
+    public Map<String, Long> getRevokedTokens() throws Exception {
+        return revocations.snapshot();
+    }
+
     @Override
     public AuthResponse login(String username, String password)
         throws Exception {
@@ -259,7 +352,7 @@ public class ControlServer implements Receiver, ControlService {
 
     @Override
     public String getUserIdFromToken(String token) throws Exception {
-        Session session = sessionCache.get(token);
+        Session session = sessions.get(token);
         return session != null ? session.getUserId() : null;
     }
 
@@ -272,12 +365,51 @@ public class ControlServer implements Receiver, ControlService {
                 registryHost,
                 registryPort
             );
-            dataService = (DataService) registry.lookup("data-service");
+            // Latência vista daqui de cada chamada RMI ao coordenador de dados
+            dataService = new RpcMetrics(metrics, "control_data_rmi").instrument(
+                DataService.class,
+                (DataService) registry.lookup("data-service")
+            );
             System.out.println("✓ DataService obtido do RMI Registry");
         }
         return dataService;
     }
 
+    /**
+     * Réplicas de leitura do cluster de dados; escritas continuam indo só ao
+     * coordenador por {@link #getDataService()}.
+     */
+    private synchronized DataReadPool getReadPool() throws Exception {
+        if (readPool == null) {
+            readPool = new DataReadPool(
+                LocateRegistry.getRegistry(registryHost, registryPort),
+                Long.getLong("control.data.read.refresh.ms", 10_000L),
+                Long.getLong("control.data.read.fence.ms", 200L)
+            );
+        }
+        return readPool;
+    }
+
+    private <T> T readFromReplica(DataReadPool.ReadCall<T> call) throws Exception {
+        return getReadPool().read(call, getDataService());
+    }
+
+    /**
+     * Um seq do feed de alterações visto por este servidor; 0 é uma escrita
+     * de seq desconhecido, que faz a próxima leitura consultar o coordenador.
+     */
+    private void onChangeSeq(long seq) {
+        DataReadPool pool = readPool;
+        if (pool == null) {
+            return;
+        }
+        if (seq > 0) {
+            pool.observeChangeSeq(seq);
+        } else {
+            pool.invalidateFence();
+        }
+    }
+
     /**
      * Exemplo de uso: salvar arquivo no cluster de dados.
      */
@@ -293,7 +425,11 @@ public class ControlServer implements Receiver, ControlService {
 
         try {
             DataService ds = getDataService();
-            return ds.saveFile(userId, fileName, content);
+            boolean saved = ds.saveFile(userId, fileName, content);
+            if (saved) {
+                publishInvalidation(userId, fileName, InvalidationType.UPDATE);
+            }
+            return saved;
         } catch (java.rmi.RemoteException e) {
             throw new Exception("Erro ao salvar arquivo: " + e.getMessage());
         }
@@ -303,13 +439,23 @@ public class ControlServer implements Receiver, ControlService {
      * Exemplo de uso: listar arquivos do usuário.
      */
     public List<String> listUserFiles(String token) throws Exception {
+        return listUserFiles(token, 0);
+    }
+
+    /**
+     * Listagem pelo menos tão nova quanto minVersion, a versão que o gateway
+     * usou no ETag (talvez consultada em outro ControlServer).
+     */
+    public List<String> listUserFiles(String token, long minVersion) throws Exception {
         String userId = getUserIdFromToken(token);
         if (userId == null) {
             throw new IllegalArgumentException("Token inválido");
         }
 
-        DataService ds = getDataService();
-        return ds.listFiles(userId);
+        if (minVersion > 0) {
+            onChangeSeq(minVersion);
+        }
+        return readFromReplica(ds -> ds.listFiles(userId));
     }
 
     // ==================== Implementação das Operações de Arquivos ====================
@@ -333,12 +479,374 @@ public class ControlServer implements Receiver, ControlService {
 
         try {
             DataService ds = getDataService();
-            return ds.saveFile(userId, fileName, content);
+            boolean saved = ds.saveFile(userId, fileName, content);
+            if (saved) {
+                publishInvalidation(userId, fileName, InvalidationType.UPDATE);
+            }
+            return saved;
         } catch (java.rmi.RemoteException e) {
             throw new Exception("Erro ao fazer upload: " + e.getMessage());
         }
     }
 
+    @Override
+    public String beginUpload(String token, String fileName) throws Exception {
+        if (!validateSession(token)) {
+            throw new SecurityException("Token inválido ou expirado");
+        }
+
+        String userId = getUserIdFromToken(token);
+        System.out.println("Upload em blocos: " + fileName + " - usuário: " + userId);
+
+        try {
+            DataService ds = getDataService();
+            return ds.beginUpload(userId, fileName);
+        } catch (java.rmi.RemoteException e) {
+            throw new Exception("Erro ao iniciar upload: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public long uploadChunk(
+        String token,
+        String uploadId,
+        long offset,
+        byte[] chunk
+    ) throws Exception {
+        if (!validateSession(token)) {
+            throw new SecurityException("Token inválido ou expirado");
+        }
+
+        String userId = getUserIdFromToken(token);
+
+        try {
+            DataService ds = getDataService();
+            return ds.appendUploadChunk(uploadId, userId, offset, chunk);
+        } catch (java.rmi.RemoteException e) {
+            throw new Exception("Erro ao enviar bloco: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public boolean completeUpload(String token, String uploadId)
+        throws Exception {
+        if (!validateSession(token)) {
+            throw new SecurityException("Token inválido ou expirado");
+        }
+
+        String userId = getUserIdFromToken(token);
+        System.out.println("Concluindo upload " + uploadId + " - usuário: " + userId);
+
+        try {
+            DataService ds = getDataService();
+            String fileName = ds.completeUpload(uploadId, userId);
+            if (fileName == null) {
+                return false;
+            }
+            publishInvalidation(userId, fileName, InvalidationType.UPDATE);
+            return true;
+        } catch (java.rmi.RemoteException e) {
+            throw new Exception("Erro ao concluir upload: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public boolean abortUpload(String token, String uploadId) throws Exception {
+        if (!validateSession(token)) {
+            throw new SecurityException("Token inválido ou expirado");
+        }
+
+        String userId = getUserIdFromToken(token);
+
+        try {
+            DataService ds = getDataService();
+            return ds.abortUpload(uploadId, userId);
+        } catch (java.rmi.RemoteException e) {
+            throw new Exception("Erro ao cancelar upload: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public String initiateMultipartUpload(String token, String fileName)
+        throws Exception {
+        if (!validateSession(token)) {
+            throw new SecurityException("Token inválido ou expirado");
+        }
+
+        String userId = getUserIdFromToken(token);
+        System.out.println("Upload multipart: " + fileName + " - usuário: " + userId);
+
+        try {
+            DataService ds = getDataService();
+            return ds.initiateMultipartUpload(userId, fileName);
+        } catch (java.rmi.RemoteException e) {
+            throw new Exception("Erro ao iniciar upload multipart: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public long uploadPartChunk(
+        String token,
+        String uploadId,
+        int partNumber,
+        long offset,
+        byte[] chunk
+    ) throws Exception {
+        if (!validateSession(token)) {
+            throw new SecurityException("Token inválido ou expirado");
+        }
+
+        String userId = getUserIdFromToken(token);
+
+        try {
+            DataService ds = getDataService();
+            return ds.uploadPartChunk(uploadId, userId, partNumber, offset, chunk);
+        } catch (java.rmi.RemoteException e) {
+            throw new Exception("Erro ao enviar parte: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public Map<Integer, Long> listUploadParts(String token, String uploadId)
+        throws Exception {
+        if (!validateSession(token)) {
+            throw new SecurityException("Token inválido ou expirado");
+        }
+
+        String userId = getUserIdFromToken(token);
+
+        try {
+            DataService ds = getDataService();
+            return ds.listUploadParts(uploadId, userId);
+        } catch (java.rmi.RemoteException e) {
+            throw new Exception("Erro ao listar partes: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public boolean completeMultipartUpload(
+        String token,
+        String uploadId,
+        List<Integer> partNumbers
+    ) throws Exception {
+        if (!validateSession(token)) {
+            throw new SecurityException("Token inválido ou expirado");
+        }
+
+        String userId = getUserIdFromToken(token);
+        System.out.println("Concluindo upload multipart " + uploadId + " - usuário: " + userId);
+
+        try {
+            DataService ds = getDataService();
+            String fileName = ds.completeMultipartUpload(uploadId, userId, partNumbers);
+            if (fileName == null) {
+                return false;
+            }
+            publishInvalidation(userId, fileName, InvalidationType.UPDATE);
+            return true;
+        } catch (java.rmi.RemoteException e) {
+            throw new Exception("Erro ao concluir upload multipart: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public boolean abortMultipartUpload(String token, String uploadId)
+        throws Exception {
+        if (!validateSession(token)) {
+            throw new SecurityException("Token inválido ou expirado");
+        }
+
+        String userId = getUserIdFromToken(token);
+
+        try {
+            DataService ds = getDataService();
+            return ds.abortMultipartUpload(uploadId, userId);
+        } catch (java.rmi.RemoteException e) {
+            throw new Exception("Erro ao cancelar upload multipart: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public List<BatchResult> executeBatch(
+        String token,
+        List<BatchOperation> operations
+    ) throws Exception {
+        if (!validateSession(token)) {
+            throw new SecurityException("Token inválido ou expirado");
+        }
+
+        String userId = getUserIdFromToken(token);
+        System.out.println(
+            "Lote: " + operations.size() + " operações - usuário: " + userId
+        );
+
+        try {
+            DataService ds = getDataService();
+            List<BatchResult> results = ds.executeBatch(userId, operations);
+
+            // Uma invalidação por arquivo escrito, para não descartar do cache
+            // dos gateways os demais arquivos do usuário
+            for (BatchResult result : results) {
+                if (!result.isSuccess() || result.getType() == BatchOperation.OperationType.DOWNLOAD) {
+                    continue;
+                }
+                publishInvalidation(
+                    userId,
+                    result.getFileName(),
+                    result.getType() == BatchOperation.OperationType.DELETE
+                        ? InvalidationType.DELETE
+                        : InvalidationType.UPDATE
+                );
+            }
+            return results;
+        } catch (java.rmi.RemoteException e) {
+            throw new Exception("Erro ao executar lote: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public TransferGrant requestTransfer(
+        String token,
+        String fileName,
+        String targetUserId,
+        String operation
+    ) throws Exception {
+        if (!validateSession(token)) {
+            throw new SecurityException("Token inválido ou expirado");
+        }
+
+        TransferTicket.Operation op = TransferTicket.Operation.valueOf(operation);
+        // Upload só na própria pasta; download pode ler a de outro usuário,
+        // como em downloadFileWithUser
+        String userId = (op == TransferTicket.Operation.DOWNLOAD &&
+            targetUserId != null && !targetUserId.isEmpty())
+            ? targetUserId
+            : getUserIdFromToken(token);
+
+        try {
+            DataService ds = getDataService();
+            String endpoint = ds.getTransferEndpoint();
+            if (endpoint == null) {
+                return null;
+            }
+
+            long version = 0;
+            if (op == TransferTicket.Operation.DOWNLOAD) {
+                br.ifmg.sd.models.FileMetadata metadata = ds.getFileMetadata(userId, fileName);
+                if (metadata == null) {
+                    return null;
+                }
+                version = metadata.getUpdatedAt();
+            }
+
+            TransferTicket ticket = TransferTicket.issue(
+                op,
+                userId,
+                fileName,
+                version,
+                TRANSFER_TICKET_TTL_MS
+            );
+            int colon = endpoint.lastIndexOf(':');
+            return new TransferGrant(
+                ticket.encode(),
+                endpoint.substring(0, colon),
+                Integer.parseInt(endpoint.substring(colon + 1)),
+                userId,
+                version,
+                ticket.getExpiresAt()
+            );
+        } catch (java.rmi.RemoteException e) {
+            throw new Exception("Erro ao autorizar transferência: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public String getTransferEndpoint() throws Exception {
+        try {
+            return getDataService().getTransferEndpoint();
+        } catch (java.rmi.RemoteException e) {
+            throw new Exception("Erro ao consultar servidor de dados: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public br.ifmg.sd.models.FileMetadata getPublicFileInfo(
+        String userId,
+        String fileName,
+        long version,
+        long expiresAt,
+        String signature
+    ) throws Exception {
+        if (!PresignedUrl.verify(userId, fileName, version, expiresAt, signature)) {
+            throw new SecurityException("Link inválido ou expirado");
+        }
+
+        // Devolve a versão atual; o gateway compara com a do link
+        try {
+            return readFromReplica(ds -> ds.getFileMetadata(userId, fileName));
+        } catch (java.rmi.RemoteException e) {
+            throw new Exception("Erro ao consultar arquivo: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public byte[] downloadPublicChunk(
+        String userId,
+        String fileName,
+        long version,
+        long expiresAt,
+        String signature,
+        long offset,
+        int length
+    ) throws Exception {
+        if (!PresignedUrl.verify(userId, fileName, version, expiresAt, signature)) {
+            throw new SecurityException("Link inválido ou expirado");
+        }
+
+        try {
+            return readFromReplica(ds ->
+                ds.readFileRange(userId, fileName, offset, length, version)
+            );
+        } catch (java.rmi.RemoteException e) {
+            throw new Exception("Erro ao fazer download: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public ChangeFeedPage getChanges(String token, long cursor, int limit)
+        throws Exception {
+        if (!validateSession(token)) {
+            throw new SecurityException("Token inválido ou expirado");
+        }
+
+        String userId = getUserIdFromToken(token);
+        try {
+            DataService ds = getDataService();
+            return ds.getChanges(userId, cursor, limit);
+        } catch (java.rmi.RemoteException e) {
+            throw new Exception("Erro ao consultar alterações: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public long getFileListVersion(String token, boolean allUsers) throws Exception {
+        if (!validateSession(token)) {
+            throw new SecurityException("Token inválido ou expirado");
+        }
+
+        String userId = allUsers ? null : getUserIdFromToken(token);
+        try {
+            // No coordenador, que numera as alterações: uma réplica atrasada
+            // devolveria uma versão anterior à listagem já enviada. As
+            // leituras seguintes não usam réplicas abaixo dela
+            long version = getDataService().getFileListVersion(userId);
+            onChangeSeq(version);
+            return version;
+        } catch (java.rmi.RemoteException e) {
+            throw new Exception("Erro ao consultar versão da listagem: " + e.getMessage());
+        }
+    }
+
     @Override
     public byte[] downloadFile(String token, String fileName) throws Exception {
         if (!validateSession(token)) {
@@ -349,8 +857,7 @@ public class ControlServer implements Receiver, ControlService {
         System.out.println("Download: " + fileName + " - usuário: " + userId);
 
         try {
-            DataService ds = getDataService();
-            return ds.downloadFile(userId, fileName);
+            return readFromReplica(ds -> ds.downloadFile(userId, fileName));
         } catch (java.rmi.RemoteException e) {
             throw new Exception("Erro ao fazer download: " + e.getMessage());
         }
@@ -370,8 +877,54 @@ public class ControlServer implements Receiver, ControlService {
         System.out.println("Download: " + fileName + " - usuário: " + userId);
 
         try {
-            DataService ds = getDataService();
-            return ds.downloadFile(userId, fileName);
+            return readFromReplica(ds -> ds.downloadFile(userId, fileName));
+        } catch (java.rmi.RemoteException e) {
+            throw new Exception("Erro ao fazer download: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public br.ifmg.sd.models.FileMetadata getFileInfo(
+        String token,
+        String fileName,
+        String targetUserId
+    ) throws Exception {
+        if (!validateSession(token)) {
+            throw new SecurityException("Token inválido ou expirado");
+        }
+
+        String userId = (targetUserId != null && !targetUserId.isEmpty())
+            ? targetUserId
+            : getUserIdFromToken(token);
+
+        try {
+            return readFromReplica(ds -> ds.getFileMetadata(userId, fileName));
+        } catch (java.rmi.RemoteException e) {
+            throw new Exception("Erro ao consultar arquivo: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public byte[] downloadChunk(
+        String token,
+        String fileName,
+        String targetUserId,
+        long offset,
+        int length,
+        long expectedUpdatedAt
+    ) throws Exception {
+        if (!validateSession(token)) {
+            throw new SecurityException("Token inválido ou expirado");
+        }
+
+        String userId = (targetUserId != null && !targetUserId.isEmpty())
+            ? targetUserId
+            : getUserIdFromToken(token);
+
+        try {
+            return readFromReplica(ds ->
+                ds.readFileRange(userId, fileName, offset, length, expectedUpdatedAt)
+            );
         } catch (java.rmi.RemoteException e) {
             throw new Exception("Erro ao fazer download: " + e.getMessage());
         }
@@ -396,7 +949,11 @@ public class ControlServer implements Receiver, ControlService {
 
         try {
             DataService ds = getDataService();
-            return ds.editFile(userId, fileName, newContent);
+            boolean updated = ds.editFile(userId, fileName, newContent);
+            if (updated) {
+                publishInvalidation(userId, fileName, InvalidationType.UPDATE);
+            }
+            return updated;
         } catch (java.rmi.RemoteException e) {
             throw new Exception("Erro ao atualizar arquivo: " + e.getMessage());
         }
@@ -420,7 +977,11 @@ public class ControlServer implements Receiver, ControlService {
 
         try {
             DataService ds = getDataService();
-            return ds.editFile(userId, fileName, newContent);
+            boolean updated = ds.editFile(userId, fileName, newContent);
+            if (updated) {
+                publishInvalidation(userId, fileName, InvalidationType.UPDATE);
+            }
+            return updated;
         } catch (java.rmi.RemoteException e) {
             throw new Exception("Erro ao atualizar arquivo: " + e.getMessage());
         }
@@ -437,7 +998,11 @@ public class ControlServer implements Receiver, ControlService {
 
         try {
             DataService ds = getDataService();
-            return ds.deleteFile(userId, fileName);
+            boolean deleted = ds.deleteFile(userId, fileName);
+            if (deleted) {
+                publishInvalidation(userId, fileName, InvalidationType.DELETE);
+            }
+            return deleted;
         } catch (java.rmi.RemoteException e) {
             throw new Exception("Erro ao deletar arquivo: " + e.getMessage());
         }
@@ -447,16 +1012,27 @@ public class ControlServer implements Receiver, ControlService {
     public List<br.ifmg.sd.models.FileMetadata> searchFiles(
         String token,
         String fileName
+    ) throws Exception {
+        return searchFiles(token, fileName, 0);
+    }
+
+    @Override
+    public List<br.ifmg.sd.models.FileMetadata> searchFiles(
+        String token,
+        String fileName,
+        long minVersion
     ) throws Exception {
         if (!validateSession(token)) {
             throw new SecurityException("Token inválido ou expirado");
         }
 
         System.out.println("Busca: " + fileName);
+        if (minVersion > 0) {
+            onChangeSeq(minVersion);
+        }
 
         try {
-            DataService ds = getDataService();
-            return ds.findFilesByName(fileName);
+            return readFromReplica(ds -> ds.findFilesByName(fileName));
         } catch (java.rmi.RemoteException e) {
             throw new Exception("Erro ao buscar arquivos: " + e.getMessage());
         }
@@ -472,17 +1048,47 @@ public class ControlServer implements Receiver, ControlService {
         System.out.println("Listar arquivos - usuário: " + userId);
 
         try {
-            DataService ds = getDataService();
-            return ds.listFiles(userId);
+            return readFromReplica(ds -> ds.listFiles(userId));
         } catch (java.rmi.RemoteException e) {
             throw new Exception("Erro ao listar arquivos: " + e.getMessage());
         }
     }
 
+    /**
+     * Avisa os gateways que a cópia em cache do arquivo deixou de valer, e os
+     * outros ControlServers do seq em que a alteração já está gravada.
+     * Falhas no envio não desfazem a operação: o TTL do cache e o da
+     * consulta ao seq nas leituras cobrem o caso.
+     */
+    private void publishInvalidation(
+        String userId,
+        String fileName,
+        InvalidationType type
+    ) {
+        long seq = 0;
+        try {
+            seq = getDataService().getFileListVersion(null);
+        } catch (Exception e) {
+            System.err.println("Erro ao consultar seq da alteração: " + e.getMessage());
+        }
+        onChangeSeq(seq);
+        try {
+            channel.send(
+                ClusterMessages.toMessage(null, new FileInvalidation(userId, fileName, type, seq))
+            );
+        } catch (Exception e) {
+            System.err.println("Erro ao publicar invalidação: " + e.getMessage());
+        }
+    }
+
     /**
      * Para o servidor gracefully.
      */
     public void stop() {
+        if (metricsServer != null) {
+            metricsServer.stop();
+        }
+        sessions.shutdown();
         if (dispatcher != null) {
             dispatcher.stop();
         }
@@ -494,7 +1100,8 @@ public class ControlServer implements Receiver, ControlService {
 
     public void printStats() {
         System.out.println("\n Estatísticas do " + serverName + ":");
-        System.out.println("   Sessões ativas: " + sessionCache.size());
+        System.out.println("   Sessões ativas: " + sessions.size());
+        System.out.println("   Tokens revogados: " + revocations.size());
         System.out.println("   Usuários: " + userDatabase.size());
         System.out.println(
             "   Membros no cluster: " +
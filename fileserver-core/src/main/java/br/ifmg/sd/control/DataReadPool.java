@@ -0,0 +1,300 @@
+package br.ifmg.sd.control;
+
+import br.ifmg.sd.metrics.Counter;
+import br.ifmg.sd.metrics.MetricsRegistry;
+import br.ifmg.sd.metrics.RpcMetrics;
+import br.ifmg.sd.rpc.DataService;
+import java.rmi.RemoteException;
+import java.rmi.ServerException;
+import java.rmi.registry.Registry;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Distribui as leituras entre todos os DataServers registrados no RMI como
+ * "data-service-read-&lt;nome&gt;", e não só o coordenador. A escolha usa
+ * o mesmo "power of two choices" do gateway: sorteia duas réplicas e fica
+ * com a de menor custo estimado (latência média móvel x chamadas em
+ * andamento). Réplicas inalcançáveis são ejetadas por um tempo crescente.
+ *
+ * Uma réplica pode ainda não ter aplicado a última escrita. O pool guarda o
+ * maior seq do feed de alterações que este ControlServer já viu: o das
+ * próprias escritas, o que chega nas invalidações dos outros servidores e o
+ * das versões de listagem consultadas. Só usa a réplica se ela já aplicou
+ * todas as alterações até esse seq; do contrário a leitura vai ao
+ * coordenador. A réplica só é consultada quando o último seq que informou
+ * está abaixo, e o coordenador só quando o seq visto tem mais de
+ * fenceTtlMillis ou uma invalidação chegou sem seq (escrita pela
+ * transferência direta). Assim nenhuma leitura paga uma chamada a mais ao
+ * coordenador: quem grava por este servidor lê o que gravou, e uma escrita
+ * feita por outro caminho aparece em no máximo fenceTtlMillis mesmo se a
+ * invalidação se perder. Quando a réplica falha ou não encontra o arquivo,
+ * a leitura também é refeita no coordenador.
+ */
+public class DataReadPool {
+
+    public static final String NAME_PREFIX = "data-service-read-";
+
+    private static final double EWMA_ALPHA = 0.2;
+    // Sem medição, a réplica parece a mais rápida e é experimentada logo;
+    // com uma estimativa alta ela nunca seria sorteada contra as já medidas
+    private static final double INITIAL_LATENCY_MS = 0.0;
+    private static final int FAILURES_BEFORE_EJECTION = 3;
+    private static final long BASE_EJECTION_MS = 10_000;
+    private static final long MAX_EJECTION_MS = 60_000;
+
+    @FunctionalInterface
+    public interface ReadCall<T> {
+        T call(DataService service) throws RemoteException;
+    }
+
+    private final Registry registry;
+    private final long refreshIntervalMillis;
+    private final long fenceTtlMillis;
+    private final Map<String, Replica> replicas = new ConcurrentHashMap<>();
+    private final MetricsRegistry metrics = MetricsRegistry.getDefault();
+    private final RpcMetrics rpcMetrics = new RpcMetrics(metrics, "control_data_read_rmi");
+    private final Counter fallbacks = metrics.counter(
+        "control_data_read_fallbacks_total",
+        "Leituras refeitas no coordenador depois de falhar em uma réplica"
+    );
+    private final Counter staleReplicas = metrics.counter(
+        "control_data_read_stale_total",
+        "Leituras enviadas ao coordenador porque a réplica sorteada estava atrasada"
+    );
+    private final Counter fenceRefreshes = metrics.counter(
+        "control_data_read_fence_refresh_total",
+        "Consultas ao coordenador pelo seq atual do feed de alterações"
+    );
+    // Maior seq do feed de alterações visto por este ControlServer
+    private final AtomicLong observedSeq = new AtomicLong();
+    // Invalidações sem seq recebidas; a consulta feita antes de uma delas
+    // não vale mais
+    private final AtomicLong fenceEpoch = new AtomicLong();
+    private final Object fenceLock = new Object();
+    private volatile long fenceCheckedAt;
+    private volatile long fenceCheckedEpoch = -1;
+    private volatile long lastRefresh;
+
+    public DataReadPool(Registry registry, long refreshIntervalMillis, long fenceTtlMillis) {
+        this.registry = registry;
+        this.refreshIntervalMillis = refreshIntervalMillis;
+        this.fenceTtlMillis = fenceTtlMillis;
+        metrics.gauge("control_data_read_replicas", "Réplicas de leitura conhecidas", replicas::size);
+    }
+
+    /**
+     * Registra um seq do feed de alterações visto por este servidor (de uma
+     * escrita, invalidação ou versão de listagem). Leituras seguintes só
+     * usam réplicas que já o aplicaram.
+     */
+    public void observeChangeSeq(long seq) {
+        observedSeq.accumulateAndGet(seq, Math::max);
+    }
+
+    /**
+     * Houve uma escrita cujo seq não se sabe: a próxima leitura consulta o
+     * seq atual no coordenador.
+     */
+    public void invalidateFence() {
+        fenceEpoch.incrementAndGet();
+    }
+
+    /**
+     * Executa a leitura em uma réplica que já aplicou tudo o que este
+     * servidor viu e, se não houver uma, se ela falhar ou retornar null,
+     * no coordenador.
+     */
+    public <T> T read(ReadCall<T> call, DataService coordinator) throws RemoteException {
+        refreshIfStale();
+        Replica replica = select();
+        if (replica != null) {
+            long fence = currentFence(coordinator);
+            replica.outstanding.incrementAndGet();
+            long start = System.nanoTime();
+            boolean stale = false;
+            try {
+                stale = !hasApplied(replica, fence);
+                if (stale) {
+                    replica.onSuccess(System.nanoTime() - start);
+                } else {
+                    T value = call.call(replica.service);
+                    replica.onSuccess(System.nanoTime() - start);
+                    if (value != null) {
+                        return value;
+                    }
+                }
+            } catch (ServerException | RuntimeException e) {
+                // A réplica respondeu com erro (ex.: arquivo que ainda não chegou)
+                replica.onSuccess(System.nanoTime() - start);
+            } catch (RemoteException e) {
+                onFailure(replica);
+            }
+            if (stale) {
+                staleReplicas.inc();
+            } else {
+                fallbacks.inc();
+            }
+        }
+        return call.call(coordinator);
+    }
+
+    /**
+     * O maior seq visto, relido do coordenador quando tem mais de
+     * fenceTtlMillis; as leituras concorrentes esperam uma única consulta.
+     */
+    private long currentFence(DataService coordinator) throws RemoteException {
+        if (fenceFresh()) {
+            return observedSeq.get();
+        }
+        synchronized (fenceLock) {
+            if (!fenceFresh()) {
+                long epoch = fenceEpoch.get();
+                long now = System.currentTimeMillis();
+                observeChangeSeq(coordinator.getFileListVersion(null));
+                fenceRefreshes.inc();
+                fenceCheckedAt = now;
+                fenceCheckedEpoch = epoch;
+            }
+        }
+        return observedSeq.get();
+    }
+
+    private boolean fenceFresh() {
+        return fenceCheckedEpoch == fenceEpoch.get() &&
+            System.currentTimeMillis() - fenceCheckedAt < fenceTtlMillis;
+    }
+
+    /**
+     * Se a réplica já aplicou todas as alterações até fence. O seq aplicado
+     * só cresce, então basta consultá-la de novo quando o último valor
+     * conhecido ainda está abaixo.
+     */
+    private static boolean hasApplied(Replica replica, long fence) throws RemoteException {
+        if (replica.appliedSeq >= fence) {
+            return true;
+        }
+        long applied = replica.service.getAppliedChangeSeq();
+        synchronized (replica) {
+            replica.appliedSeq = Math.max(replica.appliedSeq, applied);
+        }
+        return applied >= fence;
+    }
+
+    public int size() {
+        return replicas.size();
+    }
+
+    private Replica select() {
+        long now = System.currentTimeMillis();
+        List<Replica> healthy = new ArrayList<>(replicas.size());
+        for (Replica replica : replicas.values()) {
+            if (replica.ejectedUntil <= now) {
+                healthy.add(replica);
+            }
+        }
+        if (healthy.isEmpty()) {
+            return null;
+        }
+        if (healthy.size() == 1) {
+            return healthy.get(0);
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(healthy.size());
+        int second = random.nextInt(healthy.size() - 1);
+        if (second >= first) {
+            second++;
+        }
+        Replica a = healthy.get(first);
+        Replica b = healthy.get(second);
+        return a.cost() <= b.cost() ? a : b;
+    }
+
+    private void onFailure(Replica replica) {
+        replica.outstanding.decrementAndGet();
+        int failures = replica.consecutiveFailures.incrementAndGet();
+        if (failures >= FAILURES_BEFORE_EJECTION) {
+            long ejection = Math.min(
+                MAX_EJECTION_MS,
+                BASE_EJECTION_MS << Math.min(failures - FAILURES_BEFORE_EJECTION, 6)
+            );
+            replica.ejectedUntil = System.currentTimeMillis() + ejection;
+            System.err.println(
+                "Réplica de leitura " + replica.name + " ejetada por " + ejection + " ms após " +
+                failures + " falhas"
+            );
+        }
+    }
+
+    /**
+     * Relê os nomes do registry: réplicas novas entram no conjunto e as que
+     * saíram do registry deixam de ser sorteadas.
+     */
+    private void refreshIfStale() {
+        long now = System.currentTimeMillis();
+        if (now - lastRefresh < refreshIntervalMillis) {
+            return;
+        }
+        synchronized (this) {
+            if (now - lastRefresh < refreshIntervalMillis) {
+                return;
+            }
+            lastRefresh = now;
+            try {
+                Set<String> names = new HashSet<>();
+                for (String name : registry.list()) {
+                    if (name.startsWith(NAME_PREFIX)) {
+                        names.add(name);
+                    }
+                }
+                replicas.keySet().retainAll(names);
+                for (String name : names) {
+                    if (!replicas.containsKey(name)) {
+                        DataService service = rpcMetrics.instrument(
+                            DataService.class,
+                            (DataService) registry.lookup(name)
+                        );
+                        replicas.put(name, new Replica(name, service));
+                        System.out.println("✓ Réplica de leitura encontrada: " + name);
+                    }
+                }
+            } catch (Exception e) {
+                System.err.println("Erro ao atualizar réplicas de leitura: " + e.getMessage());
+            }
+        }
+    }
+
+    private static class Replica {
+        private final String name;
+        private final DataService service;
+        private final AtomicInteger outstanding = new AtomicInteger();
+        private final AtomicInteger consecutiveFailures = new AtomicInteger();
+        private volatile double ewmaMillis = INITIAL_LATENCY_MS;
+        private volatile long ejectedUntil;
+        // Último seq até o qual a réplica informou ter aplicado tudo
+        private volatile long appliedSeq;
+
+        private Replica(String name, DataService service) {
+            this.name = name;
+            this.service = service;
+        }
+
+        private synchronized void onSuccess(long latencyNanos) {
+            outstanding.decrementAndGet();
+            consecutiveFailures.set(0);
+            ewmaMillis = EWMA_ALPHA * (latencyNanos / 1_000_000.0) + (1 - EWMA_ALPHA) * ewmaMillis;
+        }
+
+        private double cost() {
+            return ewmaMillis * (outstanding.get() + 1);
+        }
+    }
+}
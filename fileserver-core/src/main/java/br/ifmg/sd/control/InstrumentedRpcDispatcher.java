@@ -0,0 +1,44 @@
+package br.ifmg.sd.control;
+
+import br.ifmg.sd.metrics.RpcMetrics;
+import org.jgroups.JChannel;
+import org.jgroups.Message;
+import org.jgroups.blocks.MethodCall;
+import org.jgroups.blocks.RpcDispatcher;
+
+/**
+ * RpcDispatcher que registra contagem, erros, latência e bytes de cada
+ * método chamado pelos gateways.
+ */
+public class InstrumentedRpcDispatcher extends RpcDispatcher {
+
+    private final RpcMetrics metrics;
+
+    public InstrumentedRpcDispatcher(
+        JChannel channel,
+        Object serverObject,
+        RpcMetrics metrics
+    ) {
+        super(channel, serverObject);
+        this.metrics = metrics;
+    }
+
+    @Override
+    public Object handle(Message req) throws Exception {
+        Object payload = req.getObject();
+        if (!(payload instanceof MethodCall)) {
+            return super.handle(req);
+        }
+
+        MethodCall call = (MethodCall) payload;
+        long start = System.nanoTime();
+        try {
+            Object result = super.handle(req);
+            metrics.record(call.getMethodName(), start, false, call.getArgs(), result);
+            return result;
+        } catch (Exception e) {
+            metrics.record(call.getMethodName(), start, true, call.getArgs(), null);
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package br.ifmg.sd.control;
+
+import br.ifmg.sd.models.Session;
+import br.ifmg.sd.security.JWTUtil;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sessões ativas do control-cluster, indexadas pelo hash de
+ * {@link JWTUtil#hashToken(String)} em vez do JWT inteiro. Uma fila ordenada
+ * pela expiração permite que uma varredura periódica descarte as sessões
+ * vencidas sem percorrer o mapa, e um limite de tamanho descarta as que
+ * expiram primeiro quando há logins demais.
+ *
+ * A fila é limpa de forma preguiçosa: entradas de sessões já removidas
+ * (logout) ficam nela até vencerem e são ignoradas na varredura.
+ */
+public class SessionStore {
+
+    private static final int MIN_QUEUE_REBUILD = 1024;
+
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    private final PriorityQueue<Expiry> expiries = new PriorityQueue<>();
+    private final int maxSessions;
+    private final AtomicLong expiredEvictions = new AtomicLong();
+    private final AtomicLong capacityEvictions = new AtomicLong();
+    private final ScheduledExecutorService sweeper;
+
+    public SessionStore(int maxSessions, long sweepIntervalMillis) {
+        this.maxSessions = maxSessions;
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "session-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sweeper.scheduleWithFixedDelay(
+            this::sweep,
+            sweepIntervalMillis,
+            sweepIntervalMillis,
+            TimeUnit.MILLISECONDS
+        );
+    }
+
+    public static SessionStore fromSystemProperties() {
+        return new SessionStore(
+            Integer.getInteger("control.sessions.max", 100_000),
+            Long.getLong("control.sessions.sweep.ms", 30_000L)
+        );
+    }
+
+    public void put(String token, Session session) {
+        putByHash(JWTUtil.hashToken(token), session);
+    }
+
+    public Session get(String token) {
+        String hash = JWTUtil.hashToken(token);
+        Session session = sessions.get(hash);
+        if (session != null && session.isExpired()) {
+            // A varredura ainda não passou por ela
+            if (sessions.remove(hash, session)) {
+                expiredEvictions.incrementAndGet();
+            }
+            return null;
+        }
+        return session;
+    }
+
+    public Session remove(String token) {
+        return sessions.remove(JWTUtil.hashToken(token));
+    }
+
+    /**
+     * Sessões ainda válidas, indexadas pelo hash do token, para a
+     * transferência de estado a um servidor que entra no cluster.
+     */
+    public Map<String, Session> snapshot() {
+        Map<String, Session> live = new HashMap<>();
+        sessions.forEach((hash, session) -> {
+            if (!session.isExpired()) {
+                live.put(hash, session);
+            }
+        });
+        return live;
+    }
+
+    public void putAll(Map<String, Session> snapshot) {
+        snapshot.forEach(this::putByHash);
+    }
+
+    public int size() {
+        return sessions.size();
+    }
+
+    public long getExpiredEvictions() {
+        return expiredEvictions.get();
+    }
+
+    public long getCapacityEvictions() {
+        return capacityEvictions.get();
+    }
+
+    public void shutdown() {
+        sweeper.shutdownNow();
+    }
+
+    private void putByHash(String hash, Session session) {
+        if (session == null || session.isExpired()) {
+            return;
+        }
+        // O token completo não é necessário depois de indexado pelo hash
+        Session compact = new Session(
+            session.getUserId(),
+            session.getUserName(),
+            session.getUserEmail(),
+            null,
+            session.getCreatedAt(),
+            session.getExpiresAt()
+        );
+        sessions.put(hash, compact);
+
+        synchronized (expiries) {
+            expiries.add(new Expiry(hash, compact));
+        }
+        if (sessions.size() > maxSessions) {
+            evictOverCapacity();
+        }
+    }
+
+    void sweep() {
+        long now = System.currentTimeMillis();
+        synchronized (expiries) {
+            while (!expiries.isEmpty() && expiries.peek().expiresAt < now) {
+                Expiry expiry = expiries.poll();
+                if (sessions.remove(expiry.hash, expiry.session)) {
+                    expiredEvictions.incrementAndGet();
+                }
+            }
+
+            // Logouts deixam entradas órfãs na fila; reconstrói quando elas
+            // passam a dominar
+            if (expiries.size() > 2 * sessions.size() + MIN_QUEUE_REBUILD) {
+                expiries.removeIf(expiry -> sessions.get(expiry.hash) != expiry.session);
+            }
+        }
+    }
+
+    private void evictOverCapacity() {
+        synchronized (expiries) {
+            while (sessions.size() > maxSessions && !expiries.isEmpty()) {
+                Expiry expiry = expiries.poll();
+                if (sessions.remove(expiry.hash, expiry.session)) {
+                    if (expiry.expiresAt < System.currentTimeMillis()) {
+                        expiredEvictions.incrementAndGet();
+                    } else {
+                        capacityEvictions.incrementAndGet();
+                    }
+                }
+            }
+        }
+    }
+
+    private static final class Expiry implements Comparable<Expiry> {
+
+        private final String hash;
+        private final Session session;
+        private final long expiresAt;
+
+        Expiry(String hash, Session session) {
+            this.hash = hash;
+            this.session = session;
+            this.expiresAt = session.getExpiresAt();
+        }
+
+        @Override
+        public int compareTo(Expiry other) {
+            return Long.compare(expiresAt, other.expiresAt);
+        }
+    }
+}
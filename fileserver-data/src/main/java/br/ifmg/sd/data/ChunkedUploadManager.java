@@ -0,0 +1,157 @@
+package br.ifmg.sd.data;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Mantém as sessões de upload em partes: cada sessão grava seus blocos em um
+ * arquivo temporário na área de staging até ser concluída ou descartada.
+ */
+public class ChunkedUploadManager {
+
+    private static final long SESSION_TTL_MS = 30 * 60 * 1000;
+
+    private final Path stagingPath;
+    private final Map<String, PendingUpload> uploads = new ConcurrentHashMap<>();
+
+    public ChunkedUploadManager(String serverName) throws IOException {
+        this.stagingPath = Paths.get(serverName, "staging");
+        Files.createDirectories(stagingPath);
+    }
+
+    public String begin(String userId, String fileName) throws IOException {
+        purgeExpired();
+
+        String uploadId = UUID.randomUUID().toString();
+        Path path = stagingPath.resolve(uploadId);
+        Files.createFile(path);
+
+        uploads.put(uploadId, new PendingUpload(uploadId, userId, fileName, path));
+        return uploadId;
+    }
+
+    /**
+     * Grava o bloco na posição indicada. Reenviar o mesmo bloco é seguro,
+     * pois a escrita é posicional.
+     */
+    public long append(String uploadId, String userId, long offset, byte[] chunk)
+        throws IOException {
+        PendingUpload upload = get(uploadId, userId);
+
+        synchronized (upload) {
+            try (
+                FileChannel channel = FileChannel.open(
+                    upload.getPath(),
+                    StandardOpenOption.WRITE
+                )
+            ) {
+                ByteBuffer buffer = ByteBuffer.wrap(chunk);
+                long position = offset;
+                while (buffer.hasRemaining()) {
+                    position += channel.write(buffer, position);
+                }
+            }
+            upload.size = Math.max(upload.size, offset + chunk.length);
+            upload.lastTouched = System.currentTimeMillis();
+            return upload.size;
+        }
+    }
+
+    /**
+     * Remove a sessão do controle e devolve o arquivo temporário para ser
+     * publicado pelo chamador.
+     */
+    public PendingUpload finish(String uploadId, String userId)
+        throws IOException {
+        PendingUpload upload = get(uploadId, userId);
+        uploads.remove(uploadId);
+        return upload;
+    }
+
+    public void abort(String uploadId, String userId) throws IOException {
+        PendingUpload upload = get(uploadId, userId);
+        uploads.remove(uploadId);
+        Files.deleteIfExists(upload.getPath());
+    }
+
+    public int size() {
+        return uploads.size();
+    }
+
+    private PendingUpload get(String uploadId, String userId)
+        throws IOException {
+        PendingUpload upload = uploads.get(uploadId);
+        if (upload == null || !upload.getUserId().equals(userId)) {
+            throw new IOException("Sessão de upload não encontrada: " + uploadId);
+        }
+        return upload;
+    }
+
+    private void purgeExpired() {
+        long limit = System.currentTimeMillis() - SESSION_TTL_MS;
+
+        for (PendingUpload upload : uploads.values()) {
+            if (upload.lastTouched < limit) {
+                uploads.remove(upload.getUploadId());
+                try {
+                    Files.deleteIfExists(upload.getPath());
+                } catch (IOException e) {
+                    System.err.println(
+                        "Erro ao remover upload expirado: " + e.getMessage()
+                    );
+                }
+                System.out.println("Upload expirado descartado: " + upload.getUploadId());
+            }
+        }
+    }
+
+    public static class PendingUpload {
+        private final String uploadId;
+        private final String userId;
+        private final String fileName;
+        private final Path path;
+        private volatile long size;
+        private volatile long lastTouched;
+
+        public PendingUpload(
+            String uploadId,
+            String userId,
+            String fileName,
+            Path path
+        ) {
+            this.uploadId = uploadId;
+            this.userId = userId;
+            this.fileName = fileName;
+            this.path = path;
+            this.lastTouched = System.currentTimeMillis();
+        }
+
+        public String getUploadId() {
+            return uploadId;
+        }
+
+        public String getUserId() {
+            return userId;
+        }
+
+        public String getFileName() {
+            return fileName;
+        }
+
+        public Path getPath() {
+            return path;
+        }
+
+        public long getSize() {
+            return size;
+        }
+    }
+}
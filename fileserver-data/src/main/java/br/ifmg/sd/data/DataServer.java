@@ -1,24 +1,62 @@
 package br.ifmg.sd.data;
 
+import br.ifmg.sd.concurrent.SingleFlight;
+import br.ifmg.sd.data.repository.ChangeRepository;
+import br.ifmg.sd.data.repository.TimedConnection;
 import br.ifmg.sd.data.repository.FileRepository;
+import br.ifmg.sd.data.repository.MultipartRepository;
 import br.ifmg.sd.data.repository.UserRepository;
+import br.ifmg.sd.metrics.Counter;
+import br.ifmg.sd.metrics.Histogram;
+import br.ifmg.sd.metrics.MetricsRegistry;
+import br.ifmg.sd.metrics.MetricsServer;
+import br.ifmg.sd.metrics.RpcMetrics;
+import br.ifmg.sd.models.BatchOperation;
+import br.ifmg.sd.models.BatchResult;
+import br.ifmg.sd.models.ChangeFeedPage;
+import br.ifmg.sd.models.ContentRequest;
+import br.ifmg.sd.models.ContentResponse;
 import br.ifmg.sd.models.File;
+import br.ifmg.sd.models.FileChange;
+import br.ifmg.sd.models.FileChunk;
 import br.ifmg.sd.models.FileReplication;
+import br.ifmg.sd.models.FileReplicationBatch;
 import br.ifmg.sd.models.ReplicationAck;
 import br.ifmg.sd.models.UserReplication;
+import br.ifmg.sd.models.WriteConsistency;
+import br.ifmg.sd.rpc.ClusterMessages;
 import br.ifmg.sd.rpc.DataService;
 import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
 import java.io.DataOutputStream;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.NetworkInterface;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.rmi.Remote;
 import java.rmi.RemoteException;
 import java.rmi.registry.LocateRegistry;
 import java.rmi.registry.Registry;
 import java.rmi.server.UnicastRemoteObject;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.Lock;
 import org.jgroups.*;
 import org.jgroups.blocks.locking.LockService;
@@ -36,7 +74,79 @@ public class DataServer
     private FileRepository fileRepository;
     private UserRepository userRepository;
     private ReplicationCoordinator replicationCoordinator;
+    // Consistência das escritas que não pedem uma explicitamente
+    private final WriteConsistency defaultWriteConsistency;
+    private ChunkedUploadManager uploadManager;
+    private MultipartUploadManager multipartManager;
+    private IncomingContent incomingContent;
     private LockService lockService;
+    // Downloads simultâneos do mesmo arquivo compartilham a mesma leitura
+    private final SingleFlight readFlights = new SingleFlight();
+
+    private final MetricsRegistry metrics = MetricsRegistry.getDefault();
+    private final Histogram lockWait = metrics.histogram(
+        "data_lock_wait_seconds",
+        "Espera pelo lock distribuído de um arquivo"
+    );
+    private MetricsServer metricsServer;
+    private TransferServer transferServer;
+
+    // Reparo do posicionamento após mudanças de view, uma passada por vez;
+    // só começa depois da transferência de estado
+    private final ExecutorService placementRepair = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "data-placement-repair");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean repairQueued = new AtomicBoolean();
+    private volatile boolean placementReady;
+    private final Counter placementRestored = metrics.counter(
+        "data_placement_restored_total",
+        "Arquivos copiados de outros membros depois de uma mudança de view"
+    );
+    private final Counter placementMissing = metrics.counter(
+        "data_placement_missing_total",
+        "Arquivos que este servidor deveria guardar e que nenhum membro tinha"
+    );
+
+    private ChangeRepository changeRepository;
+    // Último seq do feed de alterações, atribuído aqui quando este servidor
+    // é o coordenador e acompanhado das replicações quando não é
+    private long changeSeq;
+    // Seq até o qual todas as alterações foram aplicadas; replicações
+    // concorrentes podem chegar fora de ordem, e as que passaram à frente
+    // ficam em appliedAhead até a lacuna ser preenchida
+    private long appliedSeq;
+    private final TreeSet<Long> appliedAhead = new TreeSet<>();
+    private final Object changeLock = new Object();
+    private static final long CHANGE_RETENTION_MS = TimeUnit.HOURS.toMillis(
+        Long.getLong("data.changes.retention.hours", 168)
+    );
+    private static final long REPLICATION_TIMEOUT_SECONDS = Long.getLong(
+        "data.replication.timeout.seconds",
+        10
+    );
+    // Quantos servidores guardam o conteúdo de cada arquivo; 0 guarda em todos
+    private static final int REPLICATION_FACTOR = Integer.getInteger(
+        "data.replication.factor",
+        0
+    );
+    // Tamanho dos blocos em que arquivos publicados da staging são replicados
+    private static final int REPLICATION_CHUNK_BYTES = Integer.getInteger(
+        "data.replication.chunk.bytes",
+        1024 * 1024
+    );
+    private static final int RING_VNODES = Integer.getInteger("data.ring.vnodes", 128);
+    private static final long REMOTE_READ_TIMEOUT_MS = Long.getLong(
+        "data.remote.read.timeout.ms",
+        5000
+    );
+    // Anel de posicionamento da view atual, refeito a cada mudança de membros
+    private volatile HashRing ring;
+    private RemoteReader remoteReader;
+    private static final String READ_SERVICE_PREFIX = "data-service-read-";
+    // Stub do proxy instrumentado publicado no RMI Registry
+    private Remote exportedService;
 
     public DataServer(String serverName, String registryHost, int registryPort)
         throws RemoteException {
@@ -45,12 +155,24 @@ public class DataServer
         this.registryHost = registryHost;
         this.registryPort = registryPort;
         this.replicationCoordinator = new ReplicationCoordinator();
+        // Lido aqui, e não num campo estático, para que um valor inválido
+        // apareça como erro de inicialização legível
+        this.defaultWriteConsistency = WriteConsistency.parse(
+            "data.write.consistency",
+            System.getProperty("data.write.consistency", "ALL")
+        );
     }
 
     public void start() throws Exception {
         System.out.println("Iniciando " + serverName);
 
         initDatabase();
+        uploadManager = new ChunkedUploadManager(serverName);
+        incomingContent = new IncomingContent(serverName);
+        multipartManager = new MultipartUploadManager(
+            serverName,
+            new MultipartRepository(dbConnection)
+        );
 
         InputStream configStream = getClass()
             .getClassLoader()
@@ -60,7 +182,9 @@ public class DataServer
             throw new RuntimeException("Arquivo udp-data.xml não encontrado!");
         }
 
+        ClusterMessages.register();
         channel = new JChannel(configStream);
+        remoteReader = new RemoteReader(channel, REMOTE_READ_TIMEOUT_MS);
         channel.setReceiver(this);
         channel.connect("data-cluster");
         
@@ -90,6 +214,28 @@ public class DataServer
         if (isCoordinator()) {
             registerInRMI();
         }
+        // Depois da transferência de estado, para não atender leituras vazio
+        registerReadEndpoint();
+        placementReady = true;
+        schedulePlacementRepair();
+
+        metrics.gauge(
+            "data_cluster_members",
+            "Membros do data-cluster",
+            () -> channel.getView().size()
+        );
+        metrics.gauge(
+            "data_coordinator",
+            "1 se este servidor é o coordenador",
+            () -> isCoordinator() ? 1 : 0
+        );
+        metrics.counterFunction(
+            "data_coalesced_reads_total",
+            "Leituras atendidas por outra idêntica em andamento",
+            readFlights::getShared
+        );
+        metricsServer = MetricsServer.startFromSystemProperties(metrics);
+        transferServer = TransferServer.start(this, this::isCoordinator);
     }
 
     private void initDatabase() throws SQLException {
@@ -98,7 +244,10 @@ public class DataServer
             dir.mkdirs();
         }
         String dbPath = serverName + "/" + "fileserver_" + serverName + ".db";
-        dbConnection = DriverManager.getConnection("jdbc:sqlite:" + dbPath);
+        dbConnection = TimedConnection.wrap(
+            DriverManager.getConnection("jdbc:sqlite:" + dbPath),
+            metrics
+        );
 
         String createFilesTable = """
                 CREATE TABLE IF NOT EXISTS files (
@@ -124,9 +273,20 @@ public class DataServer
                 )
             """;
 
+        String createMultipartTable = """
+                CREATE TABLE IF NOT EXISTS multipart_uploads (
+                    upload_id TEXT PRIMARY KEY,
+                    user_id TEXT NOT NULL,
+                    file_name TEXT NOT NULL,
+                    created_at INTEGER NOT NULL,
+                    updated_at INTEGER NOT NULL
+                )
+            """;
+
         try (Statement stmt = dbConnection.createStatement()) {
             stmt.execute(createFilesTable);
             stmt.execute(createUsersTable);
+            stmt.execute(createMultipartTable);
             System.out.println("Tabelas criadas/verificadas com sucesso");
         }
 
@@ -137,6 +297,9 @@ public class DataServer
         }
 
         userRepository = new UserRepository(dbConnection);
+        changeRepository = new ChangeRepository(dbConnection);
+        changeSeq = changeRepository.maxSeq();
+        appliedSeq = changeSeq;
 
         System.out.println("Banco de dados inicializado: " + dbPath);
     }
@@ -145,27 +308,87 @@ public class DataServer
         return channel.getView().getCoord().equals(channel.getAddress());
     }
 
-    private void registerInRMI() {
+    /**
+     * Registry em registryHost. Se ele não responder e registryHost for esta
+     * máquina, cria o registry aqui. O registry padrão do JDK só aceita
+     * rebind de processos na mesma máquina, então os DataServers precisam
+     * rodar no host do registry.
+     */
+    private Registry locateRegistry() throws RemoteException {
+        Registry registry = LocateRegistry.getRegistry(registryHost, registryPort);
         try {
-            Registry registry;
-
-            try {
-                System.out.println(
-                    "Tentando criar RMI Registry local na porta " +
-                        registryPort +
-                        "..."
-                );
-                registry = LocateRegistry.createRegistry(registryPort);
-                System.out.println(
-                    "RMI Registry criado na porta " + registryPort
+            registry.list();
+            return registry;
+        } catch (RemoteException e) {
+            if (!isLocalHost(registryHost)) {
+                throw new RemoteException(
+                    "RMI Registry inacessível em " + registryHost + ":" + registryPort,
+                    e
                 );
-            } catch (java.rmi.server.ExportException e) {
-                System.out.println("RMI Registry já existe na porta local, conectando...");
-                registry = LocateRegistry.getRegistry("localhost", registryPort);
-                System.out.println("✓ Conectado ao RMI Registry local existente");
             }
+        }
+
+        try {
+            System.out.println(
+                "Tentando criar RMI Registry local na porta " +
+                    registryPort +
+                    "..."
+            );
+            registry = LocateRegistry.createRegistry(registryPort);
+            System.out.println(
+                "RMI Registry criado na porta " + registryPort
+            );
+        } catch (java.rmi.server.ExportException e) {
+            // Outro servidor criou o registry ao mesmo tempo
+            registry = LocateRegistry.getRegistry(registryHost, registryPort);
+            System.out.println("✓ Conectado ao RMI Registry existente em " + registryHost);
+        }
+        return registry;
+    }
+
+    private static boolean isLocalHost(String host) {
+        try {
+            InetAddress address = InetAddress.getByName(host);
+            return address.isLoopbackAddress() ||
+                address.isAnyLocalAddress() ||
+                NetworkInterface.getByInetAddress(address) != null;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private synchronized Remote exportService() throws RemoteException {
+        if (exportedService == null) {
+            // O proxy mede cada chamada RMI e é exportado no lugar deste objeto
+            exportedService = UnicastRemoteObject.exportObject(
+                new RpcMetrics(metrics, "data_rmi").instrument(DataService.class, this),
+                0
+            );
+        }
+        return exportedService;
+    }
 
-            registry.rebind("data-service", this);
+    /**
+     * Todo servidor, coordenador ou não, atende leituras pelo nome
+     * "data-service-read-&lt;nome&gt;"; o ControlServer distribui entre eles.
+     */
+    private void registerReadEndpoint() {
+        try {
+            locateRegistry().rebind(READ_SERVICE_PREFIX + serverName, exportService());
+            System.out.println(
+                "Leituras registradas no RMI Registry como '" + READ_SERVICE_PREFIX + serverName + "'"
+            );
+        } catch (Exception e) {
+            System.err.println(
+                "Erro ao registrar réplica de leitura: " + e.getMessage()
+            );
+        }
+    }
+
+    private void registerInRMI() {
+        try {
+            Registry registry = locateRegistry();
+            registry.rebind("data-service", exportService());
             System.out.println(
                 "DataService registrado no RMI Registry como 'data-service'"
             );
@@ -183,11 +406,13 @@ public class DataServer
     @Override
     public void viewAccepted(View newView) {
         System.out.println("Nova view do data-cluster: " + newView);
+        ring = new HashRing(newView.getMembers(), RING_VNODES);
 
         if (isCoordinator()) {
             System.out.println("Este servidor é o novo coordenador!");
             registerInRMI();
         }
+        schedulePlacementRepair();
     }
 
     // ==================== RMI Methods ====================
@@ -195,6 +420,16 @@ public class DataServer
     @Override
     public boolean saveFile(String userId, String fileName, byte[] content)
         throws RemoteException {
+        return saveFile(userId, fileName, content, defaultWriteConsistency);
+    }
+
+    @Override
+    public boolean saveFile(
+        String userId,
+        String fileName,
+        byte[] content,
+        WriteConsistency consistency
+    ) throws RemoteException {
         System.out.println(
             "RMI: Salvando arquivo " + fileName + " para usuário " + userId
         );
@@ -214,39 +449,658 @@ public class DataServer
                 metadata.getUpdatedAt()
             );
 
-            int clusterSize = channel.getView().size();
-            int expectedAcks = clusterSize - 1;
-            
-            if (expectedAcks > 0) {
-                replicationCoordinator.startOperation(
-                    replication.getOperationId(),
-                    expectedAcks
+            if (!replicate(replication.getOperationId(), replication, consistency)) {
+                System.err.println(
+                    "Aviso: A gravação não atingiu a consistência " + consistency
                 );
             }
 
-            Message msg = new ObjectMessage(null, replication);
-            channel.send(msg);
+            System.out.println("Arquivo salvo e replicado com sucesso");
+            return true;
+        } catch (Exception e) {
+            System.err.println("Erro ao salvar arquivo: " + e.getMessage());
+            throw new RemoteException("Erro ao salvar arquivo", e);
+        }
+    }
+
+    @Override
+    public String beginUpload(String userId, String fileName)
+        throws RemoteException {
+        System.out.println(
+            "RMI: Iniciando upload em blocos de " + fileName + " para usuário " + userId
+        );
+
+        try {
+            return uploadManager.begin(userId, fileName);
+        } catch (Exception e) {
+            throw new RemoteException("Erro ao iniciar upload", e);
+        }
+    }
+
+    @Override
+    public long appendUploadChunk(
+        String uploadId,
+        String userId,
+        long offset,
+        byte[] chunk
+    ) throws RemoteException {
+        try {
+            return uploadManager.append(uploadId, userId, offset, chunk);
+        } catch (Exception e) {
+            throw new RemoteException("Erro ao gravar bloco do upload", e);
+        }
+    }
+
+    @Override
+    public String completeUpload(String uploadId, String userId)
+        throws RemoteException {
+        try {
+            ChunkedUploadManager.PendingUpload upload = uploadManager.finish(
+                uploadId,
+                userId
+            );
+            System.out.println(
+                "RMI: Concluindo upload " + uploadId + " (" +
+                upload.getFileName() + ", " + upload.getSize() + " bytes)"
+            );
+
+            publishStaged(upload);
+
+            System.out.println("Upload concluído e replicado com sucesso");
+            return upload.getFileName();
+        } catch (Exception e) {
+            System.err.println("Erro ao concluir upload: " + e.getMessage());
+            throw new RemoteException("Erro ao concluir upload", e);
+        }
+    }
+
+    @Override
+    public boolean abortUpload(String uploadId, String userId)
+        throws RemoteException {
+        System.out.println("RMI: Cancelando upload " + uploadId);
+
+        try {
+            uploadManager.abort(uploadId, userId);
+            return true;
+        } catch (Exception e) {
+            throw new RemoteException("Erro ao cancelar upload", e);
+        }
+    }
+
+    @Override
+    public String initiateMultipartUpload(String userId, String fileName)
+        throws RemoteException {
+        System.out.println(
+            "RMI: Iniciando upload multipart de " + fileName + " para usuário " + userId
+        );
+
+        try {
+            return multipartManager.initiate(userId, fileName);
+        } catch (Exception e) {
+            throw new RemoteException("Erro ao iniciar upload multipart", e);
+        }
+    }
+
+    @Override
+    public long uploadPartChunk(
+        String uploadId,
+        String userId,
+        int partNumber,
+        long offset,
+        byte[] chunk
+    ) throws RemoteException {
+        try {
+            return multipartManager.writePart(uploadId, userId, partNumber, offset, chunk);
+        } catch (Exception e) {
+            throw new RemoteException("Erro ao gravar parte " + partNumber, e);
+        }
+    }
+
+    @Override
+    public Map<Integer, Long> listUploadParts(String uploadId, String userId)
+        throws RemoteException {
+        try {
+            return multipartManager.listParts(uploadId, userId);
+        } catch (Exception e) {
+            throw new RemoteException("Erro ao listar partes", e);
+        }
+    }
+
+    @Override
+    public String completeMultipartUpload(
+        String uploadId,
+        String userId,
+        List<Integer> partNumbers
+    ) throws RemoteException {
+        try {
+            ChunkedUploadManager.PendingUpload upload = multipartManager.assemble(
+                uploadId,
+                userId,
+                partNumbers
+            );
+            System.out.println(
+                "RMI: Concluindo upload multipart " + uploadId + " (" +
+                upload.getFileName() + ")"
+            );
+
+            publishStaged(upload);
+
+            System.out.println("Upload multipart concluído e replicado com sucesso");
+            return upload.getFileName();
+        } catch (Exception e) {
+            System.err.println("Erro ao concluir upload multipart: " + e.getMessage());
+            throw new RemoteException("Erro ao concluir upload multipart", e);
+        }
+    }
+
+    @Override
+    public boolean abortMultipartUpload(String uploadId, String userId)
+        throws RemoteException {
+        System.out.println("RMI: Cancelando upload multipart " + uploadId);
 
-            if (expectedAcks > 0) {
-                boolean success = replicationCoordinator.waitForCompletion(
-                    replication.getOperationId(),
-                    10,
-                    TimeUnit.SECONDS
+        try {
+            multipartManager.abort(uploadId, userId);
+            return true;
+        } catch (Exception e) {
+            throw new RemoteException("Erro ao cancelar upload multipart", e);
+        }
+    }
+
+    @Override
+    public List<BatchResult> executeBatch(
+        String userId,
+        List<BatchOperation> operations
+    ) throws RemoteException {
+        System.out.println(
+            "RMI: Lote de " + operations.size() + " operações do usuário " + userId
+        );
+
+        List<BatchResult> results = new ArrayList<>(operations.size());
+        List<FileReplication> replications = new ArrayList<>();
+
+        for (BatchOperation operation : operations) {
+            try {
+                results.add(executeBatchOperation(userId, operation, replications));
+            } catch (Exception e) {
+                results.add(BatchResult.failed(
+                    operation,
+                    e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName()
+                ));
+            }
+        }
+
+        if (replications.isEmpty()) {
+            return results;
+        }
+
+        // As escritas já estão gravadas aqui: uma falha na replicação não
+        // desfaz o lote, só marca os resultados para o cliente decidir
+        String replicationError = null;
+        try {
+            // Todas as escritas do lote em uma única mensagem e uma única
+            // espera por ACKs
+            FileReplicationBatch batch = new FileReplicationBatch(replications);
+            if (!replicate(batch.getOperationId(), batch)) {
+                replicationError = "Gravado, mas sem atingir a consistência " + defaultWriteConsistency;
+            }
+        } catch (Exception e) {
+            replicationError = "Gravado, mas a replicação falhou: " + e.getMessage();
+        }
+        if (replicationError != null) {
+            System.err.println("Aviso: lote de " + userId + ": " + replicationError);
+            for (int i = 0; i < results.size(); i++) {
+                BatchResult result = results.get(i);
+                if (result.isSuccess() && result.getType() != BatchOperation.OperationType.DOWNLOAD) {
+                    results.set(i, result.unreplicated(replicationError));
+                }
+            }
+        }
+        return results;
+    }
+
+    private BatchResult executeBatchOperation(
+        String userId,
+        BatchOperation operation,
+        List<FileReplication> replications
+    ) throws Exception {
+        String fileName = operation.getFileName();
+        if (fileName == null || fileName.isEmpty()) {
+            return BatchResult.failed(operation, "fileName é obrigatório");
+        }
+
+        switch (operation.getType()) {
+            case UPLOAD: {
+                if (operation.getContent() == null) {
+                    return BatchResult.failed(operation, "content é obrigatório");
+                }
+                String diskPath = fileRepository.save(userId, fileName, operation.getContent());
+                br.ifmg.sd.models.FileMetadata metadata = fileRepository.getMetadata(
+                    userId,
+                    fileName
                 );
+                replications.add(new FileReplication(
+                    userId,
+                    metadata.getUserName(),
+                    fileName,
+                    operation.getContent(),
+                    FileReplication.OperationType.SAVE,
+                    diskPath,
+                    metadata.getCreatedAt(),
+                    metadata.getUpdatedAt()
+                ));
+                return BatchResult.ok(operation, null);
+            }
+            case DELETE: {
+                if (fileRepository.getMetadata(userId, fileName) == null) {
+                    return BatchResult.failed(operation, "Arquivo não encontrado");
+                }
+                fileRepository.delete(userId, fileName);
+                replications.add(new FileReplication(
+                    userId,
+                    "Unknown",
+                    fileName,
+                    null,
+                    FileReplication.OperationType.DELETE,
+                    null,
+                    0,
+                    0
+                ));
+                return BatchResult.ok(operation, null);
+            }
+            case DOWNLOAD: {
+                br.ifmg.sd.models.FileMetadata metadata;
+                Lock lock = acquireLock(userId + ":" + fileName);
+                try {
+                    byte[] content = fileRepository.findByUserIdAndFileName(userId, fileName);
+                    if (content != null) {
+                        return BatchResult.ok(operation, content);
+                    }
+                    metadata = fileRepository.getMetadata(userId, fileName);
+                } finally {
+                    lock.unlock();
+                }
+                if (metadata == null) {
+                    return BatchResult.failed(operation, "Arquivo não encontrado");
+                }
+                // Fora do lock: a busca nos outros servidores pode esperar
+                // data.remote.read.timeout.ms por candidato, e a versão pedida
+                // já garante que o conteúdo é o dos metadados lidos
+                byte[] content = readRemoteContent(userId, fileName, metadata);
+                return content != null
+                    ? BatchResult.ok(operation, content)
+                    : BatchResult.failed(operation, "Conteúdo indisponível nos servidores do cluster");
+            }
+            default:
+                return BatchResult.failed(operation, "Operação desconhecida");
+        }
+    }
+
+    /**
+     * Move um arquivo montado na área de staging para uploads, registra no
+     * banco e replica para o cluster.
+     */
+    private void publishStaged(ChunkedUploadManager.PendingUpload upload)
+        throws Exception {
+        String userId = upload.getUserId();
+
+        String diskPath = fileRepository.saveFromStaging(
+            userId,
+            upload.getFileName(),
+            upload.getPath()
+        );
+        br.ifmg.sd.models.FileMetadata metadata = fileRepository.getMetadata(
+            userId,
+            upload.getFileName()
+        );
 
-                if (!success) {
+        // O conteúdo segue do disco em blocos (ver sendStreamedContent),
+        // sem carregar o arquivo inteiro em memória
+        FileReplication replication = new FileReplication(
+            userId,
+            metadata.getUserName(),
+            upload.getFileName(),
+            null,
+            FileReplication.OperationType.SAVE,
+            diskPath,
+            metadata.getCreatedAt(),
+            metadata.getUpdatedAt()
+        ).withStreamedContent(metadata.getFileSize());
+
+        if (!replicate(replication.getOperationId(), replication)) {
+            System.err.println(
+                "Aviso: O upload não atingiu a consistência " + defaultWriteConsistency
+            );
+        }
+    }
+
+    /**
+     * Envia a operação para o cluster. O future termina quando réplicas
+     * suficientes para a consistência pedida confirmarem ou o prazo vencer;
+     * as demais são acompanhadas em segundo plano. O coordenador de
+     * replicação não prende thread por operação, mas quem chama por RMI
+     * ainda espera o resultado em {@link #replicate}.
+     */
+    private CompletableFuture<Boolean> replicateAsync(
+        String operationId,
+        Object payload,
+        WriteConsistency consistency
+    ) throws Exception {
+        if (payload instanceof UserReplication || !isPlacementActive()) {
+            sendStreamedContent(null, payload);
+            int expectedAcks = channel.getView().size() - 1;
+            CompletableFuture<Boolean> acks = startReplication(
+                operationId,
+                expectedAcks,
+                consistency
+            );
+            if (!(payload instanceof UserReplication)) {
+                recordChanges(payload);
+            }
+            channel.send(ClusterMessages.toMessage(null, payload));
+            return acks;
+        }
+
+        // O seq precisa estar atribuído antes de montar as cópias sem conteúdo
+        recordChanges(payload);
+        Map<Address, Object> messages = placeReplication(operationId, payload);
+        for (Map.Entry<Address, Object> entry : messages.entrySet()) {
+            sendStreamedContent(entry.getKey(), entry.getValue());
+        }
+        int expectedAcks = (int) messages.values().stream().filter(DataServer::carriesContent).count();
+        CompletableFuture<Boolean> acks = startReplication(
+            operationId,
+            expectedAcks,
+            consistency
+        );
+        dropTemporaryCopies(operationId, payload, expectedAcks);
+
+        for (Map.Entry<Address, Object> entry : messages.entrySet()) {
+            channel.send(ClusterMessages.toMessage(entry.getKey(), entry.getValue()));
+        }
+        return acks;
+    }
+
+    /**
+     * Envia, antes da replicação em si, o conteúdo de uma replicação
+     * streamed em blocos lidos do disco. Os blocos vão pelo mesmo caminho da
+     * mensagem final (multicast ou unicast para dest), então chegam antes
+     * dela; o controle de fluxo do JGroups limita o que fica em memória.
+     */
+    private void sendStreamedContent(Address dest, Object payload) throws Exception {
+        if (!(payload instanceof FileReplication) || !((FileReplication) payload).isStreamed()) {
+            return;
+        }
+        FileReplication replication = (FileReplication) payload;
+        try (
+            FileChannel file = FileChannel.open(
+                Paths.get(replication.getDiskPath()),
+                StandardOpenOption.READ
+            )
+        ) {
+            long offset = 0;
+            while (offset < replication.getFileSize()) {
+                int size = (int) Math.min(REPLICATION_CHUNK_BYTES, replication.getFileSize() - offset);
+                ByteBuffer buffer = ByteBuffer.allocate(size);
+                while (buffer.hasRemaining()) {
+                    if (file.read(buffer, offset + buffer.position()) < 0) {
+                        throw new EOFException(
+                            "Arquivo menor que o registrado: " + replication.getFileName()
+                        );
+                    }
+                }
+                channel.send(ClusterMessages.toMessage(
+                    dest,
+                    new FileChunk(replication.getOperationId(), offset, buffer.array())
+                ));
+                offset += size;
+            }
+        }
+    }
+
+    private CompletableFuture<Boolean> startReplication(
+        String operationId,
+        int expectedAcks,
+        WriteConsistency consistency
+    ) {
+        return expectedAcks > 0
+            ? replicationCoordinator.startOperation(
+                operationId,
+                expectedAcks,
+                consistency.requiredAcks(expectedAcks),
+                REPLICATION_TIMEOUT_SECONDS,
+                TimeUnit.SECONDS
+            )
+            : CompletableFuture.completedFuture(true);
+    }
+
+    // ==================== Posicionamento ====================
+
+    /**
+     * Com um fator de replicação menor que o cluster, cada arquivo fica só
+     * nos donos dele no anel e os demais membros recebem apenas os metadados.
+     * O anel só decide onde o conteúdo fica: toda escrita continua passando
+     * pelo coordenador de dados, que grava, numera e replica a operação.
+     */
+    private boolean isPlacementActive() {
+        return REPLICATION_FACTOR > 0 && REPLICATION_FACTOR < channel.getView().size();
+    }
+
+    private List<Address> owners(String userId, String fileName) {
+        return ring.owners(userId + "/" + fileName, REPLICATION_FACTOR);
+    }
+
+    /**
+     * Se o membro grava o conteúdo da operação. Remoções vão para todos.
+     */
+    private boolean stores(FileReplication replication, Address member) {
+        return replication.getOperation() == FileReplication.OperationType.DELETE ||
+            owners(replication.getUserId(), replication.getFileName()).contains(member);
+    }
+
+    /**
+     * Mensagem de cada um dos outros membros: a operação completa para os
+     * donos e só os metadados para os demais. Um lote é dividido da mesma
+     * forma, entrada por entrada, mantendo o id da operação.
+     */
+    private Map<Address, Object> placeReplication(String operationId, Object payload) {
+        Map<Address, Object> messages = new LinkedHashMap<>();
+        for (Address member : channel.getView().getMembers()) {
+            if (member.equals(channel.getAddress())) {
+                continue;
+            }
+            if (payload instanceof FileReplicationBatch) {
+                List<FileReplication> entries = new ArrayList<>();
+                for (FileReplication replication : ((FileReplicationBatch) payload).getReplications()) {
+                    entries.add(stores(replication, member) ? replication : replication.withoutContent());
+                }
+                messages.put(member, new FileReplicationBatch(operationId, entries));
+            } else {
+                FileReplication replication = (FileReplication) payload;
+                messages.put(member, stores(replication, member) ? replication : replication.withoutContent());
+            }
+        }
+        return messages;
+    }
+
+    /**
+     * Só quem grava conteúdo responde com ACK; os metadados não entram na
+     * consistência da escrita.
+     */
+    private static boolean carriesContent(Object message) {
+        if (message instanceof FileReplicationBatch) {
+            return ((FileReplicationBatch) message)
+                .getReplications()
+                .stream()
+                .anyMatch(replication -> !replication.isMetadataOnly());
+        }
+        return !((FileReplication) message).isMetadataOnly();
+    }
+
+    /**
+     * O coordenador grava todo arquivo antes de replicá-lo. Quando não é um
+     * dos donos, a cópia dele conta para a consistência até os donos
+     * confirmarem e depois é descartada, ficando só os metadados.
+     */
+    private void dropTemporaryCopies(String operationId, Object payload, int expectedAcks) {
+        List<FileReplication> replications = payload instanceof FileReplicationBatch
+            ? ((FileReplicationBatch) payload).getReplications()
+            : List.of((FileReplication) payload);
+
+        List<FileReplication> temporary = new ArrayList<>();
+        for (FileReplication replication : replications) {
+            if (!stores(replication, channel.getAddress())) {
+                temporary.add(replication);
+            }
+        }
+        if (temporary.isEmpty() || expectedAcks == 0) {
+            return;
+        }
+
+        replicationCoordinator.allAcks(operationId).thenAccept(allStored -> {
+            if (!allStored) {
+                System.err.println(
+                    "Aviso: mantendo a cópia local de " + operationId + " (nem todos os donos confirmaram)"
+                );
+                return;
+            }
+            for (FileReplication replication : temporary) {
+                try {
+                    fileRepository.dropLocalContent(
+                        replication.getUserId(),
+                        replication.getFileName(),
+                        replication.getUpdatedAt()
+                    );
+                } catch (Exception e) {
                     System.err.println(
-                        "Aviso: Nem todas as réplicas confirmaram a operação"
+                        "Erro ao descartar cópia local de " + replication.getFileName() + ": " + e.getMessage()
                     );
                 }
             }
+        });
+    }
 
-            System.out.println("Arquivo salvo e replicado com sucesso");
-            return true;
+    private void schedulePlacementRepair() {
+        if (!placementReady || REPLICATION_FACTOR <= 0) {
+            return;
+        }
+        if (repairQueued.compareAndSet(false, true)) {
+            placementRepair.execute(() -> {
+                repairQueued.set(false);
+                repairPlacement();
+            });
+        }
+    }
+
+    /**
+     * Depois de uma mudança de view, busca nos outros membros o conteúdo dos
+     * arquivos que este servidor deveria guardar (é dono no anel novo, ou o
+     * cluster encolheu até o fator de replicação) e só tem pelos metadados.
+     * Assim uma saída não deixa arquivos com menos cópias que o fator. Roda
+     * fora da thread do JGroups, que entrega as respostas da busca; uma view
+     * nova interrompe a passada e agenda outra.
+     */
+    private void repairPlacement() {
+        HashRing current = ring;
+        int restored = 0;
+        int missing = 0;
+        try {
+            for (br.ifmg.sd.models.FileMetadata metadata : fileRepository.getAllMetadata()) {
+                if (ring != current || !channel.isConnected()) {
+                    return;
+                }
+                String userId = metadata.getUserId();
+                String fileName = metadata.getFileName();
+                if (isPlacementActive() && !owners(userId, fileName).contains(channel.getAddress())) {
+                    continue;
+                }
+                if (fileRepository.hasLocalContent(userId, fileName)) {
+                    continue;
+                }
+
+                byte[] content = readRemoteContent(userId, fileName, metadata);
+                if (content == null) {
+                    missing++;
+                    placementMissing.inc();
+                    System.err.println(
+                        "Aviso: nenhum membro tem o conteúdo de " + fileName + " (usuário " + userId + ")"
+                    );
+                } else if (fileRepository.restoreContent(userId, fileName, metadata.getUpdatedAt(), content)) {
+                    restored++;
+                    placementRestored.inc();
+                }
+            }
         } catch (Exception e) {
-            System.err.println("Erro ao salvar arquivo: " + e.getMessage());
-            throw new RemoteException("Erro ao salvar arquivo", e);
+            System.err.println("Erro ao reparar o posicionamento: " + e.getMessage());
+        }
+        if (restored > 0 || missing > 0) {
+            System.out.println(
+                "Posicionamento reparado: " + restored + " arquivo(s) copiados, " + missing + " sem cópia no cluster"
+            );
+        }
+    }
+
+    /**
+     * Servidores a consultar por um arquivo que não está no disco local: os
+     * donos atuais primeiro e depois os demais, já que o anel pode ter mudado
+     * desde a gravação.
+     */
+    private List<Address> readCandidates(String userId, String fileName) {
+        Set<Address> candidates = new LinkedHashSet<>();
+        if (REPLICATION_FACTOR > 0) {
+            candidates.addAll(owners(userId, fileName));
+        }
+        candidates.addAll(channel.getView().getMembers());
+        candidates.remove(channel.getAddress());
+        return new ArrayList<>(candidates);
+    }
+
+    /**
+     * Conteúdo do arquivo, do disco local ou de outro servidor quando este
+     * guarda só os metadados. Retorna null se o arquivo não existe.
+     */
+    private byte[] readContent(String userId, String fileName) throws Exception {
+        byte[] content = fileRepository.findByUserIdAndFileName(userId, fileName);
+        if (content != null) {
+            return content;
         }
+        br.ifmg.sd.models.FileMetadata metadata = fileRepository.getMetadata(userId, fileName);
+        if (metadata == null) {
+            return null;
+        }
+        return readRemoteContent(userId, fileName, metadata);
+    }
+
+    private byte[] readRemoteContent(
+        String userId,
+        String fileName,
+        br.ifmg.sd.models.FileMetadata metadata
+    ) throws Exception {
+        return remoteReader.read(
+            readCandidates(userId, fileName),
+            userId,
+            fileName,
+            0,
+            -1,
+            metadata.getUpdatedAt()
+        );
+    }
+
+    /**
+     * Envia a operação e aguarda a consistência pedida. O RMI é síncrono,
+     * então a thread da chamada fica bloqueada aqui até o quórum ou o prazo
+     * de data.replication.timeout.seconds: DataService não tem um caminho
+     * assíncrono de conclusão.
+     */
+    private boolean replicate(
+        String operationId,
+        Object payload,
+        WriteConsistency consistency
+    ) throws Exception {
+        return replicateAsync(operationId, payload, consistency).join();
+    }
+
+    private boolean replicate(String operationId, Object payload) throws Exception {
+        return replicate(operationId, payload, defaultWriteConsistency);
     }
 
     @Override
@@ -257,7 +1111,7 @@ public class DataServer
         );
 
         try {
-            return fileRepository.findByUserIdAndFileName(userId, fileName);
+            return readContent(userId, fileName);
         } catch (Exception e) {
             throw new RemoteException("Erro ao ler arquivo", e);
         }
@@ -271,7 +1125,7 @@ public class DataServer
         );
 
         try {
-            byte[] content = fileRepository.findByUserIdAndFileName(userId, fileName);
+            byte[] content = readContent(userId, fileName);
             
             if (content == null) {
                 throw new RemoteException(
@@ -298,6 +1152,12 @@ public class DataServer
 
     @Override
     public boolean deleteFile(String userId, String fileName)
+        throws RemoteException {
+        return deleteFile(userId, fileName, defaultWriteConsistency);
+    }
+
+    @Override
+    public boolean deleteFile(String userId, String fileName, WriteConsistency consistency)
         throws RemoteException {
         System.out.println(
             "RMI: Deletando arquivo " + fileName + " do usuário " + userId
@@ -317,31 +1177,10 @@ public class DataServer
                 0
             );
 
-            int clusterSize = channel.getView().size();
-            int expectedAcks = clusterSize - 1;
-            
-            if (expectedAcks > 0) {
-                replicationCoordinator.startOperation(
-                    replication.getOperationId(),
-                    expectedAcks
-                );
-            }
-
-            Message msg = new ObjectMessage(null, replication);
-            channel.send(msg);
-
-            if (expectedAcks > 0) {
-                boolean success = replicationCoordinator.waitForCompletion(
-                    replication.getOperationId(),
-                    10,
-                    TimeUnit.SECONDS
+            if (!replicate(replication.getOperationId(), replication, consistency)) {
+                System.err.println(
+                    "Aviso: A deleção não atingiu a consistência " + consistency
                 );
-
-                if (!success) {
-                    System.err.println(
-                        "Aviso: Nem todas as réplicas confirmaram a deleção"
-                    );
-                }
             }
 
             return true;
@@ -353,13 +1192,22 @@ public class DataServer
     @Override
     public boolean editFile(String userId, String fileName, byte[] newContent)
         throws RemoteException {
+        return editFile(userId, fileName, newContent, defaultWriteConsistency);
+    }
+
+    @Override
+    public boolean editFile(
+        String userId,
+        String fileName,
+        byte[] newContent,
+        WriteConsistency consistency
+    ) throws RemoteException {
         System.out.println(
             "RMI: Editando arquivo " + fileName + " do usuário " + userId
         );
 
         try {
-            Lock lock = lockService.getLock(userId + ":" + fileName);
-            lock.lock();
+            Lock lock = acquireLock(userId + ":" + fileName);
             
             try {
                 String diskPath = fileRepository.getDiskPath(userId, fileName);
@@ -381,32 +1229,13 @@ public class DataServer
                     metadata.getUpdatedAt()
                 );
 
-            int clusterSize = channel.getView().size();
-            int expectedAcks = clusterSize - 1;
-            
-            if (expectedAcks > 0) {
-                replicationCoordinator.startOperation(
-                    replication.getOperationId(),
-                    expectedAcks
-                );
-            }
-
-            Message msg = new ObjectMessage(null, replication);
-            channel.send(msg);
-
-            if (expectedAcks > 0) {
-                boolean success = replicationCoordinator.waitForCompletion(
-                    replication.getOperationId(),
-                    10,
-                    TimeUnit.SECONDS
-                );
-
-                if (!success) {
-                    throw new RemoteException(
-                        "Falha na replicação: nem todas as réplicas confirmaram a edição"
+                // A edição local já está gravada: como em saveFile e
+                // deleteFile, a replicação incompleta não a desfaz
+                if (!replicate(replication.getOperationId(), replication, consistency)) {
+                    System.err.println(
+                        "Aviso: A edição não atingiu a consistência " + consistency
                     );
                 }
-            }
 
                 System.out.println("Arquivo editado e replicado com sucesso");
                 return true;
@@ -437,6 +1266,11 @@ public class DataServer
         return channel.getView().size();
     }
 
+    @Override
+    public String getTransferEndpoint() throws RemoteException {
+        return transferServer != null ? transferServer.getEndpoint() : null;
+    }
+
     @Override
     public List<br.ifmg.sd.models.FileMetadata> findFilesByName(String fileName)
         throws RemoteException {
@@ -456,11 +1290,18 @@ public class DataServer
             "RMI: Download do arquivo " + fileName + " do usuário " + userId
         );
 
-        Lock lock = lockService.getLock(userId + ":" + fileName);
-        lock.lock();
+        return coalesced(
+            "file:" + userId + ":" + fileName,
+            () -> loadFile(userId, fileName)
+        );
+    }
+
+    private byte[] loadFile(String userId, String fileName)
+        throws RemoteException {
+        Lock lock = acquireLock(userId + ":" + fileName);
 
         try {
-            byte[] content = fileRepository.findByUserIdAndFileName(userId, fileName);
+            byte[] content = readContent(userId, fileName);
 
             if (content == null) {
                 throw new RemoteException(
@@ -484,6 +1325,102 @@ public class DataServer
         }
     }
 
+    @Override
+    public br.ifmg.sd.models.FileMetadata getFileMetadata(String userId, String fileName)
+        throws RemoteException {
+        try {
+            return fileRepository.getMetadata(userId, fileName);
+        } catch (Exception e) {
+            throw new RemoteException("Erro ao consultar metadados", e);
+        }
+    }
+
+    @Override
+    public byte[] readFileRange(
+        String userId,
+        String fileName,
+        long offset,
+        int length,
+        long expectedUpdatedAt
+    ) throws RemoteException {
+        return coalesced(
+            "range:" + userId + ":" + fileName + ":" + expectedUpdatedAt + ":" + offset + ":" + length,
+            () -> loadFileRange(userId, fileName, offset, length, expectedUpdatedAt)
+        );
+    }
+
+    private byte[] loadFileRange(
+        String userId,
+        String fileName,
+        long offset,
+        int length,
+        long expectedUpdatedAt
+    ) throws RemoteException {
+        Lock lock = acquireLock(userId + ":" + fileName);
+
+        try {
+            br.ifmg.sd.models.FileMetadata metadata = fileRepository.getMetadata(
+                userId,
+                fileName
+            );
+
+            if (metadata == null) {
+                throw new RemoteException(
+                    "Arquivo não encontrado: " + fileName + " (usuário: " + userId + ")"
+                );
+            }
+            // Impede que um download em partes misture duas versões do arquivo
+            if (expectedUpdatedAt > 0 && metadata.getUpdatedAt() != expectedUpdatedAt) {
+                throw new RemoteException("Arquivo modificado durante a leitura: " + fileName);
+            }
+
+            if (fileRepository.hasLocalContent(userId, fileName)) {
+                return fileRepository.readRange(userId, fileName, offset, length);
+            }
+            byte[] chunk = remoteReader.read(
+                readCandidates(userId, fileName),
+                userId,
+                fileName,
+                offset,
+                length,
+                metadata.getUpdatedAt()
+            );
+            if (chunk == null) {
+                throw new RemoteException("Conteúdo indisponível no cluster: " + fileName);
+            }
+            return chunk;
+        } catch (RemoteException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RemoteException("Erro ao ler trecho do arquivo", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Lock acquireLock(String key) {
+        Lock lock = lockService.getLock(key);
+        long start = System.nanoTime();
+        lock.lock();
+        lockWait.observeSince(start);
+        return lock;
+    }
+
+    /**
+     * Leituras concorrentes com a mesma chave esperam pela que já está em
+     * andamento, em vez de cada uma tomar o lock distribuído e ler o disco.
+     */
+    private byte[] coalesced(String key, Callable<byte[]> read)
+        throws RemoteException {
+        try {
+            return readFlights.execute(key, read);
+        } catch (RemoteException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RemoteException("Erro ao ler arquivo", e);
+        }
+    }
+
     @Override
     public boolean registerUser(String userId, String name, String password, String email)
         throws RemoteException {
@@ -508,31 +1445,10 @@ public class DataServer
                 createdAt
             );
 
-            int clusterSize = channel.getView().size();
-            int expectedAcks = clusterSize - 1;
-            
-            if (expectedAcks > 0) {
-                replicationCoordinator.startOperation(
-                    replication.getOperationId(),
-                    expectedAcks
-                );
-            }
-
-            Message msg = new ObjectMessage(null, replication);
-            channel.send(msg);
-
-            if (expectedAcks > 0) {
-                boolean replicationSuccess = replicationCoordinator.waitForCompletion(
-                    replication.getOperationId(),
-                    10,
-                    TimeUnit.SECONDS
+            if (!replicate(replication.getOperationId(), replication)) {
+                System.err.println(
+                    "Aviso: O registro do usuário não atingiu a consistência " + defaultWriteConsistency
                 );
-
-                if (!replicationSuccess) {
-                    System.err.println(
-                        "Aviso: Nem todas as réplicas confirmaram o registro do usuário"
-                    );
-                }
             }
 
             System.out.println("Usuário registrado e replicado com sucesso");
@@ -561,13 +1477,148 @@ public class DataServer
         }
     }
 
+    // ==================== Feed de alterações ====================
+
+    @Override
+    public ChangeFeedPage getChanges(String userId, long afterSeq, int limit)
+        throws RemoteException {
+        try {
+            long lastSeq;
+            synchronized (changeLock) {
+                // Lido junto com as gravações: toda alteração até lastSeq já
+                // está no banco quando a consulta abaixo roda
+                lastSeq = changeSeq;
+            }
+            long oldest = changeRepository.minSeq();
+
+            // Cursor negativo: o cliente só quer acompanhar a partir de agora
+            if (afterSeq < 0) {
+                return new ChangeFeedPage(new ArrayList<>(), lastSeq, false);
+            }
+            // Cursor de outro histórico ou anterior ao que foi descartado
+            if (afterSeq > lastSeq || (oldest > 0 && afterSeq < oldest - 1)) {
+                return new ChangeFeedPage(new ArrayList<>(), lastSeq, true);
+            }
+
+            List<FileChange> changes = changeRepository.findAfter(userId, afterSeq, limit);
+            long cursor = changes.size() < limit
+                ? lastSeq
+                : changes.get(changes.size() - 1).getSeq();
+            return new ChangeFeedPage(changes, cursor, false);
+        } catch (Exception e) {
+            throw new RemoteException("Erro ao consultar alterações", e);
+        }
+    }
+
+    /**
+     * O seq da última alteração do usuário no log. Se ela já foi descartada
+     * pela retenção, usa o seq atual do cluster, que é maior que qualquer
+     * versão informada antes para esse usuário.
+     */
+    @Override
+    public long getFileListVersion(String userId) throws RemoteException {
+        try {
+            long lastSeq;
+            synchronized (changeLock) {
+                lastSeq = changeSeq;
+            }
+            if (userId == null) {
+                return lastSeq;
+            }
+            long userSeq = changeRepository.lastSeq(userId);
+            return userSeq > 0 ? userSeq : lastSeq;
+        } catch (Exception e) {
+            throw new RemoteException("Erro ao consultar versão da listagem", e);
+        }
+    }
+
+    /**
+     * No coordenador: numera as alterações de uma replicação (única ou em
+     * lote) e grava no log antes do envio, para que as réplicas gravem o
+     * mesmo seq.
+     */
+    private void recordChanges(Object payload) throws SQLException {
+        List<FileReplication> replications = payload instanceof FileReplicationBatch
+            ? ((FileReplicationBatch) payload).getReplications()
+            : List.of((FileReplication) payload);
+
+        synchronized (changeLock) {
+            long before = changeSeq;
+            for (FileReplication replication : replications) {
+                replication.setChangeSeq(++changeSeq);
+                changeRepository.insert(toChange(replication));
+            }
+            // Limpeza a cada 1000 alterações
+            if (changeSeq / 1000 != before / 1000) {
+                pruneChanges();
+            }
+            // O coordenador já gravou localmente tudo o que numera
+            appliedSeq = changeSeq;
+            appliedAhead.clear();
+        }
+    }
+
+    /**
+     * Nas réplicas: grava a alteração com o seq que veio do coordenador.
+     */
+    private void storeChange(FileReplication replication) throws SQLException {
+        if (replication.getChangeSeq() <= 0) {
+            return;
+        }
+        synchronized (changeLock) {
+            changeRepository.insert(toChange(replication));
+            changeSeq = Math.max(changeSeq, replication.getChangeSeq());
+            long seq = replication.getChangeSeq();
+            if (seq == appliedSeq + 1) {
+                appliedSeq = seq;
+                while (appliedAhead.remove(appliedSeq + 1)) {
+                    appliedSeq++;
+                }
+            } else if (seq > appliedSeq) {
+                appliedAhead.add(seq);
+            }
+        }
+    }
+
+    /**
+     * Uma alteração que falhou aqui deixa a lacuna aberta até a próxima
+     * transferência de estado: as leituras do ControlServer continuam indo
+     * ao coordenador em vez de servir um estado incompleto.
+     */
+    @Override
+    public long getAppliedChangeSeq() throws RemoteException {
+        synchronized (changeLock) {
+            return appliedSeq;
+        }
+    }
+
+    private void pruneChanges() throws SQLException {
+        int removed = changeRepository.deleteOlderThan(
+            System.currentTimeMillis() - CHANGE_RETENTION_MS
+        );
+        if (removed > 0) {
+            System.out.println("Feed de alterações: " + removed + " entradas antigas removidas");
+        }
+    }
+
+    private static FileChange toChange(FileReplication replication) {
+        return new FileChange(
+            replication.getChangeSeq(),
+            replication.getUserId(),
+            replication.getFileName(),
+            FileChange.ChangeType.valueOf(replication.getOperation().name()),
+            replication.getUpdatedAt(),
+            replication.getTimestamp()
+        );
+    }
+
     // ==================== JGroups Receiver ====================
 
     @Override
     public void receive(Message msg) {
         Object obj = null;
         try {
-            obj = msg.getObject();
+            obj = ClusterMessages.fromMessage(msg);
         } catch (Exception e) {
             System.err.println("Erro ao deserializar mensagem: " + e.getMessage());
             return;
@@ -575,10 +1626,18 @@ public class DataServer
 
         if (obj instanceof FileReplication) {
             handleFileReplication(msg, (FileReplication) obj);
+        } else if (obj instanceof FileReplicationBatch) {
+            handleFileReplicationBatch(msg, (FileReplicationBatch) obj);
         } else if (obj instanceof UserReplication) {
             handleUserReplication(msg, (UserReplication) obj);
         } else if (obj instanceof ReplicationAck) {
             handleReplicationAck((ReplicationAck) obj);
+        } else if (obj instanceof FileChunk) {
+            handleFileChunk(msg, (FileChunk) obj);
+        } else if (obj instanceof ContentRequest) {
+            handleContentRequest(msg, (ContentRequest) obj);
+        } else if (obj instanceof ContentResponse) {
+            remoteReader.onResponse((ContentResponse) obj);
         }
     }
 
@@ -588,39 +1647,24 @@ public class DataServer
             return;
         }
 
+        if (replication.isMetadataOnly()) {
+            // Quem guarda só os metadados não entra na contagem de ACKs
+            try {
+                System.out.println("Recebendo metadados: " + replication);
+                applyReplication(replication);
+            } catch (Exception e) {
+                System.err.println("Erro ao processar metadados: " + e.getMessage());
+            }
+            return;
+        }
+
         boolean success = false;
         String errorMessage = null;
 
         try {
             System.out.println("Recebendo replicação: " + replication);
 
-            switch (replication.getOperation()) {
-                case SAVE:
-                    fileRepository.saveWithDiskPath(
-                        replication.getUserId(),
-                        replication.getUserName(),
-                        replication.getFileName(),
-                        replication.getContent(),
-                        replication.getDiskPath(),
-                        replication.getCreatedAt(),
-                        replication.getUpdatedAt()
-                    );
-                    break;
-                case DELETE:
-                    fileRepository.delete(
-                        replication.getUserId(),
-                        replication.getFileName()
-                    );
-                    break;
-                case EDIT:
-                    fileRepository.edit(
-                        replication.getUserId(),
-                        replication.getFileName(),
-                        replication.getContent(),
-                        replication.getDiskPath()
-                    );
-                    break;
-            }
+            applyReplication(replication);
             success = true;
         } catch (Exception e) {
             errorMessage = e.getClass().getSimpleName() + ": " + 
@@ -639,7 +1683,7 @@ public class DataServer
                 errorMessage != null ? errorMessage : ""
             );
 
-            Message ackMsg = new ObjectMessage(msg.getSrc(), ack);
+            Message ackMsg = ClusterMessages.toMessage(msg.getSrc(), ack);
             channel.send(ackMsg);
             System.out.println("ACK enviado: " + ack);
         } catch (Exception e) {
@@ -647,6 +1691,167 @@ public class DataServer
         }
     }
 
+    private void handleFileChunk(Message msg, FileChunk chunk) {
+        if (msg.getSrc().equals(channel.getAddress())) {
+            return;
+        }
+        try {
+            incomingContent.append(chunk.getOperationId(), chunk.getOffset(), chunk.getContent());
+        } catch (Exception e) {
+            // A falha aparece no ACK, quando a replicação final não encontrar
+            // o conteúdo completo
+            System.err.println("Erro ao gravar bloco de " + chunk.getOperationId() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Aplica um lote inteiro e responde com um único ACK. Uma operação que
+     * falha não impede as demais; o ACK informa a falha ao coordenador.
+     */
+    private void handleFileReplicationBatch(Message msg, FileReplicationBatch batch) {
+        if (msg.getSrc().equals(channel.getAddress())) {
+            System.out.println("Ignorando mensagem própria: " + batch.getOperationId());
+            return;
+        }
+
+        System.out.println("Recebendo replicação em lote: " + batch);
+
+        int failures = 0;
+        String lastError = null;
+        for (FileReplication replication : batch.getReplications()) {
+            try {
+                applyReplication(replication);
+            } catch (Exception e) {
+                failures++;
+                lastError = replication.getFileName() + ": " +
+                    (e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+                System.err.println("Erro ao processar replicação em lote: " + lastError);
+            }
+        }
+
+        if (!carriesContent(batch)) {
+            return;
+        }
+
+        try {
+            ReplicationAck ack = new ReplicationAck(
+                batch.getOperationId(),
+                serverName,
+                failures == 0,
+                failures == 0 ? "" : failures + " falha(s), última: " + lastError
+            );
+            channel.send(ClusterMessages.toMessage(msg.getSrc(), ack));
+            System.out.println("ACK enviado: " + ack);
+        } catch (Exception e) {
+            System.err.println("Erro ao enviar ACK: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Aplica a replicação e só então grava a alteração no log: uma escrita
+     * que falhou aqui não aparece no feed nem na versão da listagem.
+     */
+    private void applyReplication(FileReplication replication) throws Exception {
+        applyOperation(replication);
+        storeChange(replication);
+    }
+
+    private void applyOperation(FileReplication replication) throws Exception {
+        if (replication.isMetadataOnly() &&
+            replication.getOperation() != FileReplication.OperationType.DELETE) {
+            fileRepository.saveMetadata(
+                replication.getUserId(),
+                replication.getUserName(),
+                replication.getFileName(),
+                replication.getDiskPath(),
+                replication.getCreatedAt(),
+                replication.getUpdatedAt(),
+                replication.getFileSize()
+            );
+            return;
+        }
+        switch (replication.getOperation()) {
+            case SAVE:
+                if (replication.isStreamed()) {
+                    fileRepository.saveWithDiskPath(
+                        replication.getUserId(),
+                        replication.getUserName(),
+                        replication.getFileName(),
+                        incomingContent.take(replication.getOperationId(), replication.getFileSize()),
+                        replication.getDiskPath(),
+                        replication.getCreatedAt(),
+                        replication.getUpdatedAt()
+                    );
+                    break;
+                }
+                fileRepository.saveWithDiskPath(
+                    replication.getUserId(),
+                    replication.getUserName(),
+                    replication.getFileName(),
+                    replication.getContent(),
+                    replication.getDiskPath(),
+                    replication.getCreatedAt(),
+                    replication.getUpdatedAt()
+                );
+                break;
+            case DELETE:
+                fileRepository.delete(
+                    replication.getUserId(),
+                    replication.getFileName()
+                );
+                break;
+            case EDIT:
+                fileRepository.edit(
+                    replication.getUserId(),
+                    replication.getFileName(),
+                    replication.getContent(),
+                    replication.getDiskPath(),
+                    replication.getUpdatedAt()
+                );
+                break;
+        }
+    }
+
+    /**
+     * Responde com o trecho pedido se o arquivo estiver no disco local e na
+     * versão esperada; caso contrário responde sem conteúdo, e o coordenador
+     * tenta o próximo servidor.
+     */
+    private void handleContentRequest(Message msg, ContentRequest request) {
+        byte[] content = null;
+        try {
+            br.ifmg.sd.models.FileMetadata metadata = fileRepository.getMetadata(
+                request.getUserId(),
+                request.getFileName()
+            );
+            boolean current = metadata != null && (
+                request.getExpectedUpdatedAt() <= 0 ||
+                    metadata.getUpdatedAt() == request.getExpectedUpdatedAt()
+            );
+            if (current && fileRepository.hasLocalContent(request.getUserId(), request.getFileName())) {
+                content = request.getLength() < 0
+                    ? fileRepository.findByUserIdAndFileName(request.getUserId(), request.getFileName())
+                    : fileRepository.readRange(
+                        request.getUserId(),
+                        request.getFileName(),
+                        request.getOffset(),
+                        request.getLength()
+                    );
+            }
+        } catch (Exception e) {
+            System.err.println("Erro ao ler conteúdo pedido: " + e.getMessage());
+        }
+
+        try {
+            channel.send(ClusterMessages.toMessage(
+                msg.getSrc(),
+                new ContentResponse(request.getRequestId(), content)
+            ));
+        } catch (Exception e) {
+            System.err.println("Erro ao responder pedido de conteúdo: " + e.getMessage());
+        }
+    }
+
     private void handleReplicationAck(ReplicationAck ack) {
         System.out.println("Recebendo ACK: " + ack);
         replicationCoordinator.registerAck(
@@ -694,7 +1899,7 @@ public class DataServer
                 errorMessage != null ? errorMessage : ""
             );
 
-            Message ackMsg = new ObjectMessage(msg.getSrc(), ack);
+            Message ackMsg = ClusterMessages.toMessage(msg.getSrc(), ack);
             channel.send(ackMsg);
             System.out.println("ACK enviado: " + ack);
         } catch (Exception e) {
@@ -711,7 +1916,9 @@ public class DataServer
         DataOutputStream dataOutput = new DataOutputStream(output);
 
         // Enviar versão do protocolo para compatibilidade futura
-        dataOutput.writeInt(1); // protocol version
+        // Versão 2: tamanho do arquivo e conteúdo -1 para "só metadados"
+        // Versão 3: seq atual e o log de alterações retido, ao final
+        dataOutput.writeInt(3); // protocol version
         
         // Enviar usuários primeiro - buscar direto do banco com created_at
         String sql = "SELECT id, name, password, email, created_at FROM users";
@@ -754,6 +1961,14 @@ public class DataServer
             dataOutput.writeUTF(metadata.getDiskPath());
             dataOutput.writeLong(metadata.getCreatedAt());
             dataOutput.writeLong(metadata.getUpdatedAt());
+            dataOutput.writeLong(metadata.getFileSize());
+
+            // Com posicionamento o novo membro recebe só os metadados e busca o
+            // conteúdo nos donos quando precisar; o anel não é rebalanceado
+            if (isPlacementActive()) {
+                dataOutput.writeInt(-1);
+                continue;
+            }
 
             try {
                 byte[] fileContent = fileRepository.findByUserIdAndFileName(
@@ -771,22 +1986,42 @@ public class DataServer
                             " bytes)"
                     );
                 } else {
-                    dataOutput.writeInt(0);
+                    dataOutput.writeInt(-1);
                     System.out.println(
-                        "  Aviso: arquivo físico não encontrado: " + metadata.getFileName()
+                        "  Arquivo guardado em outros servidores: " + metadata.getFileName()
                     );
                 }
             } catch (Exception e) {
                 System.err.println(
                     "Erro ao enviar arquivo " + metadata.getFileName() + ": " + e.getMessage()
                 );
-                dataOutput.writeInt(0);
+                dataOutput.writeInt(-1);
             }
         }
 
+        // Log de alterações: o novo membro passa a responder o feed e a versão
+        // da listagem com o mesmo histórico do coordenador
+        long lastSeq;
+        List<FileChange> changes;
+        synchronized (changeLock) {
+            lastSeq = changeSeq;
+            changes = changeRepository.findAll();
+        }
+        dataOutput.writeLong(lastSeq);
+        dataOutput.writeInt(changes.size());
+        for (FileChange change : changes) {
+            dataOutput.writeLong(change.getSeq());
+            dataOutput.writeUTF(change.getUserId());
+            dataOutput.writeUTF(change.getFileName());
+            dataOutput.writeUTF(change.getType().name());
+            dataOutput.writeLong(change.getUpdatedAt());
+            dataOutput.writeLong(change.getChangedAt());
+        }
+
         dataOutput.flush();
         System.out.println(
-            "Estado completo enviado: " + userDataList.size() + " usuários, " + fileCount + " arquivos"
+            "Estado completo enviado: " + userDataList.size() + " usuários, " + fileCount +
+                " arquivos, " + changes.size() + " alterações (seq " + lastSeq + ")"
         );
     }
 
@@ -877,16 +2112,37 @@ public class DataServer
                 String diskPath = dataInput.readUTF();
                 long createdAt = dataInput.readLong();
                 long updatedAt = dataInput.readLong();
+                long fileSize = protocolVersion >= 2 ? dataInput.readLong() : 0;
                 int contentLength = dataInput.readInt();
 
+                // Na versão 1, 0 também indicava arquivo ausente
                 byte[] content = null;
-                if (contentLength > 0) {
+                if (contentLength > 0 || (protocolVersion >= 2 && contentLength == 0)) {
                     content = new byte[contentLength];
                     dataInput.readFully(content);
                 }
 
-                // Salvar no banco e disco com o mesmo diskPath
-                if (content != null) {
+                if (content == null && protocolVersion >= 2) {
+                    fileRepository.saveMetadata(
+                        userId,
+                        userName,
+                        fileName,
+                        diskPath,
+                        createdAt,
+                        updatedAt,
+                        fileSize
+                    );
+                    successCount++;
+                    System.out.println(
+                        "  [" +
+                            (i + 1) +
+                            "/" +
+                            fileCount +
+                            "] Metadados: " +
+                            fileName
+                    );
+                } else if (content != null) {
+                    // Salvar no banco e disco com o mesmo diskPath
                     try {
                         fileRepository.saveWithDiskPath(
                             userId,
@@ -947,6 +2203,32 @@ public class DataServer
             }
         }
 
+        if (protocolVersion >= 3) {
+            long lastSeq = dataInput.readLong();
+            int changeCount = dataInput.readInt();
+            List<FileChange> changes = new ArrayList<>(changeCount);
+            for (int i = 0; i < changeCount; i++) {
+                changes.add(new FileChange(
+                    dataInput.readLong(),
+                    dataInput.readUTF(),
+                    dataInput.readUTF(),
+                    FileChange.ChangeType.valueOf(dataInput.readUTF()),
+                    dataInput.readLong(),
+                    dataInput.readLong()
+                ));
+            }
+            // O log local pode ser de um histórico anterior: vale o do cluster
+            synchronized (changeLock) {
+                changeRepository.replaceAll(changes);
+                changeSeq = lastSeq;
+                appliedSeq = lastSeq;
+                appliedAhead.clear();
+            }
+            System.out.println(
+                "Feed de alterações recebido: " + changeCount + " entradas (seq " + lastSeq + ")"
+            );
+        }
+
         System.out.println(
             "Estado recebido! Usuários - Sucesso: " +
                 userSuccessCount +
@@ -963,6 +2245,22 @@ public class DataServer
 
     public void stop() {
         try {
+            if (metricsServer != null) {
+                metricsServer.stop();
+            }
+            if (transferServer != null) {
+                transferServer.stop();
+            }
+            replicationCoordinator.shutdown();
+            placementRepair.shutdownNow();
+            if (exportedService != null) {
+                try {
+                    LocateRegistry.getRegistry(registryHost, registryPort)
+                        .unbind(READ_SERVICE_PREFIX + serverName);
+                } catch (Exception e) {
+                    System.err.println("Erro ao remover réplica de leitura: " + e.getMessage());
+                }
+            }
             if (channel != null && channel.isConnected()) {
                 channel.close();
             }
@@ -0,0 +1,79 @@
+package br.ifmg.sd.data;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import org.jgroups.Address;
+
+/**
+ * Anel de hash consistente sobre os membros do data-cluster. Cada membro
+ * ocupa vnodes posições no anel, derivadas do seu nome, e os donos de uma
+ * chave são os primeiros membros distintos a partir do hash dela. Quando um
+ * membro entra ou sai, só as chaves vizinhas das posições dele mudam de dono.
+ *
+ * Imutável: o servidor monta um novo anel a cada view.
+ */
+public class HashRing {
+
+    private final TreeMap<Long, Address> ring = new TreeMap<>();
+    private final int members;
+
+    public HashRing(Collection<Address> members, int vnodes) {
+        this.members = members.size();
+        for (Address member : members) {
+            String name = member.toString();
+            for (int i = 0; i < vnodes; i++) {
+                ring.put(hash(name + "#" + i), member);
+            }
+        }
+    }
+
+    /**
+     * Até count membros distintos responsáveis pela chave, na ordem do anel.
+     */
+    public List<Address> owners(String key, int count) {
+        int wanted = Math.min(count, members);
+        if (wanted <= 0) {
+            return Collections.emptyList();
+        }
+
+        List<Address> owners = new ArrayList<>(wanted);
+        long position = hash(key);
+        for (Map<Long, Address> part : List.of(ring.tailMap(position), ring.headMap(position))) {
+            for (Address member : part.values()) {
+                if (!owners.contains(member)) {
+                    owners.add(member);
+                    if (owners.size() == wanted) {
+                        return owners;
+                    }
+                }
+            }
+        }
+        return owners;
+    }
+
+    public int size() {
+        return members;
+    }
+
+    private static long hash(String value) {
+        try {
+            byte[] digest = MessageDigest
+                .getInstance("MD5")
+                .digest(value.getBytes(StandardCharsets.UTF_8));
+            long hash = 0;
+            for (int i = 0; i < 8; i++) {
+                hash = (hash << 8) | (digest[i] & 0xff);
+            }
+            return hash;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
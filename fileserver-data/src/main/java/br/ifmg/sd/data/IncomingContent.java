@@ -0,0 +1,132 @@
+package br.ifmg.sd.data;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Recebe em disco o conteúdo das replicações enviadas em blocos: cada
+ * operação grava seus blocos em um arquivo próprio na área de staging até a
+ * replicação final chegar e levá-lo para uploads. Os blocos chegam em ordem
+ * (FIFO por remetente), então um bloco fora da posição esperada marca a
+ * operação como perdida.
+ */
+public class IncomingContent {
+
+    private static final long STALE_MS = TimeUnit.HOURS.toMillis(1);
+
+    private final Path incomingPath;
+    private final Map<String, Transfer> transfers = new ConcurrentHashMap<>();
+
+    public IncomingContent(String serverName) throws IOException {
+        this.incomingPath = Paths.get(serverName, "staging", "incoming");
+        Files.createDirectories(incomingPath);
+        // Transferências interrompidas por um reinício não serão concluídas
+        try (DirectoryStream<Path> stale = Files.newDirectoryStream(incomingPath)) {
+            for (Path path : stale) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    public void append(String operationId, long offset, byte[] content) throws IOException {
+        if (offset == 0) {
+            purgeStale();
+        }
+        Transfer transfer = transfers.computeIfAbsent(
+            operationId,
+            id -> new Transfer(incomingPath.resolve(id))
+        );
+
+        synchronized (transfer) {
+            if (transfer.broken) {
+                return;
+            }
+            if (offset != transfer.size) {
+                transfer.broken = true;
+                System.err.println(
+                    "Bloco fora de ordem em " + operationId + ": esperado " + transfer.size +
+                    ", recebido " + offset
+                );
+                return;
+            }
+            try (
+                FileChannel channel = FileChannel.open(
+                    transfer.path,
+                    StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND
+                )
+            ) {
+                ByteBuffer buffer = ByteBuffer.wrap(content);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+            transfer.size += content.length;
+            transfer.lastTouched = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Encerra a transferência e devolve o arquivo montado. Falha se faltarem
+     * blocos ou o tamanho não for o anunciado; o arquivo é então descartado.
+     */
+    public Path take(String operationId, long expectedSize) throws IOException {
+        Transfer transfer = transfers.remove(operationId);
+        if (expectedSize == 0 && transfer == null) {
+            Path empty = incomingPath.resolve(operationId);
+            Files.deleteIfExists(empty);
+            return Files.createFile(empty);
+        }
+        if (transfer == null) {
+            throw new IOException("Conteúdo da operação " + operationId + " não recebido");
+        }
+        synchronized (transfer) {
+            if (transfer.broken || transfer.size != expectedSize) {
+                Files.deleteIfExists(transfer.path);
+                throw new IOException(
+                    "Conteúdo incompleto de " + operationId + ": " + transfer.size + " de " +
+                    expectedSize + " bytes"
+                );
+            }
+            return transfer.path;
+        }
+    }
+
+    private void purgeStale() {
+        long now = System.currentTimeMillis();
+        transfers.entrySet().removeIf(entry -> {
+            Transfer transfer = entry.getValue();
+            if (now - transfer.lastTouched <= STALE_MS) {
+                return false;
+            }
+            try {
+                Files.deleteIfExists(transfer.path);
+            } catch (IOException e) {
+                System.err.println("Erro ao descartar transferência: " + e.getMessage());
+            }
+            return true;
+        });
+    }
+
+    private static class Transfer {
+
+        private final Path path;
+        private long size;
+        private boolean broken;
+        private volatile long lastTouched = System.currentTimeMillis();
+
+        private Transfer(Path path) {
+            this.path = path;
+        }
+    }
+}
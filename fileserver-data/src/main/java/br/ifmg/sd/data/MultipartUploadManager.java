@@ -0,0 +1,236 @@
+package br.ifmg.sd.data;
+
+import br.ifmg.sd.data.repository.MultipartRepository;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Sessões de upload multipart: cada parte é um arquivo próprio em
+ * staging/multipart/{uploadId}, gravado e reenviado de forma independente.
+ * A sessão fica no banco, então sobrevive a reinícios do gateway e do próprio
+ * DataServer; a conclusão concatena as partes em um único arquivo de staging.
+ *
+ * Banco e partes são locais ao coordenador de dados: se ele sair do cluster,
+ * o novo coordenador não conhece a sessão e as chamadas falham como upload
+ * perdido, para o cliente recomeçar.
+ */
+public class MultipartUploadManager {
+
+    public static final int MAX_PARTS = 10_000;
+    private static final long SESSION_TTL_MS = 24 * 60 * 60 * 1000L;
+
+    private final Path multipartPath;
+    private final MultipartRepository repository;
+
+    // Um reenvio da parte pode chegar enquanto a tentativa anterior ainda grava
+    private final Map<Path, Object> partLocks = new ConcurrentHashMap<>();
+
+    public MultipartUploadManager(String serverName, MultipartRepository repository)
+        throws IOException {
+        this.multipartPath = Paths.get(serverName, "staging", "multipart");
+        this.repository = repository;
+        Files.createDirectories(multipartPath);
+    }
+
+    public String initiate(String userId, String fileName)
+        throws IOException, SQLException {
+        purgeExpired();
+
+        String uploadId = UUID.randomUUID().toString();
+        Files.createDirectories(multipartPath.resolve(uploadId));
+        repository.create(uploadId, userId, fileName);
+        return uploadId;
+    }
+
+    /**
+     * Grava um bloco da parte na posição indicada. O offset 0 trunca a parte,
+     * de modo que reenviá-la do início nunca deixa bytes de uma tentativa
+     * anterior.
+     */
+    public long writePart(
+        String uploadId,
+        String userId,
+        int partNumber,
+        long offset,
+        byte[] chunk
+    ) throws IOException, SQLException {
+        requireSession(uploadId, userId);
+        if (partNumber < 1 || partNumber > MAX_PARTS) {
+            throw new IOException("Número de parte inválido: " + partNumber);
+        }
+
+        Path part = partPath(uploadId, partNumber);
+        synchronized (partLocks.computeIfAbsent(part, p -> new Object())) {
+            try (
+                FileChannel channel = FileChannel.open(
+                    part,
+                    StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE
+                )
+            ) {
+                if (offset == 0) {
+                    channel.truncate(0);
+                }
+                ByteBuffer buffer = ByteBuffer.wrap(chunk);
+                long position = offset;
+                while (buffer.hasRemaining()) {
+                    position += channel.write(buffer, position);
+                }
+                repository.touch(uploadId);
+                return channel.size();
+            }
+        }
+    }
+
+    public Map<Integer, Long> listParts(String uploadId, String userId)
+        throws IOException, SQLException {
+        requireSession(uploadId, userId);
+
+        Map<Integer, Long> parts = new TreeMap<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(
+            multipartPath.resolve(uploadId),
+            "part-*"
+        )) {
+            for (Path file : files) {
+                int partNumber = Integer.parseInt(
+                    file.getFileName().toString().substring("part-".length())
+                );
+                parts.put(partNumber, Files.size(file));
+            }
+        }
+        return parts;
+    }
+
+    /**
+     * Concatena as partes em um arquivo de staging e encerra a sessão. O
+     * arquivo devolvido passa a ser responsabilidade do chamador.
+     */
+    public ChunkedUploadManager.PendingUpload assemble(
+        String uploadId,
+        String userId,
+        List<Integer> partNumbers
+    ) throws IOException, SQLException {
+        String fileName = requireSession(uploadId, userId);
+
+        List<Integer> order = partNumbers == null || partNumbers.isEmpty()
+            ? new ArrayList<>(listParts(uploadId, userId).keySet())
+            : partNumbers;
+        if (order.isEmpty()) {
+            throw new IOException("Nenhuma parte enviada para " + uploadId);
+        }
+        validateOrder(order);
+
+        Path assembled = multipartPath.resolve(uploadId + ".assembled");
+        try (
+            FileChannel target = FileChannel.open(
+                assembled,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING
+            )
+        ) {
+            for (int partNumber : order) {
+                Path part = partPath(uploadId, partNumber);
+                if (!Files.exists(part)) {
+                    throw new IOException("Parte " + partNumber + " não foi enviada");
+                }
+                try (FileChannel source = FileChannel.open(part, StandardOpenOption.READ)) {
+                    long size = source.size();
+                    long copied = 0;
+                    while (copied < size) {
+                        copied += source.transferTo(copied, size - copied, target);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(assembled);
+            throw e;
+        }
+
+        deleteSession(uploadId);
+        return new ChunkedUploadManager.PendingUpload(uploadId, userId, fileName, assembled);
+    }
+
+    /**
+     * As partes escolhidas devem ser 1..N, cada uma uma única vez: uma
+     * lacuna ou repetição montaria um arquivo diferente do enviado.
+     */
+    private static void validateOrder(List<Integer> order) throws IOException {
+        boolean[] seen = new boolean[order.size() + 1];
+        for (int partNumber : order) {
+            if (partNumber < 1 || partNumber > order.size()) {
+                throw new IOException(
+                    "Partes devem ser contíguas de 1 a " + order.size() + ": " + partNumber
+                );
+            }
+            if (seen[partNumber]) {
+                throw new IOException("Parte repetida: " + partNumber);
+            }
+            seen[partNumber] = true;
+        }
+    }
+
+    public void abort(String uploadId, String userId)
+        throws IOException, SQLException {
+        requireSession(uploadId, userId);
+        deleteSession(uploadId);
+    }
+
+    private String requireSession(String uploadId, String userId)
+        throws IOException, SQLException {
+        String fileName = repository.findFileName(uploadId, userId);
+        if (fileName == null) {
+            throw new IOException(
+                "Upload multipart perdido ou expirado (sessão desconhecida neste coordenador): " +
+                uploadId
+            );
+        }
+        return fileName;
+    }
+
+    private void deleteSession(String uploadId) throws IOException, SQLException {
+        repository.delete(uploadId);
+
+        Path directory = multipartPath.resolve(uploadId);
+        partLocks.keySet().removeIf(part -> part.startsWith(directory));
+        if (Files.exists(directory)) {
+            try (Stream<Path> files = Files.walk(directory)) {
+                for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    private void purgeExpired() {
+        try {
+            for (String uploadId : repository.findIdleSince(
+                System.currentTimeMillis() - SESSION_TTL_MS
+            )) {
+                deleteSession(uploadId);
+                System.out.println("Upload multipart expirado descartado: " + uploadId);
+            }
+        } catch (Exception e) {
+            System.err.println("Erro ao remover uploads multipart expirados: " + e.getMessage());
+        }
+    }
+
+    private Path partPath(String uploadId, int partNumber) {
+        return multipartPath.resolve(uploadId).resolve(String.format("part-%05d", partNumber));
+    }
+}
@@ -0,0 +1,97 @@
+package br.ifmg.sd.data;
+
+import br.ifmg.sd.metrics.Counter;
+import br.ifmg.sd.metrics.MetricsRegistry;
+import br.ifmg.sd.models.ContentRequest;
+import br.ifmg.sd.models.ContentResponse;
+import br.ifmg.sd.rpc.ClusterMessages;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.jgroups.Address;
+import org.jgroups.JChannel;
+
+/**
+ * Busca em outros DataServers o conteúdo de arquivos que este servidor só
+ * conhece pelos metadados. Os candidatos são consultados em ordem, um por
+ * vez, até um responder com o arquivo na versão pedida.
+ */
+public class RemoteReader {
+
+    private final JChannel channel;
+    private final long timeoutMillis;
+    private final Map<String, CompletableFuture<ContentResponse>> pending =
+        new ConcurrentHashMap<>();
+    private final MetricsRegistry metrics = MetricsRegistry.getDefault();
+    private final Counter misses = metrics.counter(
+        "data_remote_read_misses_total",
+        "Consultas a outro servidor que não tinha o arquivo ou não respondeu"
+    );
+
+    public RemoteReader(JChannel channel, long timeoutMillis) {
+        this.channel = channel;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * Retorna o trecho pedido (o arquivo inteiro se length for negativo) ou
+     * null se nenhum candidato o tiver.
+     */
+    public byte[] read(
+        List<Address> candidates,
+        String userId,
+        String fileName,
+        long offset,
+        int length,
+        long expectedUpdatedAt
+    ) throws Exception {
+        long start = System.nanoTime();
+        for (Address candidate : candidates) {
+            String requestId = UUID.randomUUID().toString();
+            CompletableFuture<ContentResponse> future = new CompletableFuture<>();
+            pending.put(requestId, future);
+            try {
+                channel.send(ClusterMessages.toMessage(
+                    candidate,
+                    new ContentRequest(requestId, userId, fileName, offset, length, expectedUpdatedAt)
+                ));
+                ContentResponse response = future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+                if (response.isFound()) {
+                    observe(start, "found");
+                    return response.getContent();
+                }
+            } catch (TimeoutException e) {
+                System.err.println(
+                    "Aviso: " + candidate + " não respondeu pelo conteúdo de " + fileName
+                );
+            } finally {
+                pending.remove(requestId);
+            }
+            misses.inc();
+        }
+        observe(start, "missing");
+        return null;
+    }
+
+    public void onResponse(ContentResponse response) {
+        CompletableFuture<ContentResponse> future = pending.get(response.getRequestId());
+        if (future != null) {
+            future.complete(response);
+        }
+    }
+
+    private void observe(long start, String outcome) {
+        metrics
+            .histogram(
+                "data_remote_read_seconds",
+                "Leituras de conteúdo atendidas por outro servidor",
+                "outcome",
+                outcome
+            )
+            .observeSince(start);
+    }
+}
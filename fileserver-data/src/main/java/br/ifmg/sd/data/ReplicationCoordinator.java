@@ -1,67 +1,206 @@
 package br.ifmg.sd.data;
 
+import br.ifmg.sd.concurrent.HashedWheelTimer;
+import br.ifmg.sd.metrics.Counter;
+import br.ifmg.sd.metrics.Histogram;
+import br.ifmg.sd.metrics.MetricsRegistry;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * Acompanha os ACKs das replicações enviadas pelo coordenador. Cada operação
+ * é um {@link CompletableFuture} concluído pela thread do JGroups que recebe
+ * o ACK que completa o quórum pedido, ou pelo timer quando o prazo vence;
+ * ninguém precisa ficar parado esperando para que a operação termine ou
+ * expire. Depois do quórum a operação continua registrada até o último ACK
+ * ou o prazo, para contar as réplicas que ficaram para trás.
+ */
 public class ReplicationCoordinator {
 
     private final Map<String, ReplicationState> pendingOperations = new ConcurrentHashMap<>();
+    private final HashedWheelTimer timer = new HashedWheelTimer(
+        "replication-timeouts",
+        100,
+        TimeUnit.MILLISECONDS,
+        512
+    );
+    private final MetricsRegistry metrics = MetricsRegistry.getDefault();
+    // ACKs que chegam depois do prazo ou de uma operação desconhecida
+    private final Counter lateAcks = metrics.counter(
+        "data_replication_late_acks_total",
+        "Confirmações recebidas após o fim da operação"
+    );
+    private final Counter laggingReplicas = metrics.counter(
+        "data_replication_lagging_total",
+        "Réplicas que falharam ou não confirmaram uma escrita já respondida"
+    );
+    // Séries resolvidas uma vez por rótulo, fora do caminho de cada ACK
+    private final Map<String, Histogram> replicaAckSeconds = new ConcurrentHashMap<>();
+    private final Map<String, Histogram> ackDurationSeconds = new ConcurrentHashMap<>();
+    private final Map<String, Histogram> writeSeconds = new ConcurrentHashMap<>();
 
-    public ReplicationState startOperation(String operationId, int expectedAcks) {
-        ReplicationState state = new ReplicationState(expectedAcks);
+    public ReplicationCoordinator() {
+        metrics.gauge(
+            "data_replication_pending",
+            "Replicações aguardando confirmações",
+            pendingOperations::size
+        );
+    }
+
+    /**
+     * Registra a operação antes do envio. O future termina com true quando
+     * requiredAcks réplicas confirmarem com sucesso, ou false quando as
+     * falhas tornarem isso impossível ou o prazo vencer.
+     */
+    public CompletableFuture<Boolean> startOperation(
+        String operationId,
+        int expectedAcks,
+        int requiredAcks,
+        long timeout,
+        TimeUnit unit
+    ) {
+        ReplicationState state = new ReplicationState(expectedAcks, requiredAcks);
         pendingOperations.put(operationId, state);
-        return state;
+        state.timeout = timer.schedule(
+            () -> finish(operationId, state, "timeout"),
+            timeout,
+            unit
+        );
+        if (state.requiredAcks == 0) {
+            // ONE: basta a cópia do coordenador; as réplicas seguem em segundo plano
+            complete(state, true, "ok");
+        }
+        return state.future;
     }
 
-    public void registerAck(String operationId, String senderId, boolean success) {
+    /**
+     * Termina com true só quando todas as réplicas esperadas confirmarem com
+     * sucesso, depois do quórum. Deve ser pedido antes do envio.
+     */
+    public CompletableFuture<Boolean> allAcks(String operationId) {
         ReplicationState state = pendingOperations.get(operationId);
-        if (state != null) {
-            state.registerAck(senderId, success);
-        }
+        return state != null
+            ? state.allAcks
+            : CompletableFuture.completedFuture(false);
     }
 
-    public boolean waitForCompletion(String operationId, long timeout, TimeUnit unit) 
-            throws InterruptedException {
+    public void registerAck(String operationId, String senderId, boolean success) {
         ReplicationState state = pendingOperations.get(operationId);
         if (state == null) {
-            return false;
+            lateAcks.inc();
+            return;
         }
 
-        try {
-            boolean completed = state.await(timeout, unit);
-            return completed && state.isAllSuccess();
-        } finally {
-            pendingOperations.remove(operationId);
+        replicaAckSeconds
+            .computeIfAbsent(senderId, replica -> metrics.histogram(
+                "data_replication_replica_ack_seconds",
+                "Tempo até a confirmação de cada réplica",
+                "replica",
+                replica
+            ))
+            .observeSince(state.startNanos);
+
+        boolean last = state.registerAck(senderId, success);
+        if (!state.future.isDone()) {
+            if (state.getSuccessCount() >= state.requiredAcks) {
+                complete(state, true, "ok");
+            } else if (state.getFailureCount() > state.expectedAcks - state.requiredAcks) {
+                complete(state, false, "failed");
+            }
+        }
+        if (last) {
+            finish(operationId, state, state.isAllSuccess() ? "ok" : "failed");
+        }
+    }
+
+    public int getPendingCount() {
+        return pendingOperations.size();
+    }
+
+    public void shutdown() {
+        timer.stop();
+        pendingOperations.forEach((operationId, state) -> finish(operationId, state, "timeout"));
+    }
+
+    private void finish(String operationId, ReplicationState state, String outcome) {
+        if (!pendingOperations.remove(operationId, state)) {
+            return;
+        }
+        if (state.timeout != null) {
+            state.timeout.cancel();
+        }
+        state.allAcks.complete("ok".equals(outcome));
+        ackDurationSeconds
+            .computeIfAbsent(outcome, label -> metrics.histogram(
+                "data_replication_ack_duration_seconds",
+                "Tempo entre o envio da replicação e a última confirmação",
+                "outcome",
+                label
+            ))
+            .observeSince(state.startNanos);
+
+        if (state.future.isDone()) {
+            int lagging = state.expectedAcks - state.getSuccessCount();
+            if (lagging > 0 && state.future.getNow(false)) {
+                laggingReplicas.add(lagging);
+                System.err.println(
+                    "Aviso: " + lagging + " réplica(s) não confirmaram " + operationId +
+                        " após o quórum (" + outcome + ")"
+                );
+            }
+        } else {
+            complete(state, "ok".equals(outcome), outcome);
+        }
+    }
+
+    private void complete(ReplicationState state, boolean success, String outcome) {
+        if (state.future.complete(success)) {
+            writeSeconds
+                .computeIfAbsent(outcome, label -> metrics.histogram(
+                    "data_replication_write_seconds",
+                    "Tempo até a escrita atingir o quórum pedido",
+                    "outcome",
+                    label
+                ))
+                .observeSince(state.startNanos);
         }
     }
 
     public static class ReplicationState {
-        private final CountDownLatch latch;
+        private final CompletableFuture<Boolean> future = new CompletableFuture<>();
+        private final CompletableFuture<Boolean> allAcks = new CompletableFuture<>();
+        private final AtomicInteger remaining;
+        private final int expectedAcks;
+        private final int requiredAcks;
         private final Set<String> successfulAcks = ConcurrentHashMap.newKeySet();
         private final Set<String> failedAcks = ConcurrentHashMap.newKeySet();
+        private final long startNanos = System.nanoTime();
+        private volatile HashedWheelTimer.Timeout timeout;
 
-        public ReplicationState(int expectedAcks) {
-            this.latch = new CountDownLatch(expectedAcks);
+        public ReplicationState(int expectedAcks, int requiredAcks) {
+            this.remaining = new AtomicInteger(expectedAcks);
+            this.expectedAcks = expectedAcks;
+            this.requiredAcks = Math.min(requiredAcks, expectedAcks);
         }
 
-        public void registerAck(String senderId, boolean success) {
+        /**
+         * Retorna true no último ACK esperado.
+         */
+        public boolean registerAck(String senderId, boolean success) {
             if (success) {
                 successfulAcks.add(senderId);
             } else {
                 failedAcks.add(senderId);
             }
-            latch.countDown();
-        }
-
-        public boolean await(long timeout, TimeUnit unit) throws InterruptedException {
-            return latch.await(timeout, unit);
+            return remaining.decrementAndGet() == 0;
         }
 
         public boolean isAllSuccess() {
-            return failedAcks.isEmpty() && latch.getCount() == 0;
+            return failedAcks.isEmpty() && remaining.get() <= 0;
         }
 
         public int getSuccessCount() {
@@ -0,0 +1,352 @@
+package br.ifmg.sd.data;
+
+import br.ifmg.sd.metrics.Counter;
+import br.ifmg.sd.metrics.MetricsRegistry;
+import br.ifmg.sd.models.FileMetadata;
+import br.ifmg.sd.rpc.DataService;
+import br.ifmg.sd.rpc.TransferProtocol;
+import br.ifmg.sd.security.TransferTicket;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Servidor TCP de transferência direta de conteúdo com os gateways (ver
+ * {@link TransferProtocol}). Cada conexão traz um ticket assinado pelo
+ * ControlServer; o conteúdo passa pelas mesmas operações do upload em
+ * blocos e da leitura por faixas, então locks, staging e replicação são os
+ * de sempre, mas sem atravessar o control-cluster.
+ *
+ * Configuração por propriedades de sistema:
+ *   data.transfer.port             porta (padrão: 0, escolhida pelo sistema; -1 desliga)
+ *   data.transfer.bind             endereço de escuta (padrão: todas as interfaces)
+ *   data.transfer.host             endereço anunciado aos gateways (padrão:
+ *                                  java.rmi.server.hostname, o endereço de escuta
+ *                                  ou o endereço da máquina)
+ *   data.transfer.max.connections  transferências simultâneas (padrão: 16); as
+ *                                  excedentes são recusadas e o gateway usa o RPC
+ *   data.transfer.handshake.ms     prazo para o ticket chegar (padrão: 5000)
+ */
+public class TransferServer {
+
+    private static final int MAX_CONNECTIONS = Integer.getInteger(
+        "data.transfer.max.connections",
+        16
+    );
+    private static final int HANDSHAKE_TIMEOUT_MS = Integer.getInteger(
+        "data.transfer.handshake.ms",
+        5_000
+    );
+
+    private final DataService dataService;
+    private final BooleanSupplier isCoordinator;
+    private final ServerSocket serverSocket;
+    private final String advertisedHost;
+    private final ExecutorService workers;
+
+    // Tickets já usados, até expirarem: cada ticket vale uma transferência
+    private final Map<String, Long> usedNonces = new ConcurrentHashMap<>();
+
+    private final Counter bytesReceived;
+    private final Counter bytesSent;
+    private final Counter rejected;
+
+    private TransferServer(
+        DataService dataService,
+        BooleanSupplier isCoordinator,
+        ServerSocket serverSocket,
+        String advertisedHost
+    ) {
+        this.dataService = dataService;
+        this.isCoordinator = isCoordinator;
+        this.serverSocket = serverSocket;
+        this.advertisedHost = advertisedHost;
+
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(
+            MAX_CONNECTIONS,
+            MAX_CONNECTIONS,
+            60,
+            TimeUnit.SECONDS,
+            new SynchronousQueue<>(),
+            r -> {
+                Thread thread = new Thread(r, "data-transfer-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        );
+        pool.allowCoreThreadTimeOut(true);
+        this.workers = pool;
+
+        MetricsRegistry metrics = MetricsRegistry.getDefault();
+        this.bytesReceived = metrics.counter(
+            "data_transfer_bytes_total", "Bytes da transferência direta", "direction", "in"
+        );
+        this.bytesSent = metrics.counter(
+            "data_transfer_bytes_total", "Bytes da transferência direta", "direction", "out"
+        );
+        this.rejected = metrics.counter(
+            "data_transfer_rejected_total", "Conexões recusadas por ticket inválido ou excesso de transferências"
+        );
+    }
+
+    /**
+     * Inicia o servidor, ou retorna null se estiver desativado.
+     */
+    public static TransferServer start(
+        DataService dataService,
+        BooleanSupplier isCoordinator
+    ) throws IOException {
+        int port = Integer.getInteger("data.transfer.port", 0);
+        if (port < 0) {
+            return null;
+        }
+        String bind = System.getProperty("data.transfer.bind");
+        InetAddress bindAddress = bind != null ? InetAddress.getByName(bind) : null;
+
+        TransferServer server = new TransferServer(
+            dataService,
+            isCoordinator,
+            new ServerSocket(port, 50, bindAddress),
+            advertisedHost(bindAddress)
+        );
+        Thread acceptor = new Thread(server::acceptLoop, "data-transfer-accept");
+        acceptor.setDaemon(true);
+        acceptor.start();
+
+        System.out.println("Transferência direta em " + server.getEndpoint());
+        return server;
+    }
+
+    /**
+     * Endereço que os gateways devem usar: o configurado, o do RMI, o de
+     * escuta ou, escutando em todas as interfaces, o da própria máquina.
+     */
+    private static String advertisedHost(InetAddress bindAddress) throws IOException {
+        String host = System.getProperty(
+            "data.transfer.host",
+            System.getProperty("java.rmi.server.hostname")
+        );
+        if (host != null) {
+            return host;
+        }
+        if (bindAddress != null && !bindAddress.isAnyLocalAddress()) {
+            return bindAddress.getHostAddress();
+        }
+        return InetAddress.getLocalHost().getHostAddress();
+    }
+
+    public String getEndpoint() {
+        return advertisedHost + ":" + serverSocket.getLocalPort();
+    }
+
+    public void stop() {
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            // Encerrando
+        }
+        workers.shutdownNow();
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                try {
+                    workers.execute(() -> serve(socket));
+                } catch (RejectedExecutionException e) {
+                    refuseBusy(socket);
+                }
+            } catch (SocketException e) {
+                // Socket fechado em stop()
+            } catch (IOException e) {
+                System.err.println("Erro ao aceitar transferência: " + e.getMessage());
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (
+            socket;
+            DataInputStream in = new DataInputStream(
+                new BufferedInputStream(socket.getInputStream(), TransferProtocol.CHUNK_SIZE)
+            );
+            DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(socket.getOutputStream(), TransferProtocol.CHUNK_SIZE)
+            )
+        ) {
+            // O ticket é conferido antes de qualquer outro trabalho, com um
+            // prazo curto para uma conexão ociosa não segurar o worker
+            socket.setSoTimeout(HANDSHAKE_TIMEOUT_MS);
+            TransferTicket ticket = TransferTicket.verify(in.readUTF());
+            if (ticket == null) {
+                rejected.inc();
+                writeStatus(out, TransferProtocol.STATUS_ERROR, "Ticket inválido ou expirado");
+                out.flush();
+                return;
+            }
+            if (!isCoordinator.getAsBoolean()) {
+                writeStatus(out, TransferProtocol.STATUS_NOT_COORDINATOR, "Este servidor não é o coordenador");
+                out.flush();
+                return;
+            }
+            String refusal = checkTicket(ticket);
+            if (refusal != null) {
+                rejected.inc();
+                writeStatus(out, TransferProtocol.STATUS_ERROR, refusal);
+                out.flush();
+                return;
+            }
+            socket.setSoTimeout(TransferProtocol.SOCKET_TIMEOUT_MS);
+
+            if (ticket.getOperation() == TransferTicket.Operation.UPLOAD) {
+                receiveUpload(ticket, in, out);
+            } else {
+                sendDownload(ticket, out);
+            }
+            out.flush();
+        } catch (IOException e) {
+            System.err.println("Transferência interrompida: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Todas as transferências estão ocupadas: recusa sem ler o ticket, e o
+     * gateway usa o caminho por RPC.
+     */
+    private void refuseBusy(Socket socket) {
+        rejected.inc();
+        try (socket) {
+            socket.setSoTimeout(HANDSHAKE_TIMEOUT_MS);
+            DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+            writeStatus(out, TransferProtocol.STATUS_BUSY, "Servidor ocupado");
+            out.flush();
+        } catch (IOException e) {
+            // O gateway trata a conexão perdida como recusa
+        }
+    }
+
+    private String checkTicket(TransferTicket ticket) {
+        long now = System.currentTimeMillis();
+        if (usedNonces.size() > 1024) {
+            usedNonces.values().removeIf(expiresAt -> expiresAt < now);
+        }
+        if (usedNonces.putIfAbsent(ticket.getNonce(), ticket.getExpiresAt()) != null) {
+            return "Ticket já utilizado";
+        }
+        return null;
+    }
+
+    private void receiveUpload(
+        TransferTicket ticket,
+        DataInputStream in,
+        DataOutputStream out
+    ) throws IOException {
+        String userId = ticket.getUserId();
+        String uploadId = dataService.beginUpload(userId, ticket.getFileName());
+        writeStatus(out, TransferProtocol.STATUS_OK, "");
+        out.flush();
+
+        long offset = 0;
+        try {
+            byte[] frame = new byte[TransferProtocol.CHUNK_SIZE];
+            int length;
+            while ((length = in.readInt()) > 0) {
+                if (length > TransferProtocol.MAX_FRAME_SIZE) {
+                    throw new IOException("Bloco maior que o permitido: " + length);
+                }
+                if (length > frame.length) {
+                    frame = new byte[length];
+                }
+                in.readFully(frame, 0, length);
+                byte[] chunk = length == frame.length ? frame : Arrays.copyOf(frame, length);
+                offset = dataService.appendUploadChunk(uploadId, userId, offset, chunk);
+                bytesReceived.add(length);
+            }
+
+            if (dataService.completeUpload(uploadId, userId) == null) {
+                throw new IOException("Falha ao concluir upload");
+            }
+        } catch (IOException e) {
+            abortQuietly(uploadId, userId);
+            writeStatus(out, TransferProtocol.STATUS_ERROR, "Erro no upload: " + e.getMessage());
+            out.writeLong(offset);
+            return;
+        }
+
+        writeStatus(out, TransferProtocol.STATUS_OK, "Arquivo salvo com sucesso");
+        out.writeLong(offset);
+    }
+
+    private void sendDownload(TransferTicket ticket, DataOutputStream out)
+        throws IOException {
+        String userId = ticket.getUserId();
+        String fileName = ticket.getFileName();
+
+        FileMetadata metadata = dataService.getFileMetadata(userId, fileName);
+        if (metadata == null) {
+            writeStatus(out, TransferProtocol.STATUS_GONE, "Arquivo não encontrado");
+            return;
+        }
+        if (ticket.getVersion() > 0 && metadata.getUpdatedAt() != ticket.getVersion()) {
+            writeStatus(out, TransferProtocol.STATUS_GONE, "Arquivo modificado");
+            return;
+        }
+
+        writeStatus(out, TransferProtocol.STATUS_OK, "");
+        long size = metadata.getFileSize();
+        out.writeLong(size);
+
+        // Cada faixa é lida com o lock do arquivo e conferida contra a versão
+        // anunciada; se o arquivo mudar no meio, a conexão cai e o gateway
+        // percebe o corpo incompleto
+        long offset = 0;
+        while (offset < size) {
+            int length = (int) Math.min(TransferProtocol.CHUNK_SIZE, size - offset);
+            byte[] chunk = dataService.readFileRange(
+                userId,
+                fileName,
+                offset,
+                length,
+                metadata.getUpdatedAt()
+            );
+            if (chunk == null || chunk.length == 0) {
+                throw new IOException("Faixa vazia no offset " + offset);
+            }
+            out.write(chunk);
+            bytesSent.add(chunk.length);
+            offset += chunk.length;
+        }
+    }
+
+    private void abortQuietly(String uploadId, String userId) {
+        try {
+            dataService.abortUpload(uploadId, userId);
+        } catch (IOException e) {
+            System.err.println("Erro ao cancelar upload " + uploadId + ": " + e.getMessage());
+        }
+    }
+
+    private static void writeStatus(DataOutputStream out, byte status, String message)
+        throws IOException {
+        out.writeByte(status);
+        out.writeUTF(message);
+    }
+}
@@ -0,0 +1,180 @@
+package br.ifmg.sd.data.repository;
+
+import br.ifmg.sd.models.FileChange;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Log de alterações de arquivos que alimenta o feed dos clientes. O seq de
+ * cada entrada vem do coordenador dentro da mensagem de replicação, então
+ * todos os servidores de dados guardam o mesmo log.
+ */
+public class ChangeRepository {
+
+    private final Connection connection;
+
+    public ChangeRepository(Connection connection) throws SQLException {
+        this.connection = connection;
+
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("""
+                    CREATE TABLE IF NOT EXISTS file_changes (
+                        seq INTEGER PRIMARY KEY,
+                        user_id TEXT NOT NULL,
+                        file_name TEXT NOT NULL,
+                        change_type TEXT NOT NULL,
+                        updated_at INTEGER NOT NULL,
+                        changed_at INTEGER NOT NULL
+                    )
+                """);
+            stmt.execute(
+                "CREATE INDEX IF NOT EXISTS idx_file_changes_user ON file_changes (user_id, seq)"
+            );
+        }
+    }
+
+    public void insert(FileChange change) throws SQLException {
+        String sql = """
+                INSERT OR IGNORE INTO file_changes
+                    (seq, user_id, file_name, change_type, updated_at, changed_at)
+                VALUES (?, ?, ?, ?, ?, ?)
+            """;
+
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setLong(1, change.getSeq());
+            pstmt.setString(2, change.getUserId());
+            pstmt.setString(3, change.getFileName());
+            pstmt.setString(4, change.getType().name());
+            pstmt.setLong(5, change.getUpdatedAt());
+            pstmt.setLong(6, change.getChangedAt());
+            pstmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Alterações do usuário com seq maior que afterSeq, em ordem.
+     */
+    public List<FileChange> findAfter(String userId, long afterSeq, int limit)
+        throws SQLException {
+        String sql = """
+                SELECT seq, user_id, file_name, change_type, updated_at, changed_at
+                FROM file_changes
+                WHERE user_id = ? AND seq > ?
+                ORDER BY seq
+                LIMIT ?
+            """;
+        List<FileChange> changes = new ArrayList<>();
+
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setString(1, userId);
+            pstmt.setLong(2, afterSeq);
+            pstmt.setInt(3, limit);
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next()) {
+                changes.add(new FileChange(
+                    rs.getLong("seq"),
+                    rs.getString("user_id"),
+                    rs.getString("file_name"),
+                    FileChange.ChangeType.valueOf(rs.getString("change_type")),
+                    rs.getLong("updated_at"),
+                    rs.getLong("changed_at")
+                ));
+            }
+        }
+        return changes;
+    }
+
+    /**
+     * Todo o log retido, em ordem, para a transferência de estado.
+     */
+    public List<FileChange> findAll() throws SQLException {
+        String sql = """
+                SELECT seq, user_id, file_name, change_type, updated_at, changed_at
+                FROM file_changes
+                ORDER BY seq
+            """;
+        List<FileChange> changes = new ArrayList<>();
+
+        try (Statement stmt = connection.createStatement()) {
+            ResultSet rs = stmt.executeQuery(sql);
+            while (rs.next()) {
+                changes.add(new FileChange(
+                    rs.getLong("seq"),
+                    rs.getString("user_id"),
+                    rs.getString("file_name"),
+                    FileChange.ChangeType.valueOf(rs.getString("change_type")),
+                    rs.getLong("updated_at"),
+                    rs.getLong("changed_at")
+                ));
+            }
+        }
+        return changes;
+    }
+
+    /**
+     * Troca o log local pelo recebido na transferência de estado, numa única
+     * transação.
+     */
+    public void replaceAll(List<FileChange> changes) throws SQLException {
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try {
+            try (Statement stmt = connection.createStatement()) {
+                stmt.executeUpdate("DELETE FROM file_changes");
+            }
+            for (FileChange change : changes) {
+                insert(change);
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    /**
+     * Seq da alteração mais recente do usuário ainda no log, ou 0.
+     */
+    public long lastSeq(String userId) throws SQLException {
+        String sql = "SELECT MAX(seq) FROM file_changes WHERE user_id = ?";
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setString(1, userId);
+            ResultSet rs = pstmt.executeQuery();
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    public long maxSeq() throws SQLException {
+        return aggregate("SELECT MAX(seq) FROM file_changes");
+    }
+
+    public long minSeq() throws SQLException {
+        return aggregate("SELECT MIN(seq) FROM file_changes");
+    }
+
+    /**
+     * Descarta as alterações anteriores a timestamp, mantendo sempre a mais
+     * recente para que o maior seq sobreviva a reinícios.
+     */
+    public int deleteOlderThan(long timestamp) throws SQLException {
+        String sql = """
+                DELETE FROM file_changes
+                WHERE changed_at < ? AND seq < (SELECT MAX(seq) FROM file_changes)
+            """;
+
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setLong(1, timestamp);
+            return pstmt.executeUpdate();
+        }
+    }
+
+    private long aggregate(String sql) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            ResultSet rs = stmt.executeQuery(sql);
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+}
@@ -1,9 +1,12 @@
 package br.ifmg.sd.data.repository;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
 import java.sql.*;
 import java.util.ArrayList;
@@ -65,6 +68,43 @@ public class FileRepository {
         return diskPath;
     }
 
+    /**
+     * Publica um arquivo já gravado na área de staging, movendo-o para a
+     * pasta de uploads sem carregá-lo em memória.
+     */
+    public String saveFromStaging(String userId, String fileName, Path stagedFile)
+        throws SQLException, IOException {
+        String uniqueFileName = UUID.randomUUID().toString();
+        String diskPath = serverStoragePath + "/" + uniqueFileName;
+
+        Files.move(stagedFile, Paths.get(diskPath));
+        long fileSize = Files.size(Paths.get(diskPath));
+
+        String userName = getUserName(userId);
+        long timestamp = System.currentTimeMillis();
+
+        String sql = """
+                INSERT INTO files (user_id, user_name, file_name, disk_path, created_at, updated_at, file_size)
+                VALUES (?, ?, ?, ?, ?, ?, ?)
+                ON CONFLICT(user_id, file_name)
+                DO UPDATE SET disk_path = excluded.disk_path, updated_at = excluded.updated_at, file_size = excluded.file_size
+            """;
+
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setString(1, userId);
+            pstmt.setString(2, userName);
+            pstmt.setString(3, fileName);
+            pstmt.setString(4, diskPath);
+            pstmt.setLong(5, timestamp);
+            pstmt.setLong(6, timestamp);
+            pstmt.setLong(7, fileSize);
+            pstmt.executeUpdate();
+        }
+
+        System.out.println("Arquivo publicado: " + fileName + " -> " + diskPath);
+        return diskPath;
+    }
+
     private String getUserName(String userId) throws SQLException {
         String sql = "SELECT name FROM users WHERE id = ?";
         try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
@@ -121,6 +161,155 @@ public class FileRepository {
         );
     }
 
+    /**
+     * Versão de {@link #saveWithDiskPath} para o conteúdo recebido em blocos:
+     * o arquivo montado na área de staging é movido para uploads.
+     */
+    public void saveWithDiskPath(
+        String userId,
+        String userName,
+        String fileName,
+        Path stagedFile,
+        String originalDiskPath,
+        long createdAt,
+        long updatedAt
+    ) throws SQLException, IOException {
+        String fileBaseName = Paths.get(originalDiskPath).getFileName().toString();
+        String localDiskPath = serverStoragePath + "/" + fileBaseName;
+
+        Path filePath = Paths.get(localDiskPath);
+        Files.createDirectories(filePath.getParent());
+        Files.move(stagedFile, filePath, StandardCopyOption.REPLACE_EXISTING);
+        long fileSize = Files.size(filePath);
+
+        String sql = """
+                INSERT INTO files (user_id, user_name, file_name, disk_path, created_at, updated_at, file_size)
+                VALUES (?, ?, ?, ?, ?, ?, ?)
+                ON CONFLICT(user_id, file_name)
+                DO UPDATE SET disk_path = excluded.disk_path, updated_at = excluded.updated_at, file_size = excluded.file_size
+            """;
+
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setString(1, userId);
+            pstmt.setString(2, userName);
+            pstmt.setString(3, fileName);
+            pstmt.setString(4, localDiskPath);
+            pstmt.setLong(5, createdAt);
+            pstmt.setLong(6, updatedAt);
+            pstmt.setLong(7, fileSize);
+            pstmt.executeUpdate();
+        }
+
+        System.out.println(
+            "Arquivo replicado em blocos: " + fileName + " -> " + localDiskPath
+        );
+    }
+
+    /**
+     * Registra um arquivo guardado por outros servidores: grava os metadados
+     * e descarta a cópia local, que passaria a ser de uma versão antiga. Uma
+     * cópia local já nessa versão (servidor que voltou ao cluster) é mantida.
+     */
+    public void saveMetadata(
+        String userId,
+        String userName,
+        String fileName,
+        String originalDiskPath,
+        long createdAt,
+        long updatedAt,
+        long fileSize
+    ) throws SQLException, IOException {
+        br.ifmg.sd.models.FileMetadata current = getMetadata(userId, fileName);
+        if (
+            current != null &&
+            current.getUpdatedAt() == updatedAt &&
+            Files.exists(Paths.get(current.getDiskPath()))
+        ) {
+            return;
+        }
+
+        String fileBaseName = Paths.get(originalDiskPath).getFileName().toString();
+        String localDiskPath = serverStoragePath + "/" + fileBaseName;
+
+        if (current != null) {
+            Files.deleteIfExists(Paths.get(current.getDiskPath()));
+        }
+        Files.deleteIfExists(Paths.get(localDiskPath));
+
+        String sql = """
+                INSERT INTO files (user_id, user_name, file_name, disk_path, created_at, updated_at, file_size)
+                VALUES (?, ?, ?, ?, ?, ?, ?)
+                ON CONFLICT(user_id, file_name)
+                DO UPDATE SET disk_path = excluded.disk_path, updated_at = excluded.updated_at, file_size = excluded.file_size
+            """;
+
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setString(1, userId);
+            pstmt.setString(2, userName);
+            pstmt.setString(3, fileName);
+            pstmt.setString(4, localDiskPath);
+            pstmt.setLong(5, createdAt);
+            pstmt.setLong(6, updatedAt);
+            pstmt.setLong(7, fileSize);
+            pstmt.executeUpdate();
+        }
+
+        System.out.println("Metadados registrados: " + fileName + " (conteúdo em outros servidores)");
+    }
+
+    public boolean hasLocalContent(String userId, String fileName)
+        throws SQLException {
+        String diskPath = getDiskPath(userId, fileName);
+        return diskPath != null && Files.exists(Paths.get(diskPath));
+    }
+
+    /**
+     * Remove a cópia local mantida só até os donos confirmarem, se o arquivo
+     * ainda estiver na versão updatedAt.
+     */
+    public boolean dropLocalContent(String userId, String fileName, long updatedAt)
+        throws SQLException, IOException {
+        br.ifmg.sd.models.FileMetadata metadata = getMetadata(userId, fileName);
+        if (metadata == null || metadata.getUpdatedAt() != updatedAt) {
+            return false;
+        }
+        return Files.deleteIfExists(Paths.get(metadata.getDiskPath()));
+    }
+
+    /**
+     * Grava o conteúdo de um arquivo que aqui só tinha metadados, no caminho
+     * já registrado para a versão updatedAt, sem mexer no banco. Cada versão
+     * tem o próprio caminho, então uma versão nova gravada no meio não é
+     * sobrescrita; nesse caso a cópia recém-gravada é descartada.
+     */
+    public boolean restoreContent(String userId, String fileName, long updatedAt, byte[] content)
+        throws SQLException, IOException {
+        br.ifmg.sd.models.FileMetadata metadata = getMetadata(userId, fileName);
+        if (metadata == null || metadata.getUpdatedAt() != updatedAt) {
+            return false;
+        }
+        Path target = Paths.get(metadata.getDiskPath());
+        if (Files.exists(target)) {
+            return false;
+        }
+
+        Files.createDirectories(target.getParent());
+        Path temp = Files.createTempFile(target.getParent(), "restore-", ".tmp");
+        try {
+            Files.write(temp, content);
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+
+        br.ifmg.sd.models.FileMetadata current = getMetadata(userId, fileName);
+        if (current == null || !current.getDiskPath().equals(metadata.getDiskPath())) {
+            Files.deleteIfExists(target);
+            return false;
+        }
+        return true;
+    }
+
     public byte[] findByUserIdAndFileName(String userId, String fileName)
         throws SQLException, IOException {
         String sql =
@@ -143,6 +332,36 @@ public class FileRepository {
         return null;
     }
 
+    /**
+     * Lê apenas o trecho [offset, offset + length) do arquivo no disco.
+     */
+    public byte[] readRange(String userId, String fileName, long offset, int length)
+        throws SQLException, IOException {
+        String diskPath = getDiskPath(userId, fileName);
+        if (diskPath == null) {
+            return null;
+        }
+
+        try (
+            FileChannel channel = FileChannel.open(
+                Paths.get(diskPath),
+                StandardOpenOption.READ
+            )
+        ) {
+            long available = Math.max(0, channel.size() - offset);
+            ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(length, available));
+            long position = offset;
+            while (buffer.hasRemaining()) {
+                int read = channel.read(buffer, position);
+                if (read < 0) {
+                    break;
+                }
+                position += read;
+            }
+            return buffer.array();
+        }
+    }
+
     public void delete(String userId, String fileName)
         throws SQLException, IOException {
         String sql =
@@ -221,14 +440,15 @@ public class FileRepository {
         );
 
         String updateSql = """
-                UPDATE files SET created_at = ?
+                UPDATE files SET updated_at = ?, file_size = ?
                 WHERE user_id = ? AND file_name = ?
             """;
 
         try (PreparedStatement pstmt = connection.prepareStatement(updateSql)) {
             pstmt.setLong(1, System.currentTimeMillis());
-            pstmt.setString(2, userId);
-            pstmt.setString(3, fileName);
+            pstmt.setLong(2, newContent.length);
+            pstmt.setString(3, userId);
+            pstmt.setString(4, fileName);
             pstmt.executeUpdate();
         }
 
@@ -239,7 +459,8 @@ public class FileRepository {
         String userId,
         String fileName,
         byte[] content,
-        String originalDiskPath
+        String originalDiskPath,
+        long updatedAt
     ) throws SQLException, IOException {
         String fileBaseName = Paths.get(originalDiskPath).getFileName().toString();
         String localDiskPath = serverStoragePath + "/" + fileBaseName;
@@ -253,16 +474,19 @@ public class FileRepository {
             StandardOpenOption.TRUNCATE_EXISTING
         );
 
+        // Usa o updated_at do coordenador para que todas as réplicas
+        // apresentem a mesma versão do arquivo
         String sql = """
-                UPDATE files SET disk_path = ?, created_at = ?
+                UPDATE files SET disk_path = ?, updated_at = ?, file_size = ?
                 WHERE user_id = ? AND file_name = ?
             """;
 
         try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
             pstmt.setString(1, localDiskPath);
-            pstmt.setLong(2, System.currentTimeMillis());
-            pstmt.setString(3, userId);
-            pstmt.setString(4, fileName);
+            pstmt.setLong(2, updatedAt);
+            pstmt.setLong(3, content.length);
+            pstmt.setString(4, userId);
+            pstmt.setString(5, fileName);
             pstmt.executeUpdate();
         }
 
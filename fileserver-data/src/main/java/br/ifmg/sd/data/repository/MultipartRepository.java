@@ -0,0 +1,86 @@
+package br.ifmg.sd.data.repository;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sessões de upload multipart. Ficam no banco para sobreviver a reinícios; as
+ * partes em si são arquivos na área de staging.
+ */
+public class MultipartRepository {
+
+    private final Connection connection;
+
+    public MultipartRepository(Connection connection) {
+        this.connection = connection;
+    }
+
+    public void create(String uploadId, String userId, String fileName)
+        throws SQLException {
+        String sql = """
+                INSERT INTO multipart_uploads (upload_id, user_id, file_name, created_at, updated_at)
+                VALUES (?, ?, ?, ?, ?)
+            """;
+
+        long now = System.currentTimeMillis();
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setString(1, uploadId);
+            pstmt.setString(2, userId);
+            pstmt.setString(3, fileName);
+            pstmt.setLong(4, now);
+            pstmt.setLong(5, now);
+            pstmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Retorna o nome do arquivo da sessão, ou null se ela não existe ou
+     * pertence a outro usuário.
+     */
+    public String findFileName(String uploadId, String userId)
+        throws SQLException {
+        String sql =
+            "SELECT file_name FROM multipart_uploads WHERE upload_id = ? AND user_id = ?";
+
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setString(1, uploadId);
+            pstmt.setString(2, userId);
+            ResultSet rs = pstmt.executeQuery();
+            return rs.next() ? rs.getString("file_name") : null;
+        }
+    }
+
+    public void touch(String uploadId) throws SQLException {
+        String sql = "UPDATE multipart_uploads SET updated_at = ? WHERE upload_id = ?";
+
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setLong(1, System.currentTimeMillis());
+            pstmt.setString(2, uploadId);
+            pstmt.executeUpdate();
+        }
+    }
+
+    public void delete(String uploadId) throws SQLException {
+        String sql = "DELETE FROM multipart_uploads WHERE upload_id = ?";
+
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setString(1, uploadId);
+            pstmt.executeUpdate();
+        }
+    }
+
+    public List<String> findIdleSince(long timestamp) throws SQLException {
+        String sql = "SELECT upload_id FROM multipart_uploads WHERE updated_at < ?";
+        List<String> uploadIds = new ArrayList<>();
+
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setLong(1, timestamp);
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next()) {
+                uploadIds.add(rs.getString("upload_id"));
+            }
+        }
+        return uploadIds;
+    }
+}
@@ -0,0 +1,140 @@
+package br.ifmg.sd.data.repository;
+
+import br.ifmg.sd.metrics.Counter;
+import br.ifmg.sd.metrics.Histogram;
+import br.ifmg.sd.metrics.MetricsRegistry;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Envolve a conexão SQLite para medir o tempo de cada execução de comando,
+ * por tipo (SELECT, INSERT, UPDATE, DELETE). Os repositórios continuam
+ * usando a interface Connection normalmente.
+ *
+ * O tempo medido é o de execute*; no SQLite isso inclui a busca da
+ * primeira linha de um SELECT, mas não a leitura das seguintes.
+ */
+public final class TimedConnection {
+
+    private TimedConnection() {}
+
+    public static Connection wrap(Connection connection, MetricsRegistry registry) {
+        StatementMetrics metrics = new StatementMetrics(registry);
+        return (Connection) Proxy.newProxyInstance(
+            Connection.class.getClassLoader(),
+            new Class<?>[] { Connection.class },
+            (proxy, method, args) -> {
+                Object result = invoke(connection, method, args);
+                if (result instanceof PreparedStatement && args != null && args[0] instanceof String) {
+                    return timed(PreparedStatement.class, (Statement) result, metrics, (String) args[0]);
+                }
+                if (result instanceof Statement && "createStatement".equals(method.getName())) {
+                    return timed(Statement.class, (Statement) result, metrics, null);
+                }
+                return result;
+            }
+        );
+    }
+
+    private static <T extends Statement> T timed(
+        Class<T> type,
+        Statement statement,
+        StatementMetrics metrics,
+        String preparedSql
+    ) {
+        return type.cast(Proxy.newProxyInstance(
+            type.getClassLoader(),
+            new Class<?>[] { type },
+            (proxy, method, args) -> {
+                if (!method.getName().startsWith("execute")) {
+                    return invoke(statement, method, args);
+                }
+                String sql = preparedSql != null
+                    ? preparedSql
+                    : (args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : null);
+                String operation = operation(sql);
+
+                long start = System.nanoTime();
+                try {
+                    return invoke(statement, method, args);
+                } catch (Throwable e) {
+                    metrics.errors(operation).inc();
+                    throw e;
+                } finally {
+                    metrics.duration(operation).observeSince(start);
+                }
+            }
+        ));
+    }
+
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static String operation(String sql) {
+        if (sql == null) {
+            return "OTHER";
+        }
+        String trimmed = sql.stripLeading();
+        int end = 0;
+        while (end < trimmed.length() && Character.isLetter(trimmed.charAt(end))) {
+            end++;
+        }
+        String keyword = trimmed.substring(0, end).toUpperCase(Locale.ROOT);
+        switch (keyword) {
+            case "SELECT":
+            case "INSERT":
+            case "UPDATE":
+            case "DELETE":
+            case "CREATE":
+                return keyword;
+            default:
+                return "OTHER";
+        }
+    }
+
+    /**
+     * Séries por tipo de comando, resolvidas uma vez por conexão para não
+     * montar os rótulos a cada execução.
+     */
+    private static final class StatementMetrics {
+
+        private final MetricsRegistry registry;
+        private final Map<String, Histogram> durations = new ConcurrentHashMap<>();
+        private final Map<String, Counter> errors = new ConcurrentHashMap<>();
+
+        private StatementMetrics(MetricsRegistry registry) {
+            this.registry = registry;
+        }
+
+        private Histogram duration(String operation) {
+            return durations.computeIfAbsent(operation, op -> registry.histogram(
+                "data_sqlite_query_duration_seconds",
+                "Tempo de execução dos comandos SQLite",
+                "op",
+                op
+            ));
+        }
+
+        private Counter errors(String operation) {
+            return errors.computeIfAbsent(operation, op -> registry.counter(
+                "data_sqlite_errors_total",
+                "Comandos SQLite que falharam",
+                "op",
+                op
+            ));
+        }
+    }
+}
@@ -0,0 +1,263 @@
+package br.ifmg.sd.gateway.core;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Controle de admissão do gateway: um balde de tokens por cliente (todas as
+ * rotas), um balde por cliente em cada rota com limite próprio e um teto
+ * global de requisições em andamento. Evita que um cliente fazendo
+ * importação em massa ocupe os servidores de controle e o coordenador de
+ * dados de todos os outros.
+ *
+ * Os limites podem ser alterados em tempo de execução (ver
+ * AdminLimitsHandler) e valem imediatamente para os baldes existentes.
+ *
+ * Configuração por propriedades de sistema:
+ *   gateway.admission.max.concurrent requisições em andamento (padrão: 256, 0 desliga)
+ *   gateway.ratelimit.user.rate      requisições/s por cliente (padrão: 50, 0 desliga)
+ *   gateway.ratelimit.user.burst     rajada por cliente (padrão: 100)
+ *   gateway.ratelimit.routes         limites por rota, no formato
+ *                                    rota=taxa:rajada separados por vírgula;
+ *                                    a rota pode levar o método na frente
+ *                                    ("PUT /api/files/") para valer só nele
+ *                                    (padrão: os uploads e o lote, ver DEFAULT_ROUTES)
+ */
+public class AdmissionController {
+
+    // Todas as formas de upload: a rota antiga, PUT /api/files/{nome}, as
+    // partes do multipart (várias por arquivo, daí a taxa maior) e o lote
+    private static final String DEFAULT_ROUTES =
+        "/api/files/upload=10:20,PUT /api/files/=10:20,/api/files/multipart=20:40,/api/files/batch=2:4";
+    private static final long EVICTION_INTERVAL_SECONDS = 30;
+    // Retry-After para quem esbarra no teto de concorrência
+    private static final long BUSY_RETRY_AFTER_MS = 1000;
+
+    private volatile int maxConcurrent;
+    private volatile TokenBucket.Limit userLimit;
+    private final Map<String, TokenBucket.Limit> routeLimits = new ConcurrentHashMap<>();
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Map<String, TokenBucket> userBuckets = new ConcurrentHashMap<>();
+    private final Map<RouteClient, TokenBucket> routeBuckets = new ConcurrentHashMap<>();
+
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder rejectedConcurrency = new LongAdder();
+    private final LongAdder rejectedUserRate = new LongAdder();
+    private final LongAdder rejectedRouteRate = new LongAdder();
+
+    private final ScheduledExecutorService evictor =
+        Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "gateway-admission");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+    public AdmissionController(int maxConcurrent, TokenBucket.Limit userLimit) {
+        this.maxConcurrent = maxConcurrent;
+        this.userLimit = userLimit;
+        evictor.scheduleWithFixedDelay(
+            this::evictIdleBuckets,
+            EVICTION_INTERVAL_SECONDS,
+            EVICTION_INTERVAL_SECONDS,
+            TimeUnit.SECONDS
+        );
+    }
+
+    public static AdmissionController fromSystemProperties() {
+        AdmissionController controller = new AdmissionController(
+            Integer.getInteger("gateway.admission.max.concurrent", 256),
+            new TokenBucket.Limit(
+                Integer.getInteger("gateway.ratelimit.user.rate", 50),
+                Integer.getInteger("gateway.ratelimit.user.burst", 100)
+            )
+        );
+
+        String routes = System.getProperty("gateway.ratelimit.routes", DEFAULT_ROUTES);
+        for (String entry : routes.split(",")) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            try {
+                String[] routeAndLimit = entry.trim().split("=");
+                String[] rateAndBurst = routeAndLimit[1].split(":");
+                controller.setRouteLimit(
+                    routeAndLimit[0],
+                    Integer.parseInt(rateAndBurst[0]),
+                    Integer.parseInt(rateAndBurst[1])
+                );
+            } catch (RuntimeException e) {
+                System.err.println("Limite de rota inválido ignorado: " + entry);
+            }
+        }
+        return controller;
+    }
+
+    /**
+     * Tenta admitir uma requisição do cliente na rota. Retorna 0 se foi
+     * admitida, e então {@link #release()} deve ser chamado ao final; caso
+     * contrário, retorna em quantos milissegundos vale tentar de novo. Um
+     * limite para "MÉTODO rota" tem precedência sobre o da rota.
+     */
+    public long admit(String clientId, String method, String route) {
+        TokenBucket.Limit user = userLimit;
+        if (user.isEnabled()) {
+            long waitNanos = userBuckets
+                .computeIfAbsent(clientId, id -> new TokenBucket(user))
+                .tryAcquire(user);
+            if (waitNanos > 0) {
+                rejectedUserRate.increment();
+                return toRetryMillis(waitNanos);
+            }
+        }
+
+        String limitedRoute = method + " " + route;
+        TokenBucket.Limit routeLimit = routeLimits.get(limitedRoute);
+        if (routeLimit == null) {
+            limitedRoute = route;
+            routeLimit = routeLimits.get(route);
+        }
+        if (routeLimit != null && routeLimit.isEnabled()) {
+            TokenBucket.Limit limit = routeLimit;
+            long waitNanos = routeBuckets
+                .computeIfAbsent(new RouteClient(limitedRoute, clientId), key -> new TokenBucket(limit))
+                .tryAcquire(routeLimit);
+            if (waitNanos > 0) {
+                rejectedRouteRate.increment();
+                return toRetryMillis(waitNanos);
+            }
+        }
+
+        int max = maxConcurrent;
+        if (inFlight.incrementAndGet() > max && max > 0) {
+            inFlight.decrementAndGet();
+            rejectedConcurrency.increment();
+            return BUSY_RETRY_AFTER_MS;
+        }
+        admitted.increment();
+        return 0;
+    }
+
+    public void release() {
+        inFlight.decrementAndGet();
+    }
+
+    public void setMaxConcurrent(int maxConcurrent) {
+        this.maxConcurrent = Math.max(0, maxConcurrent);
+        System.out.println("Limite de requisições em andamento: " + this.maxConcurrent);
+    }
+
+    public void setUserLimit(int rate, int burst) {
+        userLimit = new TokenBucket.Limit(rate, burst);
+        System.out.println("Limite por cliente: " + userLimit);
+    }
+
+    /**
+     * Define o limite por cliente na rota; taxa 0 remove o limite da rota.
+     */
+    public void setRouteLimit(String route, int rate, int burst) {
+        if (rate <= 0) {
+            routeLimits.remove(route);
+            routeBuckets.keySet().removeIf(key -> key.route.equals(route));
+            System.out.println("Limite removido da rota " + route);
+            return;
+        }
+        TokenBucket.Limit limit = new TokenBucket.Limit(rate, burst);
+        routeLimits.put(route, limit);
+        System.out.println("Limite da rota " + route + ": " + limit);
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    public TokenBucket.Limit getUserLimit() {
+        return userLimit;
+    }
+
+    public Map<String, TokenBucket.Limit> getRouteLimits() {
+        return Collections.unmodifiableMap(new TreeMap<>(routeLimits));
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public long getAdmitted() {
+        return admitted.sum();
+    }
+
+    public long getRejectedConcurrency() {
+        return rejectedConcurrency.sum();
+    }
+
+    public long getRejectedUserRate() {
+        return rejectedUserRate.sum();
+    }
+
+    public long getRejectedRouteRate() {
+        return rejectedRouteRate.sum();
+    }
+
+    public int getTrackedClients() {
+        return userBuckets.size();
+    }
+
+    public void shutdown() {
+        evictor.shutdownNow();
+    }
+
+    /**
+     * Baldes cheios equivalem a baldes novos; descartá-los mantém a memória
+     * proporcional aos clientes ativos.
+     */
+    private void evictIdleBuckets() {
+        TokenBucket.Limit user = userLimit;
+        userBuckets.values().removeIf(bucket -> bucket.isFull(user));
+        routeBuckets.entrySet().removeIf(entry -> {
+            TokenBucket.Limit limit = routeLimits.get(entry.getKey().route);
+            return limit == null || entry.getValue().isFull(limit);
+        });
+    }
+
+    private static long toRetryMillis(long waitNanos) {
+        return Math.max(1, TimeUnit.NANOSECONDS.toMillis(waitNanos));
+    }
+
+    /**
+     * Chave do balde de um cliente em uma rota. A rota é a chave do limite
+     * em routeLimits, que pode levar o método na frente ("PUT /api/files/").
+     */
+    private static final class RouteClient {
+
+        private final String route;
+        private final String clientId;
+
+        private RouteClient(String route, String clientId) {
+            this.route = route;
+            this.clientId = clientId;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof RouteClient)) {
+                return false;
+            }
+            RouteClient key = (RouteClient) other;
+            return route.equals(key.route) && clientId.equals(key.clientId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(route, clientId);
+        }
+    }
+}
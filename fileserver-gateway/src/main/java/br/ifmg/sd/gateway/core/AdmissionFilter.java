@@ -0,0 +1,94 @@
+package br.ifmg.sd.gateway.core;
+
+import br.ifmg.sd.gateway.utilities.HttpUtils;
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.HttpExchange;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Aplica o {@link AdmissionController} antes do handler da rota. O cliente
+ * é o usuário do token quando há um token válido e, senão (login,
+ * cadastro), o endereço IP. Requisições recusadas recebem 429 com
+ * Retry-After, sem chegar ao cluster.
+ */
+public class AdmissionFilter extends Filter {
+
+    private static final String PERMIT_ATTRIBUTE = "gateway.admission.permit";
+
+    private final AdmissionController admission;
+    private final TokenVerifier tokenVerifier;
+
+    public AdmissionFilter(
+        AdmissionController admission,
+        TokenVerifier tokenVerifier
+    ) {
+        this.admission = admission;
+        this.tokenVerifier = tokenVerifier;
+    }
+
+    @Override
+    public void doFilter(HttpExchange exchange, Chain chain) throws IOException {
+        String route = HttpUtils.routeOf(exchange);
+        long retryAfterMillis = admission.admit(
+            clientId(exchange),
+            exchange.getRequestMethod(),
+            route
+        );
+
+        if (retryAfterMillis > 0) {
+            exchange.getResponseHeaders().set(
+                "Retry-After",
+                Long.toString((retryAfterMillis + 999) / 1000)
+            );
+            HttpUtils.sendErrorResponse(
+                exchange,
+                429,
+                "Muitas requisições, tente novamente mais tarde"
+            );
+            return;
+        }
+
+        AtomicBoolean held = new AtomicBoolean(true);
+        Runnable release = () -> {
+            if (held.compareAndSet(true, false)) {
+                admission.release();
+            }
+        };
+        exchange.setAttribute(PERMIT_ATTRIBUTE, release);
+        try {
+            chain.doFilter(exchange);
+        } finally {
+            release.run();
+        }
+    }
+
+    /**
+     * Devolve a vaga de concorrência antes do fim da requisição. Usado por
+     * conexões que passam a maior parte do tempo esperando (SSE,
+     * long-poll), que já passaram pelos limites de taxa ao entrar.
+     */
+    public static void detach(HttpExchange exchange) {
+        Object release = exchange.getAttribute(PERMIT_ATTRIBUTE);
+        if (release instanceof Runnable) {
+            ((Runnable) release).run();
+        }
+    }
+
+    @Override
+    public String description() {
+        return "Limites de taxa e de concorrência do gateway";
+    }
+
+    private String clientId(HttpExchange exchange) {
+        String token = exchange.getRequestHeaders().getFirst("Authorization");
+        if (token != null && token.startsWith("Bearer ")) {
+            token = token.substring(7);
+        }
+        String userId = tokenVerifier.verify(token);
+        if (userId != null) {
+            return "user:" + userId;
+        }
+        return "ip:" + exchange.getRemoteAddress().getAddress().getHostAddress();
+    }
+}
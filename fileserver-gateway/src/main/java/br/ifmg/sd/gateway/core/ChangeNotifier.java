@@ -0,0 +1,43 @@
+package br.ifmg.sd.gateway.core;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Acorda as requisições do feed de alterações (SSE e long-poll) quando chega
+ * uma invalidação de arquivo do usuário pelo control-cluster. O aviso só
+ * indica que há novidades; o conteúdo vem do log no data-cluster.
+ *
+ * Quem espera deve obter o future antes de consultar o feed, para não perder
+ * um aviso que chegue entre a consulta e a espera.
+ */
+public class ChangeNotifier {
+
+    private final Map<String, CompletableFuture<Void>> pending = new ConcurrentHashMap<>();
+
+    public CompletableFuture<Void> nextChange(String userId) {
+        return pending.computeIfAbsent(userId, id -> new CompletableFuture<>());
+    }
+
+    public void notifyChange(String userId) {
+        CompletableFuture<Void> future = pending.remove(userId);
+        if (future != null) {
+            future.complete(null);
+        }
+    }
+
+    /**
+     * Acorda todos, por exemplo depois de uma partição em que avisos podem
+     * ter sido perdidos.
+     */
+    public void notifyEveryone() {
+        for (String userId : pending.keySet()) {
+            notifyChange(userId);
+        }
+    }
+
+    public int getWatchedUsers() {
+        return pending.size();
+    }
+}
@@ -1,9 +1,29 @@
 package br.ifmg.sd.gateway.core;
 
+import br.ifmg.sd.concurrent.SingleFlight;
+import br.ifmg.sd.metrics.MetricsRegistry;
+import br.ifmg.sd.metrics.RpcMetrics;
+import br.ifmg.sd.rpc.ClusterMessages;
+import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Random;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Supplier;
 import org.jgroups.Address;
+import org.jgroups.SuspectedException;
 import org.jgroups.blocks.MethodCall;
 import org.jgroups.blocks.RequestOptions;
 import org.jgroups.blocks.ResponseMode;
@@ -14,7 +34,23 @@ import org.jgroups.util.RspList;
 public class ClusterClient {
 
     private static final int TIMEOUT_MS = 5000;
-    private final Random random = new Random();
+    private static final long DEFAULT_HEDGE_DELAY_MS = 50;
+    private static final long MIN_HEDGE_DELAY_MS = 2;
+
+    private final ReplicaSelector selector = new ReplicaSelector();
+    private final Map<String, LatencyTracker> latencies = new ConcurrentHashMap<>();
+    private final LongAdder hedgesSent = new LongAdder();
+    private final SingleFlight singleFlight = new SingleFlight();
+    private final RpcMetrics rpcMetrics = new RpcMetrics(
+        MetricsRegistry.getDefault(),
+        "gateway_rpc"
+    );
+    private final ScheduledExecutorService hedgeScheduler =
+        Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "gateway-hedge");
+            thread.setDaemon(true);
+            return thread;
+        });
 
     private final RpcDispatcher dispatcher;
     private final Supplier<List<Address>> serverProvider;
@@ -29,35 +65,263 @@ public class ClusterClient {
 
     public <T> T callRemoteMethod(MethodCall call, Class<T> returnType)
         throws Exception {
-        List<Address> servers = serverProvider.get();
+        List<Address> servers = requireServers();
+
+        // Escolhe entre dois servidores sorteados o de menor carga estimada
+        Address selectedServer = selector.select(servers);
         
-        if (servers == null || servers.isEmpty()) {
-            throw new Exception("No servers available");
+        selector.onStart(selectedServer);
+        long start = System.nanoTime();
+        RspList<T> responses;
+        try {
+            responses = dispatcher.callRemoteMethods(
+                List.of(selectedServer),
+                call,
+                options()
+            );
+        } catch (Exception e) {
+            selector.onFailure(selectedServer);
+            rpcMetrics.record(call.getMethodName(), start, true, call.getArgs(), null);
+            throw e;
         }
 
-        // Selecionar um servidor aleatório
-        Address selectedServer = servers.get(random.nextInt(servers.size()));
-        
-        RequestOptions opts = new RequestOptions(
-            ResponseMode.GET_FIRST,
-            TIMEOUT_MS
+        Rsp<T> rsp = responses.get(selectedServer);
+        if (rsp == null || !rsp.wasReceived() || rsp.wasSuspected()) {
+            selector.onFailure(selectedServer);
+            rpcMetrics.record(call.getMethodName(), start, true, call.getArgs(), null);
+            return null;
+        }
+        recordSuccess(selectedServer, call, System.nanoTime() - start);
+        rpcMetrics.record(
+            call.getMethodName(),
+            start,
+            rsp.hasException(),
+            call.getArgs(),
+            rsp.getValue()
         );
-        
-        RspList<T> responses = dispatcher.callRemoteMethods(
-            List.of(selectedServer),
-            call,
-            opts
+
+        return rsp.getValue();
+    }
+
+    /**
+     * Versão assíncrona de {@link #callRemoteMethod}: não ocupa a thread do
+     * chamador enquanto o ControlServer processa. Exceções do método remoto
+     * completam o future excepcionalmente.
+     */
+    public <T> CompletableFuture<T> callRemoteMethodAsync(
+        MethodCall call,
+        Class<T> returnType
+    ) {
+        List<Address> servers = serverProvider.get();
+        if (servers == null || servers.isEmpty()) {
+            return CompletableFuture.failedFuture(new Exception("No servers available"));
+        }
+        return callOn(selector.select(servers), call);
+    }
+
+    /**
+     * Chamada assíncrona com hedging, apenas para métodos idempotentes: se o
+     * primeiro servidor não responder dentro do p95 de latência do método,
+     * uma cópia da chamada vai para um segundo servidor e vale a primeira
+     * resposta bem-sucedida. Quando o resultado termina, ou é cancelado por
+     * quem desistiu de esperar, as chamadas ainda em andamento são
+     * canceladas.
+     */
+    public <T> CompletableFuture<T> callHedgedAsync(
+        MethodCall call,
+        Class<T> returnType
+    ) {
+        List<Address> servers = serverProvider.get();
+        if (servers == null || servers.isEmpty()) {
+            return CompletableFuture.failedFuture(new Exception("No servers available"));
+        }
+
+        Address primary = selector.select(servers);
+        CompletableFuture<T> result = new CompletableFuture<>();
+        AtomicInteger pending = new AtomicInteger(1);
+        List<CompletableFuture<T>> calls = new CopyOnWriteArrayList<>();
+
+        CompletableFuture<T> first = callOn(primary, call);
+        calls.add(first);
+        first.whenComplete((value, error) -> completeHedged(result, pending, value, error));
+        result.whenComplete((value, error) -> calls.forEach(pendingCall -> pendingCall.cancel(false)));
+
+        if (servers.size() > 1) {
+            hedgeScheduler.schedule(
+                () -> {
+                    // Incrementa antes de checar para que uma falha do
+                    // primário neste intervalo não encerre o resultado
+                    pending.incrementAndGet();
+                    if (result.isDone()) {
+                        return;
+                    }
+                    List<Address> others = new ArrayList<>(serverProvider.get());
+                    others.remove(primary);
+                    if (others.isEmpty()) {
+                        completeHedged(result, pending, null, new Exception("No servers available"));
+                        return;
+                    }
+                    hedgesSent.increment();
+                    CompletableFuture<T> hedge = callOn(selector.select(others), call);
+                    calls.add(hedge);
+                    hedge.whenComplete((value, error) -> completeHedged(result, pending, value, error));
+                    // O resultado pode ter terminado antes do add acima
+                    if (result.isDone()) {
+                        hedge.cancel(false);
+                    }
+                },
+                trackerFor(call).getP95Nanos(),
+                TimeUnit.NANOSECONDS
+            );
+        }
+        return result;
+    }
+
+    /**
+     * Forma síncrona de {@link #callHedgedAsync}, com a mesma semântica de
+     * {@link #callRemoteMethod}: falhas do método remoto ou timeout viram null.
+     */
+    public <T> T callIdempotent(MethodCall call, Class<T> returnType)
+        throws Exception {
+        requireServers();
+        CompletableFuture<T> result = callHedgedAsync(call, returnType);
+        try {
+            return result.get(2L * TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException | TimeoutException e) {
+            result.cancel(false);
+            return null;
+        }
+    }
+
+    /**
+     * {@link #callIdempotent} agrupando chamadas concorrentes com a mesma
+     * chave: N requisições simultâneas pelo mesmo arquivo custam uma leitura
+     * no cluster. A chave deve identificar o resultado sem o token (por
+     * exemplo dono e nome do arquivo); o token de cada requisição já foi
+     * validado pelo gateway antes de chegar aqui.
+     */
+    public <T> T callCoalesced(String key, MethodCall call, Class<T> returnType)
+        throws Exception {
+        return coalesce(
+            call.getMethodName() + ":" + key,
+            () -> callIdempotent(call, returnType)
         );
+    }
 
-        for (Rsp<T> rsp : responses) {
-            if (
-                rsp.wasReceived() &&
-                !rsp.wasSuspected() &&
-                rsp.getValue() != null
-            ) {
-                return rsp.getValue();
+    /**
+     * Agrupa execuções concorrentes de qualquer leitura com a mesma chave,
+     * como a transferência direta com o servidor de dados.
+     */
+    public <T> T coalesce(String key, Callable<T> read) throws Exception {
+        return singleFlight.execute(key, read);
+    }
+
+    /**
+     * Envia uma mensagem a todos os membros do cluster (servidores e
+     * gateways), como as invalidações de cache.
+     */
+    public void publish(Serializable payload) throws Exception {
+        dispatcher.getChannel().send(ClusterMessages.toMessage(null, payload));
+    }
+
+    /**
+     * Chamado a cada nova view do cluster para esquecer membros que saíram.
+     */
+    public void onViewChange(List<Address> members) {
+        selector.retain(members);
+    }
+
+    public long getHedgesSent() {
+        return hedgesSent.sum();
+    }
+
+    public long getCoalescedCalls() {
+        return singleFlight.getShared();
+    }
+
+    public int getCoalescedInFlight() {
+        return singleFlight.getInFlight();
+    }
+
+    /**
+     * O future do JGroups não aplica o timeout das RequestOptions: sem o
+     * orTimeout, um servidor travado que não é suspeito nunca completaria a
+     * chamada. O timeout conta como falha do servidor e, como um cancel,
+     * tira o pedido do correlator. Quem recebe o future pode cancelá-lo
+     * (hedge perdedor, espera abandonada); aí só a carga do servidor é
+     * devolvida.
+     */
+    private <T> CompletableFuture<T> callOn(Address server, MethodCall call) {
+        selector.onStart(server);
+        long start = System.nanoTime();
+
+        CompletableFuture<T> future;
+        try {
+            future = dispatcher.callRemoteMethodWithFuture(server, call, options());
+        } catch (Exception e) {
+            selector.onFailure(server);
+            rpcMetrics.record(call.getMethodName(), start, true, call.getArgs(), null);
+            return CompletableFuture.failedFuture(e);
+        }
+
+        future.orTimeout(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        future.whenComplete((value, error) -> {
+            if (error instanceof CancellationException) {
+                selector.onAbandoned(server);
+                return;
+            }
+            rpcMetrics.record(call.getMethodName(), start, error != null, call.getArgs(), value);
+            if (error != null && isTransportFailure(error)) {
+                selector.onFailure(server);
+                future.cancel(false);
+            } else {
+                recordSuccess(server, call, System.nanoTime() - start);
             }
+        });
+        return future;
+    }
+
+    private <T> void completeHedged(
+        CompletableFuture<T> result,
+        AtomicInteger pending,
+        T value,
+        Throwable error
+    ) {
+        if (error == null) {
+            result.complete(value);
+        } else if (pending.decrementAndGet() == 0) {
+            result.completeExceptionally(error);
+        }
+    }
+
+    private void recordSuccess(Address server, MethodCall call, long latencyNanos) {
+        selector.onSuccess(server, latencyNanos);
+        trackerFor(call).record(latencyNanos);
+    }
+
+    private LatencyTracker trackerFor(MethodCall call) {
+        return latencies.computeIfAbsent(
+            call.getMethodName(),
+            name -> new LatencyTracker(DEFAULT_HEDGE_DELAY_MS, MIN_HEDGE_DELAY_MS)
+        );
+    }
+
+    private static boolean isTransportFailure(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null
+            ? error.getCause()
+            : error;
+        return cause instanceof TimeoutException || cause instanceof SuspectedException;
+    }
+
+    private List<Address> requireServers() throws Exception {
+        List<Address> servers = serverProvider.get();
+        if (servers == null || servers.isEmpty()) {
+            throw new Exception("No servers available");
         }
-        return null;
+        return servers;
+    }
+
+    private static RequestOptions options() {
+        return new RequestOptions(ResponseMode.GET_FIRST, TIMEOUT_MS);
     }
 }
@@ -0,0 +1,97 @@
+package br.ifmg.sd.gateway.core;
+
+import br.ifmg.sd.models.FileInvalidation;
+import br.ifmg.sd.models.SessionUpdate;
+import br.ifmg.sd.rpc.ClusterMessages;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import org.jgroups.MergeView;
+import org.jgroups.Message;
+import org.jgroups.Receiver;
+import org.jgroups.View;
+import org.jgroups.blocks.MethodCall;
+
+/**
+ * Recebe as mensagens multicast do control-cluster que interessam ao
+ * gateway: logouts, que revogam o token na validação local, e alterações
+ * de arquivos, que invalidam o cache de conteúdo e acordam o feed de
+ * alterações.
+ */
+public class ClusterEventListener implements Receiver {
+
+    private final TokenVerifier tokenVerifier;
+    private final FileCache fileCache;
+    private final ChangeNotifier changeNotifier;
+    private ClusterClient clusterClient;
+
+    public ClusterEventListener(
+        TokenVerifier tokenVerifier,
+        FileCache fileCache,
+        ChangeNotifier changeNotifier
+    ) {
+        this.tokenVerifier = tokenVerifier;
+        this.fileCache = fileCache;
+        this.changeNotifier = changeNotifier;
+    }
+
+    public void setClusterClient(ClusterClient clusterClient) {
+        this.clusterClient = clusterClient;
+    }
+
+    @Override
+    public void receive(Message msg) {
+        try {
+            Object payload = ClusterMessages.fromMessage(msg);
+            if (payload instanceof SessionUpdate) {
+                SessionUpdate update = (SessionUpdate) payload;
+                if (update.getType() == SessionUpdate.UpdateType.DELETE) {
+                    tokenVerifier.revoke(update.getToken());
+                }
+            } else if (payload instanceof FileInvalidation) {
+                FileInvalidation invalidation = (FileInvalidation) payload;
+                fileCache.invalidate(invalidation.getUserId(), invalidation.getFileName());
+                changeNotifier.notifyChange(invalidation.getUserId());
+            }
+        } catch (Exception e) {
+            System.err.println("Erro ao processar mensagem do cluster: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void viewAccepted(View view) {
+        if (clusterClient != null) {
+            clusterClient.onViewChange(view.getMembers());
+        }
+        // Depois de uma partição o gateway pode ter perdido invalidações
+        if (view instanceof MergeView) {
+            fileCache.clear();
+            changeNotifier.notifyEveryone();
+        }
+        // Um ControlServer novo pode ter revogações que o gateway não viu;
+        // a consulta não pode bloquear a thread do JGroups
+        CompletableFuture.runAsync(this::syncRevocations);
+    }
+
+    /**
+     * Copia de um ControlServer as revogações ainda não expiradas, que o
+     * gateway pode ter perdido enquanto estava fora do cluster.
+     */
+    public void syncRevocations() {
+        if (clusterClient == null) {
+            return;
+        }
+        try {
+            @SuppressWarnings("unchecked")
+            Map<String, Long> revoked = clusterClient.callIdempotent(
+                new MethodCall("getRevokedTokens", new Object[] {}, new Class<?>[] {}),
+                Map.class
+            );
+            if (revoked != null) {
+                tokenVerifier.revokeAll(revoked);
+                System.out.println("Revogações sincronizadas: " + revoked.size());
+            }
+        } catch (Exception e) {
+            System.err.println("Erro ao sincronizar revogações: " + e.getMessage());
+        }
+    }
+}
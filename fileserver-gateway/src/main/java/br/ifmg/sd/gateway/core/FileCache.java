@@ -0,0 +1,177 @@
+package br.ifmg.sd.gateway.core;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache em memória do conteúdo dos arquivos mais baixados, limitado pelo
+ * total de bytes e descartando os menos usados (LRU). Cada entrada guarda o
+ * updatedAt da versão em cache; as invalidações multicast do control-cluster
+ * removem as entradas de arquivos alterados ou apagados, e um TTL cobre
+ * avisos perdidos.
+ *
+ * Configuração por propriedades de sistema:
+ *   gateway.cache.max.bytes       tamanho total do cache (padrão: 64 MB)
+ *   gateway.cache.max.entry.bytes maior arquivo aceito (padrão: 4 MB)
+ *   gateway.cache.ttl.ms          validade de cada entrada (padrão: 60000)
+ */
+public class FileCache {
+
+    private final long maxBytes;
+    private final long maxEntryBytes;
+    private final long ttlMillis;
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(
+        16,
+        0.75f,
+        true
+    );
+    private long currentBytes;
+
+    // Incrementado a cada invalidação: um put iniciado antes dela pode trazer
+    // conteúdo antigo e é descartado
+    private final AtomicLong generation = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public FileCache(long maxBytes, long maxEntryBytes, long ttlMillis) {
+        this.maxBytes = maxBytes;
+        this.maxEntryBytes = maxEntryBytes;
+        this.ttlMillis = ttlMillis;
+    }
+
+    public static FileCache fromSystemProperties() {
+        return new FileCache(
+            Long.getLong("gateway.cache.max.bytes", 64L * 1024 * 1024),
+            Long.getLong("gateway.cache.max.entry.bytes", 4L * 1024 * 1024),
+            Long.getLong("gateway.cache.ttl.ms", 60_000)
+        );
+    }
+
+    public synchronized Entry get(String userId, String fileName) {
+        String key = key(userId, fileName);
+        Entry entry = entries.get(key);
+        if (entry != null && entry.cachedAt + ttlMillis < System.currentTimeMillis()) {
+            remove(key);
+            entry = null;
+        }
+
+        if (entry == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return entry;
+    }
+
+    /**
+     * Valor a ser passado para {@link #put} e obtido antes de buscar o
+     * conteúdo no cluster.
+     */
+    public long currentGeneration() {
+        return generation.get();
+    }
+
+    public boolean isCacheable(long size) {
+        return size <= maxEntryBytes && size <= maxBytes;
+    }
+
+    public synchronized void put(
+        String userId,
+        String fileName,
+        long updatedAt,
+        byte[] content,
+        long fetchGeneration
+    ) {
+        if (!isCacheable(content.length) || fetchGeneration != generation.get()) {
+            return;
+        }
+
+        String key = key(userId, fileName);
+        remove(key);
+        entries.put(key, new Entry(content, updatedAt, System.currentTimeMillis()));
+        currentBytes += content.length;
+
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (currentBytes > maxBytes && eldest.hasNext()) {
+            currentBytes -= eldest.next().content.length;
+            eldest.remove();
+        }
+    }
+
+    /**
+     * Remove um arquivo do cache, ou todos os do usuário quando fileName é
+     * nulo.
+     */
+    public synchronized void invalidate(String userId, String fileName) {
+        generation.incrementAndGet();
+
+        if (fileName != null) {
+            remove(key(userId, fileName));
+            return;
+        }
+
+        String prefix = userId + "/";
+        Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Entry> e = it.next();
+            if (e.getKey().startsWith(prefix)) {
+                currentBytes -= e.getValue().content.length;
+                it.remove();
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        generation.incrementAndGet();
+        entries.clear();
+        currentBytes = 0;
+    }
+
+    public synchronized long getCurrentBytes() {
+        return currentBytes;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    private void remove(String key) {
+        Entry removed = entries.remove(key);
+        if (removed != null) {
+            currentBytes -= removed.content.length;
+        }
+    }
+
+    private static String key(String userId, String fileName) {
+        return userId + "/" + fileName;
+    }
+
+    public static class Entry {
+        private final byte[] content;
+        private final long updatedAt;
+        private final long cachedAt;
+
+        private Entry(byte[] content, long updatedAt, long cachedAt) {
+            this.content = content;
+            this.updatedAt = updatedAt;
+            this.cachedAt = cachedAt;
+        }
+
+        public byte[] getContent() {
+            return content;
+        }
+
+        public long getUpdatedAt() {
+            return updatedAt;
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package br.ifmg.sd.gateway.core;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Executor das requisições HTTP do gateway. Usa uma virtual thread por
+ * requisição quando a JVM suporta (Java 21+) e, caso contrário, um pool
+ * limitado de threads de plataforma. Mantém contadores de requisições em
+ * execução e na fila.
+ *
+ * Com a fila do pool cheia, a requisição não roda na thread do HttpServer
+ * (que pararia de aceitar conexões): vai para um pequeno executor de
+ * descarte, onde o {@link OverloadFilter} responde 503 com Retry-After sem
+ * chamar o handler. Se até esse executor estiver cheio, o HttpServer fecha
+ * a conexão.
+ *
+ * Configuração por propriedades de sistema:
+ *   gateway.executor       virtual | pool (padrão: virtual se disponível)
+ *   gateway.pool.size      threads do pool (padrão: 4 x núcleos, mínimo 16)
+ *   gateway.queue.capacity tamanho da fila do pool (padrão: 1000)
+ */
+public class GatewayExecutor implements Executor {
+
+    public enum Mode {
+        VIRTUAL,
+        POOL,
+    }
+
+    private static final int SHED_THREADS = 2;
+    // Marca as requisições que estão sendo executadas só para receber 503
+    private static final ThreadLocal<Boolean> SHEDDING = new ThreadLocal<>();
+
+    private final Mode mode;
+    private final ExecutorService delegate;
+    private final ExecutorService shed;
+
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger active = new AtomicInteger();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    private GatewayExecutor(Mode mode, ExecutorService delegate, ExecutorService shed) {
+        this.mode = mode;
+        this.delegate = delegate;
+        this.shed = shed;
+    }
+
+    public static GatewayExecutor fromSystemProperties() {
+        String requested = System.getProperty("gateway.executor", "virtual");
+
+        if (!"pool".equalsIgnoreCase(requested)) {
+            ExecutorService virtual = newVirtualThreadExecutor();
+            if (virtual != null) {
+                return new GatewayExecutor(Mode.VIRTUAL, virtual, null);
+            }
+            System.out.println(
+                "Virtual threads indisponíveis nesta JVM, usando pool limitado"
+            );
+        }
+
+        int poolSize = Integer.getInteger(
+            "gateway.pool.size",
+            Math.max(16, Runtime.getRuntime().availableProcessors() * 4)
+        );
+        int queueCapacity = Integer.getInteger("gateway.queue.capacity", 1000);
+
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(
+            poolSize,
+            poolSize,
+            60,
+            TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            r -> new Thread(r, "gateway-http-" + threadCount.incrementAndGet())
+        );
+        pool.allowCoreThreadTimeOut(true);
+
+        AtomicInteger shedCount = new AtomicInteger();
+        ThreadPoolExecutor shed = new ThreadPoolExecutor(
+            SHED_THREADS,
+            SHED_THREADS,
+            60,
+            TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            r -> new Thread(r, "gateway-shed-" + shedCount.incrementAndGet())
+        );
+        shed.allowCoreThreadTimeOut(true);
+
+        return new GatewayExecutor(Mode.POOL, pool, shed);
+    }
+
+    /**
+     * Executors.newVirtualThreadPerTaskExecutor() só existe a partir do Java
+     * 21; o projeto compila para 17, então a chamada é feita por reflexão.
+     */
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class
+                .getMethod("newVirtualThreadPerTaskExecutor")
+                .invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        queued.incrementAndGet();
+        try {
+            delegate.execute(() -> {
+                queued.decrementAndGet();
+                active.incrementAndGet();
+                try {
+                    task.run();
+                } finally {
+                    active.decrementAndGet();
+                    completed.increment();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            queued.decrementAndGet();
+            rejected.increment();
+            if (shed == null) {
+                throw e;
+            }
+            shed.execute(() -> {
+                SHEDDING.set(Boolean.TRUE);
+                try {
+                    task.run();
+                } finally {
+                    SHEDDING.remove();
+                }
+            });
+        } catch (RuntimeException e) {
+            queued.decrementAndGet();
+            throw e;
+        }
+    }
+
+    /**
+     * Se a requisição da thread atual foi recusada pelo pool e deve apenas
+     * receber 503.
+     */
+    static boolean isShedding() {
+        return SHEDDING.get() != null;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public int getActiveRequests() {
+        return active.get();
+    }
+
+    public int getQueuedRequests() {
+        return queued.get();
+    }
+
+    public long getCompletedRequests() {
+        return completed.sum();
+    }
+
+    public long getRejectedRequests() {
+        return rejected.sum();
+    }
+
+    public void shutdown() {
+        delegate.shutdown();
+        if (shed != null) {
+            shed.shutdown();
+        }
+    }
+}
@@ -1,6 +1,12 @@
 package br.ifmg.sd.gateway.core;
 
+import br.ifmg.sd.gateway.handlers.ChangesHandler;
 import br.ifmg.sd.gateway.utilities.HandlerFactory;
+import br.ifmg.sd.metrics.MetricsRegistry;
+import br.ifmg.sd.rpc.ClusterMessages;
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.HttpContext;
+import com.sun.net.httpserver.HttpHandler;
 import com.sun.net.httpserver.HttpServer;
 import java.io.InputStream;
 import java.net.InetSocketAddress;
@@ -19,6 +25,21 @@ public class HttpGateway {
     private RpcDispatcher dispatcher;
     private HttpServer server;
     private ClusterClient clusterClient;
+    private GatewayExecutor executor;
+    private final TokenVerifier tokenVerifier = new TokenVerifier();
+    private final FileCache fileCache = FileCache.fromSystemProperties();
+    private final AdmissionController admission =
+        AdmissionController.fromSystemProperties();
+    private AdmissionFilter admissionFilter;
+    private final OverloadFilter overloadFilter = new OverloadFilter();
+    private final MetricsRegistry metrics = MetricsRegistry.getDefault();
+    private final ChangeNotifier changeNotifier = new ChangeNotifier();
+    private final ClusterEventListener eventListener = new ClusterEventListener(
+        tokenVerifier,
+        fileCache,
+        changeNotifier
+    );
+    private ChangesHandler changesHandler;
 
     public void start(int port) throws Exception {
         System.out.println("Iniciando HTTP Gateway na porta " + port);
@@ -39,11 +60,15 @@ public class HttpGateway {
             );
         }
 
+        ClusterMessages.register();
         channel = new JChannel(configStream);
         dispatcher = new RpcDispatcher(channel, null);
+        dispatcher.setReceiver(eventListener);
         channel.connect(CLUSTER_NAME);
 
         clusterClient = new ClusterClient(dispatcher, this::getControlServers);
+        eventListener.setClusterClient(clusterClient);
+        eventListener.syncRevocations();
 
         System.out.println("Gateway conectado ao cluster " + CLUSTER_NAME);
         System.out.println("Membros do cluster: " + channel.getView());
@@ -54,25 +79,160 @@ public class HttpGateway {
 
     private void startHttpServer(int port) throws Exception {
         server = HttpServer.create(new InetSocketAddress(port), 0);
+        executor = GatewayExecutor.fromSystemProperties();
 
         HandlerFactory factory = new HandlerFactory(
             clusterClient,
-            this::getControlServers
-        );
-        server.createContext("/api/register", factory.createRegisterHandler());
-        server.createContext("/api/login", factory.createLoginHandler());
-        server.createContext("/api/logout", factory.createLogoutHandler());
-        server.createContext("/api/validate", factory.createValidateHandler());
-        server.createContext("/api/files/upload", factory.createUploadFileHandler());
-        server.createContext("/api/files/list", factory.createListFilesHandler());
-        server.createContext("/api/files/search", factory.createSearchFilesHandler());
-        server.createContext("/api/files/download", factory.createDownloadFileHandler());
-        server.createContext("/api/files/update", factory.createUpdateFileHandler());
-        server.createContext("/api/files/delete", factory.createDeleteFileHandler());
+            this::getControlServers,
+            executor,
+            tokenVerifier,
+            fileCache,
+            admission,
+            metrics,
+            changeNotifier
+        );
+        admissionFilter = new AdmissionFilter(admission, tokenVerifier);
+
+        createApiContext("/api/register", factory.createRegisterHandler());
+        createApiContext("/api/login", factory.createLoginHandler());
+        createApiContext("/api/logout", factory.createLogoutHandler());
+        createApiContext("/api/validate", factory.createValidateHandler());
+        HttpContext resourceContext =
+            createApiContext("/api/files/", factory.createFileResourceHandler());
+        createFilesContext("/api/files/upload", factory.createUploadFileHandler(), resourceContext);
+        createFilesContext("/api/files/list", factory.createListFilesHandler(), resourceContext);
+        createFilesContext("/api/files/search", factory.createSearchFilesHandler(), resourceContext);
+        createFilesContext("/api/files/download", factory.createDownloadFileHandler(), resourceContext);
+        createFilesContext("/api/files/update", factory.createUpdateFileHandler(), resourceContext);
+        createFilesContext("/api/files/delete", factory.createDeleteFileHandler(), resourceContext);
+        createFilesContext("/api/files/multipart", factory.createMultipartUploadHandler(), resourceContext);
+        createFilesContext("/api/files/batch", factory.createBatchHandler(), resourceContext);
+        createFilesContext("/api/files/presign", factory.createPresignHandler(), resourceContext);
+        changesHandler = factory.createChangesHandler();
+        createFilesContext("/api/files/changes", changesHandler, resourceContext);
+        createApiContext("/api/public/files/", factory.createPublicFileHandler());
         server.createContext("/health", factory.createHealthHandler());
+        server.createContext("/admin/limits", factory.createAdminLimitsHandler());
+        server.createContext("/metrics", factory.createMetricsHandler());
+        registerGauges();
 
-        server.setExecutor(null);
+        server.setExecutor(executor);
         server.start();
+        System.out.println("Executor HTTP: " + executor.getMode());
+    }
+
+    /**
+     * Rotas da API passam pelo controle de admissão; /health e /admin não,
+     * para continuarem respondendo com o gateway saturado.
+     */
+    private HttpContext createApiContext(String path, HttpHandler handler) {
+        HttpContext context = server.createContext(path, handler);
+        List<Filter> filters = context.getFilters();
+        filters.add(new MetricsFilter(metrics, path));
+        filters.add(overloadFilter);
+        filters.add(admissionFilter);
+        return context;
+    }
+
+    /**
+     * Rotas antigas sob /api/files/: caminhos que não são o da rota (ex.:
+     * /api/files/listagem.txt) são desviados para /api/files/{nome}.
+     */
+    private void createFilesContext(
+        String path,
+        HttpHandler handler,
+        HttpContext resourceContext
+    ) {
+        HttpContext context = createApiContext(path, handler);
+        boolean allowSubpaths = "/api/files/multipart".equals(path);
+        context.getFilters().add(0, new ResourceRouteFilter(path, allowSubpaths, resourceContext));
+    }
+
+    /**
+     * Estados mantidos pelos próprios componentes, lidos a cada coleta.
+     */
+    private void registerGauges() {
+        metrics.gauge(
+            "gateway_executor_active_requests",
+            "Requisições em execução",
+            executor::getActiveRequests
+        );
+        metrics.gauge(
+            "gateway_executor_queued_requests",
+            "Requisições na fila do executor",
+            executor::getQueuedRequests
+        );
+        metrics.counterFunction(
+            "gateway_executor_rejected_total",
+            "Requisições recusadas com 503 por fila cheia",
+            executor::getRejectedRequests
+        );
+        metrics.counterFunction(
+            "gateway_cache_hits_total",
+            "Acertos do cache de arquivos",
+            fileCache::getHits
+        );
+        metrics.counterFunction(
+            "gateway_cache_misses_total",
+            "Faltas do cache de arquivos",
+            fileCache::getMisses
+        );
+        metrics.gauge(
+            "gateway_cache_bytes",
+            "Bytes ocupados pelo cache de arquivos",
+            fileCache::getCurrentBytes
+        );
+        metrics.counterFunction(
+            "gateway_rpc_hedges_total",
+            "Chamadas duplicadas por hedging",
+            clusterClient::getHedgesSent
+        );
+        metrics.counterFunction(
+            "gateway_rpc_coalesced_total",
+            "Chamadas atendidas por outra idêntica em andamento",
+            clusterClient::getCoalescedCalls
+        );
+        metrics.gauge(
+            "gateway_admission_in_flight",
+            "Requisições admitidas em andamento",
+            admission::getInFlight
+        );
+        metrics.counterFunction(
+            "gateway_admission_rejected_total",
+            "Requisições recusadas com 429",
+            admission::getRejectedConcurrency,
+            "reason",
+            "concurrency"
+        );
+        metrics.counterFunction(
+            "gateway_admission_rejected_total",
+            "Requisições recusadas com 429",
+            admission::getRejectedUserRate,
+            "reason",
+            "user_rate"
+        );
+        metrics.counterFunction(
+            "gateway_admission_rejected_total",
+            "Requisições recusadas com 429",
+            admission::getRejectedRouteRate,
+            "reason",
+            "route_rate"
+        );
+        metrics.gauge(
+            "gateway_change_streams",
+            "Conexões SSE abertas no feed de alterações",
+            changesHandler::getOpenStreams
+        );
+        metrics.gauge(
+            "gateway_change_watched_users",
+            "Usuários com requisições esperando alterações",
+            changeNotifier::getWatchedUsers
+        );
+        metrics.gauge(
+            "gateway_cluster_servers",
+            "Servidores de controle disponíveis",
+            () -> getControlServers().size()
+        );
     }
 
     private List<Address> getControlServers() {
@@ -86,6 +246,8 @@ public class HttpGateway {
 
     public void stop() {
         if (server != null) server.stop(0);
+        if (executor != null) executor.shutdown();
+        admission.shutdown();
         if (dispatcher != null) dispatcher.stop();
         if (channel != null && channel.isConnected()) channel.close();
     }
@@ -0,0 +1,56 @@
+package br.ifmg.sd.gateway.core;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Janela circular das últimas latências de RPC, usada para estimar o p95
+ * que dispara as requisições duplicadas (hedging). O percentil é recalculado
+ * apenas a cada RECOMPUTE_EVERY amostras, fora do caminho de leitura.
+ */
+public class LatencyTracker {
+
+    private static final int WINDOW = 1024;
+    private static final int RECOMPUTE_EVERY = 128;
+    private static final int MIN_SAMPLES = 32;
+
+    private final AtomicLongArray samples = new AtomicLongArray(WINDOW);
+    private final AtomicLong count = new AtomicLong();
+    private final long defaultNanos;
+    private final long minNanos;
+    private volatile long p95Nanos;
+
+    public LatencyTracker(long defaultMillis, long minMillis) {
+        this.defaultNanos = defaultMillis * 1_000_000;
+        this.minNanos = minMillis * 1_000_000;
+        this.p95Nanos = defaultNanos;
+    }
+
+    public void record(long latencyNanos) {
+        long n = count.getAndIncrement();
+        samples.set((int) (n % WINDOW), latencyNanos);
+
+        if ((n + 1) % RECOMPUTE_EVERY == 0 && n + 1 >= MIN_SAMPLES) {
+            recompute((int) Math.min(n + 1, WINDOW));
+        }
+    }
+
+    public long getP95Millis() {
+        return p95Nanos / 1_000_000;
+    }
+
+    public long getP95Nanos() {
+        return p95Nanos;
+    }
+
+    private void recompute(int size) {
+        long[] copy = new long[size];
+        for (int i = 0; i < size; i++) {
+            copy[i] = samples.get(i);
+        }
+        Arrays.sort(copy);
+        long p95 = copy[(int) Math.ceil(size * 0.95) - 1];
+        p95Nanos = Math.max(minNanos, p95 > 0 ? p95 : defaultNanos);
+    }
+}
@@ -0,0 +1,125 @@
+package br.ifmg.sd.gateway.core;
+
+import br.ifmg.sd.metrics.Counter;
+import br.ifmg.sd.metrics.Histogram;
+import br.ifmg.sd.metrics.MetricsRegistry;
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.HttpExchange;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Mede cada requisição da API por rota: contagem, erros (4xx e 5xx),
+ * latência e bytes recebidos e enviados. Fica antes do controle de admissão
+ * para que as recusas com 429 também apareçam.
+ */
+public class MetricsFilter extends Filter {
+
+    private final Counter requests;
+    private final Counter clientErrors;
+    private final Counter serverErrors;
+    private final Histogram duration;
+    private final Counter bytesIn;
+    private final Counter bytesOut;
+
+    public MetricsFilter(MetricsRegistry registry, String route) {
+        this.requests = registry.counter(
+            "gateway_http_requests_total", "Requisições HTTP recebidas", "route", route
+        );
+        this.clientErrors = registry.counter(
+            "gateway_http_errors_total", "Respostas de erro", "route", route, "class", "4xx"
+        );
+        this.serverErrors = registry.counter(
+            "gateway_http_errors_total", "Respostas de erro", "route", route, "class", "5xx"
+        );
+        this.duration = registry.histogram(
+            "gateway_http_request_duration_seconds", "Latência das requisições HTTP", "route", route
+        );
+        this.bytesIn = registry.counter(
+            "gateway_http_request_bytes_total", "Bytes recebidos no corpo das requisições", "route", route
+        );
+        this.bytesOut = registry.counter(
+            "gateway_http_response_bytes_total", "Bytes enviados no corpo das respostas", "route", route
+        );
+    }
+
+    @Override
+    public void doFilter(HttpExchange exchange, Chain chain) throws IOException {
+        long start = System.nanoTime();
+        exchange.setStreams(
+            new CountingInputStream(exchange.getRequestBody(), bytesIn),
+            new CountingOutputStream(exchange.getResponseBody(), bytesOut)
+        );
+
+        try {
+            chain.doFilter(exchange);
+        } finally {
+            duration.observeSince(start);
+            requests.inc();
+            int status = exchange.getResponseCode();
+            if (status >= 500 || status < 0) {
+                serverErrors.inc();
+            } else if (status >= 400) {
+                clientErrors.inc();
+            }
+        }
+    }
+
+    @Override
+    public String description() {
+        return "Métricas por rota";
+    }
+
+    private static final class CountingInputStream extends FilterInputStream {
+
+        private final Counter counter;
+
+        CountingInputStream(InputStream in, Counter counter) {
+            super(in);
+            this.counter = counter;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                counter.inc();
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                counter.add(n);
+            }
+            return n;
+        }
+    }
+
+    private static final class CountingOutputStream extends FilterOutputStream {
+
+        private final Counter counter;
+
+        CountingOutputStream(OutputStream out, Counter counter) {
+            super(out);
+            this.counter = counter;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            counter.inc();
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            counter.add(len);
+        }
+    }
+}
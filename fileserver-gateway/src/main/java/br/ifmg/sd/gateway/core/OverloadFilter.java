@@ -0,0 +1,34 @@
+package br.ifmg.sd.gateway.core;
+
+import br.ifmg.sd.gateway.utilities.HttpUtils;
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.HttpExchange;
+import java.io.IOException;
+
+/**
+ * Responde 503 com Retry-After às requisições que o {@link GatewayExecutor}
+ * recusou por fila cheia, sem passar pela admissão nem pelo handler.
+ */
+public class OverloadFilter extends Filter {
+
+    private static final String RETRY_AFTER_SECONDS = "1";
+
+    @Override
+    public void doFilter(HttpExchange exchange, Chain chain) throws IOException {
+        if (!GatewayExecutor.isShedding()) {
+            chain.doFilter(exchange);
+            return;
+        }
+        exchange.getResponseHeaders().set("Retry-After", RETRY_AFTER_SECONDS);
+        HttpUtils.sendErrorResponse(
+            exchange,
+            503,
+            "Gateway sobrecarregado, tente novamente mais tarde"
+        );
+    }
+
+    @Override
+    public String description() {
+        return "Recusa requisições que não couberam na fila do executor";
+    }
+}
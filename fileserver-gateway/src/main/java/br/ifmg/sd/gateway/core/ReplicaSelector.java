@@ -0,0 +1,125 @@
+package br.ifmg.sd.gateway.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.jgroups.Address;
+
+/**
+ * Escolhe o ControlServer de cada chamada pelo método "power of two
+ * choices": sorteia dois membros e fica com o de menor custo estimado
+ * (latência média móvel x requisições em andamento). Membros que falham
+ * seguidamente são ejetados por um tempo crescente.
+ */
+public class ReplicaSelector {
+
+    private static final double EWMA_ALPHA = 0.2;
+    private static final double INITIAL_LATENCY_MS = 10.0;
+    private static final int FAILURES_BEFORE_EJECTION = 3;
+    private static final long BASE_EJECTION_MS = 10_000;
+    private static final long MAX_EJECTION_MS = 60_000;
+
+    private final Map<Address, MemberStats> stats = new ConcurrentHashMap<>();
+
+    public Address select(List<Address> servers) {
+        long now = System.currentTimeMillis();
+
+        List<Address> healthy = new ArrayList<>(servers.size());
+        for (Address server : servers) {
+            if (statsFor(server).ejectedUntil <= now) {
+                healthy.add(server);
+            }
+        }
+        // Com todos ejetados é melhor tentar algum do que falhar direto
+        List<Address> candidates = healthy.isEmpty() ? servers : healthy;
+
+        if (candidates.size() == 1) {
+            return candidates.get(0);
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(candidates.size());
+        int second = random.nextInt(candidates.size() - 1);
+        if (second >= first) {
+            second++;
+        }
+
+        Address a = candidates.get(first);
+        Address b = candidates.get(second);
+        return statsFor(a).cost() <= statsFor(b).cost() ? a : b;
+    }
+
+    public void onStart(Address server) {
+        statsFor(server).outstanding.incrementAndGet();
+    }
+
+    public void onSuccess(Address server, long latencyNanos) {
+        MemberStats member = statsFor(server);
+        member.outstanding.decrementAndGet();
+        member.consecutiveFailures.set(0);
+        member.recordLatency(latencyNanos / 1_000_000.0);
+    }
+
+    /**
+     * Falha de transporte (timeout ou membro suspeito). Exceções lançadas
+     * pelo método remoto não contam: o membro respondeu.
+     */
+    public void onFailure(Address server) {
+        MemberStats member = statsFor(server);
+        member.outstanding.decrementAndGet();
+
+        int failures = member.consecutiveFailures.incrementAndGet();
+        if (failures >= FAILURES_BEFORE_EJECTION) {
+            long ejection = Math.min(
+                MAX_EJECTION_MS,
+                BASE_EJECTION_MS << Math.min(failures - FAILURES_BEFORE_EJECTION, 6)
+            );
+            member.ejectedUntil = System.currentTimeMillis() + ejection;
+            System.err.println(
+                "ControlServer " + server + " ejetado por " + ejection + " ms após " +
+                failures + " falhas"
+            );
+        }
+    }
+
+    /**
+     * Chamada cancelada antes da resposta (hedge perdedor ou espera
+     * abandonada): devolve a carga sem contar latência nem falha.
+     */
+    public void onAbandoned(Address server) {
+        statsFor(server).outstanding.decrementAndGet();
+    }
+
+    /**
+     * Descarta estatísticas de membros que saíram do cluster.
+     */
+    public void retain(List<Address> members) {
+        stats.keySet().retainAll(members);
+    }
+
+    public double getLatencyEwma(Address server) {
+        return statsFor(server).ewmaMillis;
+    }
+
+    private MemberStats statsFor(Address server) {
+        return stats.computeIfAbsent(server, s -> new MemberStats());
+    }
+
+    private static class MemberStats {
+        private final AtomicInteger outstanding = new AtomicInteger();
+        private final AtomicInteger consecutiveFailures = new AtomicInteger();
+        private volatile double ewmaMillis = INITIAL_LATENCY_MS;
+        private volatile long ejectedUntil;
+
+        private synchronized void recordLatency(double millis) {
+            ewmaMillis = EWMA_ALPHA * millis + (1 - EWMA_ALPHA) * ewmaMillis;
+        }
+
+        private double cost() {
+            return ewmaMillis * (outstanding.get() + 1);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package br.ifmg.sd.gateway.core;
+
+import br.ifmg.sd.gateway.utilities.HttpUtils;
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.HttpContext;
+import com.sun.net.httpserver.HttpExchange;
+import java.io.IOException;
+
+/**
+ * O HttpServer escolhe o contexto pelo prefixo do caminho, então
+ * /api/files/listagem.txt cairia no contexto /api/files/list. Este filtro
+ * fica à frente das rotas antigas em /api/files/* e só deixa passar o
+ * caminho exato da rota (ou os subcaminhos, para rotas como multipart);
+ * o resto, e qualquer PUT no caminho exato, segue para o contexto
+ * /api/files/{nome} com os filtros dele.
+ */
+public class ResourceRouteFilter extends Filter {
+
+    private final String route;
+    private final boolean allowSubpaths;
+    private final HttpContext resourceContext;
+
+    public ResourceRouteFilter(
+        String route,
+        boolean allowSubpaths,
+        HttpContext resourceContext
+    ) {
+        this.route = route;
+        this.allowSubpaths = allowSubpaths;
+        this.resourceContext = resourceContext;
+    }
+
+    @Override
+    public void doFilter(HttpExchange exchange, Chain chain) throws IOException {
+        if (belongsToRoute(exchange)) {
+            chain.doFilter(exchange);
+            return;
+        }
+        exchange.setAttribute(HttpUtils.ROUTE_ATTRIBUTE, resourceContext.getPath());
+        new Chain(resourceContext.getFilters(), resourceContext.getHandler())
+            .doFilter(exchange);
+    }
+
+    @Override
+    public String description() {
+        return "Separa " + route + " de /api/files/{nome}";
+    }
+
+    private boolean belongsToRoute(HttpExchange exchange) {
+        String path = exchange.getRequestURI().getRawPath();
+        if (path.equals(route)) {
+            return !"PUT".equals(exchange.getRequestMethod());
+        }
+        return allowSubpaths && path.startsWith(route + "/");
+    }
+}
@@ -0,0 +1,160 @@
+package br.ifmg.sd.gateway.core;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import org.jgroups.blocks.MethodCall;
+
+/**
+ * Envia um stream para o cluster em blocos de tamanho fixo, de forma que o
+ * gateway nunca mantém o arquivo inteiro em memória. Uploads completos vão
+ * direto ao servidor de dados quando possível (ver {@link TransferClient}).
+ */
+public class StreamingUploader {
+
+    public static final int CHUNK_SIZE = 1024 * 1024;
+
+    private final ClusterClient clusterClient;
+    private final TransferClient transferClient;
+
+    public StreamingUploader(ClusterClient clusterClient) {
+        this.clusterClient = clusterClient;
+        this.transferClient = new TransferClient(clusterClient);
+    }
+
+    /**
+     * Faz o upload completo do stream e retorna o número de bytes enviados.
+     */
+    public long upload(String token, String fileName, InputStream in)
+        throws Exception {
+        try {
+            return transferClient.upload(token, fileName, in);
+        } catch (TransferClient.NotStartedException e) {
+            // Nada do stream foi lido: segue pelo control-cluster
+            System.out.println("Upload por RPC: " + e.getMessage());
+        }
+        return uploadViaCluster(token, fileName, in);
+    }
+
+    private long uploadViaCluster(String token, String fileName, InputStream in)
+        throws Exception {
+        String uploadId = clusterClient.callRemoteMethod(
+            new MethodCall(
+                "beginUpload",
+                new Object[] { token, fileName },
+                new Class<?>[] { String.class, String.class }
+            ),
+            String.class
+        );
+        if (uploadId == null) {
+            throw new IOException("Não foi possível iniciar o upload");
+        }
+
+        long offset = 0;
+        try {
+            byte[] buffer = new byte[CHUNK_SIZE];
+            int read;
+            while ((read = in.readNBytes(buffer, 0, CHUNK_SIZE)) > 0) {
+                byte[] chunk = read == CHUNK_SIZE
+                    ? buffer
+                    : Arrays.copyOf(buffer, read);
+
+                Long received = clusterClient.callRemoteMethod(
+                    new MethodCall(
+                        "uploadChunk",
+                        new Object[] { token, uploadId, offset, chunk },
+                        new Class<?>[] {
+                            String.class,
+                            String.class,
+                            long.class,
+                            byte[].class,
+                        }
+                    ),
+                    Long.class
+                );
+                if (received == null) {
+                    throw new IOException("Falha ao enviar bloco no offset " + offset);
+                }
+                offset += read;
+            }
+
+            Boolean completed = clusterClient.callRemoteMethod(
+                new MethodCall(
+                    "completeUpload",
+                    new Object[] { token, uploadId },
+                    new Class<?>[] { String.class, String.class }
+                ),
+                Boolean.class
+            );
+            if (!Boolean.TRUE.equals(completed)) {
+                throw new IOException("Falha ao concluir upload");
+            }
+            return offset;
+        } catch (Exception e) {
+            abortQuietly(token, uploadId);
+            throw e;
+        }
+    }
+
+    /**
+     * Envia o stream como uma parte de um upload multipart e retorna o
+     * tamanho da parte. Em caso de falha a sessão continua aberta: o cliente
+     * reenvia apenas esta parte.
+     */
+    public long uploadPart(
+        String token,
+        String uploadId,
+        int partNumber,
+        InputStream in
+    ) throws Exception {
+        byte[] buffer = new byte[CHUNK_SIZE];
+        long offset = 0;
+        int read;
+        // O primeiro bloco é sempre enviado, mesmo vazio, para que o offset 0
+        // recomece a parte no servidor
+        do {
+            read = Math.max(0, in.readNBytes(buffer, 0, CHUNK_SIZE));
+            byte[] chunk = read == CHUNK_SIZE ? buffer : Arrays.copyOf(buffer, read);
+
+            Long size = clusterClient.callRemoteMethod(
+                new MethodCall(
+                    "uploadPartChunk",
+                    new Object[] { token, uploadId, partNumber, offset, chunk },
+                    new Class<?>[] {
+                        String.class,
+                        String.class,
+                        int.class,
+                        long.class,
+                        byte[].class,
+                    }
+                ),
+                Long.class
+            );
+            if (size == null) {
+                throw new IOException(
+                    "Falha ao enviar parte " + partNumber + " no offset " + offset
+                );
+            }
+            offset += read;
+        } while (read == CHUNK_SIZE);
+
+        return offset;
+    }
+
+    private void abortQuietly(String token, String uploadId) {
+        try {
+            clusterClient.callRemoteMethod(
+                new MethodCall(
+                    "abortUpload",
+                    new Object[] { token, uploadId },
+                    new Class<?>[] { String.class, String.class }
+                ),
+                Boolean.class
+            );
+        } catch (Exception e) {
+            System.err.println(
+                "Erro ao cancelar upload " + uploadId + ": " + e.getMessage()
+            );
+        }
+    }
+}
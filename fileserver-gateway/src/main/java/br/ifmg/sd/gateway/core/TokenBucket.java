@@ -0,0 +1,77 @@
+package br.ifmg.sd.gateway.core;
+
+/**
+ * Balde de tokens de um cliente. O limite (taxa e rajada) não fica no balde,
+ * é passado a cada chamada, então alterações em tempo de execução valem para
+ * os baldes que já existem.
+ */
+public class TokenBucket {
+
+    /**
+     * Taxa em requisições por segundo e rajada máxima. Taxa 0 desliga o
+     * limite.
+     */
+    public static final class Limit {
+
+        final int rate;
+        final int burst;
+
+        public Limit(int rate, int burst) {
+            this.rate = Math.max(0, rate);
+            this.burst = Math.max(1, burst);
+        }
+
+        public int getRate() {
+            return rate;
+        }
+
+        public int getBurst() {
+            return burst;
+        }
+
+        public boolean isEnabled() {
+            return rate > 0;
+        }
+
+        @Override
+        public String toString() {
+            return rate + "/s (rajada " + burst + ")";
+        }
+    }
+
+    private double tokens;
+    private long lastRefillNanos;
+
+    TokenBucket(Limit limit) {
+        this.tokens = limit.burst;
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    /**
+     * Consome um token. Retorna 0 se conseguiu, ou quantos nanossegundos
+     * faltam para o próximo token.
+     */
+    synchronized long tryAcquire(Limit limit) {
+        refill(limit);
+        if (tokens >= 1) {
+            tokens -= 1;
+            return 0;
+        }
+        return (long) Math.ceil((1 - tokens) * 1_000_000_000L / limit.rate);
+    }
+
+    /**
+     * Balde cheio não guarda informação: pode ser descartado e recriado.
+     */
+    synchronized boolean isFull(Limit limit) {
+        refill(limit);
+        return tokens >= limit.burst;
+    }
+
+    private void refill(Limit limit) {
+        long now = System.nanoTime();
+        double refill = (now - lastRefillNanos) * (double) limit.rate / 1_000_000_000L;
+        tokens = Math.min(limit.burst, tokens + refill);
+        lastRefillNanos = now;
+    }
+}
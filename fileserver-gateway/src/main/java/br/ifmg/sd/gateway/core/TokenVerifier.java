@@ -0,0 +1,48 @@
+package br.ifmg.sd.gateway.core;
+
+import br.ifmg.sd.security.JWTUtil;
+import br.ifmg.sd.security.RevocationFilter;
+import java.util.Map;
+
+/**
+ * Valida tokens JWT no próprio gateway (assinatura e expiração), sem RPC ao
+ * cluster de controle. Logouts chegam pelo control-cluster e são mantidos em
+ * um {@link RevocationFilter}.
+ */
+public class TokenVerifier {
+
+    private final RevocationFilter revocations = new RevocationFilter();
+
+    /**
+     * Retorna o id do usuário do token, ou null se o token for inválido,
+     * expirado ou revogado.
+     */
+    public String verify(String token) {
+        if (token == null || token.isEmpty() || !JWTUtil.validateToken(token)) {
+            return null;
+        }
+        if (revocations.isRevoked(JWTUtil.hashToken(token))) {
+            return null;
+        }
+        return JWTUtil.getUserIdFromToken(token);
+    }
+
+    public void revoke(String token) {
+        try {
+            revocations.revoke(
+                JWTUtil.hashToken(token),
+                JWTUtil.getExpirationTime(token)
+            );
+        } catch (Exception e) {
+            // Token já expirado ou inválido: será recusado de qualquer forma
+        }
+    }
+
+    public void revokeAll(Map<String, Long> revoked) {
+        revocations.revokeAll(revoked);
+    }
+
+    public int getRevokedCount() {
+        return revocations.size();
+    }
+}
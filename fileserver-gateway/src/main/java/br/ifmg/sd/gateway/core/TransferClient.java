@@ -0,0 +1,320 @@
+package br.ifmg.sd.gateway.core;
+
+import br.ifmg.sd.models.FileInvalidation;
+import br.ifmg.sd.models.TransferGrant;
+import br.ifmg.sd.rpc.TransferProtocol;
+import br.ifmg.sd.security.TransferTicket;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import org.jgroups.blocks.MethodCall;
+
+/**
+ * Transfere o conteúdo de arquivos direto com o servidor de dados
+ * coordenador. O ControlServer só autentica e emite o ticket
+ * (requestTransfer); os bytes não passam pelo control-cluster nem pelo RMI.
+ *
+ * Desativável com -Dgateway.transfer.direct=false.
+ */
+public class TransferClient {
+
+    private static final int CONNECT_TIMEOUT_MS = 2000;
+    private static final long TICKET_TTL_MS = 30_000;
+
+    /**
+     * A transferência direta não começou (sem grant, servidor inacessível ou
+     * ticket recusado): nenhum byte foi consumido nem escrito, e quem chamou
+     * pode repetir a operação pelo caminho em blocos via RPC.
+     */
+    public static class NotStartedException extends IOException {
+
+        private static final long serialVersionUID = 1L;
+
+        private final boolean refused;
+        private final boolean gone;
+
+        public NotStartedException(String message) {
+            this(message, false, false);
+        }
+
+        public NotStartedException(String message, boolean refused, boolean gone) {
+            super(message);
+            this.refused = refused;
+            this.gone = gone;
+        }
+
+        /**
+         * O servidor de dados recusou o ticket (arquivo inexistente ou
+         * modificado, ticket já usado), em vez de estar inacessível.
+         */
+        public boolean isRefused() {
+            return refused;
+        }
+
+        /**
+         * Recusa porque o arquivo ou a versão pedida não existe mais.
+         */
+        public boolean isGone() {
+            return gone;
+        }
+    }
+
+    /**
+     * Destino do conteúdo de um download, aberto só depois que o servidor de
+     * dados aceita o ticket e informa o tamanho.
+     */
+    @FunctionalInterface
+    public interface Body {
+        OutputStream open(long size) throws IOException;
+    }
+
+    private final ClusterClient clusterClient;
+    // Último endereço conhecido do coordenador de dados, para os downloads
+    // com ticket emitido pelo próprio gateway
+    private volatile InetSocketAddress knownEndpoint;
+    private final boolean enabled = Boolean.parseBoolean(
+        System.getProperty("gateway.transfer.direct", "true")
+    );
+
+    public TransferClient(ClusterClient clusterClient) {
+        this.clusterClient = clusterClient;
+    }
+
+    /**
+     * Envia o stream para o arquivo do dono do token. Retorna o número de
+     * bytes gravados.
+     */
+    public long upload(String token, String fileName, InputStream in)
+        throws Exception {
+        TransferGrant grant = requestGrant(token, fileName, null, "UPLOAD");
+        try (Socket socket = open(new InetSocketAddress(grant.getHost(), grant.getPort()))) {
+            DataInputStream reply = new DataInputStream(
+                new BufferedInputStream(socket.getInputStream())
+            );
+            DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(socket.getOutputStream(), TransferProtocol.CHUNK_SIZE)
+            );
+            handshake(grant.getTicket(), out, reply);
+
+            byte[] buffer = new byte[TransferProtocol.CHUNK_SIZE];
+            int read;
+            while ((read = in.readNBytes(buffer, 0, buffer.length)) > 0) {
+                out.writeInt(read);
+                out.write(buffer, 0, read);
+            }
+            out.writeInt(0);
+            out.flush();
+
+            byte status = reply.readByte();
+            String message = reply.readUTF();
+            long written = reply.readLong();
+            if (status != TransferProtocol.STATUS_OK) {
+                throw new IOException(message);
+            }
+            // No caminho por RPC quem publica é o ControlServer, que aqui não
+            // vê o fim do upload
+            publishInvalidation(grant.getUserId(), fileName);
+            return written;
+        }
+    }
+
+    /**
+     * Escreve o conteúdo do arquivo em out e retorna o número de bytes. Só
+     * transfere a versão expectedUpdatedAt (a dos metadados que o gateway já
+     * anunciou ao cliente); se o arquivo mudar durante a transferência, a
+     * conexão cai e out recebe um corpo incompleto.
+     */
+    public long download(
+        String token,
+        String fileName,
+        String targetUserId,
+        long expectedUpdatedAt,
+        OutputStream out
+    ) throws Exception {
+        TransferGrant grant = requestGrant(token, fileName, targetUserId, "DOWNLOAD");
+        if (grant.getVersion() != expectedUpdatedAt) {
+            throw new NotStartedException("Arquivo modificado desde a consulta");
+        }
+        return receive(
+            open(new InetSocketAddress(grant.getHost(), grant.getPort())),
+            grant.getTicket(),
+            size -> out
+        );
+    }
+
+    /**
+     * Download de um link público: o gateway, que já conferiu a assinatura do
+     * link, emite ele mesmo o ticket, sem consultar o control-cluster (exceto
+     * para descobrir o coordenador de dados na primeira vez ou quando ele
+     * muda).
+     */
+    public long downloadVersion(
+        String userId,
+        String fileName,
+        long version,
+        Body body
+    ) throws Exception {
+        if (!enabled) {
+            throw new NotStartedException("Transferência direta desativada");
+        }
+        InetSocketAddress endpoint = knownEndpoint;
+        for (int attempt = 0; attempt < 2; attempt++) {
+            if (endpoint == null) {
+                endpoint = fetchEndpoint();
+            }
+            String ticket = TransferTicket.issue(
+                TransferTicket.Operation.DOWNLOAD,
+                userId,
+                fileName,
+                version,
+                TICKET_TTL_MS
+            ).encode();
+            try {
+                return receive(open(endpoint), ticket, body);
+            } catch (NotStartedException e) {
+                // O coordenador pode ter mudado: consulta o endereço de novo
+                // uma vez, a não ser que o arquivo em si tenha sido recusado
+                if (e.isRefused()) {
+                    throw e;
+                }
+                knownEndpoint = null;
+                endpoint = null;
+                if (attempt == 1) {
+                    throw e;
+                }
+            }
+        }
+        throw new NotStartedException("Transferência direta indisponível");
+    }
+
+    private long receive(Socket connection, String ticket, Body body)
+        throws IOException {
+        try (Socket socket = connection) {
+            DataInputStream in = new DataInputStream(
+                new BufferedInputStream(socket.getInputStream(), TransferProtocol.CHUNK_SIZE)
+            );
+            DataOutputStream request = new DataOutputStream(socket.getOutputStream());
+            handshake(ticket, request, in);
+
+            long size;
+            try {
+                size = in.readLong();
+            } catch (IOException e) {
+                throw new NotStartedException("Falha no aceite da transferência: " + e.getMessage());
+            }
+            OutputStream out = body.open(size);
+            byte[] buffer = new byte[TransferProtocol.CHUNK_SIZE];
+            long remaining = size;
+            while (remaining > 0) {
+                int read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                if (read < 0) {
+                    throw new IOException("Transferência encerrada antes do fim");
+                }
+                out.write(buffer, 0, read);
+                remaining -= read;
+            }
+            return size;
+        }
+    }
+
+    private InetSocketAddress fetchEndpoint() throws Exception {
+        String endpoint = clusterClient.callIdempotent(
+            new MethodCall("getTransferEndpoint", new Object[] {}, new Class<?>[] {}),
+            String.class
+        );
+        if (endpoint == null) {
+            throw new NotStartedException("Transferência direta indisponível");
+        }
+        int colon = endpoint.lastIndexOf(':');
+        InetSocketAddress address = new InetSocketAddress(
+            endpoint.substring(0, colon),
+            Integer.parseInt(endpoint.substring(colon + 1))
+        );
+        knownEndpoint = address;
+        return address;
+    }
+
+    private TransferGrant requestGrant(
+        String token,
+        String fileName,
+        String targetUserId,
+        String operation
+    ) throws Exception {
+        if (!enabled) {
+            throw new NotStartedException("Transferência direta desativada");
+        }
+        TransferGrant grant = clusterClient.callRemoteMethod(
+            new MethodCall(
+                "requestTransfer",
+                new Object[] { token, fileName, targetUserId, operation },
+                new Class<?>[] { String.class, String.class, String.class, String.class }
+            ),
+            TransferGrant.class
+        );
+        if (grant == null) {
+            throw new NotStartedException("Transferência direta indisponível");
+        }
+        knownEndpoint = new InetSocketAddress(grant.getHost(), grant.getPort());
+        return grant;
+    }
+
+    private Socket open(InetSocketAddress endpoint) throws NotStartedException {
+        Socket socket = new Socket();
+        try {
+            socket.connect(endpoint, CONNECT_TIMEOUT_MS);
+            socket.setSoTimeout(TransferProtocol.SOCKET_TIMEOUT_MS);
+            return socket;
+        } catch (IOException e) {
+            closeQuietly(socket);
+            throw new NotStartedException("Servidor de dados inacessível em " + endpoint);
+        }
+    }
+
+    private void handshake(
+        String ticket,
+        DataOutputStream out,
+        DataInputStream in
+    ) throws IOException {
+        try {
+            out.writeUTF(ticket);
+            out.flush();
+            byte status = in.readByte();
+            if (status != TransferProtocol.STATUS_OK) {
+                throw new NotStartedException(
+                    "Ticket recusado: " + in.readUTF(),
+                    status == TransferProtocol.STATUS_ERROR || status == TransferProtocol.STATUS_GONE,
+                    status == TransferProtocol.STATUS_GONE
+                );
+            }
+            in.readUTF();
+        } catch (NotStartedException e) {
+            throw e;
+        } catch (IOException e) {
+            throw new NotStartedException("Falha no aceite da transferência: " + e.getMessage());
+        }
+    }
+
+    private void publishInvalidation(String userId, String fileName) {
+        try {
+            clusterClient.publish(
+                new FileInvalidation(userId, fileName, FileInvalidation.InvalidationType.UPDATE)
+            );
+        } catch (Exception e) {
+            System.err.println("Erro ao publicar invalidação: " + e.getMessage());
+        }
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // Já fechado
+        }
+    }
+}
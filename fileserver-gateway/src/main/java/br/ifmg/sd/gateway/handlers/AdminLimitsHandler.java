@@ -0,0 +1,184 @@
+package br.ifmg.sd.gateway.handlers;
+
+import br.ifmg.sd.gateway.core.AdmissionController;
+import br.ifmg.sd.gateway.core.TokenBucket;
+import br.ifmg.sd.gateway.utilities.HttpUtils;
+import br.ifmg.sd.gateway.utilities.JsonReader;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Map;
+
+/**
+ * Consulta e ajuste dos limites de admissão em /admin/limits, aceito apenas
+ * a partir da própria máquina e com a credencial de administração
+ * (Authorization: Bearer &lt;gateway.admin.token&gt;). Sem a propriedade
+ * definida, a rota fica desligada.
+ *
+ *   GET /admin/limits   limites atuais e contadores
+ *   PUT /admin/limits   altera os campos informados:
+ *     {"maxConcurrent":256,"userRate":50,"userBurst":100,
+ *      "routes":{"/api/files/upload":{"rate":10,"burst":20}}}
+ *
+ * Taxa 0 desliga o limite correspondente.
+ */
+public class AdminLimitsHandler implements HttpHandler {
+
+    private static final String ADMIN_TOKEN = System.getProperty("gateway.admin.token");
+
+    private final AdmissionController admission;
+
+    public AdminLimitsHandler(AdmissionController admission) {
+        this.admission = admission;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        if (!exchange.getRemoteAddress().getAddress().isLoopbackAddress()) {
+            HttpUtils.sendErrorResponse(exchange, 403, "Acesso restrito ao host local");
+            return;
+        }
+        if (ADMIN_TOKEN == null || ADMIN_TOKEN.isEmpty()) {
+            HttpUtils.sendErrorResponse(
+                exchange,
+                403,
+                "Administração desligada: defina gateway.admin.token"
+            );
+            return;
+        }
+        if (!isAdmin(exchange)) {
+            exchange.getResponseHeaders().set("WWW-Authenticate", "Bearer");
+            HttpUtils.sendErrorResponse(exchange, 401, "Credencial de administração inválida");
+            return;
+        }
+
+        try {
+            switch (exchange.getRequestMethod()) {
+                case "GET":
+                    break;
+                case "PUT":
+                    update(exchange);
+                    break;
+                default:
+                    HttpUtils.sendErrorResponse(exchange, 405, "Method not allowed");
+                    return;
+            }
+        } catch (JsonReader.MalformedJsonException | NumberFormatException e) {
+            HttpUtils.sendErrorResponse(exchange, 400, "JSON inválido: " + e.getMessage());
+            return;
+        }
+        sendLimits(exchange);
+    }
+
+    /**
+     * Compara o token em tempo constante, para não revelar o prefixo certo
+     * pela latência da resposta.
+     */
+    private static boolean isAdmin(HttpExchange exchange) {
+        String header = exchange.getRequestHeaders().getFirst("Authorization");
+        if (header == null || !header.startsWith("Bearer ")) {
+            return false;
+        }
+        return MessageDigest.isEqual(
+            header.substring(7).getBytes(StandardCharsets.UTF_8),
+            ADMIN_TOKEN.getBytes(StandardCharsets.UTF_8)
+        );
+    }
+
+    private void update(HttpExchange exchange) throws IOException {
+        Integer maxConcurrent = null;
+        TokenBucket.Limit current = admission.getUserLimit();
+        int userRate = current.getRate();
+        int userBurst = current.getBurst();
+        boolean userChanged = false;
+
+        JsonReader reader = new JsonReader(exchange.getRequestBody());
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            switch (name) {
+                case "maxConcurrent":
+                    maxConcurrent = Integer.parseInt(reader.nextString());
+                    break;
+                case "userRate":
+                    userRate = Integer.parseInt(reader.nextString());
+                    userChanged = true;
+                    break;
+                case "userBurst":
+                    userBurst = Integer.parseInt(reader.nextString());
+                    userChanged = true;
+                    break;
+                case "routes":
+                    updateRoutes(reader);
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        if (maxConcurrent != null) {
+            admission.setMaxConcurrent(maxConcurrent);
+        }
+        if (userChanged) {
+            admission.setUserLimit(userRate, userBurst);
+        }
+    }
+
+    private void updateRoutes(JsonReader reader) throws IOException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String route = reader.nextName();
+            TokenBucket.Limit current = admission.getRouteLimits().get(route);
+            int rate = current != null ? current.getRate() : 0;
+            int burst = current != null ? current.getBurst() : 0;
+
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                if ("rate".equals(name)) {
+                    rate = Integer.parseInt(reader.nextString());
+                } else if ("burst".equals(name)) {
+                    burst = Integer.parseInt(reader.nextString());
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+
+            admission.setRouteLimit(route, rate, burst > 0 ? burst : rate);
+        }
+        reader.endObject();
+    }
+
+    private void sendLimits(HttpExchange exchange) throws IOException {
+        TokenBucket.Limit user = admission.getUserLimit();
+        HttpUtils.sendJson(
+            exchange,
+            200,
+            json -> {
+                json.beginObject()
+                    .name("maxConcurrent").value(admission.getMaxConcurrent())
+                    .name("userRate").value(user.getRate())
+                    .name("userBurst").value(user.getBurst())
+                    .name("routes").beginObject();
+                for (Map.Entry<String, TokenBucket.Limit> route : admission.getRouteLimits().entrySet()) {
+                    json.name(route.getKey()).beginObject()
+                        .name("rate").value(route.getValue().getRate())
+                        .name("burst").value(route.getValue().getBurst())
+                        .endObject();
+                }
+                json.endObject()
+                    .name("inFlight").value(admission.getInFlight())
+                    .name("trackedClients").value(admission.getTrackedClients())
+                    .name("admitted").value(admission.getAdmitted())
+                    .name("rejectedConcurrency").value(admission.getRejectedConcurrency())
+                    .name("rejectedUserRate").value(admission.getRejectedUserRate())
+                    .name("rejectedRouteRate").value(admission.getRejectedRouteRate())
+                    .endObject();
+            }
+        );
+    }
+}
@@ -1,7 +1,9 @@
 package br.ifmg.sd.gateway.handlers;
 
 import br.ifmg.sd.gateway.core.ClusterClient;
+import br.ifmg.sd.gateway.core.TokenVerifier;
 import br.ifmg.sd.gateway.utilities.HttpUtils;
+import br.ifmg.sd.gateway.utilities.JsonReader;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 import java.io.IOException;
@@ -9,9 +11,18 @@ import java.io.IOException;
 public abstract class BaseHandler implements HttpHandler {
 
     protected final ClusterClient clusterClient;
+    protected final TokenVerifier tokenVerifier;
 
     protected BaseHandler(ClusterClient clusterClient) {
+        this(clusterClient, null);
+    }
+
+    protected BaseHandler(
+        ClusterClient clusterClient,
+        TokenVerifier tokenVerifier
+    ) {
         this.clusterClient = clusterClient;
+        this.tokenVerifier = tokenVerifier;
     }
 
     @Override
@@ -20,6 +31,8 @@ public abstract class BaseHandler implements HttpHandler {
             handleRequest(exchange);
         } catch (IllegalArgumentException e) {
             // Já tratado
+        } catch (JsonReader.MalformedJsonException e) {
+            HttpUtils.sendErrorResponse(exchange, 400, "JSON inválido: " + e.getMessage());
         } catch (Exception e) {
             HttpUtils.sendErrorResponse(exchange, 500, e.getMessage());
         }
@@ -36,6 +49,20 @@ public abstract class BaseHandler implements HttpHandler {
         }
     }
 
+    /**
+     * Valida o token localmente e retorna o id do usuário. Tokens inválidos,
+     * expirados ou revogados são recusados com 401 sem chamar o cluster.
+     */
+    protected String authenticate(HttpExchange exchange, String token)
+        throws IOException {
+        String userId = tokenVerifier.verify(token);
+        if (userId == null) {
+            HttpUtils.sendErrorResponse(exchange, 401, "Token inválido ou expirado");
+            throw new IllegalArgumentException("Invalid token");
+        }
+        return userId;
+    }
+
     protected String getAuthToken(HttpExchange exchange) {
         String token = exchange.getRequestHeaders().getFirst("Authorization");
         if (token != null && token.startsWith("Bearer ")) {
@@ -0,0 +1,198 @@
+package br.ifmg.sd.gateway.handlers;
+
+import br.ifmg.sd.gateway.core.ClusterClient;
+import br.ifmg.sd.gateway.core.TokenVerifier;
+import br.ifmg.sd.gateway.utilities.HttpUtils;
+import br.ifmg.sd.gateway.utilities.JsonReader;
+import br.ifmg.sd.models.BatchOperation;
+import br.ifmg.sd.models.BatchResult;
+import com.sun.net.httpserver.HttpExchange;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Locale;
+import org.jgroups.blocks.MethodCall;
+
+/**
+ * Lote de operações em /api/files/batch. Corpo:
+ *
+ *   {"operations":[
+ *     {"type":"upload","fileName":"a.txt","content":"<base64>"},
+ *     {"type":"delete","fileName":"b.txt"},
+ *     {"type":"download","fileName":"c.txt"}
+ *   ]}
+ *
+ * O lote segue como uma única chamada até o DataServer, que replica todas as
+ * escritas em uma única mensagem. A resposta traz um resultado por operação,
+ * na mesma ordem; escritas trazem replicated false quando foram gravadas mas
+ * não chegaram às réplicas exigidas. O conteúdo somado das operações é
+ * limitado por gateway.batch.max.bytes (413 acima disso).
+ */
+public class BatchHandler extends BaseHandler {
+
+    private static final int MAX_OPERATIONS = 1000;
+    private static final int MAX_TOTAL_BYTES = Integer.getInteger(
+        "gateway.batch.max.bytes",
+        64 * 1024 * 1024
+    );
+
+    public BatchHandler(ClusterClient clusterClient, TokenVerifier tokenVerifier) {
+        super(clusterClient, tokenVerifier);
+    }
+
+    @Override
+    protected void handleRequest(HttpExchange exchange) throws Exception {
+        validateMethod(exchange, "POST");
+
+        String token = getAuthToken(exchange);
+        if (token == null) {
+            HttpUtils.sendErrorResponse(exchange, 401, "Token não fornecido");
+            return;
+        }
+        authenticate(exchange, token);
+
+        List<BatchOperation> operations = new ArrayList<>();
+        long totalBytes = 0;
+        JsonReader reader = new JsonReader(exchange.getRequestBody());
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (!"operations".equals(reader.nextName())) {
+                reader.skipValue();
+                continue;
+            }
+            reader.beginArray();
+            while (reader.hasNext()) {
+                if (operations.size() == MAX_OPERATIONS) {
+                    HttpUtils.sendErrorResponse(
+                        exchange,
+                        413,
+                        "Máximo de " + MAX_OPERATIONS + " operações por lote"
+                    );
+                    return;
+                }
+                BatchOperation operation;
+                try {
+                    operation = readOperation(reader, MAX_TOTAL_BYTES - totalBytes);
+                } catch (BatchTooLargeException e) {
+                    // O resto do corpo não é lido
+                    HttpUtils.sendErrorResponse(
+                        exchange,
+                        413,
+                        "Conteúdo do lote acima de " + MAX_TOTAL_BYTES + " bytes"
+                    );
+                    return;
+                }
+                if (operation != null && operation.getContent() != null) {
+                    totalBytes += operation.getContent().length;
+                }
+                if (operation == null) {
+                    HttpUtils.sendErrorResponse(
+                        exchange,
+                        400,
+                        "Cada operação precisa de type (upload, delete ou download) e fileName"
+                    );
+                    return;
+                }
+                operations.add(operation);
+            }
+            reader.endArray();
+        }
+        reader.endObject();
+
+        if (operations.isEmpty()) {
+            HttpUtils.sendErrorResponse(exchange, 400, "operations é obrigatório");
+            return;
+        }
+
+        @SuppressWarnings("unchecked")
+        List<BatchResult> results = clusterClient.callRemoteMethod(
+            new MethodCall(
+                "executeBatch",
+                new Object[] { token, operations },
+                new Class<?>[] { String.class, List.class }
+            ),
+            List.class
+        );
+
+        if (results == null) {
+            HttpUtils.sendErrorResponse(exchange, 500, "Erro ao executar lote");
+            return;
+        }
+
+        HttpUtils.streamJson(
+            exchange,
+            200,
+            json -> {
+                json.beginObject().name("results").beginArray();
+                for (BatchResult result : results) {
+                    json.beginObject()
+                        .name("type").value(result.getType().name().toLowerCase(Locale.ROOT))
+                        .name("fileName").value(result.getFileName())
+                        .name("success").value(result.isSuccess());
+                    if (result.isSuccess() && result.getType() != BatchOperation.OperationType.DOWNLOAD) {
+                        json.name("replicated").value(result.isReplicated());
+                    }
+                    if (result.getMessage() != null) {
+                        json.name("message").value(result.getMessage());
+                    }
+                    if (result.getContent() != null) {
+                        json.name("content").base64Value(result.getContent());
+                    }
+                    json.endObject();
+                }
+                json.endArray().endObject();
+            }
+        );
+    }
+
+    /**
+     * Retorna null se a operação não tiver tipo válido ou nome de arquivo. O
+     * conteúdo é lido até budget + 1 bytes: passar disso encerra a leitura
+     * com {@link BatchTooLargeException}, sem carregar o resto.
+     */
+    private BatchOperation readOperation(JsonReader reader, long budget) throws Exception {
+        String type = null;
+        String fileName = null;
+        byte[] content = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if ("type".equals(name)) {
+                type = reader.nextString();
+            } else if ("fileName".equals(name)) {
+                fileName = reader.nextString();
+            } else if ("content".equals(name)) {
+                try (InputStream in = Base64.getDecoder().wrap(reader.nextStringStream())) {
+                    content = in.readNBytes((int) Math.min(Integer.MAX_VALUE - 8, budget + 1));
+                }
+                if (content.length > budget) {
+                    throw new BatchTooLargeException();
+                }
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        if (type == null || fileName == null || fileName.isEmpty()) {
+            return null;
+        }
+        try {
+            return new BatchOperation(
+                BatchOperation.OperationType.valueOf(type.toUpperCase(Locale.ROOT)),
+                fileName,
+                content
+            );
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static class BatchTooLargeException extends Exception {
+
+        private static final long serialVersionUID = 1L;
+    }
+}
@@ -0,0 +1,265 @@
+package br.ifmg.sd.gateway.handlers;
+
+import br.ifmg.sd.gateway.core.AdmissionFilter;
+import br.ifmg.sd.gateway.core.ChangeNotifier;
+import br.ifmg.sd.gateway.core.ClusterClient;
+import br.ifmg.sd.gateway.core.TokenVerifier;
+import br.ifmg.sd.gateway.utilities.HttpUtils;
+import br.ifmg.sd.gateway.utilities.JsonWriter;
+import br.ifmg.sd.models.ChangeFeedPage;
+import br.ifmg.sd.models.FileChange;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.jgroups.blocks.MethodCall;
+
+/**
+ * Feed de alterações dos arquivos do usuário (GET /api/files/changes),
+ * para clientes que mantêm uma cópia local sem precisar varrer a listagem.
+ *
+ * Com Accept: text/event-stream responde como Server-Sent Events, retomando
+ * de Last-Event-ID; caso contrário, faz long-poll: ?cursor=N&wait=S espera
+ * até S segundos por alterações após o cursor e responde
+ * {"changes":[...],"cursor":N,"reset":false}. Sem cursor, o feed começa no
+ * momento atual. Com reset, o cliente deve reler a listagem e seguir do
+ * cursor devolvido.
+ */
+public class ChangesHandler extends BaseHandler {
+
+    private static final int PAGE_SIZE = 100;
+    private static final long MAX_WAIT_SECONDS = 30;
+    private static final long HEARTBEAT_MS = 15_000;
+    // O EventSource reconecta sozinho com Last-Event-ID; encerrar de tempos
+    // em tempos revalida o token e redistribui as conexões entre gateways
+    private static final long MAX_STREAM_MS = TimeUnit.MINUTES.toMillis(5);
+
+    private final ChangeNotifier notifier;
+    private final Semaphore streams = new Semaphore(
+        Integer.getInteger("gateway.changes.max.streams", 1024)
+    );
+    private final AtomicInteger openStreams = new AtomicInteger();
+
+    public ChangesHandler(
+        ClusterClient clusterClient,
+        TokenVerifier tokenVerifier,
+        ChangeNotifier notifier
+    ) {
+        super(clusterClient, tokenVerifier);
+        this.notifier = notifier;
+    }
+
+    public int getOpenStreams() {
+        return openStreams.get();
+    }
+
+    @Override
+    protected void handleRequest(HttpExchange exchange) throws Exception {
+        validateMethod(exchange, "GET");
+
+        String token = getAuthToken(exchange);
+        if (token == null) {
+            HttpUtils.sendErrorResponse(exchange, 401, "Token não fornecido");
+            return;
+        }
+        String userId = authenticate(exchange, token);
+
+        Map<String, String> params = HttpUtils.parseQueryParams(
+            exchange.getRequestURI().getRawQuery()
+        );
+        String accept = exchange.getRequestHeaders().getFirst("Accept");
+        boolean sse = accept != null && accept.contains("text/event-stream");
+
+        String lastEventId = exchange.getRequestHeaders().getFirst("Last-Event-ID");
+        long cursor;
+        try {
+            cursor = parseCursor(sse && lastEventId != null ? lastEventId : params.get("cursor"));
+        } catch (NumberFormatException e) {
+            HttpUtils.sendErrorResponse(exchange, 400, "cursor inválido");
+            return;
+        }
+
+        if (sse) {
+            stream(exchange, token, userId, cursor);
+        } else {
+            poll(exchange, token, userId, cursor, params.get("wait"));
+        }
+    }
+
+    private void poll(
+        HttpExchange exchange,
+        String token,
+        String userId,
+        long cursor,
+        String waitParam
+    ) throws Exception {
+        long waitSeconds;
+        try {
+            waitSeconds = waitParam != null ? Long.parseLong(waitParam) : 0;
+        } catch (NumberFormatException e) {
+            HttpUtils.sendErrorResponse(exchange, 400, "wait inválido");
+            return;
+        }
+        long deadline = System.currentTimeMillis() +
+            Math.max(0, Math.min(waitSeconds, MAX_WAIT_SECONDS)) * 1000;
+
+        while (true) {
+            CompletableFuture<Void> next = notifier.nextChange(userId);
+            ChangeFeedPage page = fetch(token, cursor);
+            if (page == null) {
+                HttpUtils.sendErrorResponse(exchange, 503, "Feed de alterações indisponível");
+                return;
+            }
+
+            long remaining = deadline - System.currentTimeMillis();
+            if (!page.getChanges().isEmpty() || page.isReset() || remaining <= 0) {
+                HttpUtils.sendJson(exchange, 200, json -> writePage(json, page));
+                return;
+            }
+
+            // Alterações de outros usuários também avançam o cursor
+            cursor = page.getCursor();
+            AdmissionFilter.detach(exchange);
+            await(next, remaining);
+        }
+    }
+
+    private void stream(
+        HttpExchange exchange,
+        String token,
+        String userId,
+        long cursor
+    ) throws Exception {
+        if (!streams.tryAcquire()) {
+            exchange.getResponseHeaders().set("Retry-After", "5");
+            HttpUtils.sendErrorResponse(exchange, 503, "Muitas conexões de feed abertas");
+            return;
+        }
+        openStreams.incrementAndGet();
+        AdmissionFilter.detach(exchange);
+
+        Headers headers = exchange.getResponseHeaders();
+        headers.set("Content-Type", "text/event-stream; charset=utf-8");
+        headers.set("Cache-Control", "no-cache");
+        headers.set("X-Accel-Buffering", "no");
+
+        long deadline = System.currentTimeMillis() + MAX_STREAM_MS;
+        try (OutputStream out = exchange.getResponseBody()) {
+            exchange.sendResponseHeaders(200, 0);
+            write(out, "retry: 3000\n\n");
+
+            while (System.currentTimeMillis() < deadline && tokenVerifier.verify(token) != null) {
+                CompletableFuture<Void> next = notifier.nextChange(userId);
+                ChangeFeedPage page = fetch(token, cursor);
+                if (page == null) {
+                    break;
+                }
+
+                if (page.isReset()) {
+                    long resetCursor = page.getCursor();
+                    write(
+                        out,
+                        "id: " + resetCursor + "\nevent: reset\ndata: " +
+                            json(json -> json.beginObject().name("cursor").value(resetCursor).endObject()) +
+                            "\n\n"
+                    );
+                }
+                for (FileChange change : page.getChanges()) {
+                    write(
+                        out,
+                        "id: " + change.getSeq() + "\nevent: change\ndata: " +
+                            json(json -> writeChange(json, change)) +
+                            "\n\n"
+                    );
+                }
+                cursor = page.getCursor();
+                if (page.getChanges().size() == PAGE_SIZE) {
+                    continue;
+                }
+
+                if (!await(next, Math.min(HEARTBEAT_MS, deadline - System.currentTimeMillis()))) {
+                    write(out, ": keepalive\n\n");
+                }
+            }
+        } catch (IOException e) {
+            // Cliente desconectou
+        } catch (Exception e) {
+            // Os cabeçalhos já foram enviados: o cliente reconecta do último id
+            System.err.println("Feed de alterações interrompido: " + e.getMessage());
+        } finally {
+            openStreams.decrementAndGet();
+            streams.release();
+        }
+    }
+
+    private ChangeFeedPage fetch(String token, long cursor) throws Exception {
+        return clusterClient.callIdempotent(
+            new MethodCall(
+                "getChanges",
+                new Object[] { token, cursor, PAGE_SIZE },
+                new Class<?>[] { String.class, long.class, int.class }
+            ),
+            ChangeFeedPage.class
+        );
+    }
+
+    /**
+     * Retorna true se houve aviso de alteração antes do prazo.
+     */
+    private static boolean await(CompletableFuture<Void> next, long timeoutMillis)
+        throws InterruptedException {
+        if (timeoutMillis <= 0) {
+            return false;
+        }
+        try {
+            next.get(timeoutMillis, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (TimeoutException e) {
+            return false;
+        } catch (ExecutionException e) {
+            return true;
+        }
+    }
+
+    private static long parseCursor(String value) {
+        return value == null || value.isEmpty() ? -1 : Long.parseLong(value.trim());
+    }
+
+    private static void writePage(JsonWriter json, ChangeFeedPage page) throws IOException {
+        json.beginObject().name("changes").beginArray();
+        for (FileChange change : page.getChanges()) {
+            writeChange(json, change);
+        }
+        json.endArray()
+            .name("cursor").value(page.getCursor())
+            .name("reset").value(page.isReset())
+            .endObject();
+    }
+
+    private static void writeChange(JsonWriter json, FileChange change) throws IOException {
+        json.beginObject()
+            .name("seq").value(change.getSeq())
+            .name("fileName").value(change.getFileName())
+            .name("type").value(change.getType().name())
+            .name("updatedAt").value(change.getUpdatedAt())
+            .name("changedAt").value(change.getChangedAt())
+            .endObject();
+    }
+
+    private static String json(JsonWriter.Body body) throws IOException {
+        return new String(JsonWriter.toBytes(body), StandardCharsets.UTF_8);
+    }
+
+    private static void write(OutputStream out, String event) throws IOException {
+        out.write(event.getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+}
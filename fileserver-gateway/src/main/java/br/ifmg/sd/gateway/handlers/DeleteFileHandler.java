@@ -1,6 +1,7 @@
 package br.ifmg.sd.gateway.handlers;
 
 import br.ifmg.sd.gateway.core.ClusterClient;
+import br.ifmg.sd.gateway.core.TokenVerifier;
 import br.ifmg.sd.gateway.utilities.HttpUtils;
 import com.sun.net.httpserver.HttpExchange;
 import java.util.Map;
@@ -8,8 +9,11 @@ import org.jgroups.blocks.MethodCall;
 
 public class DeleteFileHandler extends BaseHandler {
 
-    public DeleteFileHandler(ClusterClient clusterClient) {
-        super(clusterClient);
+    public DeleteFileHandler(
+        ClusterClient clusterClient,
+        TokenVerifier tokenVerifier
+    ) {
+        super(clusterClient, tokenVerifier);
     }
 
     @Override
@@ -21,6 +25,7 @@ public class DeleteFileHandler extends BaseHandler {
             HttpUtils.sendErrorResponse(exchange, 401, "Token não fornecido");
             return;
         }
+        authenticate(exchange, token);
 
         Map<String, String> body = HttpUtils.parseJsonBody(exchange);
         String fileName = body.get("fileName");
@@ -39,11 +44,15 @@ public class DeleteFileHandler extends BaseHandler {
         Boolean success = clusterClient.callRemoteMethod(call, Boolean.class);
 
         if (Boolean.TRUE.equals(success)) {
-            String json = String.format(
-                "{\"success\":true,\"message\":\"Arquivo deletado com sucesso\",\"fileName\":\"%s\"}",
-                fileName
+            HttpUtils.sendJson(
+                exchange,
+                200,
+                json -> json.beginObject()
+                    .name("success").value(true)
+                    .name("message").value("Arquivo deletado com sucesso")
+                    .name("fileName").value(fileName)
+                    .endObject()
             );
-            HttpUtils.sendJsonResponse(exchange, 200, json);
         } else {
             HttpUtils.sendErrorResponse(
                 exchange,
@@ -1,16 +1,29 @@
 package br.ifmg.sd.gateway.handlers;
 
 import br.ifmg.sd.gateway.core.ClusterClient;
+import br.ifmg.sd.gateway.core.FileCache;
+import br.ifmg.sd.gateway.core.TokenVerifier;
+import br.ifmg.sd.gateway.core.TransferClient;
 import br.ifmg.sd.gateway.utilities.HttpUtils;
+import br.ifmg.sd.models.FileMetadata;
 import com.sun.net.httpserver.HttpExchange;
-import java.util.Base64;
+import java.io.ByteArrayOutputStream;
 import java.util.Map;
 import org.jgroups.blocks.MethodCall;
 
 public class DownloadFileHandler extends BaseHandler {
 
-    public DownloadFileHandler(ClusterClient clusterClient) {
-        super(clusterClient);
+    private final FileCache fileCache;
+    private final TransferClient transferClient;
+
+    public DownloadFileHandler(
+        ClusterClient clusterClient,
+        TokenVerifier tokenVerifier,
+        FileCache fileCache
+    ) {
+        super(clusterClient, tokenVerifier);
+        this.fileCache = fileCache;
+        this.transferClient = new TransferClient(clusterClient);
     }
 
     @Override
@@ -22,6 +35,7 @@ public class DownloadFileHandler extends BaseHandler {
             HttpUtils.sendErrorResponse(exchange, 401, "Token não fornecido");
             return;
         }
+        String tokenUserId = authenticate(exchange, token);
 
         Map<String, String> params = HttpUtils.parseQueryParams(
             exchange.getRequestURI().getQuery()
@@ -34,25 +48,155 @@ public class DownloadFileHandler extends BaseHandler {
             return;
         }
 
-        MethodCall call = new MethodCall(
-            "downloadFileWithUser",
-            new Object[] { token, fileName, userId },
-            new Class<?>[] { String.class, String.class, String.class }
+        String ownerId = (userId != null && !userId.isEmpty()) ? userId : tokenUserId;
+
+        FileCache.Entry cached = fileCache.get(ownerId, fileName);
+        if (cached != null) {
+            byte[] content = cached.getContent();
+            respond(exchange, fileName, content, cached.getUpdatedAt(), content.length);
+            return;
+        }
+
+        long generation = fileCache.currentGeneration();
+
+        // Metadados primeiro: a revalidação condicional não lê o conteúdo
+        FileMetadata metadata = clusterClient.callCoalesced(
+            ownerId + "/" + fileName,
+            new MethodCall(
+                "getFileInfo",
+                new Object[] { token, fileName, userId },
+                new Class<?>[] { String.class, String.class, String.class }
+            ),
+            FileMetadata.class
         );
+        if (metadata == null) {
+            HttpUtils.sendErrorResponse(exchange, 404, "Arquivo não encontrado");
+            return;
+        }
 
-        byte[] content = clusterClient.callRemoteMethod(call, byte[].class);
+        String etag = HttpUtils.fileETag(metadata);
+        if (HttpUtils.isNotModified(exchange, etag, metadata.getUpdatedAt())) {
+            HttpUtils.sendNotModified(exchange, etag, metadata.getUpdatedAt());
+            return;
+        }
 
+        byte[] content = fetchContent(token, fileName, userId, ownerId, metadata, generation);
         if (content != null) {
-            String base64Content = Base64.getEncoder().encodeToString(content);
-            String json = String.format(
-                "{\"success\":true,\"content\":\"%s\",\"fileName\":\"%s\",\"size\":%d}",
-                base64Content,
-                fileName,
-                content.length
-            );
-            HttpUtils.sendJsonResponse(exchange, 200, json);
+            respond(exchange, fileName, content, metadata.getUpdatedAt(), metadata.getFileSize());
         } else {
             HttpUtils.sendErrorResponse(exchange, 404, "Arquivo não encontrado");
         }
     }
+
+    private void respond(
+        HttpExchange exchange,
+        String fileName,
+        byte[] content,
+        long updatedAt,
+        long fileSize
+    ) throws Exception {
+        String etag = HttpUtils.fileETag(updatedAt, fileSize);
+        if (HttpUtils.isNotModified(exchange, etag, updatedAt)) {
+            HttpUtils.sendNotModified(exchange, etag, updatedAt);
+            return;
+        }
+
+        exchange.getResponseHeaders().set("ETag", etag);
+        exchange.getResponseHeaders().set("Last-Modified", HttpUtils.formatHttpDate(updatedAt));
+        exchange.getResponseHeaders().set("Cache-Control", "private, no-cache");
+
+        // O Base64 é codificado direto no corpo, sem String intermediária
+        HttpUtils.streamJson(
+            exchange,
+            200,
+            json -> json.beginObject()
+                .name("success").value(true)
+                .name("content").base64Value(content)
+                .name("fileName").value(fileName)
+                .name("size").value(content.length)
+                .endObject()
+        );
+    }
+
+    /**
+     * Busca o conteúdo no cluster. Arquivos pequenos o bastante para o cache
+     * são lidos numa única faixa atrelada ao updatedAt dos metadados, para
+     * que a versão guardada no cache corresponda exatamente ao conteúdo.
+     */
+    private byte[] fetchContent(
+        String token,
+        String fileName,
+        String userId,
+        String ownerId,
+        FileMetadata metadata,
+        long generation
+    ) throws Exception {
+        if (!fileCache.isCacheable(metadata.getFileSize())) {
+            byte[] direct = downloadDirect(token, fileName, userId, ownerId, metadata);
+            if (direct != null) {
+                return direct;
+            }
+            return clusterClient.callCoalesced(
+                ownerId + "/" + fileName,
+                new MethodCall(
+                    "downloadFileWithUser",
+                    new Object[] { token, fileName, userId },
+                    new Class<?>[] { String.class, String.class, String.class }
+                ),
+                byte[].class
+            );
+        }
+
+        byte[] content = clusterClient.callCoalesced(
+            ownerId + "/" + fileName + "@" + metadata.getUpdatedAt(),
+            new MethodCall(
+                "downloadChunk",
+                new Object[] {
+                    token, fileName, userId, 0L, (int) metadata.getFileSize(), metadata.getUpdatedAt(),
+                },
+                new Class<?>[] {
+                    String.class,
+                    String.class,
+                    String.class,
+                    long.class,
+                    int.class,
+                    long.class,
+                }
+            ),
+            byte[].class
+        );
+        if (content != null && content.length == metadata.getFileSize()) {
+            fileCache.put(ownerId, fileName, metadata.getUpdatedAt(), content, generation);
+        }
+        return content;
+    }
+
+    /**
+     * Lê o arquivo direto do servidor de dados; retorna null se a
+     * transferência direta não estiver disponível.
+     */
+    private byte[] downloadDirect(
+        String token,
+        String fileName,
+        String userId,
+        String ownerId,
+        FileMetadata metadata
+    ) throws Exception {
+        try {
+            return clusterClient.coalesce(
+                "direct:" + ownerId + "/" + fileName + "@" + metadata.getUpdatedAt(),
+                () -> {
+                    ByteArrayOutputStream content = new ByteArrayOutputStream(
+                        (int) metadata.getFileSize()
+                    );
+                    transferClient.download(
+                        token, fileName, userId, metadata.getUpdatedAt(), content
+                    );
+                    return content.toByteArray();
+                }
+            );
+        } catch (TransferClient.NotStartedException e) {
+            return null;
+        }
+    }
 }
@@ -0,0 +1,295 @@
+package br.ifmg.sd.gateway.handlers;
+
+import br.ifmg.sd.gateway.core.ClusterClient;
+import br.ifmg.sd.gateway.core.FileCache;
+import br.ifmg.sd.gateway.core.TokenVerifier;
+import br.ifmg.sd.gateway.core.StreamingUploader;
+import br.ifmg.sd.gateway.core.TransferClient;
+import br.ifmg.sd.gateway.utilities.ByteRange;
+import br.ifmg.sd.gateway.utilities.HttpUtils;
+import br.ifmg.sd.models.FileMetadata;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.Set;
+import org.jgroups.blocks.MethodCall;
+
+/**
+ * Acesso binário a arquivos em /api/files/{nome}: uploads e downloads são
+ * repassados ao cluster em blocos, sem JSON nem Base64. Uploads e downloads
+ * completos vão direto ao servidor de dados quando possível (ver
+ * TransferClient). Downloads aceitam Range/If-Range e respondem 206 com o
+ * trecho pedido. Arquivos pequenos são servidos do cache do gateway quando a
+ * versão em cache é a atual.
+ */
+public class FileResourceHandler extends BaseHandler {
+
+    private static final String PREFIX = "/api/files/";
+    // Nomes das rotas antigas em /api/files/*: um arquivo com esse nome não
+    // seria alcançável por GET /api/files/{nome}
+    private static final Set<String> RESERVED_NAMES = Set.of(
+        "upload", "list", "search", "download", "update",
+        "delete", "multipart", "batch", "presign", "changes"
+    );
+
+    private final StreamingUploader uploader;
+    private final FileCache fileCache;
+    private final TransferClient transferClient;
+
+    public FileResourceHandler(
+        ClusterClient clusterClient,
+        TokenVerifier tokenVerifier,
+        FileCache fileCache
+    ) {
+        super(clusterClient, tokenVerifier);
+        this.uploader = new StreamingUploader(clusterClient);
+        this.fileCache = fileCache;
+        this.transferClient = new TransferClient(clusterClient);
+    }
+
+    @Override
+    protected void handleRequest(HttpExchange exchange) throws Exception {
+        String fileName = extractFileName(exchange);
+        if (fileName == null || fileName.isEmpty()) {
+            HttpUtils.sendErrorResponse(exchange, 404, "Recurso não encontrado");
+            return;
+        }
+
+        String token = getAuthToken(exchange);
+        if (token == null) {
+            HttpUtils.sendErrorResponse(exchange, 401, "Token não fornecido");
+            return;
+        }
+        String tokenUserId = authenticate(exchange, token);
+
+        switch (exchange.getRequestMethod()) {
+            case "GET":
+                handleDownload(exchange, token, tokenUserId, fileName);
+                break;
+            case "PUT":
+                if (RESERVED_NAMES.contains(fileName)) {
+                    HttpUtils.sendErrorResponse(
+                        exchange,
+                        400,
+                        "Nome de arquivo reservado: " + fileName
+                    );
+                    return;
+                }
+                handleUpload(exchange, token, fileName);
+                break;
+            default:
+                HttpUtils.sendErrorResponse(exchange, 405, "Method not allowed");
+        }
+    }
+
+    private void handleUpload(HttpExchange exchange, String token, String fileName)
+        throws Exception {
+        long size;
+        try (InputStream in = exchange.getRequestBody()) {
+            size = uploader.upload(token, fileName, in);
+        }
+
+        long uploaded = size;
+        HttpUtils.sendJson(
+            exchange,
+            200,
+            json -> json.beginObject()
+                .name("message").value("Arquivo salvo com sucesso")
+                .name("fileName").value(fileName)
+                .name("size").value(uploaded)
+                .endObject()
+        );
+    }
+
+    private void handleDownload(
+        HttpExchange exchange,
+        String token,
+        String tokenUserId,
+        String fileName
+    ) throws Exception {
+        Map<String, String> params = HttpUtils.parseQueryParams(
+            exchange.getRequestURI().getRawQuery()
+        );
+        String userId = params.get("userId");
+        String ownerId = (userId != null && !userId.isEmpty()) ? userId : tokenUserId;
+        long generation = fileCache.currentGeneration();
+
+        FileMetadata metadata = clusterClient.callCoalesced(
+            ownerId + "/" + fileName,
+            new MethodCall(
+                "getFileInfo",
+                new Object[] { token, fileName, userId },
+                new Class<?>[] { String.class, String.class, String.class }
+            ),
+            FileMetadata.class
+        );
+
+        if (metadata == null) {
+            HttpUtils.sendErrorResponse(exchange, 404, "Arquivo não encontrado");
+            return;
+        }
+
+        long totalSize = metadata.getFileSize();
+        String etag = HttpUtils.fileETag(metadata);
+        if (HttpUtils.isNotModified(exchange, etag, metadata.getUpdatedAt())) {
+            HttpUtils.sendNotModified(exchange, etag, metadata.getUpdatedAt());
+            return;
+        }
+
+        Headers headers = exchange.getResponseHeaders();
+        headers.set("Content-Type", "application/octet-stream");
+        headers.set("Accept-Ranges", "bytes");
+        headers.set("ETag", etag);
+        headers.set("Last-Modified", HttpUtils.formatHttpDate(metadata.getUpdatedAt()));
+        headers.set("Cache-Control", "private, no-cache");
+
+        ByteRange range = null;
+        if (ifRangeMatches(exchange, metadata, etag)) {
+            try {
+                range = ByteRange.parse(
+                    exchange.getRequestHeaders().getFirst("Range"),
+                    totalSize
+                );
+            } catch (IllegalStateException e) {
+                headers.set("Content-Range", "bytes */" + totalSize);
+                exchange.sendResponseHeaders(416, -1);
+                exchange.close();
+                return;
+            }
+        }
+
+        long start = range != null ? range.getStart() : 0;
+        long length = range != null ? range.getLength() : totalSize;
+
+        if (range != null) {
+            headers.set("Content-Range", range.toContentRange(totalSize));
+        }
+        exchange.sendResponseHeaders(range != null ? 206 : 200, length > 0 ? length : -1);
+
+        FileCache.Entry cached = fileCache.get(ownerId, fileName);
+        if (cached != null && cached.getUpdatedAt() == metadata.getUpdatedAt()) {
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(cached.getContent(), (int) start, (int) length);
+            }
+            return;
+        }
+
+        // Só a resposta completa de um arquivo pequeno vai para o cache
+        ByteArrayOutputStream copy = range == null && fileCache.isCacheable(totalSize)
+            ? new ByteArrayOutputStream((int) totalSize)
+            : null;
+
+        // A partir daqui os cabeçalhos já foram enviados: em caso de falha só
+        // resta encerrar a conexão para o cliente perceber o corpo incompleto
+        try (OutputStream out = exchange.getResponseBody()) {
+            OutputStream target = copy != null ? HttpUtils.tee(out, copy) : out;
+            boolean sent = range == null && length > 0 &&
+                downloadDirect(token, fileName, userId, metadata, target);
+            if (!sent) {
+                streamViaCluster(target, token, fileName, userId, ownerId, metadata, start, length);
+            }
+            if (copy != null) {
+                fileCache.put(ownerId, fileName, metadata.getUpdatedAt(), copy.toByteArray(), generation);
+            }
+        } catch (Exception e) {
+            System.err.println("Download interrompido: " + fileName + " - " + e.getMessage());
+            exchange.close();
+        }
+    }
+
+    /**
+     * Envia o arquivo inteiro direto do servidor de dados. Retorna false,
+     * sem ter escrito nada, se a transferência direta não estiver disponível.
+     */
+    private boolean downloadDirect(
+        String token,
+        String fileName,
+        String userId,
+        FileMetadata metadata,
+        OutputStream out
+    ) throws Exception {
+        try {
+            transferClient.download(token, fileName, userId, metadata.getUpdatedAt(), out);
+            return true;
+        } catch (TransferClient.NotStartedException e) {
+            return false;
+        }
+    }
+
+    private void streamViaCluster(
+        OutputStream out,
+        String token,
+        String fileName,
+        String userId,
+        String ownerId,
+        FileMetadata metadata,
+        long start,
+        long length
+    ) throws Exception {
+        long offset = start;
+        long end = start + length;
+        while (offset < end) {
+            int chunkLength = (int) Math.min(StreamingUploader.CHUNK_SIZE, end - offset);
+            byte[] chunk = clusterClient.callCoalesced(
+                ownerId + "/" + fileName + "@" + metadata.getUpdatedAt() +
+                    "[" + offset + "+" + chunkLength + "]",
+                new MethodCall(
+                    "downloadChunk",
+                    new Object[] {
+                        token, fileName, userId, offset, chunkLength, metadata.getUpdatedAt(),
+                    },
+                    new Class<?>[] {
+                        String.class,
+                        String.class,
+                        String.class,
+                        long.class,
+                        int.class,
+                        long.class,
+                    }
+                ),
+                byte[].class
+            );
+            if (chunk == null || chunk.length == 0) {
+                throw new IOException("Bloco vazio no offset " + offset);
+            }
+            out.write(chunk);
+            offset += chunk.length;
+        }
+    }
+    /**
+     * Sem If-Range o Range vale sempre; com If-Range, apenas se o validador
+     * (ETag ou data) ainda corresponder à versão atual do arquivo.
+     */
+    private boolean ifRangeMatches(
+        HttpExchange exchange,
+        FileMetadata metadata,
+        String etag
+    ) {
+        String ifRange = exchange.getRequestHeaders().getFirst("If-Range");
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"")) {
+            return ifRange.equals(etag);
+        }
+        long date = HttpUtils.parseHttpDate(ifRange);
+        return date >= 0 && metadata.getUpdatedAt() / 1000 == date / 1000;
+    }
+
+    private String extractFileName(HttpExchange exchange) {
+        String path = exchange.getRequestURI().getRawPath();
+        if (!path.startsWith(PREFIX)) {
+            return null;
+        }
+
+        String rawName = path.substring(PREFIX.length());
+        if (rawName.contains("/")) {
+            return null;
+        }
+        return HttpUtils.decodePathSegment(rawName);
+    }
+}
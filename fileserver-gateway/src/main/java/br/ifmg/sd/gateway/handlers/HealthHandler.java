@@ -1,5 +1,6 @@
 package br.ifmg.sd.gateway.handlers;
 
+import br.ifmg.sd.gateway.core.GatewayExecutor;
 import br.ifmg.sd.gateway.utilities.HttpUtils;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
@@ -11,16 +12,24 @@ import org.jgroups.Address;
 public class HealthHandler implements HttpHandler {
 
     private final Supplier<List<Address>> serverProvider;
+    private final GatewayExecutor executor;
 
-    public HealthHandler(Supplier<List<Address>> serverProvider) {
+    public HealthHandler(
+        Supplier<List<Address>> serverProvider,
+        GatewayExecutor executor
+    ) {
         this.serverProvider = serverProvider;
+        this.executor = executor;
     }
 
     @Override
     public void handle(HttpExchange exchange) throws IOException {
         String response = String.format(
-            "{\"status\": \"UP\", \"cluster_members\": %d}",
-            serverProvider.get().size()
+            "{\"status\": \"UP\", \"cluster_members\": %d, \"executor\": \"%s\", \"active_requests\": %d, \"queued_requests\": %d}",
+            serverProvider.get().size(),
+            executor.getMode().name().toLowerCase(),
+            executor.getActiveRequests(),
+            executor.getQueuedRequests()
         );
         HttpUtils.sendJsonResponse(exchange, 200, response);
     }
@@ -1,6 +1,7 @@
 package br.ifmg.sd.gateway.handlers;
 
 import br.ifmg.sd.gateway.core.ClusterClient;
+import br.ifmg.sd.gateway.core.TokenVerifier;
 import br.ifmg.sd.gateway.utilities.HttpUtils;
 import com.sun.net.httpserver.HttpExchange;
 import java.util.List;
@@ -8,8 +9,11 @@ import org.jgroups.blocks.MethodCall;
 
 public class ListFilesHandler extends BaseHandler {
 
-    public ListFilesHandler(ClusterClient clusterClient) {
-        super(clusterClient);
+    public ListFilesHandler(
+        ClusterClient clusterClient,
+        TokenVerifier tokenVerifier
+    ) {
+        super(clusterClient, tokenVerifier);
     }
 
     @Override
@@ -21,26 +25,54 @@ public class ListFilesHandler extends BaseHandler {
             HttpUtils.sendErrorResponse(exchange, 401, "Token não fornecido");
             return;
         }
+        String userId = authenticate(exchange, token);
 
+        // A listagem traz os arquivos de todos os usuários, então a versão é
+        // a do cluster: a de um só usuário não muda quando outro grava. Ela
+        // vem antes da listagem: se mudar no meio, o ETag enviado é o mais
+        // antigo e o cliente só relê a listagem mais uma vez
+        Long version = clusterClient.callCoalesced(
+            "*",
+            new MethodCall(
+                "getFileListVersion",
+                new Object[] { token, true },
+                new Class<?>[] { String.class, boolean.class }
+            ),
+            Long.class
+        );
+        if (version == null) {
+            HttpUtils.sendErrorResponse(exchange, 503, "Erro ao consultar versão da listagem");
+            return;
+        }
+        String etag = HttpUtils.listingETag("list:" + userId, version);
+        if (HttpUtils.isNotModified(exchange, etag, -1)) {
+            exchange.getResponseHeaders().set("Cache-Control", "private, no-cache");
+            HttpUtils.sendNotModified(exchange, etag, -1);
+            return;
+        }
+
+        // A versão vai junto para a listagem não vir de uma réplica mais
+        // antiga que o ETag, mesmo se outro ControlServer responder
         MethodCall call = new MethodCall(
             "listUserFiles",
-            new Object[] { token },
-            new Class<?>[] { String.class }
+            new Object[] { token, version },
+            new Class<?>[] { String.class, long.class }
         );
 
         @SuppressWarnings("unchecked")
-        List<String> files = clusterClient.callRemoteMethod(call, List.class);
+        List<String> files = clusterClient.callCoalesced(userId + ":" + version, call, List.class);
 
-        if (files != null) {
-            StringBuilder json = new StringBuilder("{\"files\":[");
-            for (int i = 0; i < files.size(); i++) {
-                if (i > 0) json.append(",");
-                json.append("\"").append(files.get(i)).append("\"");
+        List<String> result = files != null ? files : List.of();
+        HttpUtils.sendConditionalJson(
+            exchange,
+            etag,
+            json -> {
+                json.beginObject().name("files").beginArray();
+                for (String file : result) {
+                    json.value(file);
+                }
+                json.endArray().endObject();
             }
-            json.append("]}");
-            HttpUtils.sendJsonResponse(exchange, 200, json.toString());
-        } else {
-            HttpUtils.sendJsonResponse(exchange, 200, "{\"files\":[]}");
-        }
+        );
     }
 }
@@ -42,13 +42,13 @@ public class LoginHandler extends BaseHandler {
         );
 
         if (response != null && response.isSuccess()) {
-            HttpUtils.sendJsonResponse(
+            HttpUtils.sendJson(
                 exchange,
                 200,
-                String.format(
-                    "{\"success\": true, \"token\": \"%s\"}",
-                    response.getToken()
-                )
+                json -> json.beginObject()
+                    .name("success").value(true)
+                    .name("token").value(response.getToken())
+                    .endObject()
             );
         } else {
             HttpUtils.sendErrorResponse(exchange, 401, "Invalid credentials");
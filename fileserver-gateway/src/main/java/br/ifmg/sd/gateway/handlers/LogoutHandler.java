@@ -1,6 +1,7 @@
 package br.ifmg.sd.gateway.handlers;
 
 import br.ifmg.sd.gateway.core.ClusterClient;
+import br.ifmg.sd.gateway.core.TokenVerifier;
 import br.ifmg.sd.gateway.utilities.HttpUtils;
 import br.ifmg.sd.rpc.AuthResponse;
 import com.sun.net.httpserver.HttpExchange;
@@ -8,8 +9,11 @@ import org.jgroups.blocks.MethodCall;
 
 public class LogoutHandler extends BaseHandler {
 
-    public LogoutHandler(ClusterClient clusterClient) {
-        super(clusterClient);
+    public LogoutHandler(
+        ClusterClient clusterClient,
+        TokenVerifier tokenVerifier
+    ) {
+        super(clusterClient, tokenVerifier);
     }
 
     @Override
@@ -34,6 +38,8 @@ public class LogoutHandler extends BaseHandler {
         );
 
         if (response != null && response.isSuccess()) {
+            // Não espera o multicast do ControlServer para recusar o token
+            tokenVerifier.revoke(token);
             HttpUtils.sendJsonResponse(exchange, 200, "{\"success\": true}");
         } else {
             HttpUtils.sendErrorResponse(exchange, 500, "Logout failed");
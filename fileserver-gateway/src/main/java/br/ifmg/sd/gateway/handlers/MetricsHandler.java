@@ -0,0 +1,24 @@
+package br.ifmg.sd.gateway.handlers;
+
+import br.ifmg.sd.metrics.MetricsRegistry;
+import br.ifmg.sd.metrics.MetricsServer;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import java.io.IOException;
+
+/**
+ * GET /metrics no formato texto do Prometheus.
+ */
+public class MetricsHandler implements HttpHandler {
+
+    private final MetricsRegistry registry;
+
+    public MetricsHandler(MetricsRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        MetricsServer.handle(exchange, registry);
+    }
+}
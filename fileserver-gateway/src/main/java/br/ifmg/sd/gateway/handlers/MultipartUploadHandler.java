@@ -0,0 +1,312 @@
+package br.ifmg.sd.gateway.handlers;
+
+import br.ifmg.sd.gateway.core.ClusterClient;
+import br.ifmg.sd.gateway.core.StreamingUploader;
+import br.ifmg.sd.gateway.core.TokenVerifier;
+import br.ifmg.sd.gateway.utilities.HttpUtils;
+import com.sun.net.httpserver.HttpExchange;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.jgroups.blocks.MethodCall;
+
+/**
+ * Upload multipart retomável em /api/files/multipart:
+ *
+ *   POST   /api/files/multipart?fileName=x           inicia e retorna o uploadId
+ *   PUT    /api/files/multipart/{id}/parts/{n}       envia (ou reenvia) a parte n
+ *   GET    /api/files/multipart/{id}                 partes já recebidas
+ *   POST   /api/files/multipart/{id}/complete[?parts=1,2,3]
+ *   DELETE /api/files/multipart/{id}                 cancela
+ *
+ * As partes são independentes e podem ser enviadas em paralelo, cada uma em
+ * sua conexão. A sessão fica no coordenador de dados, não no gateway; se ele
+ * for trocado, a sessão se perde e as chamadas respondem 410 para o cliente
+ * iniciar um novo upload.
+ */
+public class MultipartUploadHandler extends BaseHandler {
+
+    private static final String PREFIX = "/api/files/multipart";
+
+    private final StreamingUploader uploader;
+
+    public MultipartUploadHandler(
+        ClusterClient clusterClient,
+        TokenVerifier tokenVerifier
+    ) {
+        super(clusterClient, tokenVerifier);
+        this.uploader = new StreamingUploader(clusterClient);
+    }
+
+    @Override
+    protected void handleRequest(HttpExchange exchange) throws Exception {
+        String path = exchange.getRequestURI().getPath();
+        if (!path.startsWith(PREFIX)) {
+            HttpUtils.sendErrorResponse(exchange, 404, "Recurso não encontrado");
+            return;
+        }
+        String[] segments = path.substring(PREFIX.length()).split("/");
+        // segments[0] é vazio: o caminho restante começa com "/" ou é vazio
+        if (segments.length > 0 && !segments[0].isEmpty()) {
+            HttpUtils.sendErrorResponse(exchange, 404, "Recurso não encontrado");
+            return;
+        }
+
+        String token = getAuthToken(exchange);
+        if (token == null) {
+            HttpUtils.sendErrorResponse(exchange, 401, "Token não fornecido");
+            return;
+        }
+        authenticate(exchange, token);
+
+        String method = exchange.getRequestMethod();
+        if (segments.length <= 1) {
+            if ("POST".equals(method)) {
+                initiate(exchange, token);
+                return;
+            }
+        } else {
+            String uploadId = segments[1];
+            if (segments.length == 2 && "GET".equals(method)) {
+                listParts(exchange, token, uploadId);
+                return;
+            }
+            if (segments.length == 2 && "DELETE".equals(method)) {
+                abort(exchange, token, uploadId);
+                return;
+            }
+            if (segments.length == 3 && "complete".equals(segments[2]) && "POST".equals(method)) {
+                complete(exchange, token, uploadId);
+                return;
+            }
+            if (segments.length == 4 && "parts".equals(segments[2]) && "PUT".equals(method)) {
+                uploadPart(exchange, token, uploadId, segments[3]);
+                return;
+            }
+        }
+        HttpUtils.sendErrorResponse(exchange, 404, "Recurso não encontrado");
+    }
+
+    private void initiate(HttpExchange exchange, String token) throws Exception {
+        Map<String, String> params = HttpUtils.parseQueryParams(
+            exchange.getRequestURI().getRawQuery()
+        );
+        String fileName = params.get("fileName");
+        if (fileName == null || fileName.isEmpty()) {
+            HttpUtils.sendErrorResponse(exchange, 400, "fileName é obrigatório");
+            return;
+        }
+
+        String uploadId = clusterClient.callRemoteMethod(
+            new MethodCall(
+                "initiateMultipartUpload",
+                new Object[] { token, fileName },
+                new Class<?>[] { String.class, String.class }
+            ),
+            String.class
+        );
+        if (uploadId == null) {
+            HttpUtils.sendErrorResponse(exchange, 500, "Erro ao iniciar upload multipart");
+            return;
+        }
+
+        HttpUtils.sendJson(
+            exchange,
+            200,
+            json -> json.beginObject()
+                .name("uploadId").value(uploadId)
+                .name("fileName").value(fileName)
+                .endObject()
+        );
+    }
+
+    private void uploadPart(
+        HttpExchange exchange,
+        String token,
+        String uploadId,
+        String partSegment
+    ) throws Exception {
+        int partNumber;
+        try {
+            partNumber = Integer.parseInt(partSegment);
+        } catch (NumberFormatException e) {
+            HttpUtils.sendErrorResponse(exchange, 400, "Número de parte inválido");
+            return;
+        }
+
+        long size;
+        try (InputStream in = exchange.getRequestBody()) {
+            size = uploader.uploadPart(token, uploadId, partNumber, in);
+        } catch (IOException e) {
+            if (fetchParts(token, uploadId) == null) {
+                sendUploadLost(exchange, uploadId);
+                return;
+            }
+            throw e;
+        }
+
+        HttpUtils.sendJson(
+            exchange,
+            200,
+            json -> json.beginObject()
+                .name("partNumber").value(partNumber)
+                .name("size").value(size)
+                .endObject()
+        );
+    }
+
+    private void listParts(HttpExchange exchange, String token, String uploadId)
+        throws Exception {
+        Map<Integer, Long> parts = fetchParts(token, uploadId);
+        if (parts == null) {
+            sendUploadLost(exchange, uploadId);
+            return;
+        }
+
+        HttpUtils.sendJson(
+            exchange,
+            200,
+            json -> {
+                json.beginObject()
+                    .name("uploadId").value(uploadId)
+                    .name("parts").beginArray();
+                for (Map.Entry<Integer, Long> part : parts.entrySet()) {
+                    json.beginObject()
+                        .name("partNumber").value(part.getKey())
+                        .name("size").value(part.getValue())
+                        .endObject();
+                }
+                json.endArray().endObject();
+            }
+        );
+    }
+
+    private void complete(HttpExchange exchange, String token, String uploadId)
+        throws Exception {
+        Map<String, String> params = HttpUtils.parseQueryParams(
+            exchange.getRequestURI().getRawQuery()
+        );
+
+        List<Integer> partNumbers = new ArrayList<>();
+        String partsParam = params.get("parts");
+        if (partsParam != null && !partsParam.isEmpty()) {
+            try {
+                for (String part : partsParam.split(",")) {
+                    partNumbers.add(Integer.parseInt(part.trim()));
+                }
+            } catch (NumberFormatException e) {
+                HttpUtils.sendErrorResponse(exchange, 400, "Lista de partes inválida");
+                return;
+            }
+        }
+
+        Map<Integer, Long> uploaded = fetchParts(token, uploadId);
+        if (uploaded == null) {
+            sendUploadLost(exchange, uploadId);
+            return;
+        }
+        String invalid = validatePartNumbers(
+            partNumbers.isEmpty() ? new ArrayList<>(uploaded.keySet()) : partNumbers,
+            uploaded
+        );
+        if (invalid != null) {
+            HttpUtils.sendErrorResponse(exchange, 400, invalid);
+            return;
+        }
+
+        Boolean completed = clusterClient.callRemoteMethod(
+            new MethodCall(
+                "completeMultipartUpload",
+                new Object[] { token, uploadId, partNumbers },
+                new Class<?>[] { String.class, String.class, List.class }
+            ),
+            Boolean.class
+        );
+
+        if (Boolean.TRUE.equals(completed)) {
+            HttpUtils.sendJson(
+                exchange,
+                200,
+                json -> json.beginObject()
+                    .name("message").value("Arquivo salvo com sucesso")
+                    .name("uploadId").value(uploadId)
+                    .endObject()
+            );
+        } else {
+            HttpUtils.sendErrorResponse(exchange, 500, "Erro ao concluir upload multipart");
+        }
+    }
+
+    /**
+     * As partes a montar devem ser 1..N, sem repetição, e todas já enviadas.
+     * Retorna a mensagem de erro, ou null se a lista é válida.
+     */
+    private static String validatePartNumbers(List<Integer> order, Map<Integer, Long> uploaded) {
+        if (order.isEmpty()) {
+            return "Nenhuma parte enviada";
+        }
+        Set<Integer> seen = new HashSet<>();
+        for (int partNumber : order) {
+            if (!seen.add(partNumber)) {
+                return "Parte repetida: " + partNumber;
+            }
+            if (partNumber < 1 || partNumber > order.size()) {
+                return "As partes devem ser contíguas de 1 a " + order.size() + ": " + partNumber;
+            }
+            if (!uploaded.containsKey(partNumber)) {
+                return "Parte " + partNumber + " não foi enviada";
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Partes já recebidas pelo coordenador, ou null se ele não conhece a
+     * sessão.
+     */
+    @SuppressWarnings("unchecked")
+    private Map<Integer, Long> fetchParts(String token, String uploadId) throws Exception {
+        return clusterClient.callRemoteMethod(
+            new MethodCall(
+                "listUploadParts",
+                new Object[] { token, uploadId },
+                new Class<?>[] { String.class, String.class }
+            ),
+            Map.class
+        );
+    }
+
+    private static void sendUploadLost(HttpExchange exchange, String uploadId) throws IOException {
+        HttpUtils.sendErrorResponse(
+            exchange,
+            410,
+            "Upload " + uploadId + " perdido ou expirado; inicie um novo upload"
+        );
+    }
+
+    private void abort(HttpExchange exchange, String token, String uploadId)
+        throws Exception {
+        Boolean aborted = clusterClient.callRemoteMethod(
+            new MethodCall(
+                "abortMultipartUpload",
+                new Object[] { token, uploadId },
+                new Class<?>[] { String.class, String.class }
+            ),
+            Boolean.class
+        );
+
+        if (Boolean.TRUE.equals(aborted)) {
+            HttpUtils.sendJson(
+                exchange,
+                200,
+                json -> json.beginObject().name("success").value(true).endObject()
+            );
+        } else {
+            HttpUtils.sendErrorResponse(exchange, 404, "Upload não encontrado");
+        }
+    }
+}
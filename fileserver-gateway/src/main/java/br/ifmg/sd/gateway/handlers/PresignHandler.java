@@ -0,0 +1,114 @@
+package br.ifmg.sd.gateway.handlers;
+
+import br.ifmg.sd.gateway.core.ClusterClient;
+import br.ifmg.sd.gateway.core.TokenVerifier;
+import br.ifmg.sd.gateway.utilities.HttpUtils;
+import br.ifmg.sd.models.FileMetadata;
+import br.ifmg.sd.security.PresignedUrl;
+import com.sun.net.httpserver.HttpExchange;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import org.jgroups.blocks.MethodCall;
+
+/**
+ * Gera um link público e assinado para a versão atual de um arquivo
+ * (POST /api/files/presign). O link é servido por
+ * {@link PublicFileHandler} sem sessão e sem consultar o control-cluster.
+ */
+public class PresignHandler extends BaseHandler {
+
+    public static final String PUBLIC_PREFIX = "/api/public/files/";
+
+    private static final long DEFAULT_EXPIRES_IN_SECONDS = 3600;
+    private static final long MAX_EXPIRES_IN_SECONDS = Long.getLong(
+        "gateway.presign.max.seconds",
+        7 * 24 * 3600L
+    );
+
+    public PresignHandler(ClusterClient clusterClient, TokenVerifier tokenVerifier) {
+        super(clusterClient, tokenVerifier);
+    }
+
+    @Override
+    protected void handleRequest(HttpExchange exchange) throws Exception {
+        validateMethod(exchange, "POST");
+
+        String token = getAuthToken(exchange);
+        if (token == null) {
+            HttpUtils.sendErrorResponse(exchange, 401, "Token não fornecido");
+            return;
+        }
+        String tokenUserId = authenticate(exchange, token);
+
+        Map<String, String> body = HttpUtils.parseJsonBody(exchange);
+        String fileName = body.get("fileName");
+        String userId = body.get("userId");
+        if (fileName == null || fileName.isEmpty()) {
+            HttpUtils.sendErrorResponse(exchange, 400, "fileName é obrigatório");
+            return;
+        }
+
+        long expiresIn;
+        try {
+            String value = body.get("expiresIn");
+            expiresIn = value != null ? Long.parseLong(value) : DEFAULT_EXPIRES_IN_SECONDS;
+        } catch (NumberFormatException e) {
+            HttpUtils.sendErrorResponse(exchange, 400, "expiresIn deve ser um número de segundos");
+            return;
+        }
+        if (expiresIn <= 0 || expiresIn > MAX_EXPIRES_IN_SECONDS) {
+            HttpUtils.sendErrorResponse(
+                exchange,
+                400,
+                "expiresIn deve estar entre 1 e " + MAX_EXPIRES_IN_SECONDS + " segundos"
+            );
+            return;
+        }
+
+        String ownerId = (userId != null && !userId.isEmpty()) ? userId : tokenUserId;
+
+        // A permissão de leitura é a mesma do download: o ControlServer
+        // responde os metadados só para uma sessão válida
+        FileMetadata metadata = clusterClient.callCoalesced(
+            ownerId + "/" + fileName,
+            new MethodCall(
+                "getFileInfo",
+                new Object[] { token, fileName, userId },
+                new Class<?>[] { String.class, String.class, String.class }
+            ),
+            FileMetadata.class
+        );
+        if (metadata == null) {
+            HttpUtils.sendErrorResponse(exchange, 404, "Arquivo não encontrado");
+            return;
+        }
+
+        long version = metadata.getUpdatedAt();
+        long expiresAt = System.currentTimeMillis() + expiresIn * 1000;
+        String path = PUBLIC_PREFIX +
+            encode(fileName) +
+            "?u=" + encode(ownerId) +
+            "&v=" + version +
+            "&e=" + expiresAt +
+            "&sig=" + PresignedUrl.sign(ownerId, fileName, version, expiresAt);
+
+        String host = exchange.getRequestHeaders().getFirst("Host");
+        String url = host != null ? "http://" + host + path : path;
+
+        HttpUtils.sendJson(
+            exchange,
+            200,
+            json -> json.beginObject()
+                .name("url").value(url)
+                .name("fileName").value(fileName)
+                .name("version").value(version)
+                .name("expiresAt").value(expiresAt)
+                .endObject()
+        );
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8).replace("+", "%20");
+    }
+}
@@ -0,0 +1,210 @@
+package br.ifmg.sd.gateway.handlers;
+
+import br.ifmg.sd.gateway.core.ClusterClient;
+import br.ifmg.sd.gateway.core.FileCache;
+import br.ifmg.sd.gateway.core.TransferClient;
+import br.ifmg.sd.gateway.utilities.HttpUtils;
+import br.ifmg.sd.models.FileMetadata;
+import br.ifmg.sd.rpc.TransferProtocol;
+import br.ifmg.sd.security.PresignedUrl;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.jgroups.blocks.MethodCall;
+
+/**
+ * Serve os links gerados por {@link PresignHandler}
+ * (GET /api/public/files/{nome}?u=&v=&e=&sig=). A assinatura é conferida no
+ * próprio gateway e o conteúdo vem do cache ou direto do servidor de dados,
+ * sem sessão e sem passar pelo control-cluster. Se a transferência direta
+ * estiver desligada ou inacessível, o conteúdo vem pelo control-cluster, que
+ * confere a assinatura de novo. Como o link fixa a versão, a resposta pode
+ * ser guardada por qualquer cache HTTP até a expiração; uma versão que não
+ * existe mais responde 410.
+ */
+public class PublicFileHandler extends BaseHandler {
+
+    private static final long CLUSTER_TIMEOUT_MS = 10_000;
+
+    private final FileCache fileCache;
+    private final TransferClient transferClient;
+
+    public PublicFileHandler(ClusterClient clusterClient, FileCache fileCache) {
+        super(clusterClient);
+        this.fileCache = fileCache;
+        this.transferClient = new TransferClient(clusterClient);
+    }
+
+    @Override
+    protected void handleRequest(HttpExchange exchange) throws Exception {
+        validateMethod(exchange, "GET");
+
+        String path = exchange.getRequestURI().getRawPath();
+        String rawName = path.substring(Math.min(path.length(), PresignHandler.PUBLIC_PREFIX.length()));
+        String fileName = path.startsWith(PresignHandler.PUBLIC_PREFIX) && !rawName.contains("/")
+            ? HttpUtils.decodePathSegment(rawName)
+            : null;
+        if (fileName == null) {
+            HttpUtils.sendErrorResponse(exchange, 404, "Recurso não encontrado");
+            return;
+        }
+
+        Map<String, String> params = HttpUtils.parseQueryParams(
+            exchange.getRequestURI().getRawQuery()
+        );
+        String userId = params.get("u");
+        long version;
+        long expiresAt;
+        try {
+            version = Long.parseLong(params.getOrDefault("v", ""));
+            expiresAt = Long.parseLong(params.getOrDefault("e", ""));
+        } catch (NumberFormatException e) {
+            HttpUtils.sendErrorResponse(exchange, 403, "Link inválido ou expirado");
+            return;
+        }
+        if (!PresignedUrl.verify(userId, fileName, version, expiresAt, params.get("sig"))) {
+            HttpUtils.sendErrorResponse(exchange, 403, "Link inválido ou expirado");
+            return;
+        }
+
+        // O conteúdo de um link nunca muda, então o ETag só depende da versão
+        String etag = "\"" + Long.toHexString(version) + "\"";
+        Headers headers = exchange.getResponseHeaders();
+        long maxAge = Math.max(0, (expiresAt - System.currentTimeMillis()) / 1000);
+        headers.set("Cache-Control", "public, max-age=" + maxAge + ", immutable");
+        if (HttpUtils.isNotModified(exchange, etag, version)) {
+            HttpUtils.sendNotModified(exchange, etag, version);
+            return;
+        }
+        headers.set("Content-Type", "application/octet-stream");
+        headers.set("ETag", etag);
+        headers.set("Last-Modified", HttpUtils.formatHttpDate(version));
+
+        FileCache.Entry cached = fileCache.get(userId, fileName);
+        if (cached != null && cached.getUpdatedAt() == version) {
+            byte[] content = cached.getContent();
+            exchange.sendResponseHeaders(200, content.length > 0 ? content.length : -1);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(content);
+            }
+            return;
+        }
+
+        long generation = fileCache.currentGeneration();
+        ByteArrayOutputStream[] copy = new ByteArrayOutputStream[1];
+        TransferClient.Body body = size -> {
+            exchange.sendResponseHeaders(200, size > 0 ? size : -1);
+            OutputStream out = exchange.getResponseBody();
+            if (!fileCache.isCacheable(size)) {
+                return out;
+            }
+            copy[0] = new ByteArrayOutputStream((int) size);
+            return HttpUtils.tee(out, copy[0]);
+        };
+        try {
+            try {
+                transferClient.downloadVersion(userId, fileName, version, body);
+            } catch (TransferClient.NotStartedException e) {
+                if (e.isGone()) {
+                    HttpUtils.sendErrorResponse(exchange, 410, "Esta versão do arquivo não existe mais");
+                    return;
+                }
+                if (e.isRefused()) {
+                    HttpUtils.sendErrorResponse(exchange, 403, "Link recusado pelo servidor de dados");
+                    return;
+                }
+                String signature = params.get("sig");
+                if (!downloadViaCluster(exchange, userId, fileName, version, expiresAt, signature, body)) {
+                    return;
+                }
+            }
+        } catch (Exception e) {
+            if (exchange.getResponseCode() == -1) {
+                HttpUtils.sendErrorResponse(exchange, 503, "Servidor de dados indisponível");
+                return;
+            }
+            // Os cabeçalhos já foram enviados: só resta encerrar a conexão
+            System.err.println("Download público interrompido: " + fileName + " - " + e.getMessage());
+            exchange.close();
+            return;
+        }
+
+        exchange.getResponseBody().close();
+        if (copy[0] != null) {
+            fileCache.put(userId, fileName, version, copy[0].toByteArray(), generation);
+        }
+    }
+
+    /**
+     * Caminho por RPC: confere a versão atual no cluster e lê o arquivo em
+     * faixas atreladas à versão do link. Retorna false se já respondeu um
+     * erro.
+     */
+    private boolean downloadViaCluster(
+        HttpExchange exchange,
+        String userId,
+        String fileName,
+        long version,
+        long expiresAt,
+        String signature,
+        TransferClient.Body body
+    ) throws Exception {
+        // Distingue "arquivo inexistente" (null) de falha na chamada
+        CompletableFuture<FileMetadata> info = clusterClient.callHedgedAsync(
+            new MethodCall(
+                "getPublicFileInfo",
+                new Object[] { userId, fileName, version, expiresAt, signature },
+                new Class<?>[] { String.class, String.class, long.class, long.class, String.class }
+            ),
+            FileMetadata.class
+        );
+        FileMetadata metadata;
+        try {
+            metadata = info.get(CLUSTER_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException | TimeoutException e) {
+            info.cancel(false);
+            HttpUtils.sendErrorResponse(exchange, 503, "Servidor de dados indisponível");
+            return false;
+        }
+        if (metadata == null || metadata.getUpdatedAt() != version) {
+            HttpUtils.sendErrorResponse(exchange, 410, "Esta versão do arquivo não existe mais");
+            return false;
+        }
+
+        long size = metadata.getFileSize();
+        OutputStream out = body.open(size);
+        long offset = 0;
+        while (offset < size) {
+            int length = (int) Math.min(TransferProtocol.CHUNK_SIZE, size - offset);
+            byte[] chunk = clusterClient.callIdempotent(
+                new MethodCall(
+                    "downloadPublicChunk",
+                    new Object[] { userId, fileName, version, expiresAt, signature, offset, length },
+                    new Class<?>[] {
+                        String.class,
+                        String.class,
+                        long.class,
+                        long.class,
+                        String.class,
+                        long.class,
+                        int.class,
+                    }
+                ),
+                byte[].class
+            );
+            if (chunk == null || chunk.length == 0) {
+                throw new IOException("Faixa indisponível no offset " + offset);
+            }
+            out.write(chunk);
+            offset += chunk.length;
+        }
+        return true;
+    }
+}
@@ -48,22 +48,22 @@ public class RegisterHandler extends BaseHandler {
         }
 
         if (response.isSuccess()) {
-            HttpUtils.sendJsonResponse(
+            HttpUtils.sendJson(
                 exchange,
                 200,
-                String.format(
-                    "{\"success\": true, \"token\": \"%s\"}",
-                    response.getToken()
-                )
+                json -> json.beginObject()
+                    .name("success").value(true)
+                    .name("token").value(response.getToken())
+                    .endObject()
             );
         } else {
-            HttpUtils.sendJsonResponse(
+            HttpUtils.sendJson(
                 exchange,
                 400,
-                String.format(
-                    "{\"success\": false, \"error\": \"%s\"}",
-                    response.getMessage()
-                )
+                json -> json.beginObject()
+                    .name("success").value(false)
+                    .name("error").value(response.getMessage())
+                    .endObject()
             );
         }
     }
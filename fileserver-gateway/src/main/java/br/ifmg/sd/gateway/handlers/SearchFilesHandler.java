@@ -1,7 +1,9 @@
 package br.ifmg.sd.gateway.handlers;
 
 import br.ifmg.sd.gateway.core.ClusterClient;
+import br.ifmg.sd.gateway.core.TokenVerifier;
 import br.ifmg.sd.gateway.utilities.HttpUtils;
+import br.ifmg.sd.models.FileMetadata;
 import com.sun.net.httpserver.HttpExchange;
 import java.util.List;
 import java.util.Map;
@@ -9,8 +11,11 @@ import org.jgroups.blocks.MethodCall;
 
 public class SearchFilesHandler extends BaseHandler {
 
-    public SearchFilesHandler(ClusterClient clusterClient) {
-        super(clusterClient);
+    public SearchFilesHandler(
+        ClusterClient clusterClient,
+        TokenVerifier tokenVerifier
+    ) {
+        super(clusterClient, tokenVerifier);
     }
 
     @Override
@@ -22,6 +27,7 @@ public class SearchFilesHandler extends BaseHandler {
             HttpUtils.sendErrorResponse(exchange, 401, "Token não fornecido");
             return;
         }
+        authenticate(exchange, token);
 
         Map<String, String> params = HttpUtils.parseQueryParams(
             exchange.getRequestURI().getQuery()
@@ -33,41 +39,54 @@ public class SearchFilesHandler extends BaseHandler {
             return;
         }
 
+        // A busca abrange todos os usuários, então a versão é a do cluster
+        Long version = clusterClient.callCoalesced(
+            "*",
+            new MethodCall(
+                "getFileListVersion",
+                new Object[] { token, true },
+                new Class<?>[] { String.class, boolean.class }
+            ),
+            Long.class
+        );
+        if (version == null) {
+            HttpUtils.sendErrorResponse(exchange, 503, "Erro ao consultar versão da listagem");
+            return;
+        }
+        String etag = HttpUtils.listingETag("search:" + fileName, version);
+        if (HttpUtils.isNotModified(exchange, etag, -1)) {
+            exchange.getResponseHeaders().set("Cache-Control", "private, no-cache");
+            HttpUtils.sendNotModified(exchange, etag, -1);
+            return;
+        }
+
         MethodCall call = new MethodCall(
             "searchFiles",
-            new Object[] { token, fileName },
-            new Class<?>[] { String.class, String.class }
+            new Object[] { token, fileName, version },
+            new Class<?>[] { String.class, String.class, long.class }
         );
 
         @SuppressWarnings("unchecked")
-        List<Object> files = clusterClient.callRemoteMethod(call, List.class);
+        List<FileMetadata> files = clusterClient.callCoalesced(
+            fileName + ":" + version,
+            call,
+            List.class
+        );
 
         if (files != null) {
-            StringBuilder json = new StringBuilder("{\"success\":true,\"files\":[");
-            for (int i = 0; i < files.size(); i++) {
-                if (i > 0) json.append(",");
-                
-                // Converter o objeto FileMetadata para JSON manualmente
-                Object fileObj = files.get(i);
-                java.lang.reflect.Method getUserId = fileObj.getClass().getMethod("getUserId");
-                java.lang.reflect.Method getUserName = fileObj.getClass().getMethod("getUserName");
-                java.lang.reflect.Method getFileName = fileObj.getClass().getMethod("getFileName");
-                java.lang.reflect.Method getCreatedAt = fileObj.getClass().getMethod("getCreatedAt");
-                java.lang.reflect.Method getUpdatedAt = fileObj.getClass().getMethod("getUpdatedAt");
-                java.lang.reflect.Method getFileSize = fileObj.getClass().getMethod("getFileSize");
-
-                json.append(String.format(
-                    "{\"userId\":\"%s\",\"userName\":\"%s\",\"fileName\":\"%s\",\"createdAt\":%d,\"updatedAt\":%d,\"fileSize\":%d}",
-                    getUserId.invoke(fileObj),
-                    getUserName.invoke(fileObj),
-                    getFileName.invoke(fileObj),
-                    getCreatedAt.invoke(fileObj),
-                    getUpdatedAt.invoke(fileObj),
-                    getFileSize.invoke(fileObj)
-                ));
-            }
-            json.append("]}");
-            HttpUtils.sendJsonResponse(exchange, 200, json.toString());
+            HttpUtils.sendConditionalJson(
+                exchange,
+                etag,
+                json -> {
+                    json.beginObject()
+                        .name("success").value(true)
+                        .name("files").beginArray();
+                    for (FileMetadata file : files) {
+                        json.value(file);
+                    }
+                    json.endArray().endObject();
+                }
+            );
         } else {
             HttpUtils.sendErrorResponse(exchange, 500, "Erro ao buscar arquivos");
         }
@@ -1,15 +1,21 @@
 package br.ifmg.sd.gateway.handlers;
 
 import br.ifmg.sd.gateway.core.ClusterClient;
+import br.ifmg.sd.gateway.core.TokenVerifier;
 import br.ifmg.sd.gateway.utilities.HttpUtils;
+import br.ifmg.sd.gateway.utilities.JsonReader;
 import com.sun.net.httpserver.HttpExchange;
-import java.util.Map;
+import java.io.InputStream;
+import java.util.Base64;
 import org.jgroups.blocks.MethodCall;
 
 public class UpdateFileHandler extends BaseHandler {
 
-    public UpdateFileHandler(ClusterClient clusterClient) {
-        super(clusterClient);
+    public UpdateFileHandler(
+        ClusterClient clusterClient,
+        TokenVerifier tokenVerifier
+    ) {
+        super(clusterClient, tokenVerifier);
     }
 
     @Override
@@ -21,13 +27,33 @@ public class UpdateFileHandler extends BaseHandler {
             HttpUtils.sendErrorResponse(exchange, 401, "Token não fornecido");
             return;
         }
+        authenticate(exchange, token);
 
-        Map<String, String> body = HttpUtils.parseJsonBody(exchange);
-        String fileName = body.get("fileName");
-        String contentBase64 = body.get("content");
-        String userId = body.get("userId");
+        // updateFileWithUser recebe o arquivo inteiro, mas o Base64 é
+        // decodificado direto do corpo, sem cópias intermediárias em String
+        JsonReader reader = new JsonReader(exchange.getRequestBody());
+        String fileName = null;
+        String userId = null;
+        byte[] content = null;
 
-        if (fileName == null || contentBase64 == null) {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if ("fileName".equals(name)) {
+                fileName = reader.nextString();
+            } else if ("userId".equals(name)) {
+                userId = reader.nextString();
+            } else if ("content".equals(name)) {
+                try (InputStream in = Base64.getDecoder().wrap(reader.nextStringStream())) {
+                    content = in.readAllBytes();
+                }
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        if (fileName == null || content == null) {
             HttpUtils.sendErrorResponse(
                 exchange,
                 400,
@@ -36,8 +62,6 @@ public class UpdateFileHandler extends BaseHandler {
             return;
         }
 
-        byte[] content = java.util.Base64.getDecoder().decode(contentBase64);
-
         MethodCall call = new MethodCall(
             "updateFileWithUser",
             new Object[] { token, fileName, content, userId },
@@ -47,11 +71,16 @@ public class UpdateFileHandler extends BaseHandler {
         Boolean success = clusterClient.callRemoteMethod(call, Boolean.class);
 
         if (Boolean.TRUE.equals(success)) {
-            String json = String.format(
-                "{\"success\":true,\"message\":\"Arquivo atualizado com sucesso\",\"fileName\":\"%s\"}",
-                fileName
+            String updatedName = fileName;
+            HttpUtils.sendJson(
+                exchange,
+                200,
+                json -> json.beginObject()
+                    .name("success").value(true)
+                    .name("message").value("Arquivo atualizado com sucesso")
+                    .name("fileName").value(updatedName)
+                    .endObject()
             );
-            HttpUtils.sendJsonResponse(exchange, 200, json);
         } else {
             HttpUtils.sendErrorResponse(
                 exchange,
@@ -1,15 +1,25 @@
 package br.ifmg.sd.gateway.handlers;
 
 import br.ifmg.sd.gateway.core.ClusterClient;
+import br.ifmg.sd.gateway.core.StreamingUploader;
+import br.ifmg.sd.gateway.core.TokenVerifier;
 import br.ifmg.sd.gateway.utilities.HttpUtils;
+import br.ifmg.sd.gateway.utilities.JsonReader;
 import com.sun.net.httpserver.HttpExchange;
-import java.util.Map;
-import org.jgroups.blocks.MethodCall;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.Base64;
 
 public class UploadFileHandler extends BaseHandler {
 
-    public UploadFileHandler(ClusterClient clusterClient) {
-        super(clusterClient);
+    private final StreamingUploader uploader;
+
+    public UploadFileHandler(
+        ClusterClient clusterClient,
+        TokenVerifier tokenVerifier
+    ) {
+        super(clusterClient, tokenVerifier);
+        this.uploader = new StreamingUploader(clusterClient);
     }
 
     @Override
@@ -21,34 +31,52 @@ public class UploadFileHandler extends BaseHandler {
             HttpUtils.sendErrorResponse(exchange, 401, "Token não fornecido");
             return;
         }
+        authenticate(exchange, token);
+
+        // O conteúdo Base64 é decodificado enquanto chega e enviado ao
+        // cluster em blocos; só fica em memória se vier antes do fileName
+        JsonReader reader = new JsonReader(exchange.getRequestBody());
+        String fileName = null;
+        byte[] bufferedContent = null;
+        boolean uploaded = false;
 
-        Map<String, String> body = HttpUtils.parseJsonBody(exchange);
-        String fileName = body.get("fileName");
-        String contentBase64 = body.get("content");
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if ("fileName".equals(name)) {
+                fileName = reader.nextString();
+            } else if ("content".equals(name)) {
+                try (InputStream content = Base64.getDecoder().wrap(reader.nextStringStream())) {
+                    if (fileName != null) {
+                        uploader.upload(token, fileName, content);
+                        uploaded = true;
+                    } else {
+                        bufferedContent = content.readAllBytes();
+                    }
+                }
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
 
-        if (fileName == null || contentBase64 == null) {
+        if (fileName == null || (!uploaded && bufferedContent == null)) {
             HttpUtils.sendErrorResponse(exchange, 400, "fileName e content são obrigatórios");
             return;
         }
 
-        byte[] content = java.util.Base64.getDecoder().decode(contentBase64);
+        if (!uploaded) {
+            uploader.upload(token, fileName, new ByteArrayInputStream(bufferedContent));
+        }
 
-        MethodCall call = new MethodCall(
-            "uploadFile",
-            new Object[] { token, fileName, content },
-            new Class<?>[] { String.class, String.class, byte[].class }
+        String savedName = fileName;
+        HttpUtils.sendJson(
+            exchange,
+            200,
+            json -> json.beginObject()
+                .name("message").value("Arquivo salvo com sucesso")
+                .name("fileName").value(savedName)
+                .endObject()
         );
-
-        Boolean success = clusterClient.callRemoteMethod(call, Boolean.class);
-
-        if (Boolean.TRUE.equals(success)) {
-            String json = String.format(
-                "{\"message\":\"Arquivo salvo com sucesso\",\"fileName\":\"%s\"}",
-                fileName
-            );
-            HttpUtils.sendJsonResponse(exchange, 200, json);
-        } else {
-            HttpUtils.sendErrorResponse(exchange, 500, "Erro ao salvar arquivo");
-        }
     }
 }
@@ -1,14 +1,17 @@
 package br.ifmg.sd.gateway.handlers;
 
 import br.ifmg.sd.gateway.core.ClusterClient;
+import br.ifmg.sd.gateway.core.TokenVerifier;
 import br.ifmg.sd.gateway.utilities.HttpUtils;
 import com.sun.net.httpserver.HttpExchange;
-import org.jgroups.blocks.MethodCall;
 
 public class ValidateHandler extends BaseHandler {
 
-    public ValidateHandler(ClusterClient clusterClient) {
-        super(clusterClient);
+    public ValidateHandler(
+        ClusterClient clusterClient,
+        TokenVerifier tokenVerifier
+    ) {
+        super(clusterClient, tokenVerifier);
     }
 
     @Override
@@ -21,15 +24,8 @@ public class ValidateHandler extends BaseHandler {
             return;
         }
 
-        MethodCall call = new MethodCall(
-            "validateToken",
-            new Object[] { token },
-            new Class[] { String.class }
-        );
-
-        Boolean valid = clusterClient.callRemoteMethod(call, Boolean.class);
-
-        if (valid != null && valid) {
+        // Validação local: assinatura, expiração e lista de revogação
+        if (tokenVerifier.verify(token) != null) {
             HttpUtils.sendJsonResponse(exchange, 200, "{\"valid\": true}");
         } else {
             HttpUtils.sendJsonResponse(exchange, 401, "{\"valid\": false}");
@@ -0,0 +1,88 @@
+package br.ifmg.sd.gateway.utilities;
+
+/**
+ * Intervalo de bytes de um cabeçalho Range (RFC 7233). Apenas intervalos
+ * únicos são suportados; pedidos com múltiplos intervalos recebem o arquivo
+ * inteiro, o que a especificação permite.
+ */
+public class ByteRange {
+
+    private final long start;
+    private final long end;
+
+    private ByteRange(long start, long end) {
+        this.start = start;
+        this.end = end;
+    }
+
+    public long getStart() {
+        return start;
+    }
+
+    /**
+     * Posição do último byte, inclusiva.
+     */
+    public long getEnd() {
+        return end;
+    }
+
+    public long getLength() {
+        return end - start + 1;
+    }
+
+    public String toContentRange(long totalSize) {
+        return "bytes " + start + "-" + end + "/" + totalSize;
+    }
+
+    /**
+     * Interpreta o cabeçalho Range para um arquivo de totalSize bytes.
+     *
+     * @return o intervalo pedido; null se o cabeçalho estiver ausente ou não
+     *         for suportado (o arquivo inteiro deve ser enviado)
+     * @throws IllegalStateException se o intervalo não puder ser satisfeito
+     */
+    public static ByteRange parse(String header, long totalSize) {
+        if (header == null || !header.startsWith("bytes=")) {
+            return null;
+        }
+
+        String spec = header.substring("bytes=".length()).trim();
+        if (spec.contains(",")) {
+            return null;
+        }
+
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return null;
+        }
+
+        String first = spec.substring(0, dash).trim();
+        String last = spec.substring(dash + 1).trim();
+
+        try {
+            long start;
+            long end;
+            if (first.isEmpty()) {
+                // Sufixo: os últimos N bytes
+                long suffix = Long.parseLong(last);
+                if (suffix <= 0) {
+                    throw new IllegalStateException("Range não satisfazível");
+                }
+                start = Math.max(0, totalSize - suffix);
+                end = totalSize - 1;
+            } else {
+                start = Long.parseLong(first);
+                end = last.isEmpty()
+                    ? totalSize - 1
+                    : Math.min(Long.parseLong(last), totalSize - 1);
+            }
+
+            if (start >= totalSize || start > end) {
+                throw new IllegalStateException("Range não satisfazível");
+            }
+            return new ByteRange(start, end);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
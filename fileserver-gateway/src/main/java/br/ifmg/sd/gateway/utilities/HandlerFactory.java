@@ -1,17 +1,31 @@
 package br.ifmg.sd.gateway.utilities;
 
+import br.ifmg.sd.gateway.core.AdmissionController;
+import br.ifmg.sd.gateway.core.ChangeNotifier;
 import br.ifmg.sd.gateway.core.ClusterClient;
+import br.ifmg.sd.gateway.core.FileCache;
+import br.ifmg.sd.gateway.core.GatewayExecutor;
+import br.ifmg.sd.gateway.core.TokenVerifier;
+import br.ifmg.sd.gateway.handlers.AdminLimitsHandler;
+import br.ifmg.sd.gateway.handlers.BatchHandler;
+import br.ifmg.sd.gateway.handlers.ChangesHandler;
 import br.ifmg.sd.gateway.handlers.DeleteFileHandler;
 import br.ifmg.sd.gateway.handlers.DownloadFileHandler;
+import br.ifmg.sd.gateway.handlers.FileResourceHandler;
 import br.ifmg.sd.gateway.handlers.HealthHandler;
 import br.ifmg.sd.gateway.handlers.ListFilesHandler;
 import br.ifmg.sd.gateway.handlers.LoginHandler;
 import br.ifmg.sd.gateway.handlers.LogoutHandler;
+import br.ifmg.sd.gateway.handlers.MetricsHandler;
+import br.ifmg.sd.gateway.handlers.MultipartUploadHandler;
+import br.ifmg.sd.gateway.handlers.PresignHandler;
+import br.ifmg.sd.gateway.handlers.PublicFileHandler;
 import br.ifmg.sd.gateway.handlers.RegisterHandler;
 import br.ifmg.sd.gateway.handlers.SearchFilesHandler;
 import br.ifmg.sd.gateway.handlers.UpdateFileHandler;
 import br.ifmg.sd.gateway.handlers.UploadFileHandler;
 import br.ifmg.sd.gateway.handlers.ValidateHandler;
+import br.ifmg.sd.metrics.MetricsRegistry;
 import com.sun.net.httpserver.HttpHandler;
 import java.util.List;
 import java.util.function.Supplier;
@@ -21,13 +35,31 @@ public class HandlerFactory {
 
     private final ClusterClient clusterClient;
     private final Supplier<List<Address>> serverProvider;
+    private final GatewayExecutor executor;
+    private final TokenVerifier tokenVerifier;
+    private final FileCache fileCache;
+    private final AdmissionController admission;
+    private final MetricsRegistry metrics;
+    private final ChangeNotifier changeNotifier;
 
     public HandlerFactory(
         ClusterClient clusterClient,
-        Supplier<List<Address>> serverProvider
+        Supplier<List<Address>> serverProvider,
+        GatewayExecutor executor,
+        TokenVerifier tokenVerifier,
+        FileCache fileCache,
+        AdmissionController admission,
+        MetricsRegistry metrics,
+        ChangeNotifier changeNotifier
     ) {
         this.clusterClient = clusterClient;
         this.serverProvider = serverProvider;
+        this.executor = executor;
+        this.tokenVerifier = tokenVerifier;
+        this.fileCache = fileCache;
+        this.admission = admission;
+        this.metrics = metrics;
+        this.changeNotifier = changeNotifier;
     }
 
     public HttpHandler createRegisterHandler() {
@@ -39,38 +71,70 @@ public class HandlerFactory {
     }
 
     public HttpHandler createLogoutHandler() {
-        return new LogoutHandler(clusterClient);
+        return new LogoutHandler(clusterClient, tokenVerifier);
     }
 
     public HttpHandler createValidateHandler() {
-        return new ValidateHandler(clusterClient);
+        return new ValidateHandler(clusterClient, tokenVerifier);
     }
 
     public HttpHandler createHealthHandler() {
-        return new HealthHandler(serverProvider);
+        return new HealthHandler(serverProvider, executor);
     }
 
     public HttpHandler createUploadFileHandler() {
-        return new UploadFileHandler(clusterClient);
+        return new UploadFileHandler(clusterClient, tokenVerifier);
     }
 
     public HttpHandler createListFilesHandler() {
-        return new ListFilesHandler(clusterClient);
+        return new ListFilesHandler(clusterClient, tokenVerifier);
     }
 
     public HttpHandler createSearchFilesHandler() {
-        return new SearchFilesHandler(clusterClient);
+        return new SearchFilesHandler(clusterClient, tokenVerifier);
     }
 
     public HttpHandler createDownloadFileHandler() {
-        return new DownloadFileHandler(clusterClient);
+        return new DownloadFileHandler(clusterClient, tokenVerifier, fileCache);
     }
 
     public HttpHandler createUpdateFileHandler() {
-        return new UpdateFileHandler(clusterClient);
+        return new UpdateFileHandler(clusterClient, tokenVerifier);
     }
 
     public HttpHandler createDeleteFileHandler() {
-        return new DeleteFileHandler(clusterClient);
+        return new DeleteFileHandler(clusterClient, tokenVerifier);
+    }
+
+    public HttpHandler createFileResourceHandler() {
+        return new FileResourceHandler(clusterClient, tokenVerifier, fileCache);
+    }
+
+    public HttpHandler createMultipartUploadHandler() {
+        return new MultipartUploadHandler(clusterClient, tokenVerifier);
+    }
+
+    public HttpHandler createBatchHandler() {
+        return new BatchHandler(clusterClient, tokenVerifier);
+    }
+
+    public ChangesHandler createChangesHandler() {
+        return new ChangesHandler(clusterClient, tokenVerifier, changeNotifier);
+    }
+
+    public HttpHandler createPresignHandler() {
+        return new PresignHandler(clusterClient, tokenVerifier);
+    }
+
+    public HttpHandler createPublicFileHandler() {
+        return new PublicFileHandler(clusterClient, fileCache);
+    }
+
+    public HttpHandler createAdminLimitsHandler() {
+        return new AdminLimitsHandler(admission);
+    }
+
+    public HttpHandler createMetricsHandler() {
+        return new MetricsHandler(metrics);
     }
 }
@@ -1,31 +1,54 @@
 package br.ifmg.sd.gateway.utilities;
 
+import br.ifmg.sd.models.FileMetadata;
 import com.sun.net.httpserver.HttpExchange;
+import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.HashMap;
+import java.util.HexFormat;
 import java.util.Map;
 
 public class HttpUtils {
 
+    public static final String ROUTE_ATTRIBUTE = "gateway.route";
+
+    /**
+     * Rota lógica da requisição: o contexto que a atende, ou o contexto para
+     * onde o {@code ResourceRouteFilter} a desviou.
+     */
+    public static String routeOf(HttpExchange exchange) {
+        Object route = exchange.getAttribute(ROUTE_ATTRIBUTE);
+        if (route instanceof String) {
+            return (String) route;
+        }
+        return exchange.getHttpContext().getPath();
+    }
+
+    /**
+     * Lê um objeto JSON plano do corpo em uma única passada. Para corpos com
+     * conteúdo grande, use {@link JsonReader} direto e leia o campo como
+     * stream.
+     */
     public static Map<String, String> parseJsonBody(HttpExchange exchange)
         throws IOException {
-        String body = new String(
-            exchange.getRequestBody().readAllBytes(),
-            StandardCharsets.UTF_8
-        );
         Map<String, String> result = new HashMap<>();
+        JsonReader reader = new JsonReader(exchange.getRequestBody());
 
-        body = body.trim().replace("{", "").replace("}", "");
-        for (String pair : body.split(",")) {
-            String[] kv = pair.split(":", 2);
-            if (kv.length == 2) {
-                String key = kv[0].trim().replace("\"", "");
-                String value = kv[1].trim().replace("\"", "");
-                result.put(key, value);
-            }
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            result.put(name, reader.nextString());
         }
+        reader.endObject();
         return result;
     }
 
@@ -42,13 +65,216 @@ public class HttpUtils {
         }
     }
 
+    /**
+     * Resposta JSON pequena, serializada em memória e enviada com
+     * Content-Length.
+     */
+    public static void sendJson(
+        HttpExchange exchange,
+        int statusCode,
+        JsonWriter.Body body
+    ) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        byte[] bytes = JsonWriter.toBytes(body);
+        exchange.sendResponseHeaders(statusCode, bytes.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(bytes);
+        }
+    }
+
+    /**
+     * Resposta JSON de tamanho arbitrário, escrita direto no corpo da
+     * resposta em chunked encoding.
+     */
+    public static void streamJson(
+        HttpExchange exchange,
+        int statusCode,
+        JsonWriter.Body body
+    ) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(statusCode, 0);
+        try (JsonWriter json = new JsonWriter(exchange.getResponseBody())) {
+            body.writeTo(json);
+        }
+    }
+
     public static void sendErrorResponse(
         HttpExchange exchange,
         int statusCode,
         String message
     ) throws IOException {
-        String json = String.format("{\"error\": \"%s\"}", message);
-        sendJsonResponse(exchange, statusCode, json);
+        sendJson(
+            exchange,
+            statusCode,
+            json -> json.beginObject().name("error").value(message).endObject()
+        );
+    }
+
+    /**
+     * ETag forte derivado dos metadados: muda sempre que o arquivo é
+     * regravado ou editado.
+     */
+    public static String fileETag(FileMetadata metadata) {
+        return fileETag(metadata.getUpdatedAt(), metadata.getFileSize());
+    }
+
+    public static String fileETag(long updatedAt, long fileSize) {
+        return "\"" +
+            Long.toHexString(updatedAt) +
+            "-" +
+            Long.toHexString(fileSize) +
+            "\"";
+    }
+
+    /**
+     * ETag de uma listagem a partir da versão informada pelo cluster
+     * (getFileListVersion) e da chave da listagem (usuário ou termo de
+     * busca). Obtido antes da listagem, permite responder 304 sem buscá-la.
+     */
+    public static String listingETag(String key, long version) {
+        MessageDigest digest = sha256();
+        digest.update(key.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        digest.update(ByteBuffer.allocate(Long.BYTES).putLong(version).array());
+        return digestETag(digest);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponível", e);
+        }
+    }
+
+    private static String digestETag(MessageDigest digest) {
+        return "\"" + HexFormat.of().formatHex(digest.digest(), 0, 16) + "\"";
+    }
+
+    /**
+     * Avalia If-None-Match e, na ausência dele, If-Modified-Since. Use
+     * lastModified negativo quando a resposta não tem data de modificação.
+     */
+    public static boolean isNotModified(
+        HttpExchange exchange,
+        String etag,
+        long lastModified
+    ) {
+        String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+        if (ifNoneMatch != null) {
+            for (String candidate : ifNoneMatch.split(",")) {
+                String value = candidate.trim();
+                if (value.startsWith("W/")) {
+                    value = value.substring(2);
+                }
+                if (value.equals("*") || value.equals(etag)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        String ifModifiedSince = exchange.getRequestHeaders().getFirst("If-Modified-Since");
+        if (ifModifiedSince == null || lastModified < 0) {
+            return false;
+        }
+        long since = parseHttpDate(ifModifiedSince);
+        // HTTP-date tem resolução de segundos
+        return since >= 0 && lastModified / 1000 <= since / 1000;
+    }
+
+    public static void sendNotModified(
+        HttpExchange exchange,
+        String etag,
+        long lastModified
+    ) throws IOException {
+        exchange.getResponseHeaders().set("ETag", etag);
+        if (lastModified >= 0) {
+            exchange.getResponseHeaders().set("Last-Modified", formatHttpDate(lastModified));
+        }
+        exchange.sendResponseHeaders(304, -1);
+        exchange.close();
+    }
+
+    /**
+     * Responde um JSON de leitura com o ETag informado, ou 304 se o cliente
+     * já tem essa mesma versão. O corpo só é serializado se for enviado.
+     */
+    public static void sendConditionalJson(
+        HttpExchange exchange,
+        String etag,
+        JsonWriter.Body body
+    ) throws IOException {
+        exchange.getResponseHeaders().set("Cache-Control", "private, no-cache");
+        if (isNotModified(exchange, etag, -1)) {
+            sendNotModified(exchange, etag, -1);
+            return;
+        }
+        exchange.getResponseHeaders().set("ETag", etag);
+        streamJson(exchange, 200, body);
+    }
+
+    /**
+     * Stream que escreve em out e também em copy, para guardar no cache o
+     * corpo enviado ao cliente.
+     */
+    public static OutputStream tee(OutputStream out, OutputStream copy) {
+        return new FilterOutputStream(out) {
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+                copy.write(b, off, len);
+            }
+
+            @Override
+            public void write(int b) throws IOException {
+                out.write(b);
+                copy.write(b);
+            }
+        };
+    }
+
+    public static String formatHttpDate(long epochMillis) {
+        return DateTimeFormatter.RFC_1123_DATE_TIME.format(
+            Instant.ofEpochMilli(epochMillis).atZone(ZoneOffset.UTC)
+        );
+    }
+
+    /**
+     * Retorna o instante em milissegundos, ou -1 se a data for inválida.
+     */
+    public static long parseHttpDate(String value) {
+        try {
+            return ZonedDateTime
+                .parse(value, DateTimeFormatter.RFC_1123_DATE_TIME)
+                .toInstant()
+                .toEpochMilli();
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Decodifica um segmento de caminho só pelos escapes %XX; "+" no
+     * caminho é literal, ao contrário da query. Retorna null se o escape for
+     * inválido ou se o resultado não for um nome simples (vazio, "/", "\",
+     * "." ou "..").
+     */
+    public static String decodePathSegment(String rawSegment) {
+        String decoded;
+        try {
+            decoded = java.net.URLDecoder.decode(
+                rawSegment.replace("+", "%2B"),
+                StandardCharsets.UTF_8
+            );
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        if (decoded.isEmpty() || decoded.contains("/") || decoded.contains("\\") ||
+            decoded.equals(".") || decoded.equals("..") || decoded.indexOf('\0') >= 0) {
+            return null;
+        }
+        return decoded;
     }
 
     public static Map<String, String> parseQueryParams(String query) {
@@ -0,0 +1,386 @@
+package br.ifmg.sd.gateway.utilities;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Leitor de JSON em uma única passada sobre o corpo da requisição. Valores
+ * grandes (como o conteúdo em
+ * Base64 dos uploads) podem ser lidos como stream com
+ * {@link #nextStringStream()}, sem nunca existir como String.
+ *
+ * Uso:
+ *   reader.beginObject();
+ *   while (reader.hasNext()) {
+ *       String name = reader.nextName();
+ *       ...
+ *   }
+ *   reader.endObject();
+ */
+public class JsonReader {
+
+    /**
+     * Corpo que não é um JSON válido; os handlers respondem 400.
+     */
+    public static class MalformedJsonException extends IOException {
+
+        private static final long serialVersionUID = 1L;
+
+        public MalformedJsonException(String message) {
+            super(message);
+        }
+    }
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final InputStream in;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int position;
+    private int limit;
+
+    // Para cada objeto/array aberto: se o próximo elemento é o primeiro
+    private boolean[] firstElement = new boolean[8];
+    private int depth;
+    private StringValueStream openStream;
+
+    public JsonReader(InputStream in) {
+        this.in = in;
+    }
+
+    public void beginObject() throws IOException {
+        expect('{');
+        push();
+    }
+
+    public void endObject() throws IOException {
+        finishOpenStream();
+        expect('}');
+        depth--;
+    }
+
+    public void beginArray() throws IOException {
+        expect('[');
+        push();
+    }
+
+    public void endArray() throws IOException {
+        finishOpenStream();
+        expect(']');
+        depth--;
+    }
+
+    /**
+     * Indica se há mais um membro no objeto (ou elemento no array) atual,
+     * consumindo a vírgula que o separa do anterior.
+     */
+    public boolean hasNext() throws IOException {
+        finishOpenStream();
+        int c = peekNonWhitespace();
+        if (c == '}' || c == ']') {
+            return false;
+        }
+        if (depth > 0) {
+            if (!firstElement[depth - 1]) {
+                expect(',');
+            }
+            firstElement[depth - 1] = false;
+        }
+        return true;
+    }
+
+    public String nextName() throws IOException {
+        String name = readString();
+        expect(':');
+        return name;
+    }
+
+    /**
+     * Retorna o valor como texto: strings sem aspas, números e booleanos
+     * como aparecem no JSON, null como null. Objetos e arrays aninhados são
+     * ignorados e retornam null.
+     */
+    public String nextString() throws IOException {
+        int c = peekNonWhitespace();
+        if (c == '"') {
+            return readString();
+        }
+        if (c == '{' || c == '[') {
+            skipValue();
+            return null;
+        }
+        String literal = readLiteral();
+        return "null".equals(literal) ? null : literal;
+    }
+
+    /**
+     * Retorna o valor string como stream dos seus bytes UTF-8, já sem
+     * escapes. Deve ser consumido antes de avançar para o próximo membro; o
+     * que sobrar é descartado por {@link #hasNext()}.
+     */
+    public InputStream nextStringStream() throws IOException {
+        expect('"');
+        openStream = new StringValueStream();
+        return openStream;
+    }
+
+    public void skipValue() throws IOException {
+        int c = peekNonWhitespace();
+        if (c == '"') {
+            position++;
+            new StringValueStream().skipAll();
+            return;
+        }
+        if (c != '{' && c != '[') {
+            readLiteral();
+            return;
+        }
+
+        int depth = 0;
+        do {
+            c = read();
+            if (c == '"') {
+                new StringValueStream().skipAll();
+            } else if (c == '{' || c == '[') {
+                depth++;
+            } else if (c == '}' || c == ']') {
+                depth--;
+            } else if (c < 0) {
+                throw new MalformedJsonException("JSON incompleto");
+            }
+        } while (depth > 0);
+    }
+
+    private String readString() throws IOException {
+        expect('"');
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(32);
+        new StringValueStream().transferTo(bytes);
+        return bytes.toString(StandardCharsets.UTF_8);
+    }
+
+    private String readLiteral() throws IOException {
+        StringBuilder literal = new StringBuilder();
+        int c = peekNonWhitespace();
+        while (c >= 0 && c != ',' && c != '}' && c != ']' && !isWhitespace(c)) {
+            literal.append((char) c);
+            position++;
+            c = peek();
+        }
+        if (literal.length() == 0) {
+            throw new MalformedJsonException("Valor esperado");
+        }
+        return literal.toString();
+    }
+
+    private void push() {
+        if (depth == firstElement.length) {
+            firstElement = Arrays.copyOf(firstElement, depth * 2);
+        }
+        firstElement[depth++] = true;
+    }
+
+    private void finishOpenStream() throws IOException {
+        if (openStream != null) {
+            openStream.skipAll();
+            openStream = null;
+        }
+    }
+
+    private void expect(char expected) throws IOException {
+        int c = peekNonWhitespace();
+        if (c != expected) {
+            throw new MalformedJsonException(
+                "Esperado '" + expected + "'" + (c < 0 ? " no fim do corpo" : "")
+            );
+        }
+        position++;
+    }
+
+    private int peekNonWhitespace() throws IOException {
+        int c = peek();
+        while (isWhitespace(c)) {
+            position++;
+            c = peek();
+        }
+        return c;
+    }
+
+    private int peek() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position] & 0xFF;
+    }
+
+    private int read() throws IOException {
+        int c = peek();
+        if (c >= 0) {
+            position++;
+        }
+        return c;
+    }
+
+    private boolean fill() throws IOException {
+        int n = in.read(buffer, 0, buffer.length);
+        if (n <= 0) {
+            return false;
+        }
+        position = 0;
+        limit = n;
+        return true;
+    }
+
+    private static boolean isWhitespace(int c) {
+        return c == ' ' || c == '\n' || c == '\r' || c == '\t';
+    }
+
+    /**
+     * Bytes de um valor string a partir da aspa de abertura já consumida,
+     * com os escapes resolvidos. Termina na aspa de fechamento.
+     */
+    private class StringValueStream extends InputStream {
+
+        // Bytes UTF-8 de um escape \\uXXXX ainda não entregues
+        private final byte[] pending = new byte[4];
+        private int pendingPosition;
+        private int pendingLength;
+        private boolean finished;
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            int n = read(single, 0, 1);
+            return n < 0 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            int written = 0;
+            while (written < len) {
+                if (pendingPosition < pendingLength) {
+                    b[off + written++] = pending[pendingPosition++];
+                    continue;
+                }
+                if (finished) {
+                    break;
+                }
+                if (position == limit && !fill()) {
+                    throw new MalformedJsonException("String não terminada");
+                }
+
+                // Copia em bloco até a próxima aspa ou barra
+                int start = position;
+                int end = Math.min(limit, start + (len - written));
+                int i = start;
+                while (i < end && buffer[i] != '"' && buffer[i] != '\\') {
+                    i++;
+                }
+                if (i > start) {
+                    System.arraycopy(buffer, start, b, off + written, i - start);
+                    written += i - start;
+                    position = i;
+                    continue;
+                }
+
+                position++;
+                if (buffer[i] == '"') {
+                    finished = true;
+                } else {
+                    readEscape();
+                }
+            }
+            return written == 0 && finished ? -1 : written;
+        }
+
+        void skipAll() throws IOException {
+            byte[] discard = new byte[BUFFER_SIZE];
+            while (read(discard, 0, discard.length) >= 0) {
+                // descarta
+            }
+        }
+
+        private void readEscape() throws IOException {
+            int c = JsonReader.this.read();
+            pendingPosition = 0;
+            pendingLength = 1;
+            switch (c) {
+                case '"':
+                case '\\':
+                case '/':
+                    pending[0] = (byte) c;
+                    break;
+                case 'b':
+                    pending[0] = '\b';
+                    break;
+                case 'f':
+                    pending[0] = '\f';
+                    break;
+                case 'n':
+                    pending[0] = '\n';
+                    break;
+                case 'r':
+                    pending[0] = '\r';
+                    break;
+                case 't':
+                    pending[0] = '\t';
+                    break;
+                case 'u':
+                    encodeCodePoint(readUnicodeEscape());
+                    break;
+                default:
+                    throw new MalformedJsonException("Escape inválido na string");
+            }
+        }
+
+        private int readUnicodeEscape() throws IOException {
+            int high = readHex4();
+            if (!Character.isHighSurrogate((char) high)) {
+                return high;
+            }
+            // Par de surrogates: \\uD83D\\uDE00
+            if (JsonReader.this.read() != '\\' || JsonReader.this.read() != 'u') {
+                throw new MalformedJsonException("Surrogate incompleto na string");
+            }
+            return Character.toCodePoint((char) high, (char) readHex4());
+        }
+
+        private int readHex4() throws IOException {
+            int value = 0;
+            for (int i = 0; i < 4; i++) {
+                int digit = Character.digit(JsonReader.this.read(), 16);
+                if (digit < 0) {
+                    throw new MalformedJsonException("Escape \\u inválido");
+                }
+                value = (value << 4) | digit;
+            }
+            return value;
+        }
+
+        private void encodeCodePoint(int codePoint) {
+            if (codePoint < 0x80) {
+                pending[0] = (byte) codePoint;
+                pendingLength = 1;
+            } else if (codePoint < 0x800) {
+                pending[0] = (byte) (0xC0 | (codePoint >> 6));
+                pending[1] = (byte) (0x80 | (codePoint & 0x3F));
+                pendingLength = 2;
+            } else if (codePoint < 0x10000) {
+                pending[0] = (byte) (0xE0 | (codePoint >> 12));
+                pending[1] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                pending[2] = (byte) (0x80 | (codePoint & 0x3F));
+                pendingLength = 3;
+            } else {
+                pending[0] = (byte) (0xF0 | (codePoint >> 18));
+                pending[1] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                pending[2] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                pending[3] = (byte) (0x80 | (codePoint & 0x3F));
+                pendingLength = 4;
+            }
+        }
+    }
+}
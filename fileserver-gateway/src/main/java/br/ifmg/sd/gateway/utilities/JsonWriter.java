@@ -0,0 +1,283 @@
+package br.ifmg.sd.gateway.utilities;
+
+import br.ifmg.sd.models.FileMetadata;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * Escritor de JSON que codifica UTF-8 direto em um buffer e o descarrega no
+ * OutputStream da resposta, sem montar Strings intermediárias. Cuida das
+ * vírgulas entre elementos e do escape das strings.
+ *
+ * Uso:
+ *   json.beginObject().name("files").beginArray();
+ *   for (...) json.value(nome);
+ *   json.endArray().endObject();
+ */
+public class JsonWriter implements Closeable {
+
+    /**
+     * Corpo de uma resposta JSON, escrito sob demanda.
+     */
+    @FunctionalInterface
+    public interface Body {
+        void writeTo(JsonWriter json) throws IOException;
+    }
+
+    private static final int BUFFER_SIZE = 8192;
+    private static final byte[] HEX = "0123456789abcdef".getBytes();
+
+    private final OutputStream out;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int position;
+
+    // Para cada nível aberto: se o próximo elemento precisa de vírgula antes
+    private boolean[] needsComma = new boolean[8];
+    private int depth;
+    private boolean afterName;
+
+    public JsonWriter(OutputStream out) {
+        this.out = out;
+    }
+
+    /**
+     * Serializa um corpo pequeno em memória, para respostas com
+     * Content-Length conhecido.
+     */
+    public static byte[] toBytes(Body body) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (JsonWriter json = new JsonWriter(bytes)) {
+            body.writeTo(json);
+        }
+        return bytes.toByteArray();
+    }
+
+    public JsonWriter beginObject() throws IOException {
+        separator();
+        writeByte('{');
+        push();
+        return this;
+    }
+
+    public JsonWriter endObject() throws IOException {
+        depth--;
+        writeByte('}');
+        return this;
+    }
+
+    public JsonWriter beginArray() throws IOException {
+        separator();
+        writeByte('[');
+        push();
+        return this;
+    }
+
+    public JsonWriter endArray() throws IOException {
+        depth--;
+        writeByte(']');
+        return this;
+    }
+
+    public JsonWriter name(String name) throws IOException {
+        separator();
+        writeString(name);
+        writeByte(':');
+        afterName = true;
+        return this;
+    }
+
+    public JsonWriter value(String value) throws IOException {
+        separator();
+        if (value == null) {
+            writeAscii("null");
+        } else {
+            writeString(value);
+        }
+        return this;
+    }
+
+    public JsonWriter value(long value) throws IOException {
+        separator();
+        writeAscii(Long.toString(value));
+        return this;
+    }
+
+    public JsonWriter value(boolean value) throws IOException {
+        separator();
+        writeAscii(value ? "true" : "false");
+        return this;
+    }
+
+    /**
+     * Escreve o conteúdo como string Base64, codificado direto no buffer.
+     */
+    public JsonWriter base64Value(byte[] data) throws IOException {
+        separator();
+        writeByte('"');
+        OutputStream encoder = Base64.getEncoder().wrap(new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                writeByte(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                writeRaw(b, off, len);
+            }
+
+            @Override
+            public void close() {
+                // O fechamento do encoder só escreve o padding; o stream da
+                // resposta continua aberto
+            }
+        });
+        encoder.write(data);
+        encoder.close();
+        writeByte('"');
+        return this;
+    }
+
+    /**
+     * Metadados de arquivo no formato das respostas do gateway (sem o
+     * caminho em disco).
+     */
+    public JsonWriter value(FileMetadata metadata) throws IOException {
+        return beginObject()
+            .name("userId").value(metadata.getUserId())
+            .name("userName").value(metadata.getUserName())
+            .name("fileName").value(metadata.getFileName())
+            .name("createdAt").value(metadata.getCreatedAt())
+            .name("updatedAt").value(metadata.getUpdatedAt())
+            .name("fileSize").value(metadata.getFileSize())
+            .endObject();
+    }
+
+    public void flush() throws IOException {
+        if (position > 0) {
+            out.write(buffer, 0, position);
+            position = 0;
+        }
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        out.close();
+    }
+
+    private void separator() throws IOException {
+        if (afterName) {
+            afterName = false;
+            return;
+        }
+        if (depth > 0) {
+            if (needsComma[depth - 1]) {
+                writeByte(',');
+            } else {
+                needsComma[depth - 1] = true;
+            }
+        }
+    }
+
+    private void push() {
+        if (depth == needsComma.length) {
+            needsComma = Arrays.copyOf(needsComma, depth * 2);
+        }
+        needsComma[depth++] = false;
+    }
+
+    private void writeString(String value) throws IOException {
+        writeByte('"');
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                writeAsciiChar(c);
+            } else if (c < 0x800) {
+                writeByte(0xC0 | (c >> 6));
+                writeByte(0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) &&
+                i + 1 < length &&
+                Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                writeByte(0xF0 | (codePoint >> 18));
+                writeByte(0x80 | ((codePoint >> 12) & 0x3F));
+                writeByte(0x80 | ((codePoint >> 6) & 0x3F));
+                writeByte(0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                // Surrogate isolado não tem representação em UTF-8
+                writeByte('?');
+            } else {
+                writeByte(0xE0 | (c >> 12));
+                writeByte(0x80 | ((c >> 6) & 0x3F));
+                writeByte(0x80 | (c & 0x3F));
+            }
+        }
+        writeByte('"');
+    }
+
+    private void writeAsciiChar(char c) throws IOException {
+        switch (c) {
+            case '"':
+                writeByte('\\');
+                writeByte('"');
+                break;
+            case '\\':
+                writeByte('\\');
+                writeByte('\\');
+                break;
+            case '\n':
+                writeByte('\\');
+                writeByte('n');
+                break;
+            case '\r':
+                writeByte('\\');
+                writeByte('r');
+                break;
+            case '\t':
+                writeByte('\\');
+                writeByte('t');
+                break;
+            default:
+                if (c < 0x20) {
+                    writeAscii("\\u00");
+                    writeByte(HEX[c >> 4]);
+                    writeByte(HEX[c & 0xF]);
+                } else {
+                    writeByte(c);
+                }
+        }
+    }
+
+    private void writeAscii(String value) throws IOException {
+        for (int i = 0; i < value.length(); i++) {
+            writeByte(value.charAt(i));
+        }
+    }
+
+    private void writeByte(int b) throws IOException {
+        if (position == buffer.length) {
+            out.write(buffer, 0, position);
+            position = 0;
+        }
+        buffer[position++] = (byte) b;
+    }
+
+    private void writeRaw(byte[] b, int off, int len) throws IOException {
+        if (len > buffer.length - position) {
+            out.write(buffer, 0, position);
+            position = 0;
+            if (len > buffer.length) {
+                out.write(b, off, len);
+                return;
+            }
+        }
+        System.arraycopy(b, off, buffer, position, len);
+        position += len;
+    }
+}